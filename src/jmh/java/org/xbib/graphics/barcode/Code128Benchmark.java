@@ -0,0 +1,50 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of Code 128 symbols with the ISO 15417 Annex E rules and with the optimal
+ * subset planner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Code128Benchmark {
+
+    @Param({"Code 128 12345678 test", "12345a67890b12345", "Größe 42 ÄÖÜÉÈ 2019-0815 façade"})
+    public String content;
+
+    @Param({"false", "true"})
+    public boolean optimalSubsets;
+
+    @Benchmark
+    public Code128 encode() {
+        Code128 code128 = new Code128();
+        code128.setOptimalSubsets(optimalSubsets);
+        code128.setContent(content);
+        return code128;
+    }
+
+    @Benchmark
+    public Code128 encodeGs1() {
+        Code128 code128 = new Code128();
+        code128.setDataType(Symbol.DataType.GS1);
+        code128.setOptimalSubsets(optimalSubsets);
+        code128.setContent("[01]19012345678903[10]1234567890ABC[21]A1B2C3");
+        return code128;
+    }
+}
@@ -0,0 +1,60 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.graphics.barcode.util.DataBarWidths;
+
+/**
+ * Measures the encoding of the GS1 DataBar symbologies and the element width lookups they share.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataBarBenchmark {
+
+    @Param({"0950110153000", "0123456789015"})
+    public String content;
+
+    @Benchmark
+    public DataBar14 encodeDataBar14() {
+        DataBar14 dataBar14 = new DataBar14();
+        dataBar14.setContent(content);
+        return dataBar14;
+    }
+
+    @Benchmark
+    public DataBarLimited encodeDataBarLimited() {
+        DataBarLimited dataBarLimited = new DataBarLimited();
+        dataBarLimited.setContent(content);
+        return dataBarLimited;
+    }
+
+    @Benchmark
+    public DataBarExpanded encodeDataBarExpanded() {
+        DataBarExpanded dataBarExpanded = new DataBarExpanded();
+        dataBarExpanded.setContent("[01]9" + content + "[3202]012345[15]991231");
+        return dataBarExpanded;
+    }
+
+    @Benchmark
+    public int widths() {
+        int sum = 0;
+        for (int val = 0; val < 1000; val += 7) {
+            sum += DataBarWidths.getWidths(val, 17, 7, 6, 1)[0];
+        }
+        return sum;
+    }
+}
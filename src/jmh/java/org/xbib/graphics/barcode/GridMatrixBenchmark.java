@@ -0,0 +1,76 @@
+package org.xbib.graphics.barcode;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of mixed GB2312 texts in Grid Matrix symbols. Texts that don't fit into a
+ * symbol still run through mode selection before the length check fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridMatrixBenchmark {
+
+    private static final String HANZI = "电池充电器降压转换器中文字符测试数据汉字编码网格矩阵";
+
+    private static final String OTHER = " ,.-+:/";
+
+    @Param({"100", "300", "600", "1000", "1500"})
+    public int length;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(length);
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            int type = random.nextInt(6);
+            int run = 1 + random.nextInt(6);
+            for (int i = 0; i < run && sb.length() < length; i++) {
+                switch (type) {
+                    case 0:
+                    case 1:
+                        sb.append(HANZI.charAt(random.nextInt(HANZI.length())));
+                        break;
+                    case 2:
+                        sb.append((char) ('0' + random.nextInt(10)));
+                        break;
+                    case 3:
+                        sb.append((char) ('a' + random.nextInt(26)));
+                        break;
+                    case 4:
+                        sb.append((char) ('A' + random.nextInt(26)));
+                        break;
+                    default:
+                        sb.append(OTHER.charAt(random.nextInt(OTHER.length())));
+                        break;
+                }
+            }
+        }
+        text = sb.toString();
+    }
+
+    @Benchmark
+    public GridMatrix encode() {
+        GridMatrix gridMatrix = new GridMatrix();
+        gridMatrix.trySetContent(text);
+        return gridMatrix;
+    }
+}
@@ -0,0 +1,112 @@
+package org.xbib.graphics.barcode;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.graphics.barcode.output.Java2DRenderer;
+
+/**
+ * Measures rendering of retail symbols with human readable text, and of large stacked and matrix
+ * symbols, into a grayscale image, via a graphics context and directly into the image raster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Java2DRendererBenchmark {
+
+    private static final double SCALING_FACTOR = 4;
+
+    private Ean ean;
+
+    private Upc upc;
+
+    private Pdf417 pdf417;
+
+    private DataMatrix dataMatrix;
+
+    @Setup
+    public void setUp() {
+        ean = new Ean();
+        ean.setContent("501234567890");
+        upc = new Upc();
+        upc.setContent("01234567890+12345");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            sb.append("Invoice 2019-0815, Qty 12 x 4711-0815-42; ");
+        }
+        pdf417 = new Pdf417();
+        pdf417.setContent(sb.toString());
+        dataMatrix = new DataMatrix();
+        dataMatrix.setContent(sb.toString());
+    }
+
+    @Benchmark
+    public BufferedImage renderEan() {
+        return render(ean);
+    }
+
+    @Benchmark
+    public BufferedImage renderUpcWithAddOn() {
+        return render(upc);
+    }
+
+    @Benchmark
+    public BufferedImage renderPdf417() {
+        return render(pdf417);
+    }
+
+    @Benchmark
+    public BufferedImage renderPdf417ToRaster() {
+        return renderToRaster(pdf417);
+    }
+
+    @Benchmark
+    public BufferedImage renderDataMatrix() {
+        return render(dataMatrix);
+    }
+
+    @Benchmark
+    public BufferedImage renderDataMatrixToRaster() {
+        return renderToRaster(dataMatrix);
+    }
+
+    private static BufferedImage render(Symbol symbol) {
+        BufferedImage image = createImage(symbol);
+        Graphics2D g2d = image.createGraphics();
+        new Java2DRenderer(g2d, SCALING_FACTOR, Color.WHITE, Color.BLACK, true).render(symbol);
+        g2d.dispose();
+        return image;
+    }
+
+    private static BufferedImage renderToRaster(Symbol symbol) {
+        BufferedImage image = createImage(symbol);
+        new Java2DRenderer(image, SCALING_FACTOR, Color.WHITE, Color.BLACK, true).render(symbol);
+        return image;
+    }
+
+    private static BufferedImage createImage(Symbol symbol) {
+        int width = (int) (symbol.getWidth() * SCALING_FACTOR);
+        int height = (int) (symbol.getHeight() * SCALING_FACTOR);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setPaint(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return image;
+    }
+}
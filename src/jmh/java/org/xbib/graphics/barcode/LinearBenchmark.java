@@ -0,0 +1,75 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of the table-driven linear symbologies, both with a new symbol for each
+ * label and with one symbol reused for a series of labels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearBenchmark {
+
+    @Param({"Code3Of9", "Code93", "Codabar", "Code11", "MsiPlessey", "Telepen", "Code2Of5", "Logmars"})
+    public String symbology;
+
+    private String content;
+
+    private Symbol symbol;
+
+    @Setup
+    public void setUp() {
+        content = "Codabar".equals(symbology) ? "A0123456789012345B" : "012345678901234567";
+        symbol = create();
+    }
+
+    @Benchmark
+    public Symbol encode() {
+        Symbol symbol = create();
+        symbol.setContent(content);
+        return symbol;
+    }
+
+    @Benchmark
+    public Symbol encodeReused() {
+        symbol.setContent(content);
+        return symbol;
+    }
+
+    private Symbol create() {
+        switch (symbology) {
+            case "Code3Of9":
+                return new Code3Of9();
+            case "Code93":
+                return new Code93();
+            case "Codabar":
+                return new Codabar();
+            case "Code11":
+                return new Code11();
+            case "MsiPlessey":
+                return new MsiPlessey();
+            case "Telepen":
+                return new Telepen();
+            case "Code2Of5":
+                return new Code2Of5();
+            default:
+                return new Logmars();
+        }
+    }
+}
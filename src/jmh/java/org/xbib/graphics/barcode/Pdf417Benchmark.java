@@ -0,0 +1,75 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of large PDF417 symbols with 30 data columns, at the default and at the highest
+ * error correction level, and of MicroPDF417 symbols.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Pdf417Benchmark {
+
+    @Param({"NORMAL", "TRUNCATED"})
+    public Pdf417.Mode mode;
+
+    private String largeContent;
+
+    private String microContent;
+
+    private String highEccContent;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1200) {
+            sb.append("Invoice 2019-0815, Qty 12 x 4711-0815-42; ");
+        }
+        largeContent = sb.toString();
+        microContent = largeContent.substring(0, 120);
+        highEccContent = largeContent.substring(0, 560);
+    }
+
+    @Benchmark
+    public Pdf417 encodeLarge() {
+        Pdf417 pdf417 = new Pdf417();
+        pdf417.setMode(mode);
+        pdf417.setDataColumns(30);
+        pdf417.setContent(largeContent);
+        return pdf417;
+    }
+
+    @Benchmark
+    public Pdf417 encodeHighEcc() {
+        Pdf417 pdf417 = new Pdf417();
+        pdf417.setMode(mode);
+        pdf417.setDataColumns(30);
+        pdf417.setPreferredEccLevel(8);
+        pdf417.setContent(highEccContent);
+        return pdf417;
+    }
+
+    @Benchmark
+    public Pdf417 encodeMicro() {
+        Pdf417 pdf417 = new Pdf417();
+        pdf417.setMode(Pdf417.Mode.MICRO);
+        pdf417.setContent(microContent);
+        return pdf417;
+    }
+}
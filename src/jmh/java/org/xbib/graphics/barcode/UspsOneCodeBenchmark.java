@@ -0,0 +1,37 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of Intelligent Mail barcodes for each routing code length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UspsOneCodeBenchmark {
+
+    @Param({"01234567094987654321", "01234567094987654321-01234", "01234567094987654321-012345678",
+            "01234567094987654321-01234567891"})
+    public String content;
+
+    @Benchmark
+    public UspsOneCode encode() {
+        UspsOneCode uspsOneCode = new UspsOneCode();
+        uspsOneCode.setContent(content);
+        return uspsOneCode;
+    }
+}
@@ -0,0 +1,60 @@
+package org.xbib.graphics.barcode;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.graphics.barcode.util.CharacterClass;
+
+/**
+ * Compares input validation with {@link CharacterClass} against the regular expressions it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"0123456789012", "CODE 39 TEST-$/+%", "Grüße aus Köln, 2019-08-15 / Nr. 4711"})
+    public String content;
+
+    @Benchmark
+    public boolean regexNumeric() {
+        return content.matches("[0-9]+");
+    }
+
+    @Benchmark
+    public boolean characterClassNumeric() {
+        return CharacterClass.NUMERIC.matches(content);
+    }
+
+    @Benchmark
+    public boolean regexCode39() {
+        return content.matches("[0-9A-Z\\. \\-$/+%]+");
+    }
+
+    @Benchmark
+    public boolean characterClassCode39() {
+        return CharacterClass.CODE39.matches(content);
+    }
+
+    @Benchmark
+    public boolean regexLatin1() {
+        return content.matches("[\u0000-\u00FF]+");
+    }
+
+    @Benchmark
+    public boolean characterClassLatin1() {
+        return CharacterClass.LATIN_1.matches(content);
+    }
+}
@@ -1,5 +1,6 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.ReedSolomon;
 
 import java.awt.geom.Rectangle2D;
@@ -16,6 +17,8 @@ public class AustraliaPost extends Symbol {
             'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z', ' ', '#'
     };
 
+    private static final CharacterClass ALPHANUMERIC_SPACE_HASH = CharacterClass.of(new String(CHARACTER_SET));
+
     private static final String[] N_ENCODING_TABLE = {
             "00", "01", "02", "10", "11", "12", "20", "21", "22", "30"
     };
@@ -137,6 +140,7 @@ public class AustraliaPost extends Symbol {
         StringBuilder barStateValues;
         StringBuilder zeroPaddedInput = new StringBuilder();
         int i;
+        int invalid;
 
         switch (mode) {
             case AUSPOST:
@@ -149,8 +153,9 @@ public class AustraliaPost extends Symbol {
                         break;
                     case 16:
                         formatControlCode = "59";
-                        if (!(content.matches("[0-9]+"))) {
-                            errorMsg.append("Invalid characters in data");
+                        invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+                        if (invalid >= 0) {
+                            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
                             return false;
                         }
                         break;
@@ -159,19 +164,20 @@ public class AustraliaPost extends Symbol {
                         break;
                     case 23:
                         formatControlCode = "62";
-                        if (!(content.matches("[0-9]+"))) {
-                            errorMsg.append("Invalid characters in data");
+                        invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+                        if (invalid >= 0) {
+                            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
                             return false;
                         }
                         break;
                     default:
-                        errorMsg.append("Auspost input is wrong length");
+                        error(EncodeError.INVALID_LENGTH, "Auspost input is wrong length");
                         return false;
                 }
                 break;
             case AUSREPLY:
                 if (content.length() > 8) {
-                    errorMsg.append("Auspost input is too long");
+                    error(EncodeError.INPUT_TOO_LONG, "Auspost input is too long");
                     return false;
                 } else {
                     formatControlCode = "45";
@@ -179,7 +185,7 @@ public class AustraliaPost extends Symbol {
                 break;
             case AUSROUTE:
                 if (content.length() > 8) {
-                    errorMsg.append("Auspost input is too long");
+                    error(EncodeError.INPUT_TOO_LONG, "Auspost input is too long");
                     return false;
                 } else {
                     formatControlCode = "87";
@@ -187,7 +193,7 @@ public class AustraliaPost extends Symbol {
                 break;
             case AUSREDIRECT:
                 if (content.length() > 8) {
-                    errorMsg.append("Auspost input is too long");
+                    error(EncodeError.INPUT_TOO_LONG, "Auspost input is too long");
                     return false;
                 } else {
                     formatControlCode = "92";
@@ -195,7 +201,9 @@ public class AustraliaPost extends Symbol {
                 break;
         }
 
-        encodeInfo.append("FCC: ").append(formatControlCode).append('\n');
+        if (isSummaryEnabled()) {
+            encodeInfo.append("FCC: ").append(formatControlCode).append('\n');
+        }
 
         if (mode != ausMode.AUSPOST) {
             for (i = content.length(); i < 8; i++) {
@@ -204,20 +212,24 @@ public class AustraliaPost extends Symbol {
         }
         zeroPaddedInput.append(content);
 
-        if (!(content.matches("[0-9A-Za-z #]+"))) {
-            errorMsg.append("Invalid characters in data");
+        invalid = ALPHANUMERIC_SPACE_HASH.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
         /* Verify that the first 8 characters are numbers */
         deliveryPointId = zeroPaddedInput.substring(0, 8);
 
-        if (!(deliveryPointId.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in DPID");
+        invalid = CharacterClass.NUMERIC.indexOfInvalid(deliveryPointId);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in DPID at position ", invalid);
             return false;
         }
 
-        encodeInfo.append("DPID: ").append(deliveryPointId).append('\n');
+        if (isSummaryEnabled()) {
+            encodeInfo.append("DPID: ").append(deliveryPointId).append('\n');
+        }
 
         /* Start */
         barStateValues = new StringBuilder("13");
@@ -263,25 +275,29 @@ public class AustraliaPost extends Symbol {
         /* Stop character */
         barStateValues.append("13");
 
-        encodeInfo.append("Total length: ").append(barStateValues.length()).append('\n');
-        encodeInfo.append("Encoding: ");
-        for (i = 0; i < barStateValues.length(); i++) {
-            switch (barStateValues.charAt(i)) {
-                case '1':
-                    encodeInfo.append("A");
-                    break;
-                case '2':
-                    encodeInfo.append("D");
-                    break;
-                case '0':
-                    encodeInfo.append("F");
-                    break;
-                case '3':
-                    encodeInfo.append("T");
-                    break;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Total length: ").append(barStateValues.length()).append('\n');
+        }
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+            for (i = 0; i < barStateValues.length(); i++) {
+                switch (barStateValues.charAt(i)) {
+                    case '1':
+                        encodeInfo.append("A");
+                        break;
+                    case '2':
+                        encodeInfo.append("D");
+                        break;
+                    case '0':
+                        encodeInfo.append("F");
+                        break;
+                    case '3':
+                        encodeInfo.append("T");
+                        break;
+                }
             }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         readable = new StringBuilder();
         pattern = new String[1];
@@ -289,7 +305,7 @@ public class AustraliaPost extends Symbol {
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
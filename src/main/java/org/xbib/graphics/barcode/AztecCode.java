@@ -587,12 +587,12 @@ public class AztecCode extends Symbol {
         eciProcess(); // Get ECI mode
 
         if ((inputDataType == DataType.GS1) && (readerInit)) {
-            errorMsg.append("Cannot encode in GS1 and Reader Initialisation mode at the same time");
+            error(EncodeError.INVALID_SETTINGS, "Cannot encode in GS1 and Reader Initialisation mode at the same time");
             return false;
         }
 
         if (!generateAztecBinary()) {
-            errorMsg.append("Input too long or too many extended ASCII characters");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long or too many extended ASCII characters");
             return false;
         }
 
@@ -694,7 +694,7 @@ public class AztecCode extends Symbol {
 
                 if (layers == 0) { /* Couldn't find a symbol which fits the data */
 
-                    errorMsg.append("Input too long (too many bits for selected ECC)");
+                    error(EncodeError.INPUT_TOO_LONG, "Input too long (too many bits for selected ECC)");
                     return false;
                 }
 
@@ -777,18 +777,20 @@ public class AztecCode extends Symbol {
                     adjusted_string = new StringBuilder(adjusted_string.substring(0, adjusted_length - 1) + '0');
                 }
 
-                encodeInfo.append("Codewords: ");
-                for (i = 0; i < (adjusted_length / codeword_size); i++) {
-                    int l = 0, m = (1 << (codeword_size - 1));
-                    for (j = 0; j < codeword_size; j++) {
-                        if (adjusted_string.charAt((i * codeword_size) + j) == '1') {
-                            l += m;
+                if (isVerboseEnabled()) {
+                    encodeInfo.append("Codewords: ");
+                    for (i = 0; i < (adjusted_length / codeword_size); i++) {
+                        int l = 0, m = (1 << (codeword_size - 1));
+                        for (j = 0; j < codeword_size; j++) {
+                            if (adjusted_string.charAt((i * codeword_size) + j) == '1') {
+                                l += m;
+                            }
+                            m = m >> 1;
                         }
-                        m = m >> 1;
+                        encodeInfo.append(Integer.toString(l)).append(" ");
                     }
-                    encodeInfo.append(Integer.toString(l)).append(" ");
+                    encodeInfo.append("\n");
                 }
-                encodeInfo.append("\n");
 
             } while (adjusted_length > data_maxsize);
             /* This loop will only repeat on the rare occasions when the rule about not having all 1s or all 0s
@@ -890,26 +892,28 @@ public class AztecCode extends Symbol {
             }
 
             if (adjusted_length > data_maxsize) {
-                errorMsg.append("Data too long for specified Aztec Code symbol size");
+                error(EncodeError.INPUT_TOO_LONG, "Data too long for specified Aztec Code symbol size");
                 return false;
             }
 
-            encodeInfo.append("Codewords: ");
-            for (i = 0; i < (adjusted_length / codeword_size); i++) {
-                int l = 0, m = (1 << (codeword_size - 1));
-                for (j = 0; j < codeword_size; j++) {
-                    if (adjusted_string.charAt((i * codeword_size) + j) == '1') {
-                        l += m;
+            if (isVerboseEnabled()) {
+                encodeInfo.append("Codewords: ");
+                for (i = 0; i < (adjusted_length / codeword_size); i++) {
+                    int l = 0, m = (1 << (codeword_size - 1));
+                    for (j = 0; j < codeword_size; j++) {
+                        if (adjusted_string.charAt((i * codeword_size) + j) == '1') {
+                            l += m;
+                        }
+                        m = m >> 1;
                     }
-                    m = m >> 1;
+                    encodeInfo.append(Integer.toString(l)).append(" ");
                 }
-                encodeInfo.append(Integer.toString(l)).append(" ");
+                encodeInfo.append("\n");
             }
-            encodeInfo.append("\n");
         }
 
         if (readerInit && (layers > 22)) {
-            errorMsg.append("Data too long for reader initialisation symbol");
+            error(EncodeError.INPUT_TOO_LONG, "Data too long for reader initialisation symbol");
             return false;
         }
 
@@ -921,16 +925,18 @@ public class AztecCode extends Symbol {
             ecc_blocks = AztecSizes[layers - 1] - data_blocks;
         }
 
-        encodeInfo.append("Compact Mode: ");
-        if (compact) {
-            encodeInfo.append("TRUE\n");
-        } else {
-            encodeInfo.append("FALSE\n");
+        diagnostics.version = layers;
+        diagnostics.dataCodewords = data_blocks;
+        diagnostics.eccCodewords = ecc_blocks;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Compact Mode: ").append(compact ? "TRUE\n" : "FALSE\n");
+            encodeInfo.append("Layers: ").append(layers).append('\n');
+            encodeInfo.append("Codeword Length: ").append(codeword_size).append(" bits\n");
+            encodeInfo.append("Data Codewords: ").append(data_blocks).append('\n');
+            encodeInfo.append("ECC Codewords: ").append(ecc_blocks).append('\n');
         }
-        encodeInfo.append("Layers: ").append(layers).append('\n');
-        encodeInfo.append("Codeword Length: ").append(codeword_size).append(" bits\n");
-        encodeInfo.append("Data Codewords: ").append(data_blocks).append('\n');
-        encodeInfo.append("ECC Codewords: ").append(ecc_blocks).append('\n');
+
+        endPhase(EncodePhase.DATA_ENCODING);
 
         int[] data_part = new int[data_blocks + 3];
         int[] ecc_part = new int[ecc_blocks + 3];
@@ -1035,6 +1041,8 @@ public class AztecCode extends Symbol {
                 break;
         }
 
+        endPhase(EncodePhase.ERROR_CORRECTION);
+
         /* Invert the data so that actual data is on the outside and reed-solomon on the inside */
         total_bits = (data_blocks + ecc_blocks) * codeword_size;
         for (i = 0; i < total_bits; i++) {
@@ -1070,7 +1078,9 @@ public class AztecCode extends Symbol {
                     descriptor.append('0');
                 }
             }
-            encodeInfo.append("Mode Message: ").append(descriptor).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Mode Message: ").append(descriptor).append("\n");
+            }
             j = 2;
         } else {
             /* The first 5 bits represent the number of layers minus 1 */
@@ -1100,7 +1110,9 @@ public class AztecCode extends Symbol {
                 }
             }
 
-            encodeInfo.append("Mode Message: ").append(descriptor).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Mode Message: ").append(descriptor).append("\n");
+            }
             j = 4;
         }
 
@@ -1156,7 +1168,7 @@ public class AztecCode extends Symbol {
             rowCount = 27 - (2 * AztecCompactOffset[layers - 1]);
             rowHeight = new int[rowCount];
             rowHeight[0] = -1;
-            pattern = new String[rowCount];
+            runLengths = new int[rowCount][];
             bin = new StringBuilder();
             for (y = AztecCompactOffset[layers - 1]; y < (27 - AztecCompactOffset[layers - 1]); y++) {
                 for (x = AztecCompactOffset[layers - 1]; x < (27 - AztecCompactOffset[layers - 1]); x++) {
@@ -1182,7 +1194,7 @@ public class AztecCode extends Symbol {
                     }
                 }
                 rowHeight[y - AztecCompactOffset[layers - 1]] = 1;
-                pattern[y - AztecCompactOffset[layers - 1]] = bin2pat(bin.toString());
+                runLengths[y - AztecCompactOffset[layers - 1]] = bin2pat(bin);
                 bin = new StringBuilder();
             }
 
@@ -1190,7 +1202,7 @@ public class AztecCode extends Symbol {
             rowCount = 151 - (2 * AztecOffset[layers - 1]);
             rowHeight = new int[rowCount];
             rowHeight[0] = -1;
-            pattern = new String[rowCount];
+            runLengths = new int[rowCount][];
             bin = new StringBuilder();
             for (y = AztecOffset[layers - 1]; y < (151 - AztecOffset[layers - 1]); y++) {
                 for (x = AztecOffset[layers - 1]; x < (151 - AztecOffset[layers - 1]); x++) {
@@ -1214,12 +1226,13 @@ public class AztecCode extends Symbol {
                     }
                 }
                 rowHeight[y - AztecOffset[layers - 1]] = 1;
-                pattern[y - AztecOffset[layers - 1]] = bin2pat(bin.toString());
+                runLengths[y - AztecOffset[layers - 1]] = bin2pat(bin);
                 bin = new StringBuilder();
             }
         }
+        endPhase(EncodePhase.MODULE_PLACEMENT);
 
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -1513,7 +1526,9 @@ public class AztecCode extends Symbol {
 
         binaryString = new StringBuilder();
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
 
         curtable = 1; /* start with 1 table */
 
@@ -1536,24 +1551,32 @@ public class AztecCode extends Symbol {
                                 case 2:
                                     /* US */
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("US ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("US ");
+                                    }
                                     break;
                                 case 4:
                                     /* UL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                                 case 8:
                                     /* UL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                                 case 16:
                                     /* US */
                                     binaryString.append(quadbit[15]);
-                                    encodeInfo.append("US ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("US ");
+                                    }
                                     break;
                             }
                             break;
@@ -1563,29 +1586,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* LL */
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 4:
                                     /* LL */
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 8:
                                     /* UL LL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 16:
                                     /* UL LL */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                             }
@@ -1596,29 +1627,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* ML */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 2:
                                     /* ML */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 8:
                                     /* UL ML */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 16:
                                     /* UL ML */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                             }
@@ -1629,22 +1668,30 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* PS */
                                     binaryString.append(pentbit[0]);
-                                    encodeInfo.append("PS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PS ");
+                                    }
                                     break;
                                 case 2:
                                     /* PS */
                                     binaryString.append(pentbit[0]);
-                                    encodeInfo.append("PS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PS ");
+                                    }
                                     break;
                                 case 4:
                                     /* PS */
                                     binaryString.append(pentbit[0]);
-                                    encodeInfo.append("PS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PS ");
+                                    }
                                     break;
                                 case 16:
                                     /* PS */
                                     binaryString.append(quadbit[0]);
-                                    encodeInfo.append("PS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PS ");
+                                    }
                                     break;
                             }
                             break;
@@ -1654,29 +1701,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* DL */
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 2:
                                     /* DL */
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 4:
                                     /* UL DL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 8:
                                     /* UL DL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                             }
@@ -1691,27 +1746,35 @@ public class AztecCode extends Symbol {
                                 case 2:
                                     /* ML UL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                                 case 4:
                                     /* UL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                                 case 8:
                                     /* UL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                                 case 16:
                                     /* UL */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                    }
                                     newtable = 1;
                                     break;
                             }
@@ -1722,29 +1785,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* LL */
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 4:
                                     /* LL */
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 8:
                                     /* UL LL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                                 case 16:
                                     /* UL LL */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[28]);
-                                    encodeInfo.append("LL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("LL ");
+                                    }
                                     newtable = 2;
                                     break;
                             }
@@ -1755,29 +1826,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* ML */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 2:
                                     /* ML */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 8:
                                     /* UL ML */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                                 case 16:
                                     /* UL ML */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("ML ");
+                                    }
                                     newtable = 4;
                                     break;
                             }
@@ -1788,33 +1867,43 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* ML PL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("PL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                        encodeInfo.append("PL ");
+                                    }
                                     newtable = 8;
                                     break;
                                 case 2:
                                     /* ML PL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("PL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("ML ");
+                                        encodeInfo.append("PL ");
+                                    }
                                     newtable = 8;
                                     break;
                                 case 4:
                                     /* PL */
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("PL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PL ");
+                                    }
                                     newtable = 8;
                                     break;
                                 case 16:
                                     /* UL ML PL */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("ML ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("ML ");
+                                    }
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("PL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("PL ");
+                                    }
                                     newtable = 8;
                                     break;
                             }
@@ -1825,29 +1914,37 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* DL */
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 2:
                                     /* DL */
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 4:
                                     /* UL DL */
                                     binaryString.append(pentbit[29]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                                 case 8:
                                     /* UL DL */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[30]);
-                                    encodeInfo.append("DL ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("DL ");
+                                    }
                                     newtable = 16;
                                     break;
                             }
@@ -1859,36 +1956,46 @@ public class AztecCode extends Symbol {
                                 case 1:
                                     /* BS */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("BS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("BS ");
+                                    }
                                     newtable = 32;
                                     break;
                                 case 2:
                                     /* BS */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("BS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("BS ");
+                                    }
                                     newtable = 32;
                                     break;
                                 case 4:
                                     /* BS */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("BS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("BS ");
+                                    }
                                     newtable = 32;
                                     break;
                                 case 8:
                                     /* UL BS */
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("BS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("BS ");
+                                    }
                                     lasttable = 1;
                                     newtable = 32;
                                     break;
                                 case 16:
                                     /* UL BS */
                                     binaryString.append(quadbit[14]);
-                                    encodeInfo.append("UL ");
                                     binaryString.append(pentbit[31]);
-                                    encodeInfo.append("BS ");
+                                    if (isVerboseEnabled()) {
+                                        encodeInfo.append("UL ");
+                                        encodeInfo.append("BS ");
+                                    }
                                     lasttable = 1;
                                     newtable = 32;
                                     break;
@@ -1901,7 +2008,7 @@ public class AztecCode extends Symbol {
                             bytes--;
 
                             if (bytes > 2079) {
-                                errorMsg.append("Input too long");
+                                error(EncodeError.INPUT_TOO_LONG, "Input too long");
                                 return false;
                             }
 
@@ -1942,7 +2049,9 @@ public class AztecCode extends Symbol {
                 case 4:
                 case 8:
                     if (charmap[i] >= 400) {
-                        encodeInfo.append("FLG(").append(Integer.toString(charmap[i] - 400)).append(") ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("FLG(").append(Integer.toString(charmap[i] - 400)).append(") ");
+                        }
                         binaryString.append(tribit[charmap[i] - 400]);
                         if (charmap[i] != 400) {
                             /* ECI */
@@ -1950,12 +2059,16 @@ public class AztecCode extends Symbol {
                         }
                     } else {
                         binaryString.append(pentbit[charmap[i]]);
-                        encodeInfo.append(Integer.toString(charmap[i])).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(charmap[i])).append(" ");
+                        }
                     }
                     break;
                 case 16:
                     binaryString.append(quadbit[charmap[i]]);
-                    encodeInfo.append(Integer.toString(charmap[i]));
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(charmap[i]));
+                    }
                     break;
                 case 32:
                     for (weight = 0x80; weight > 0; weight = weight >> 1) {
@@ -1965,12 +2078,16 @@ public class AztecCode extends Symbol {
                             binaryString.append("0");
                         }
                     }
-                    encodeInfo.append(Integer.toString(charmap[i]));
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(charmap[i]));
+                    }
                     break;
             }
 
         }
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
         return true;
     }
 
@@ -1981,7 +2098,9 @@ public class AztecCode extends Symbol {
 
         for (i = 0; i < eciNumber.length(); i++) {
             binary.append(quadbit[(eciNumber.charAt(i) - '0') + 2]);
-            encodeInfo.append(Character.toString(eciNumber.charAt(i))).append(" ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append(Character.toString(eciNumber.charAt(i))).append(" ");
+            }
         }
 
         return binary.toString();
@@ -1,7 +1,10 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.ReedSolomon;
 
+import java.util.Arrays;
+
 /**
  * Implements Aztec Runes bar code symbology.
  * According to ISO/IEC 24778:2008 Annex A
@@ -10,7 +13,7 @@ import org.xbib.graphics.barcode.util.ReedSolomon;
  */
 public class AztecRune extends Symbol {
 
-    private int[] bitPlacementMap = {
+    private static final int[] BIT_PLACEMENT_MAP = {
             1, 1, 2, 3, 4, 5, 6, 7, 8, 0, 1,
             1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
             29, 1, 0, 0, 0, 0, 0, 0, 0, 1, 9,
@@ -24,26 +27,34 @@ public class AztecRune extends Symbol {
             0, 0, 22, 21, 20, 19, 18, 17, 16, 0, 0
     };
 
+    /* the 28 bit data streams of all 256 runes, first bit in bit 27 */
+    private static final int[] RUNE_BITS = new int[256];
+
+    /* the run lengths of the 11 rows of all 256 runes; the rows are shared, and must not be changed */
+    private static final int[][][] RUNE_RUNS = new int[256][][];
+
+    static {
+        ReedSolomon rs = new ReedSolomon();
+        rs.init_gf(0x13);
+        rs.init_code(5, 1);
+        for (int value = 0; value < 256; value++) {
+            RUNE_BITS[value] = runeBits(value, rs);
+            RUNE_RUNS[value] = runeRuns(RUNE_BITS[value]);
+        }
+    }
+
     @Override
     public boolean encode() {
         int decimalValue = 0;
-        int i;
-        int row;
-        int column;
-        StringBuilder binaryDataStream;
-        StringBuilder reversedBinaryDataStream;
-        int[] dataCodeword = new int[3];
-        int[] errorCorrectionCodeword = new int[6];
-        ReedSolomon rs = new ReedSolomon();
-        StringBuilder rowBinary;
 
         if (content.length() > 3) {
-            errorMsg.append("Input too large");
+            error(EncodeError.INPUT_TOO_LONG, "Input too large");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid input data");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid input data at position ", invalid);
             return false;
         }
 
@@ -63,106 +74,82 @@ public class AztecRune extends Symbol {
         }
 
         if (decimalValue > 255) {
-            errorMsg.append("Input too large");
+            error(EncodeError.INPUT_TOO_LONG, "Input too large");
             return false;
         }
 
-        binaryDataStream = new StringBuilder();
-        for (i = 0x80; i > 0; i = i >> 1) {
-            if ((decimalValue & i) != 0) {
-                binaryDataStream.append("1");
-            } else {
-                binaryDataStream.append("0");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Binary: ");
+            for (int i = 27; i >= 0; i--) {
+                encodeInfo.append((RUNE_BITS[decimalValue] >> i) & 1);
             }
+            encodeInfo.append("\n");
         }
 
-        dataCodeword[0] = 0;
-        dataCodeword[1] = 0;
+        readable = new StringBuilder();
+        runLengths = RUNE_RUNS[decimalValue].clone();
+        rowCount = 11;
+        rowHeight = new int[11];
+        Arrays.fill(rowHeight, 1);
 
-        for (i = 0; i < 2; i++) {
-            if (binaryDataStream.charAt(i * 4) == '1') {
-                dataCodeword[i] += 8;
-            }
-            if (binaryDataStream.charAt((i * 4) + 1) == '1') {
-                dataCodeword[i] += 4;
-            }
-            if (binaryDataStream.charAt((i * 4) + 2) == '1') {
-                dataCodeword[i] += 2;
-            }
-            if (binaryDataStream.charAt((i * 4) + 3) == '1') {
-                dataCodeword[i] += 1;
-            }
-        }
+        plot();
+        return true;
+    }
 
-        rs.init_gf(0x13);
-        rs.init_code(5, 1);
-        rs.encode(2, dataCodeword);
+    /**
+     * Calculates the data stream of a rune: the value and the error correction codewords, in 4 bit
+     * codewords, with every other bit inverted.
+     */
+    private static int runeBits(int value, ReedSolomon rs) {
+        int i;
+        int[] dataCodeword = new int[3];
+        int bits;
 
-        for (i = 0; i < 5; i++) {
-            errorCorrectionCodeword[i] = rs.getResult(i);
-        }
+        dataCodeword[0] = value >> 4;
+        dataCodeword[1] = value & 0x0f;
+        rs.encode(2, dataCodeword);
 
+        bits = value;
         for (i = 0; i < 5; i++) {
-            if ((errorCorrectionCodeword[4 - i] & 0x08) != 0) {
-                binaryDataStream.append('1');
-            } else {
-                binaryDataStream.append('0');
-            }
-            if ((errorCorrectionCodeword[4 - i] & 0x04) != 0) {
-                binaryDataStream.append('1');
-            } else {
-                binaryDataStream.append('0');
-            }
-            if ((errorCorrectionCodeword[4 - i] & 0x02) != 0) {
-                binaryDataStream.append('1');
-            } else {
-                binaryDataStream.append('0');
-            }
-            if ((errorCorrectionCodeword[4 - i] & 0x01) != 0) {
-                binaryDataStream.append('1');
-            } else {
-                binaryDataStream.append('0');
-            }
+            bits = (bits << 4) | (rs.getResult(4 - i) & 0x0f);
         }
 
-        reversedBinaryDataStream = new StringBuilder();
-        for (i = 0; i < binaryDataStream.length(); i++) {
-            if ((i & 1) == 0) {
-                if (binaryDataStream.charAt(i) == '0') {
-                    reversedBinaryDataStream.append("1");
-                } else {
-                    reversedBinaryDataStream.append("0");
-                }
-            } else {
-                reversedBinaryDataStream.append(binaryDataStream.charAt(i));
-            }
-        }
+        /* invert the bits at even positions of the stream, counted from the first bit */
+        return bits ^ 0x0aaaaaaa;
+    }
 
-        encodeInfo.append("Binary: ").append(reversedBinaryDataStream).append("\n");
+    /**
+     * Lays out the data stream of a rune in the 11 x 11 grid, and returns the run lengths of the rows.
+     */
+    private static int[][] runeRuns(int bits) {
+        int row, column, position, module;
+        int[] widths = new int[12];
+        int[][] runs = new int[11][];
 
-        rowBinary = new StringBuilder();
-        readable = new StringBuilder();
-        pattern = new String[11];
-        rowCount = 11;
-        rowHeight = new int[11];
         for (row = 0; row < 11; row++) {
+            /* rows start with a bar, which may have a width of zero */
+            int count = 0;
+            int current = 1;
+            int width = 0;
             for (column = 0; column < 11; column++) {
-                if (bitPlacementMap[(row * 11) + column] == 1) {
-                    rowBinary.append("1");
-                }
-                if (bitPlacementMap[(row * 11) + column] == 0) {
-                    rowBinary.append("0");
+                position = BIT_PLACEMENT_MAP[(row * 11) + column];
+                if (position >= 2) {
+                    module = (bits >> (27 - (position - 2))) & 1;
+                } else {
+                    module = position;
                 }
-                if (bitPlacementMap[(row * 11) + column] >= 2) {
-                    rowBinary.append(reversedBinaryDataStream.charAt(bitPlacementMap[(row * 11) + column] - 2));
+                if (module == current) {
+                    width++;
+                } else {
+                    widths[count] = width;
+                    count++;
+                    current = module;
+                    width = 1;
                 }
             }
-            pattern[row] = bin2pat(rowBinary.toString());
-            rowHeight[row] = 1;
-            rowBinary = new StringBuilder();
+            widths[count] = width;
+            runs[row] = Arrays.copyOf(widths, count + 1);
         }
-
-        plotSymbol();
-        return true;
+        return runs;
     }
 }
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Implements Channel Code according to ANSI/AIM BC12-1998.
  * Channel code encodes whole integer values between 0 and 7,742,862.
@@ -35,12 +37,13 @@ public class ChannelCode extends Symbol {
         horizontalSpacing = "";
 
         if (content.length() > 7) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
@@ -83,11 +86,13 @@ public class ChannelCode extends Symbol {
         }
 
         if (numberOfChannels == 9) {
-            errorMsg.append("Value out of range");
+            error(EncodeError.OUT_OF_RANGE, "Value out of range");
             return false;
         }
 
-        encodeInfo.append("Channels Used: ").append(numberOfChannels).append('\n');
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Channels Used: ").append(numberOfChannels).append('\n');
+        }
 
         for (i = 0; i < 11; i++) {
             bar[i] = 0;
@@ -106,12 +111,11 @@ public class ChannelCode extends Symbol {
         }
         readable.append(content);
 
-        pattern = new String[1];
-        pattern[0] = horizontalSpacing;
+        runLengths = new int[][]{pat2runs(horizontalSpacing)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
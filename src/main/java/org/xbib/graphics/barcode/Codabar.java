@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements Codabar barcode symbology according to BS EN 798:1996.
  * Also known as NW-7, Monarch, ABC Codabar, USD-4, Ames Code and Code 27.
@@ -10,6 +14,10 @@ package org.xbib.graphics.barcode;
  */
 public class Codabar extends Symbol {
 
+    private static final CharacterClass DATA_CHARACTERS = CharacterClass.NUMERIC.or(CharacterClass.of("-$:/.+"));
+
+    private static final CharacterClass START_STOP_CHARACTERS = CharacterClass.range('A', 'D');
+
     private static final String[] CODABAR_TABLE = {
             "11111221", "11112211", "11121121", "22111111", "11211211",
             "21111211", "12111121", "12112111", "12211111", "21121111",
@@ -24,6 +32,10 @@ public class Codabar extends Symbol {
             '+', 'A', 'B', 'C', 'D'
     };
 
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(CODABAR_TABLE, CHARACTER_SET);
+
+    private final BarBuffer bars = new BarBuffer();
+
     /**
      * Ratio of wide bar width to narrow bar width.
      */
@@ -50,23 +62,35 @@ public class Codabar extends Symbol {
 
     @Override
     public boolean encode() {
-        if (!(content.matches("[A-D]{1}[0-9:/\\$\\.\\+\u002D]+[A-D]{1}"))) {
-            errorMsg.append("Invalid characters in input");
+        /* start and stop characters A-D around at least one data character */
+        int last = content.length() - 1;
+        int invalid;
+        if (last < 2) {
+            invalid = last + 1;
+        } else if (!START_STOP_CHARACTERS.contains(content.charAt(0))) {
+            invalid = 0;
+        } else {
+            invalid = DATA_CHARACTERS.indexOfInvalid(content, 1, last);
+            if (invalid < 0 && !START_STOP_CHARACTERS.contains(content.charAt(last))) {
+                invalid = last;
+            }
+        }
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder horizontalSpacing = new StringBuilder();
-
+        bars.clear();
         int l = content.length();
         for (int i = 0; i < l; i++) {
-            horizontalSpacing.append(CODABAR_TABLE[positionOf(content.charAt(i), CHARACTER_SET)]);
+            bars.append(WIDTHS[content.charAt(i)]);
         }
 
         readable = new StringBuilder(content);
-        pattern = new String[]{horizontalSpacing.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 import java.io.UnsupportedEncodingException;
 
@@ -48,19 +50,20 @@ public class CodablockF extends Symbol {
         final_mode = cfMode.MODEA;
 
         if (input_length > 5450) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
-        if (!content.matches("[\u0000-\u00FF]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.LATIN_1.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
         try {
             inputBytes = content.getBytes("ISO8859_1");
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Character encoding error");
+            error(EncodeError.CHARACTER_ENCODING, "Character encoding error");
             return false;
         }
 
@@ -102,7 +105,7 @@ public class CodablockF extends Symbol {
             columns_needed = 4;
         }
         if (columns_needed > 62) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -195,15 +198,19 @@ public class CodablockF extends Symbol {
 
         readable = new StringBuilder();
         rowCount = rows_needed;
-        pattern = new String[rowCount];
+        runLengths = new int[rowCount][];
         rowHeight = new int[rowCount];
 
-        encodeInfo.append("Grid size: ").append(columns_needed).append(" X ").append(rows_needed).append('\n');
-        encodeInfo.append("K1 Check Digit: ").append(k1_check).append("\n");
-        encodeInfo.append("K2 Check Digit: ").append(k2_check).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Grid size: ").append(columns_needed).append(" X ").append(rows_needed).append('\n');
+            encodeInfo.append("K1 Check Digit: ").append(k1_check).append("\n");
+            encodeInfo.append("K2 Check Digit: ").append(k2_check).append("\n");
+        }
 
         /* Resolve the data into patterns and place in symbol structure */
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
         for (i = 0; i < rows_needed; i++) {
 
             row_pattern = new StringBuilder();
@@ -213,39 +220,53 @@ public class CodablockF extends Symbol {
             switch (subset_selector[i]) {
                 case MODEA:
                     row_pattern.append(C128Table[98]);
-                    encodeInfo.append("MODEA ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("MODEA ");
+                    }
                     break;
                 case MODEB:
                     row_pattern.append(C128Table[100]);
-                    encodeInfo.append("MODEB ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("MODEB ");
+                    }
                     break;
                 case MODEC:
                     row_pattern.append(C128Table[99]);
-                    encodeInfo.append("MODEC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("MODEC ");
+                    }
                     break;
             }
             row_pattern.append(C128Table[row_indicator[i]]);
-            encodeInfo.append(Integer.toString(row_indicator[i])).append(" ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append(Integer.toString(row_indicator[i])).append(" ");
+            }
 
             for (j = 0; j < columns_needed; j++) {
                 row_pattern.append(C128Table[blockmatrix[i][j]]);
-                encodeInfo.append(Integer.toString(blockmatrix[i][j])).append(" ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append(Integer.toString(blockmatrix[i][j])).append(" ");
+                }
             }
 
             row_pattern.append(C128Table[row_check[i]]);
-            encodeInfo.append("(").append(Integer.toString(row_check[i])).append(") ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("(").append(Integer.toString(row_check[i])).append(") ");
+            }
 
             /* Stop character */
             row_pattern.append(C128Table[106]);
 
             /* Write the information into the symbol */
-            pattern[i] = row_pattern.toString();
+            runLengths[i] = pat2runs(row_pattern);
             rowHeight[i] = 15;
         }
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
         symbolHeight = rows_needed * 15;
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -588,6 +609,7 @@ public class CodablockF extends Symbol {
                      another lower case character, insert a Shift character before the lower case character.
                      b.   Otherwise, insert a Code B character before the lower case character to change to subset B. */
                     if ((findSubset(source[input_position + 1]) == Mode.SHIFTA)
+                            && (input_position + 2 < source.length)
                             && (findSubset(source[input_position + 2]) == Mode.SHIFTB)) {
                         /* Annex B section 1 rule 7a */
                         blockmatrix[current_row][column_position] = 98; /* Shift */
@@ -804,10 +826,10 @@ public class CodablockF extends Symbol {
         for (yBlock = 0; yBlock < rowCount; yBlock++) {
             black = true;
             x = 0;
-            for (xBlock = 0; xBlock < pattern[yBlock].length(); xBlock++) {
+            for (xBlock = 0; xBlock < runLengths[yBlock].length; xBlock++) {
                 if (black) {
                     black = false;
-                    w = pattern[yBlock].charAt(xBlock) - '0';
+                    w = runLengths[yBlock][xBlock];
                     if (rowHeight[yBlock] == -1) {
                         h = defaultHeight;
                     } else {
@@ -823,7 +845,7 @@ public class CodablockF extends Symbol {
                 } else {
                     black = true;
                 }
-                x += (double) (pattern[yBlock].charAt(xBlock) - '0');
+                x += (double) runLengths[yBlock][xBlock];
             }
             y += h;
             if ((y + h) > symbolHeight) {
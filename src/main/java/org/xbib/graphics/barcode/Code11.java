@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements Code 11 bar code symbology.
  * Code 11 can encode any length string consisting of the digits 0-9 and the
@@ -7,6 +11,8 @@ package org.xbib.graphics.barcode;
  */
 public class Code11 extends Symbol {
 
+    private static final CharacterClass NUMERIC_DASH = CharacterClass.NUMERIC.or(CharacterClass.of("-"));
+
     private static final String[] CODE_11_TABLE = {
             "111121", "211121", "121121", "221111", "112121", "212111",
             "122111", "111221", "211211", "211111", "112111"
@@ -16,6 +22,14 @@ public class Code11 extends Symbol {
             '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-'
     };
 
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(CODE_11_TABLE, CHARACTER_SET);
+
+    private static final int[] VALUES = LinearPatterns.toValues(CHARACTER_SET);
+
+    private static final byte[] START_STOP = LinearPatterns.toWidths("112211");
+
+    private final BarBuffer bars = new BarBuffer();
+
     /**
      * Ratio of wide bar width to narrow bar width.
      */
@@ -36,32 +50,6 @@ public class Code11 extends Symbol {
      */
     private Character stopDelimiter;
 
-    private static int getCheckDigitC(int[] weight, int length) {
-        int countC = 0;
-        int weightC = 1;
-        for (int i = length - 1; i >= 0; i--) {
-            countC += (weightC * weight[i]);
-            weightC++;
-            if (weightC > 10) {
-                weightC = 1;
-            }
-        }
-        return countC % 11;
-    }
-
-    private static int getCheckDigitK(int[] weight, int length) {
-        int countK = 0;
-        int weightK = 1;
-        for (int i = length - 1; i >= 0; i--) {
-            countK += (weightK * weight[i]);
-            weightK++;
-            if (weightK > 9) {
-                weightK = 1;
-            }
-        }
-        return countK % 11;
-    }
-
     /**
      * Returns the ratio of wide bar width to narrow bar width.
      *
@@ -144,36 +132,42 @@ public class Code11 extends Symbol {
     @Override
     public boolean encode() {
 
-        if (!(content.matches("[0-9-]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = NUMERIC_DASH.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder horizontalSpacing = new StringBuilder("112211");
+        bars.clear();
+        bars.append(START_STOP);
         String humanReadable = content;
         int length = content.length();
         int[] weight = new int[length + 1];
 
         for (int i = 0; i < length; i++) {
             char c = content.charAt(i);
-            weight[i] = positionOf(c, CHARACTER_SET);
-            horizontalSpacing.append(CODE_11_TABLE[weight[i]]);
+            weight[i] = VALUES[c];
+            bars.append(WIDTHS[c]);
         }
 
-        int checkDigitC = getCheckDigitC(weight, length);
-        horizontalSpacing.append(CODE_11_TABLE[checkDigitC]);
+        int checkDigitC = LinearPatterns.getModuloCheck(weight, length, 10, 11);
+        bars.append(WIDTHS[CHARACTER_SET[checkDigitC]]);
         humanReadable += CHARACTER_SET[checkDigitC];
-        encodeInfo.append("Check Digit C: ").append(checkDigitC).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit C: ").append(checkDigitC).append("\n");
+        }
 
         if (checkDigitCount == 2) {
             weight[length] = checkDigitC;
-            int checkDigitK = getCheckDigitK(weight, length + 1);
-            horizontalSpacing.append(CODE_11_TABLE[checkDigitK]);
+            int checkDigitK = LinearPatterns.getModuloCheck(weight, length + 1, 9, 11);
+            bars.append(WIDTHS[CHARACTER_SET[checkDigitK]]);
             humanReadable += CHARACTER_SET[checkDigitK];
-            encodeInfo.append("Check Digit K: ").append(checkDigitK).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Check Digit K: ").append(checkDigitK).append("\n");
+            }
         }
 
-        horizontalSpacing.append("112211");
+        bars.append(START_STOP);
 
         readable = new StringBuilder(humanReadable);
         if (startDelimiter != null) {
@@ -183,11 +177,11 @@ public class Code11 extends Symbol {
             readable.append(stopDelimiter);
         }
 
-        pattern = new String[]{horizontalSpacing.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
 
-        plotSymbol();
+        plot();
 
         return true;
     }
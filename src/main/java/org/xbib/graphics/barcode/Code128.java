@@ -1,6 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
 /**
  * Implements Code 128 bar code symbology according to ISO/IEC 15417:2007.
@@ -30,6 +33,7 @@ public class Code128 extends Symbol {
     private int[] mode_length = new int[200];
     private int index_point = 0, read = 0;
     private boolean modeCSupression;
+    private boolean optimalSubsets;
     private Composite compositeMode;
 
     public Code128() {
@@ -70,6 +74,26 @@ public class Code128 extends Symbol {
         compositeMode = Composite.OFF;
     }
 
+    /**
+     * Returns whether or not the subsets and FNC4 latches are chosen to give the shortest
+     * possible symbol.
+     *
+     * @return whether or not the shortest encodation is used
+     */
+    public boolean getOptimalSubsets() {
+        return optimalSubsets;
+    }
+
+    /**
+     * Sets whether or not the subsets and FNC4 latches are chosen to give the shortest possible
+     * symbol, instead of following the rules of ISO 15417 Annex E (defaults to <code>false</code>).
+     *
+     * @param optimalSubsets whether or not to use the shortest encodation
+     */
+    public void setOptimalSubsets(boolean optimalSubsets) {
+        this.optimalSubsets = optimalSubsets;
+    }
+
     @Override
     public boolean encode() {
         int sourcelen = content.length();
@@ -87,15 +111,16 @@ public class Code128 extends Symbol {
         int c_count;
         int linkage_flag = 0;
 
-        if (!content.matches("[\u0000-\u00FF]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.LATIN_1.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
         try {
             inputBytes = content.getBytes("ISO8859_1");
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Character encoding error");
+            error(EncodeError.CHARACTER_ENCODING, "Character encoding error");
             return false;
         }
 
@@ -108,106 +133,122 @@ public class Code128 extends Symbol {
         Mode[] set = new Mode[200]; /* set[] = Calculated mode for each character */
 
         if (sourcelen > 170) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
-        /* Detect extended ASCII characters */
-        for (i = 0; i < sourcelen; i++) {
-            if (inputData[i] >= 128) {
-                fset[i] = FMode.SHIFTF;
-            } else {
-                fset[i] = FMode.LATCHN;
+        if (optimalSubsets) {
+            planSubsets(inputData, sourcelen, set, fset);
+        } else {
+            /* Detect extended ASCII characters */
+            for (i = 0; i < sourcelen; i++) {
+                if (inputData[i] >= 128) {
+                    fset[i] = FMode.SHIFTF;
+                } else {
+                    fset[i] = FMode.LATCHN;
+                }
             }
-        }
 
-        /* Decide when to latch to extended mode - Annex E note 3 */
-        j = 0;
-        for (i = 0; i < sourcelen; i++) {
-            if (fset[i] == FMode.SHIFTF) {
-                j++;
-            } else {
-                j = 0;
-            }
+            /* Decide when to latch to extended mode - Annex E note 3 */
+            j = 0;
+            for (i = 0; i < sourcelen; i++) {
+                if (fset[i] == FMode.SHIFTF) {
+                    j++;
+                } else {
+                    j = 0;
+                }
 
-            if (j >= 5) {
-                for (k = i; k > (i - 5); k--) {
-                    fset[k] = FMode.LATCHF;
+                if (j >= 5) {
+                    for (k = i; k > (i - 5); k--) {
+                        fset[k] = FMode.LATCHF;
+                    }
                 }
-            }
 
-            if ((j >= 3) && (i == (sourcelen - 1))) {
-                for (k = i; k > (i - 3); k--) {
-                    fset[k] = FMode.LATCHF;
+                if ((j >= 3) && (i == (sourcelen - 1))) {
+                    for (k = i; k > (i - 3); k--) {
+                        fset[k] = FMode.LATCHF;
+                    }
                 }
             }
-        }
 
-        /* Decide if it is worth reverting to 646 encodation for a few characters as described in 4.3.4.2 (d) */
-        for (i = 1; i < sourcelen; i++) {
-            if ((fset[i - 1] == FMode.LATCHF) && (fset[i] == FMode.LATCHN)) {
-                /* Detected a change from 8859-1 to 646 - count how long for */
-                for (j = 0; (fset[i + j] == FMode.LATCHN) && ((i + j) < sourcelen); j++) ;
-                if ((j < 5) || ((j < 3) && ((i + j) == (sourcelen - 1)))) {
-                    /* Uses the same figures recommended by Annex E note 3 */
-                    /* Change to shifting back rather than latching back */
-                    for (k = 0; k < j; k++) {
-                        fset[i + k] = FMode.SHIFTN;
+            /* Decide if it is worth reverting to 646 encodation for a few characters as described in 4.3.4.2 (d) */
+            for (i = 1; i < sourcelen; i++) {
+                if ((fset[i - 1] == FMode.LATCHF) && (fset[i] == FMode.LATCHN)) {
+                    /* Detected a change from 8859-1 to 646 - count how long for */
+                    for (j = 0; (fset[i + j] == FMode.LATCHN) && ((i + j) < sourcelen); j++) ;
+                    if ((j < 5) || ((j < 3) && ((i + j) == (sourcelen - 1)))) {
+                        /* Uses the same figures recommended by Annex E note 3 */
+                        /* Change to shifting back rather than latching back */
+                        for (k = 0; k < j; k++) {
+                            fset[i + k] = FMode.SHIFTN;
+                        }
                     }
                 }
             }
-        }
-
-        /* Decide on mode using same system as PDF417 and rules of ISO 15417 Annex E */
-        mode = findSubset(inputData[input_point]);
-        mode_type[0] = mode;
-        mode_length[0] = 1;
 
-        if (inputDataType == DataType.GS1) {
-            mode = Mode.ABORC;
-        }
-
-        if ((modeCSupression) && (mode == Mode.ABORC)) {
-            mode = Mode.AORB;
-        }
+            /* Decide on mode using same system as PDF417 and rules of ISO 15417 Annex E */
+            mode = findSubset(inputData[input_point]);
+            index_point = 0;
+            read = 0;
+            mode_type[0] = mode;
+            mode_length[0] = 1;
 
-        for (i = 1; i < sourcelen; i++) {
-            last_mode = mode;
-            mode = findSubset(inputData[i]);
-            if ((inputDataType == DataType.GS1) && inputData[i] == '[') {
+            if (inputDataType == DataType.GS1) {
                 mode = Mode.ABORC;
             }
+
             if ((modeCSupression) && (mode == Mode.ABORC)) {
                 mode = Mode.AORB;
             }
-            if (mode == last_mode) {
-                mode_length[index_point]++;
-            } else {
-                index_point++;
-                mode_type[index_point] = mode;
-                mode_length[index_point] = 1;
-            }
-        }
-        index_point++;
 
-        reduceSubsetChanges();
+            for (i = 1; i < sourcelen; i++) {
+                last_mode = mode;
+                mode = findSubset(inputData[i]);
+                if ((inputDataType == DataType.GS1) && inputData[i] == '[') {
+                    mode = Mode.ABORC;
+                }
+                if ((modeCSupression) && (mode == Mode.ABORC)) {
+                    mode = Mode.AORB;
+                }
+                if (mode == last_mode) {
+                    mode_length[index_point]++;
+                } else {
+                    index_point++;
+                    mode_type[index_point] = mode;
+                    mode_length[index_point] = 1;
+                }
+            }
+            index_point++;
 
+            reduceSubsetChanges();
 
-        if (inputDataType == DataType.GS1) {
-            /* Put set data into set[] */
-            read = 0;
-            for (i = 0; i < index_point; i++) {
-                for (j = 0; j < mode_length[i]; j++) {
-                    set[read] = mode_type[i];
-                    read++;
+            if (inputDataType == DataType.GS1) {
+                /* Put set data into set[] */
+                read = 0;
+                for (i = 0; i < index_point; i++) {
+                    for (j = 0; j < mode_length[i]; j++) {
+                        set[read] = mode_type[i];
+                        read++;
+                    }
                 }
-            }
 
-            /* Resolve odd length LATCHC blocks */
-            c_count = 0;
-            for (i = 0; i < read; i++) {
-                if (set[i] == Mode.LATCHC) {
-                    if (inputData[i] == '[') {
+                /* Resolve odd length LATCHC blocks */
+                c_count = 0;
+                for (i = 0; i < read; i++) {
+                    if (set[i] == Mode.LATCHC) {
+                        if (inputData[i] == '[') {
+                            if ((c_count & 1) != 0) {
+                                if ((i - c_count) != 0) {
+                                    set[i - c_count] = Mode.LATCHB;
+                                } else {
+                                    set[i - 1] = Mode.LATCHB;
+                                }
+                            }
+                            c_count = 0;
+                        } else {
+                            c_count++;
+                        }
+                    } else {
                         if ((c_count & 1) != 0) {
                             if ((i - c_count) != 0) {
                                 set[i - c_count] = Mode.LATCHB;
@@ -216,61 +257,50 @@ public class Code128 extends Symbol {
                             }
                         }
                         c_count = 0;
-                    } else {
-                        c_count++;
                     }
-                } else {
-                    if ((c_count & 1) != 0) {
-                        if ((i - c_count) != 0) {
-                            set[i - c_count] = Mode.LATCHB;
-                        } else {
-                            set[i - 1] = Mode.LATCHB;
-                        }
-                    }
-                    c_count = 0;
                 }
-            }
-            if ((c_count & 1) != 0) {
-                if ((i - c_count) != 0) {
-                    set[i - c_count] = Mode.LATCHB;
-                } else {
-                    set[i - 1] = Mode.LATCHB;
+                if ((c_count & 1) != 0) {
+                    if ((i - c_count) != 0) {
+                        set[i - c_count] = Mode.LATCHB;
+                    } else {
+                        set[i - 1] = Mode.LATCHB;
+                    }
                 }
-            }
-            for (i = 1; i < read - 1; i++) {
-                if ((set[i] == Mode.LATCHC) && ((set[i - 1] == Mode.LATCHB)
-                        && (set[i + 1] == Mode.LATCHB))) {
-                    set[i] = Mode.LATCHB;
+                for (i = 1; i < read - 1; i++) {
+                    if ((set[i] == Mode.LATCHC) && ((set[i - 1] == Mode.LATCHB)
+                            && (set[i + 1] == Mode.LATCHB))) {
+                        set[i] = Mode.LATCHB;
+                    }
                 }
-            }
-        } else {
-            /* Resolve odd length LATCHC blocks */
-
-            if ((mode_type[0] == Mode.LATCHC) && ((mode_length[0] & 1) != 0)) {
-                /* Rule 2 */
-                mode_length[1]++;
-                mode_length[0]--;
-                if (index_point == 1) {
-                    mode_length[1] = 1;
-                    mode_type[1] = Mode.LATCHB;
-                    index_point = 2;
+            } else {
+                /* Resolve odd length LATCHC blocks */
+
+                if ((mode_type[0] == Mode.LATCHC) && ((mode_length[0] & 1) != 0)) {
+                    /* Rule 2 */
+                    mode_length[1]++;
+                    mode_length[0]--;
+                    if (index_point == 1) {
+                        mode_length[1] = 1;
+                        mode_type[1] = Mode.LATCHB;
+                        index_point = 2;
+                    }
                 }
-            }
-            if (index_point > 1) {
-                for (i = 1; i < index_point; i++) {
-                    if ((mode_type[i] == Mode.LATCHC) && ((mode_length[i] & 1) != 0)) {
-                        /* Rule 3b */
-                        mode_length[i - 1]++;
-                        mode_length[i]--;
+                if (index_point > 1) {
+                    for (i = 1; i < index_point; i++) {
+                        if ((mode_type[i] == Mode.LATCHC) && ((mode_length[i] & 1) != 0)) {
+                            /* Rule 3b */
+                            mode_length[i - 1]++;
+                            mode_length[i]--;
+                        }
                     }
                 }
-            }
 
-            /* Put set data into set[] */
-            for (i = 0; i < index_point; i++) {
-                for (j = 0; j < mode_length[i]; j++) {
-                    set[read] = mode_type[i];
-                    read++;
+                /* Put set data into set[] */
+                for (i = 0; i < index_point; i++) {
+                    for (j = 0; j < mode_length[i]; j++) {
+                        set[read] = mode_type[i];
+                        read++;
+                    }
                 }
             }
         }
@@ -333,11 +363,13 @@ public class Code128 extends Symbol {
             }
         }
         if (glyph_count > 80.0) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
 
         /* So now we know what start character to use - we can get on with it! */
         if (readerInit) {
@@ -350,7 +382,9 @@ public class Code128 extends Symbol {
                     dest.append(code128Table[96]); /* FNC3 */
                     values[1] = 96;
                     bar_characters++;
-                    encodeInfo.append("STARTA FNC3 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTA FNC3 ");
+                    }
                     break;
                 case LATCHB: /* Start B */
                     dest.append(code128Table[104]);
@@ -359,7 +393,9 @@ public class Code128 extends Symbol {
                     dest.append(code128Table[96]); /* FNC3 */
                     values[1] = 96;
                     bar_characters++;
-                    encodeInfo.append("STARTB FNC3 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTB FNC3 ");
+                    }
                     break;
                 default: /* Start C */
                     dest.append(code128Table[104]); /* Start B */
@@ -370,7 +406,9 @@ public class Code128 extends Symbol {
                     values[2] = 99;
                     bar_characters += 2;
                     current_set = Mode.LATCHC;
-                    encodeInfo.append("STARTB FNC3 CODEC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTB FNC3 CODEC ");
+                    }
                     break;
             }
         } else {
@@ -381,21 +419,27 @@ public class Code128 extends Symbol {
                     dest.append(code128Table[103]);
                     values[0] = 103;
                     current_set = Mode.LATCHA;
-                    encodeInfo.append("STARTA ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTA ");
+                    }
                     break;
                 case LATCHB:
                     /* Start B */
                     dest.append(code128Table[104]);
                     values[0] = 104;
                     current_set = Mode.LATCHB;
-                    encodeInfo.append("STARTB ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTB ");
+                    }
                     break;
                 default:
                     /* Start C */
                     dest.append(code128Table[105]);
                     values[0] = 105;
                     current_set = Mode.LATCHC;
-                    encodeInfo.append("STARTC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("STARTC ");
+                    }
                     break;
             }
         }
@@ -405,7 +449,9 @@ public class Code128 extends Symbol {
             dest.append(code128Table[102]);
             values[1] = 102;
             bar_characters++;
-            encodeInfo.append("FNC1 ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("FNC1 ");
+            }
         }
 
         if (fset[0] == FMode.LATCHF) {
@@ -415,14 +461,18 @@ public class Code128 extends Symbol {
                     dest.append(code128Table[101]);
                     values[bar_characters] = 101;
                     values[bar_characters + 1] = 101;
-                    encodeInfo.append("FNC4 FNC4 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("FNC4 FNC4 ");
+                    }
                     break;
                 case LATCHB:
                     dest.append(code128Table[100]);
                     dest.append(code128Table[100]);
                     values[bar_characters] = 100;
                     values[bar_characters + 1] = 100;
-                    encodeInfo.append("FNC4 FNC4 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("FNC4 FNC4 ");
+                    }
                     break;
             }
             bar_characters += 2;
@@ -440,21 +490,27 @@ public class Code128 extends Symbol {
                         values[bar_characters] = 101;
                         bar_characters++;
                         current_set = Mode.LATCHA;
-                        encodeInfo.append("CODEA ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("CODEA ");
+                        }
                         break;
                     case LATCHB:
                         dest.append(code128Table[100]);
                         values[bar_characters] = 100;
                         bar_characters++;
                         current_set = Mode.LATCHB;
-                        encodeInfo.append("CODEB ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("CODEB ");
+                        }
                         break;
                     case LATCHC:
                         dest.append(code128Table[99]);
                         values[bar_characters] = 99;
                         bar_characters++;
                         current_set = Mode.LATCHC;
-                        encodeInfo.append("CODEC ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("CODEC ");
+                        }
                         break;
                 }
             }
@@ -468,18 +524,22 @@ public class Code128 extends Symbol {
                             dest.append(code128Table[101]);
                             values[bar_characters] = 101;
                             values[bar_characters + 1] = 101;
-                            encodeInfo.append("FNC4 FNC4 ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("FNC4 FNC4 ");
+                            }
                             break;
                         case LATCHB:
                             dest.append(code128Table[100]);
                             dest.append(code128Table[100]);
                             values[bar_characters] = 100;
                             values[bar_characters + 1] = 100;
-                            encodeInfo.append("FNC4 FNC4 ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("FNC4 FNC4 ");
+                            }
                             break;
                     }
                     bar_characters += 2;
-                    f_state = FMode.LATCHN;
+                    f_state = FMode.LATCHF;
                 }
                 if ((fset[read] == FMode.LATCHN) && (f_state == FMode.LATCHF)) {
                     /* Latch end of extended mode */
@@ -489,14 +549,18 @@ public class Code128 extends Symbol {
                             dest.append(code128Table[101]);
                             values[bar_characters] = 101;
                             values[bar_characters + 1] = 101;
-                            encodeInfo.append("FNC4 FNC4 ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("FNC4 FNC4 ");
+                            }
                             break;
                         case LATCHB:
                             dest.append(code128Table[100]);
                             dest.append(code128Table[100]);
                             values[bar_characters] = 100;
                             values[bar_characters + 1] = 100;
-                            encodeInfo.append("FNC4 FNC4 ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("FNC4 FNC4 ");
+                            }
                             break;
                     }
                     bar_characters += 2;
@@ -510,12 +574,16 @@ public class Code128 extends Symbol {
                     case LATCHA:
                         dest.append(code128Table[101]); /* FNC 4 */
                         values[bar_characters] = 101;
-                        encodeInfo.append("FNC4 ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("FNC4 ");
+                        }
                         break;
                     case LATCHB:
                         dest.append(code128Table[100]); /* FNC 4 */
                         values[bar_characters] = 100;
-                        encodeInfo.append("FNC4 ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("FNC4 ");
+                        }
                         break;
                 }
                 bar_characters++;
@@ -525,7 +593,9 @@ public class Code128 extends Symbol {
                 /* Insert shift character */
                 dest.append(code128Table[98]);
                 values[bar_characters] = 98;
-                encodeInfo.append("SHFT ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append("SHFT ");
+                }
                 bar_characters++;
             }
 
@@ -552,7 +622,9 @@ public class Code128 extends Symbol {
                                 values[bar_characters] = c - 32;
                             }
                         }
-                        encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        }
                         bar_characters++;
                         read++;
                         break;
@@ -565,7 +637,9 @@ public class Code128 extends Symbol {
                             dest.append(code128Table[c - 32]);
                             values[bar_characters] = c - 32;
                         }
-                        encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        }
                         bar_characters++;
                         read++;
                         break;
@@ -576,7 +650,9 @@ public class Code128 extends Symbol {
                         weight = (10 * (c - '0')) + (d - '0');
                         dest.append(code128Table[weight]);
                         values[bar_characters] = weight;
-                        encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(values[bar_characters])).append(" ");
+                        }
                         bar_characters++;
                         read += 2;
                         break;
@@ -587,12 +663,16 @@ public class Code128 extends Symbol {
                 values[bar_characters] = 102;
                 bar_characters++;
                 read++;
-                encodeInfo.append("FNC1 ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append("FNC1 ");
+                }
             }
 
         } while (read < sourcelen);
 
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
         /* "...note that the linkage flag is an extra code set character between
 	the last data character and the Symbol Check Character" (GS1 Specification) */
@@ -614,7 +694,9 @@ public class Code128 extends Symbol {
                         linkage_flag = 101;
                         break;
                 }
-                encodeInfo.append("Linkage flag: ").append(linkage_flag).append('\n');
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Linkage flag: ").append(linkage_flag).append('\n');
+                }
                 break;
             case CCC:
                 /* CC-C 2D component */
@@ -629,7 +711,9 @@ public class Code128 extends Symbol {
                         linkage_flag = 100;
                         break;
                 }
-                encodeInfo.append("Linkage flag: ").append(linkage_flag).append('\n');
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Linkage flag: ").append(linkage_flag).append('\n');
+                }
                 break;
             default:
                 break;
@@ -649,8 +733,10 @@ public class Code128 extends Symbol {
             total_sum += values[i];
         }
         dest.append(code128Table[total_sum % 103]);
-        encodeInfo.append("Data Codewords: ").append(bar_characters).append('\n');
-        encodeInfo.append("Check Digit: ").append(total_sum % 103).append('\n');
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Data Codewords: ").append(bar_characters).append('\n');
+            encodeInfo.append("Check Digit: ").append(total_sum % 103).append('\n');
+        }
 
         /* Stop character */
         dest.append(code128Table[106]);
@@ -664,25 +750,144 @@ public class Code128 extends Symbol {
         }
 
         if (compositeMode == Composite.OFF) {
-            pattern = new String[1];
-            pattern[0] = dest.toString();
+            runLengths = new int[][]{pat2runs(dest)};
             rowCount = 1;
             rowHeight = new int[1];
             rowHeight[0] = -1;
         } else {
             /* Add the separator pattern for composite symbols */
-            pattern = new String[2];
-            pattern[0] = "0" + dest;
-            pattern[1] = dest.toString();
+            runLengths = new int[2][];
+            runLengths[0] = pat2runs("0" + dest);
+            runLengths[1] = pat2runs(dest);
             rowCount = 2;
             rowHeight = new int[2];
             rowHeight[0] = 1;
             rowHeight[1] = -1;
         }
-        plotSymbol();
+        plot();
         return true;
     }
 
+    /**
+     * Chooses the subset and FNC4 state of each character so that the symbol uses the fewest
+     * symbol characters. This is a shortest path search over the states (position, subset,
+     * FNC4 latch), where each edge encodes one character (or one pair of digits in subset C)
+     * together with any code set change, FNC4 latch, FNC4 shift or subset shift it needs.
+     */
+    private void planSubsets(int[] inputData, int length, Mode[] set, FMode[] fset) {
+        /* states are subset * 2 + extended, with subsets 0 = A, 1 = B, 2 = C */
+        int[][] cost = new int[length + 1][6];
+        int[][] back = new int[length + 1][6];
+        boolean gs1 = inputDataType == DataType.GS1;
+        int i, from, to, fromSet, fromExt, toSet, toExt, base, c, high, low, k;
+
+        for (i = 0; i <= length; i++) {
+            Arrays.fill(cost[i], Integer.MAX_VALUE);
+        }
+
+        for (i = 0; i < length; i++) {
+            c = inputData[i];
+            high = c >> 7;
+            low = c & 0x7f;
+            for (from = (i == 0) ? -1 : 0; from < ((i == 0) ? 0 : 6); from++) {
+                if (from == -1) {
+                    /* start character, which can select any subset */
+                    base = 0;
+                    fromSet = -1;
+                    fromExt = 0;
+                } else {
+                    base = cost[i][from];
+                    fromSet = from >> 1;
+                    fromExt = from & 1;
+                }
+                if (base == Integer.MAX_VALUE) {
+                    continue;
+                }
+                for (toSet = 0; toSet < 3; toSet++) {
+                    if ((toSet == 2) && modeCSupression) {
+                        continue;
+                    }
+                    for (toExt = 0; toExt < 2; toExt++) {
+                        if ((toExt != fromExt) && (toSet == 2)) {
+                            /* there is no FNC4 in subset C */
+                            continue;
+                        }
+                        to = (toSet << 1) | toExt;
+                        k = base;
+                        if (toSet != fromSet) {
+                            if (fromSet != -1) {
+                                k++; /* CODE A, CODE B or CODE C */
+                            } else if (readerInit && (toSet == 2)) {
+                                k++; /* START B FNC3 CODE C */
+                            }
+                        }
+                        if (toExt != fromExt) {
+                            k += 2; /* FNC4 FNC4 */
+                        }
+                        if (gs1 && (c == '[')) {
+                            relaxSubset(cost, back, i + 1, to, k + 1, from, false, 1);
+                        } else if (toSet == 2) {
+                            if ((i + 1 < length) && (c >= '0') && (c <= '9')
+                                    && (inputData[i + 1] >= '0') && (inputData[i + 1] <= '9')) {
+                                relaxSubset(cost, back, i + 2, to, k + 1, from, false, 2);
+                            }
+                        } else if ((toExt == fromExt) || (high == toExt)) {
+                            if (high != toExt) {
+                                k++; /* FNC4 shift */
+                            }
+                            if ((toSet == 0) ? (low < 96) : (low >= 32)) {
+                                relaxSubset(cost, back, i + 1, to, k + 1, from, false, 1);
+                            } else if ((toSet == fromSet)
+                                    && !((compositeMode != Composite.OFF) && (i == length - 1))) {
+                                /* SHIFT, never on the last character of a linked symbol */
+                                relaxSubset(cost, back, i + 1, to, k + 2, from, true, 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        to = 0;
+        for (i = 1; i < 6; i++) {
+            if (cost[length][i] < cost[length][to]) {
+                to = i;
+            }
+        }
+
+        i = length;
+        while (i > 0) {
+            int step = (back[i][to] & 1) + 1;
+            boolean shift = (back[i][to] & 2) != 0;
+            from = (back[i][to] >> 2) - 1;
+            toSet = to >> 1;
+            toExt = to & 1;
+            for (k = i - step; k < i; k++) {
+                c = inputData[k];
+                if (shift) {
+                    set[k] = (toSet == 0) ? Mode.SHIFTB : Mode.SHIFTA;
+                } else {
+                    set[k] = (toSet == 0) ? Mode.LATCHA : (toSet == 1) ? Mode.LATCHB : Mode.LATCHC;
+                }
+                if ((toSet == 2) || (gs1 && (c == '[')) || ((c >> 7) == toExt)) {
+                    fset[k] = (toExt == 1) ? FMode.LATCHF : FMode.LATCHN;
+                } else {
+                    fset[k] = (toExt == 1) ? FMode.SHIFTN : FMode.SHIFTF;
+                }
+            }
+            i -= step;
+            to = from;
+        }
+    }
+
+    private static void relaxSubset(int[][] cost, int[][] back, int position, int state, int value,
+                                    int from, boolean shift, int step) {
+        if (value < cost[position][state]) {
+            cost[position][state] = value;
+            back[position][state] = ((from + 1) << 2) | (shift ? 2 : 0) | (step - 1);
+        }
+    }
+
     private Mode findSubset(int letter) {
         Mode mode;
 
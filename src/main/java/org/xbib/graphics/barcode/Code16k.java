@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 import java.io.UnsupportedEncodingException;
 
@@ -63,15 +65,16 @@ public class Code16k extends Symbol {
         boolean f_state;
         int[] inputData;
 
-        if (!content.matches("[\u0000-\u00FF]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.LATIN_1.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
         try {
             inputBytes = content.getBytes("ISO8859_1");
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Character encoding error");
+            error(EncodeError.CHARACTER_ENCODING, "Character encoding error");
             return false;
         }
 
@@ -87,7 +90,7 @@ public class Code16k extends Symbol {
         values = new int[160];
 
         if (input_length > 157) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
@@ -161,7 +164,7 @@ public class Code16k extends Symbol {
             block_count++;
         } while (indexchaine < input_length);
 
-        reduceSubsetChanges(block_count);
+        block_count = reduceSubsetChanges(block_count);
 
 
         /* Put set data into set[] */
@@ -294,7 +297,7 @@ public class Code16k extends Symbol {
         }
 
         if (glyph_count > 77.0) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
@@ -329,7 +332,7 @@ public class Code16k extends Symbol {
                 m = 5;
             }
             if (inputDataType == DataType.GS1) {
-                errorMsg.append("Cannot use both GS1 mode and Reader Initialisation");
+                error(EncodeError.INVALID_SETTINGS, "Cannot use both GS1 mode and Reader Initialisation");
                 return false;
             } else {
                 if ((set[0] == 'B') && (set[1] == 'C')) {
@@ -517,14 +520,18 @@ public class Code16k extends Symbol {
         bar_characters += 2;
 
         readable = new StringBuilder();
-        pattern = new String[rows_needed];
+        runLengths = new int[rows_needed][];
         rowCount = rows_needed;
         rowHeight = new int[rows_needed];
 
-        encodeInfo.append("Symbol Rows: ").append(rows_needed).append("\n");
-        encodeInfo.append("First Check Digit: ").append(first_check).append("\n");
-        encodeInfo.append("Second Check Digit: ").append(second_check).append("\n");
-        encodeInfo.append("Codewords: ");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Symbol Rows: ").append(rows_needed).append("\n");
+            encodeInfo.append("First Check Digit: ").append(first_check).append("\n");
+            encodeInfo.append("Second Check Digit: ").append(second_check).append("\n");
+        }
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+        }
 
         for (current_row = 0; current_row < rows_needed; current_row++) {
 
@@ -533,15 +540,19 @@ public class Code16k extends Symbol {
             width_pattern.append("1");
             for (i = 0; i < 5; i++) {
                 width_pattern.append(C_16_K_TABLE[values[(current_row * 5) + i]]);
-                encodeInfo.append(Integer.toString(values[(current_row * 5) + i])).append(" ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append(Integer.toString(values[(current_row * 5) + i])).append(" ");
+                }
             }
             width_pattern.append(C_16_K_START_STOP[C_16_K_STOP_VALUES[current_row]]);
 
-            pattern[current_row] = width_pattern.toString();
+            runLengths[current_row] = pat2runs(width_pattern);
             rowHeight[current_row] = 10;
         }
-        encodeInfo.append("\n");
-        plotSymbol();
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
+        plot();
         return true;
 
     }
@@ -599,7 +610,7 @@ public class Code16k extends Symbol {
         return mode;
     }
 
-    private void reduceSubsetChanges(int block_count) { /* Implements rules from ISO 15417 Annex E */
+    private int reduceSubsetChanges(int block_count) { /* Implements rules from ISO 15417 Annex E */
         int i, length;
         Mode current, last, next;
 
@@ -694,11 +705,10 @@ public class Code16k extends Symbol {
                 }
             } /* Rule 2 is implimented elsewhere, Rule 6 is implied */
         }
-        combineSubsetBlocks(block_count);
-
+        return combineSubsetBlocks(block_count);
     }
 
-    private void combineSubsetBlocks(int block_count) {
+    private int combineSubsetBlocks(int block_count) {
         int i, j;
 
         /* bring together same type blocks */
@@ -722,6 +732,7 @@ public class Code16k extends Symbol {
                 i++;
             }
         }
+        return block_count;
     }
 
     @Override
@@ -736,10 +747,10 @@ public class Code16k extends Symbol {
         for (yBlock = 0; yBlock < rowCount; yBlock++) {
             black = true;
             x = 15;
-            for (xBlock = 0; xBlock < pattern[yBlock].length(); xBlock++) {
+            for (xBlock = 0; xBlock < runLengths[yBlock].length; xBlock++) {
                 if (black) {
                     black = false;
-                    w = pattern[yBlock].charAt(xBlock) - '0';
+                    w = runLengths[yBlock][xBlock];
                     if (rowHeight[yBlock] == -1) {
                         h = defaultHeight;
                     } else {
@@ -755,7 +766,7 @@ public class Code16k extends Symbol {
                 } else {
                     black = true;
                 }
-                x += (double) (pattern[yBlock].charAt(xBlock) - '0');
+                x += (double) runLengths[yBlock][xBlock];
             }
             y += h;
             if ((y + h) > symbolHeight) {
@@ -1,5 +1,8 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
@@ -21,6 +24,16 @@ public class Code2Of5 extends Symbol {
     private static final String[] C25_INTERLEAVED_TABLE = {
             "11331", "31113", "13113", "33111", "11313", "31311", "13311", "11133", "31131", "13131"
     };
+    private static final byte[][] MATRIX_WIDTHS = LinearPatterns.toWidths(C25_MATRIX_TABLE);
+    private static final byte[][] INDUSTRIAL_WIDTHS = LinearPatterns.toWidths(C25_INDUSTRIAL_TABLE);
+    private static final byte[][] INTERLEAVED_WIDTHS = LinearPatterns.toWidths(C25_INTERLEAVED_TABLE);
+    private static final byte[] MATRIX_START = LinearPatterns.toWidths("311111");
+    private static final byte[] MATRIX_STOP = LinearPatterns.toWidths("31111");
+    private static final byte[] INDUSTRIAL_START = LinearPatterns.toWidths("313111");
+    private static final byte[] INDUSTRIAL_STOP = LinearPatterns.toWidths("31113");
+    private static final byte[] INTERLEAVED_START = LinearPatterns.toWidths("1111");
+    private static final byte[] INTERLEAVED_STOP = LinearPatterns.toWidths("311");
+    private final BarBuffer bars = new BarBuffer();
     /**
      * The 2-of-5 mode.
      */
@@ -148,7 +161,7 @@ public class Code2Of5 extends Symbol {
         }
 
         if (retval) {
-            plotSymbol();
+            plot();
         }
 
         return retval;
@@ -156,140 +169,129 @@ public class Code2Of5 extends Symbol {
 
     private boolean dataMatrixTof() {
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder dest = new StringBuilder("311111");
-
-        for (int i = 0; i < content.length(); i++) {
-            dest.append(C25_MATRIX_TABLE[Character.getNumericValue(content.charAt(i))]);
-        }
-        dest.append("31111");
+        bars.clear();
+        bars.append(MATRIX_START);
+        appendDigits(content, MATRIX_WIDTHS);
+        bars.append(MATRIX_STOP);
 
         readable = new StringBuilder(content);
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
     }
 
     private boolean industrialTof() {
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder dest = new StringBuilder("313111");
+        bars.clear();
+        bars.append(INDUSTRIAL_START);
         readable = new StringBuilder(content);
-        for (int i = 0; i < readable.length(); i++) {
-            dest.append(C25_INDUSTRIAL_TABLE[Character.getNumericValue(readable.charAt(i))]);
-        }
-        dest.append("31113");
+        appendDigits(readable, INDUSTRIAL_WIDTHS);
+        bars.append(INDUSTRIAL_STOP);
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
     }
 
     private boolean iataTof() {
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder dest = new StringBuilder("1111");
+        bars.clear();
+        bars.append(INTERLEAVED_START);
         readable = new StringBuilder(content);
-        for (int i = 0; i < readable.length(); i++) {
-            dest.append(C25_INDUSTRIAL_TABLE[Character.getNumericValue(readable.charAt(i))]);
-        }
-        dest.append("311");
+        appendDigits(readable, INDUSTRIAL_WIDTHS);
+        bars.append(INTERLEAVED_STOP);
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
     }
 
     private boolean dataLogic() {
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder dest = new StringBuilder("1111");
+        bars.clear();
+        bars.append(INTERLEAVED_START);
         readable = new StringBuilder(content);
+        appendDigits(readable, MATRIX_WIDTHS);
+        bars.append(INTERLEAVED_STOP);
 
-        for (int i = 0; i < readable.length(); i++) {
-            dest.append(C25_MATRIX_TABLE[Character.getNumericValue(readable.charAt(i))]);
-        }
-
-        dest.append("311");
-
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
     }
 
     private boolean interleavedTof() {
-        int i;
-        StringBuilder dest;
-
         if ((content.length() & 1) == 0) {
             readable = new StringBuilder(content);
         } else {
             readable = new StringBuilder("0").append(content);
         }
-        if (!(readable.toString().matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(readable);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        dest = new StringBuilder("1111");
-
-        for (i = 0; i < readable.length(); i += 2) {
-            dest.append(interlace(i, i + 1));
-        }
-
-        dest.append("311");
+        appendInterleaved();
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
     }
 
-    private String interlace(int x, int y) {
-        char a = readable.charAt(x);
-        char b = readable.charAt(y);
-
-        String one = C25_INTERLEAVED_TABLE[Character.getNumericValue(a)];
-        String two = C25_INTERLEAVED_TABLE[Character.getNumericValue(b)];
-        String f = "";
-
-        for (int i = 0; i < 5; i++) {
-            f += one.charAt(i);
-            f += two.charAt(i);
+    private void appendDigits(CharSequence digits, byte[][] widths) {
+        for (int i = 0; i < digits.length(); i++) {
+            bars.append(widths[digits.charAt(i) - '0']);
         }
+    }
 
-        return f;
+    private void appendInterleaved() {
+        bars.clear();
+        bars.append(INTERLEAVED_START);
+        for (int i = 0; i < readable.length(); i += 2) {
+            bars.appendInterleaved(INTERLEAVED_WIDTHS[readable.charAt(i) - '0'],
+                    INTERLEAVED_WIDTHS[readable.charAt(i + 1) - '0']);
+        }
+        bars.append(INTERLEAVED_STOP);
     }
 
     private boolean itf14() {
         int i, count = 0;
         int input_length = content.length();
-        StringBuilder dest;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (input_length > 13) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -308,18 +310,14 @@ public class Code2Of5 extends Symbol {
         }
 
         readable.append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append("Check Digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append('\n');
-
-        dest = new StringBuilder("1111");
-
-        for (i = 0; i < readable.length(); i += 2) {
-            dest.append(interlace(i, i + 1));
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
+            encodeInfo.append('\n');
         }
 
-        dest.append("311");
+        appendInterleaved();
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
@@ -328,15 +326,15 @@ public class Code2Of5 extends Symbol {
     private boolean deutschePostLeitcode() {
         int i, count = 0;
         int input_length = content.length();
-        StringBuilder dest;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (input_length > 13) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -356,18 +354,14 @@ public class Code2Of5 extends Symbol {
         }
 
         readable.append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append("Check digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append('\n');
-
-        dest = new StringBuilder("1111");
-
-        for (i = 0; i < readable.length(); i += 2) {
-            dest.append(interlace(i, i + 1));
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
+            encodeInfo.append('\n');
         }
 
-        dest.append("311");
+        appendInterleaved();
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
@@ -376,15 +370,15 @@ public class Code2Of5 extends Symbol {
     private boolean deutschePostIdentcode() {
         int i, count = 0;
         int input_length = content.length();
-        StringBuilder dest;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (input_length > 11) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -403,18 +397,14 @@ public class Code2Of5 extends Symbol {
         }
 
         readable.append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append("Check Digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
-        encodeInfo.append('\n');
-
-        dest = new StringBuilder("1111");
-
-        for (i = 0; i < readable.length(); i += 2) {
-            dest.append(interlace(i, i + 1));
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append((char) (((10 - (count % 10)) % 10) + '0'));
+            encodeInfo.append('\n');
         }
 
-        dest.append("311");
+        appendInterleaved();
 
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
         return true;
@@ -445,9 +435,8 @@ public class Code2Of5 extends Symbol {
             offset = 20;
         }
 
-        for (xBlock = 0; xBlock < pattern[0].length(); xBlock++) {
-            char c = pattern[0].charAt(xBlock);
-            double w = getModuleWidth(c - '0') * moduleWidth;
+        for (xBlock = 0; xBlock < runLengths[0].length; xBlock++) {
+            double w = getModuleWidth(runLengths[0][xBlock]) * moduleWidth;
             if (black) {
                 if (rowHeight[0] == -1) {
                     h = defaultHeight;
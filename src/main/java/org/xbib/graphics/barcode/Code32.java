@@ -1,5 +1,8 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Implements Code 32, also known as Italian Pharmacode, A variation of Code
  * 39 used by the Italian Ministry of Health ("Ministero della Sanità")
@@ -12,6 +15,7 @@ public class Code32 extends Symbol {
             'G', 'H', 'J', 'K', 'L', 'M', 'N', 'P', 'Q', 'R', 'S', 'T', 'U', 'V',
             'W', 'X', 'Y', 'Z'
     };
+    private final BarBuffer bars = new BarBuffer();
 
     @Override
     public boolean encode() {
@@ -20,15 +24,15 @@ public class Code32 extends Symbol {
         StringBuilder localstr;
         StringBuilder risultante;
         int[] codeword = new int[6];
-        Code3Of9 c39 = new Code3Of9();
 
         if (content.length() > 8) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
@@ -56,8 +60,10 @@ public class Code32 extends Symbol {
         /* Add check digit to data string */
         checkdigit = checksum % 10;
         localstr.append((char) (checkdigit + '0'));
-        encodeInfo.append("Check Digit: ").append((char) (checkdigit + '0'));
-        encodeInfo.append('\n');
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append((char) (checkdigit + '0'));
+            encodeInfo.append('\n');
+        }
 
         /* Convert string into an integer value */
         pharmacode = 0;
@@ -84,20 +90,16 @@ public class Code32 extends Symbol {
         /* Plot the barcode using Code 39 */
 
         readable = new StringBuilder("A").append(localstr);
-        pattern = new String[1];
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        encodeInfo.append("Code 39 Equivalent: ").append(risultante).append('\n');
-        try {
-            c39.setContent(risultante.toString());
-        } catch (Exception e) {
-            errorMsg.append(e.getMessage());
-            return false;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Code 39 Equivalent: ").append(risultante).append('\n');
         }
-
-        this.pattern[0] = c39.pattern[0];
-        this.plotSymbol();
+        bars.clear();
+        Code3Of9.appendSymbol(bars, risultante);
+        runLengths = new int[][]{bars.toRunLengths()};
+        plot();
         return true;
     }
 }
@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements Code 39 bar code symbology according to ISO/IEC 16388:2007.
  * Input data can be of any length and supports the characters 0-9, A-Z, dash
@@ -26,6 +30,11 @@ public class Code3Of9 extends Symbol {
             'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '-', '.', ' ', '$', '/', '+',
             '%'
     };
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(CODE_39, LOOKUP);
+    private static final int[] VALUES = LinearPatterns.toValues(LOOKUP);
+    private static final byte[] START = LinearPatterns.toWidths("1211212111");
+    private static final byte[] STOP = LinearPatterns.toWidths("121121211");
+    private final BarBuffer bars = new BarBuffer();
     private CheckDigit checkOption = CheckDigit.NONE;
     /**
      * Ratio of wide bar width to narrow bar width.
@@ -51,6 +60,15 @@ public class Code3Of9 extends Symbol {
         this.moduleWidthRatio = moduleWidthRatio;
     }
 
+    /**
+     * Returns the check digit option.
+     *
+     * @return the check digit option
+     */
+    public CheckDigit getCheckDigit() {
+        return checkOption;
+    }
+
     /**
      * Select addition of optional Modulo-43 check digit or encoding without
      * check digit.
@@ -63,78 +81,60 @@ public class Code3Of9 extends Symbol {
 
     @Override
     public boolean encode() {
-        if (!(content.matches("[0-9A-Z\\. \\-$/+%]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.CODE39.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
-        StringBuilder p = new StringBuilder();
-        StringBuilder dest = new StringBuilder();
-        int l = content.length();
-        int charval;
-        char thischar;
-        int counter = 0;
+        bars.clear();
+        bars.append(START);
+        appendCharacters(bars, content);
         char check_digit = ' ';
-        dest.append("1211212111");
-        for (int i = 0; i < l; i++) {
-            thischar = content.charAt(i);
-            charval = positionOf(thischar, LOOKUP);
-            counter += charval;
-            p.append(CODE_39[charval]);
-        }
-        dest.append(p);
         if (checkOption == CheckDigit.MOD43) {
-            counter = counter % 43;
-            if (counter < 10) {
-                check_digit = (char) (counter + '0');
-            } else {
-                if (counter < 36) {
-                    check_digit = (char) ((counter - 10) + 'A');
-                } else {
-                    switch (counter) {
-                        case 36:
-                            check_digit = '-';
-                            break;
-                        case 37:
-                            check_digit = '.';
-                            break;
-                        case 38:
-                            check_digit = ' ';
-                            break;
-                        case 39:
-                            check_digit = '$';
-                            break;
-                        case 40:
-                            check_digit = '/';
-                            break;
-                        case 41:
-                            check_digit = '+';
-                            break;
-                        default:
-                            check_digit = 37;
-                            break;
-                    }
-                }
+            int counter = 0;
+            for (int i = 0; i < content.length(); i++) {
+                counter += VALUES[content.charAt(i)];
             }
-            charval = positionOf(check_digit, LOOKUP);
-            p.append(CODE_39[charval]);
+            check_digit = LOOKUP[counter % 43];
+            bars.append(WIDTHS[check_digit]);
             if (check_digit == ' ') {
                 check_digit = '_';
             }
         }
-        dest.append("121121211");
+        bars.append(STOP);
         if (checkOption == CheckDigit.MOD43) {
             readable = new StringBuilder("*").append(content).append(check_digit).append("*");
-            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+            }
         } else {
             readable = new StringBuilder("*").append(content).append("*");
         }
-        pattern = new String[]{dest.toString()};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
-        plotSymbol();
+        plot();
         return true;
     }
 
+    /**
+     * Appends a Code 39 symbol without check digit, for symbologies which are based on Code 39.
+     *
+     * @param bars the buffer to append to
+     * @param data the data, which must only contain valid characters
+     */
+    static void appendSymbol(BarBuffer bars, CharSequence data) {
+        bars.append(START);
+        appendCharacters(bars, data);
+        bars.append(STOP);
+    }
+
+    private static void appendCharacters(BarBuffer bars, CharSequence data) {
+        for (int i = 0; i < data.length(); i++) {
+            bars.append(WIDTHS[data.charAt(i)]);
+        }
+    }
+
     @Override
     protected double getModuleWidth(int originalWidth) {
         if (originalWidth == 1) {
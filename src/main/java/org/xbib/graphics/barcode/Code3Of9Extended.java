@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Implements Code 3 of 9 Extended, also known as Code 39e and Code39+.
  * Supports encoding of all characters in the 7-bit ASCII table. A
@@ -47,8 +49,9 @@ public class Code3Of9Extended extends Symbol {
             c.setCheckDigit(Code3Of9.CheckDigit.MOD43);
         }
 
-        if (!content.matches("[\u0000-\u007F]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.ASCII.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
@@ -57,19 +60,18 @@ public class Code3Of9Extended extends Symbol {
             buffer.append(ECode39[asciicode]);
         }
 
-        try {
-            c.setContent(buffer.toString());
-        } catch (Exception e) {
-            errorMsg.append(e.getMessage());
+        c.setEncodeListener(EncodeListener.NONE);
+        EncodeResult result = c.trySetContent(buffer.toString());
+        if (!result.isSuccess()) {
+            error(result);
             return false;
         }
         readable = new StringBuilder(content);
-        pattern = new String[1];
-        pattern[0] = c.pattern[0];
+        runLengths = new int[][]{c.runLengths[0]};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
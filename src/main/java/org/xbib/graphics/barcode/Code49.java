@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 
 /**
@@ -983,8 +985,9 @@ public class Code49 extends Symbol {
         int[][] c_grid = new int[8][8];
         int[][] w_grid = new int[8][4];
 
-        if (!content.matches("[\u0000-\u007F]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.ASCII.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
@@ -993,7 +996,7 @@ public class Code49 extends Symbol {
         }
         for (i = 0; i < length; i++) {
             if (content.charAt(i) > 127) {
-                errorMsg.append("Invalid characters in input");
+                error(EncodeError.INVALID_CHARACTER, "Invalid characters in input");
                 return false;
             }
             if ((inputDataType == DataType.GS1) && (content.charAt(i) == '[')) {
@@ -1161,11 +1164,13 @@ public class Code49 extends Symbol {
         }
 
         if (codeword_count > 49) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        encodeInfo.append("Starting Mode (M): ").append(M).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Starting Mode (M): ").append(M).append("\n");
+        }
 
         /* Place codewords in code character array (c grid) */
         rows = 0;
@@ -1239,7 +1244,9 @@ public class Code49 extends Symbol {
         c_grid[rows - 1][4] = (x_count % 2401) / 49;
         c_grid[rows - 1][5] = (x_count % 2401) % 49;
 
-        encodeInfo.append("Check Characters: ").append(Integer.toString(z_count % 2401)).append(" ").append(Integer.toString(y_count % 2401)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Characters: ").append(Integer.toString(z_count % 2401)).append(" ").append(Integer.toString(y_count % 2401)).append("\n");
+        }
 
         /* Add last row check character */
         j = 0;
@@ -1248,26 +1255,36 @@ public class Code49 extends Symbol {
         }
         c_grid[rows - 1][7] = j % 49;
 
-        encodeInfo.append("Codewords: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+        }
         /* Transfer data to symbol character array (w grid) */
         for (i = 0; i < rows; i++) {
             for (j = 0; j < 4; j++) {
                 w_grid[i][j] = (c_grid[i][2 * j] * 49) + c_grid[i][(2 * j) + 1];
-                encodeInfo.append(Integer.toString(c_grid[i][2 * j])).append(" ").append(Integer.toString(c_grid[i][(2 * j) + 1])).append(" ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append(Integer.toString(c_grid[i][2 * j])).append(" ").append(Integer.toString(c_grid[i][(2 * j) + 1])).append(" ");
+                }
             }
         }
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
         readable = new StringBuilder();
-        pattern = new String[rows];
+        runLengths = new int[rows][];
         rowCount = rows;
         rowHeight = new int[rows];
 
-        encodeInfo.append("Symbol Characters: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Symbol Characters: ");
+        }
         for (i = 0; i < rows; i++) {
             localpattern = new StringBuilder("11"); /* Start character */
             for (j = 0; j < 4; j++) {
-                encodeInfo.append(Integer.toString(w_grid[i][j])).append(" ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append(Integer.toString(w_grid[i][j])).append(" ");
+                }
                 if (i != (rows - 1)) {
                     if (c49_table4[i].charAt(j) == 'E') {
                         /* Even Parity */
@@ -1283,12 +1300,14 @@ public class Code49 extends Symbol {
             }
             localpattern.append("4"); /* Stop character */
 
-            pattern[i] = localpattern.toString();
+            runLengths[i] = pat2runs(localpattern);
             rowHeight[i] = 10;
 
         }
-        encodeInfo.append("\n");
-        plotSymbol();
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
+        plot();
         return true;
     }
 
@@ -1304,10 +1323,10 @@ public class Code49 extends Symbol {
         for (yBlock = 0; yBlock < rowCount; yBlock++) {
             black = true;
             x = 15;
-            for (xBlock = 0; xBlock < pattern[yBlock].length(); xBlock++) {
+            for (xBlock = 0; xBlock < runLengths[yBlock].length; xBlock++) {
                 if (black) {
                     black = false;
-                    w = pattern[yBlock].charAt(xBlock) - '0';
+                    w = runLengths[yBlock][xBlock];
                     if (rowHeight[yBlock] == -1) {
                         h = defaultHeight;
                     } else {
@@ -1323,7 +1342,7 @@ public class Code49 extends Symbol {
                 } else {
                     black = true;
                 }
-                x += (double) (pattern[yBlock].charAt(xBlock) - '0');
+                x += (double) runLengths[yBlock][xBlock];
             }
             y += h;
             if ((y + h) > symbolHeight) {
@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements <a href="http://en.wikipedia.org/wiki/Code_93">Code 93</a>.
  * Supports encoding of 7-bit ASCII text. Two check digits are added.
@@ -51,6 +55,30 @@ public class Code93 extends Symbol {
             "112131", "113121", "211131", "121221", "312111",
             "311121", "122211"};
 
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(CODE_93_TABLE);
+
+    private static final byte[] START = LinearPatterns.toWidths("111141");
+
+    private static final byte[] STOP = LinearPatterns.toWidths("1111411");
+
+    /**
+     * Pattern table indexes of the control characters, indexed by ASCII codes.
+     */
+    private static final int[][] VALUES = new int[CODE_93_CTRL.length][];
+
+    static {
+        int[] lookup = LinearPatterns.toValues(CODE_93_LOOKUP);
+        for (int i = 0; i < VALUES.length; i++) {
+            String controlChars = CODE_93_CTRL[i];
+            VALUES[i] = new int[controlChars.length()];
+            for (int j = 0; j < controlChars.length(); j++) {
+                VALUES[i][j] = lookup[controlChars.charAt(j)];
+            }
+        }
+    }
+
+    private final BarBuffer bars = new BarBuffer();
+
     /**
      * Whether or not to show check digits in the human-readable text.
      */
@@ -61,52 +89,6 @@ public class Code93 extends Symbol {
      */
     private Character startStopDelimiter;
 
-    private static char[] toControlChars(String s) {
-        StringBuilder buffer = new StringBuilder();
-        char[] chars = s.toCharArray();
-        for (char asciiCode : chars) {
-            buffer.append(CODE_93_CTRL[asciiCode]);
-        }
-        return buffer.toString().toCharArray();
-    }
-
-    private static int calculateCheckDigitC(int[] values, int length) {
-        int c = 0;
-        int weight = 1;
-        for (int i = length - 1; i >= 0; i--) {
-            c += values[i] * weight;
-            weight++;
-            if (weight == 21) {
-                weight = 1;
-            }
-        }
-        c = c % 47;
-        return c;
-    }
-
-    private static int calculateCheckDigitK(int[] values, int length) {
-        int k = 0;
-        int weight = 1;
-        for (int i = length - 1; i >= 0; i--) {
-            k += values[i] * weight;
-            weight++;
-            if (weight == 16) {
-                weight = 1;
-            }
-        }
-        k = k % 47;
-        return k;
-    }
-
-    private static String toPattern(int[] values) {
-        StringBuilder buffer = new StringBuilder("111141");
-        for (int value : values) {
-            buffer.append(CODE_93_TABLE[value]);
-        }
-        buffer.append("1111411");
-        return buffer.toString();
-    }
-
     /**
      * Returns whether or not this symbol shows check digits in the human-readable text.
      *
@@ -146,24 +128,30 @@ public class Code93 extends Symbol {
     @Override
     public boolean encode() {
 
-        char[] controlChars = toControlChars(content);
-        int l = controlChars.length;
-
-        if (!content.matches("[\u0000-\u007F]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.ASCII.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
-        int[] values = new int[controlChars.length + 2];
-        for (int i = 0; i < l; i++) {
-            values[i] = positionOf(controlChars[i], CODE_93_LOOKUP);
+        int l = 0;
+        for (int i = 0; i < content.length(); i++) {
+            l += VALUES[content.charAt(i)].length;
+        }
+
+        int[] values = new int[l + 2];
+        l = 0;
+        for (int i = 0; i < content.length(); i++) {
+            for (int value : VALUES[content.charAt(i)]) {
+                values[l++] = value;
+            }
         }
 
-        int c = calculateCheckDigitC(values, l);
+        int c = LinearPatterns.getModuloCheck(values, l, 20, 47);
         values[l] = c;
         l++;
 
-        int k = calculateCheckDigitK(values, l);
+        int k = LinearPatterns.getModuloCheck(values, l, 15, 47);
         values[l] = k;
 
         readable = new StringBuilder(content);
@@ -174,13 +162,21 @@ public class Code93 extends Symbol {
             readable = new StringBuilder(startStopDelimiter).append(readable).append(startStopDelimiter);
         }
 
-        encodeInfo.append("Check Digit C: ").append(c).append("\n");
-        encodeInfo.append("Check Digit K: ").append(k).append("\n");
-        pattern = new String[]{toPattern(values)};
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit C: ").append(c).append("\n");
+            encodeInfo.append("Check Digit K: ").append(k).append("\n");
+        }
+        bars.clear();
+        bars.append(START);
+        for (int value : values) {
+            bars.append(WIDTHS[value]);
+        }
+        bars.append(STOP);
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
 
-        plotSymbol();
+        plot();
 
         return true;
     }
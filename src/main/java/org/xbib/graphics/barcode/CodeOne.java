@@ -1,5 +1,6 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.ReedSolomon;
 
 import java.io.UnsupportedEncodingException;
@@ -83,7 +84,7 @@ public class CodeOne extends Symbol {
     private int[] data = new int[1500];
 
     ;
-    private byte[] source;
+    private int[] source;
     private int[][] datagrid = new int[136][120];
     private boolean[][] outputGrid = new boolean[148][134];
     private Version preferredVersion = Version.NONE;
@@ -117,23 +118,27 @@ public class CodeOne extends Symbol {
         int[] sub_data = new int[190];
         StringBuilder bin;
 
-        if (!content.matches("[\u0000-\u00FF]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.LATIN_1.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
         if (preferredVersion == Version.S) {
             /* Version S */
 
-            encodeInfo.append("Version: S");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Version: S");
+            }
 
             if (length > 18) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
 
-            if (!(content.matches("[0-9]+?"))) {
-                errorMsg.append("Invalid characters in input");
+            invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+            if (invalid >= 0) {
+                error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
                 return false;
             }
 
@@ -219,7 +224,9 @@ public class CodeOne extends Symbol {
         if (preferredVersion == Version.T) {
             /* Version T */
 
-            encodeInfo.append("Version: T\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Version: T\n");
+            }
 
             for (i = 0; i < 40; i++) {
                 data[i] = 0;
@@ -227,12 +234,12 @@ public class CodeOne extends Symbol {
             data_length = encodeAsCode1Data();
 
             if (data_length == 0) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
 
             if (data_length > 38) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
 
@@ -320,7 +327,7 @@ public class CodeOne extends Symbol {
             data_length = encodeAsCode1Data();
 
             if (data_length == 0) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
 
@@ -334,13 +341,17 @@ public class CodeOne extends Symbol {
                 size = getSize(preferredVersion);
             }
 
-            encodeInfo.append("Version:  ").append((char) ((size - 1) + 'A')).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Version:  ").append((char) ((size - 1) + 'A')).append("\n");
+            }
 
-            encodeInfo.append("Codewords: ");
-            for (i = 0; i < data_length; i++) {
-                encodeInfo.append(Integer.toString(data[i])).append(" ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("Codewords: ");
+                for (i = 0; i < data_length; i++) {
+                    encodeInfo.append(Integer.toString(data[i])).append(" ");
+                }
+                encodeInfo.append("\n");
             }
-            encodeInfo.append("\n");
 
             for (i = data_length; i < c1_data_length[size - 1]; i++) {
                 data[i] = 129; /* Pad */
@@ -365,7 +376,12 @@ public class CodeOne extends Symbol {
                 }
             }
 
-            encodeInfo.append("ECC Codeword Count: ").append(c1_ecc_length[size - 1]).append("\n");
+            diagnostics.version = size;
+            diagnostics.dataCodewords = data_length;
+            diagnostics.eccCodewords = c1_ecc_length[size - 1];
+            if (isSummaryEnabled()) {
+                encodeInfo.append("ECC Codeword Count: ").append(c1_ecc_length[size - 1]).append("\n");
+            }
 
             /* "Stream" combines data and error correction data */
             for (i = 0; i < data_length; i++) {
@@ -412,7 +428,9 @@ public class CodeOne extends Symbol {
                 }
             }
 
-            encodeInfo.append("Grid Size: ").append(c1_grid_width[size - 1]).append(" X ").append(c1_grid_height[size - 1]).append("\n");
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Grid Size: ").append(c1_grid_width[size - 1]).append(" X ").append(c1_grid_height[size - 1]).append("\n");
+            }
 
             rowCount = c1_height[size - 1];
             symbolWidth = c1_width[size - 1];
@@ -694,7 +712,7 @@ public class CodeOne extends Symbol {
         }
 
         readable = new StringBuilder();
-        pattern = new String[rowCount];
+        runLengths = new int[rowCount][];
         rowHeight = new int[rowCount];
         for (i = 0; i < rowCount; i++) {
             bin = new StringBuilder();
@@ -705,10 +723,10 @@ public class CodeOne extends Symbol {
                     bin.append("0");
                 }
             }
-            pattern[i] = bin2pat(bin.toString());
+            runLengths[i] = bin2pat(bin);
             rowHeight[i] = 1;
         }
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -732,12 +750,17 @@ public class CodeOne extends Symbol {
         int bits_left_in_byte, target_count;
         boolean isTwoDigits;
 
+        byte[] bytes;
         try {
-            source = content.getBytes("ISO8859_1");
+            bytes = content.getBytes("ISO8859_1");
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Invalid character in input data");
+            error(EncodeError.INVALID_CHARACTER, "Invalid character in input data");
             return 0;
         }
+        source = new int[bytes.length];
+        for (i = 0; i < bytes.length; i++) {
+            source[i] = bytes[i] & 0xFF;
+        }
 
         sourcePoint = 0;
         targetPoint = 0;
@@ -1398,7 +1421,7 @@ public class CodeOne extends Symbol {
 
             if (targetPoint > 1480) {
                 /* Data is too large for symbol */
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return 0;
             }
         } while (sourcePoint < length);
@@ -1536,7 +1559,7 @@ public class CodeOne extends Symbol {
         /* Re-check length of data */
         if (targetPoint > 1480) {
             /* Data is too large for symbol */
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return 0;
         }
 
@@ -1,5 +1,8 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.DataBarWidths;
+
 import java.math.BigInteger;
 
 /**
@@ -15,7 +18,7 @@ public class DataBar14 extends Symbol {
     private int[] t_table = {
             1, 10, 34, 70, 126, 4, 20, 48, 81
     };
-    private int[] widths = new int[8];
+    private int[] widths;
     private int[] modules_odd = {
             12, 10, 8, 6, 4, 5, 7, 9, 11
     };
@@ -107,15 +110,19 @@ public class DataBar14 extends Symbol {
         int compositeOffset = 0;
 
         if (content.length() > 13) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+?"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
+        /* only the linear mode has human readable text */
+        readable = new StringBuilder();
+
         accum = new BigInteger(content);
         if (linkageFlag) {
             accum = accum.add(new BigInteger("10000000000000"));
@@ -136,11 +143,13 @@ public class DataBar14 extends Symbol {
         accum = right_reg.mod(new BigInteger("1597"));
         data_character[3] = accum.intValue();
 
-        encodeInfo.append("Data characters: ");
-        for (i = 0; i < 4; i++) {
-            encodeInfo.append(Integer.toString(data_character[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Data characters: ");
+            for (i = 0; i < 4; i++) {
+                encodeInfo.append(Integer.toString(data_character[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Calculate odd and even subset values */
         if ((data_character[0] >= 0) && (data_character[0] <= 160)) {
@@ -210,23 +219,23 @@ public class DataBar14 extends Symbol {
         /* Use RSS subset width algorithm */
         for (i = 0; i < 4; i++) {
             if ((i == 0) || (i == 2)) {
-                getWidths(v_odd[i], modules_odd[data_group[i]], 4, widest_odd[data_group[i]], 1);
+                widths = DataBarWidths.getWidths(v_odd[i], modules_odd[data_group[i]], 4, widest_odd[data_group[i]], 1);
                 data_widths[0][i] = widths[0];
                 data_widths[2][i] = widths[1];
                 data_widths[4][i] = widths[2];
                 data_widths[6][i] = widths[3];
-                getWidths(v_even[i], modules_even[data_group[i]], 4, widest_even[data_group[i]], 0);
+                widths = DataBarWidths.getWidths(v_even[i], modules_even[data_group[i]], 4, widest_even[data_group[i]], 0);
                 data_widths[1][i] = widths[0];
                 data_widths[3][i] = widths[1];
                 data_widths[5][i] = widths[2];
                 data_widths[7][i] = widths[3];
             } else {
-                getWidths(v_odd[i], modules_odd[data_group[i]], 4, widest_odd[data_group[i]], 0);
+                widths = DataBarWidths.getWidths(v_odd[i], modules_odd[data_group[i]], 4, widest_odd[data_group[i]], 0);
                 data_widths[0][i] = widths[0];
                 data_widths[2][i] = widths[1];
                 data_widths[4][i] = widths[2];
                 data_widths[6][i] = widths[3];
-                getWidths(v_even[i], modules_even[data_group[i]], 4, widest_even[data_group[i]], 1);
+                widths = DataBarWidths.getWidths(v_even[i], modules_even[data_group[i]], 4, widest_even[data_group[i]], 1);
                 data_widths[1][i] = widths[0];
                 data_widths[3][i] = widths[1];
                 data_widths[5][i] = widths[2];
@@ -254,7 +263,9 @@ public class DataBar14 extends Symbol {
         c_left = checksum / 9;
         c_right = checksum % 9;
 
-        encodeInfo.append("Checksum: ").append(Integer.toString(checksum)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Checksum: ").append(Integer.toString(checksum)).append("\n");
+        }
 
         /* Put element widths together */
         total_widths[0] = 1;
@@ -563,7 +574,7 @@ public class DataBar14 extends Symbol {
             rowCount = rowCount + 1;
         }
 
-        pattern = new String[rowCount + compositeOffset];
+        runLengths = new int[rowCount + compositeOffset][];
         rowHeight = new int[rowCount + compositeOffset];
 
         if (linkageFlag) {
@@ -575,7 +586,7 @@ public class DataBar14 extends Symbol {
                     bin += "0";
                 }
             }
-            pattern[0] = bin2pat(bin);
+            runLengths[0] = bin2pat(bin);
             rowHeight[0] = 1;
         }
 
@@ -588,7 +599,7 @@ public class DataBar14 extends Symbol {
                     bin += "0";
                 }
             }
-            pattern[i + compositeOffset] = bin2pat(bin);
+            runLengths[i + compositeOffset] = bin2pat(bin);
         }
 
         if (symbolType == gb14Mode.LINEAR) {
@@ -611,75 +622,10 @@ public class DataBar14 extends Symbol {
             rowCount++;
         }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
-    private int getCombinations(int n, int r) {
-        int i, j;
-        int maxDenom, minDenom;
-        int val;
-
-        if (n - r > r) {
-            minDenom = r;
-            maxDenom = n - r;
-        } else {
-            minDenom = n - r;
-            maxDenom = r;
-        }
-        val = 1;
-        j = 1;
-        for (i = n; i > maxDenom; i--) {
-            val *= i;
-            if (j <= minDenom) {
-                val /= j;
-                j++;
-            }
-        }
-        for (; j <= minDenom; j++) {
-            val /= j;
-        }
-        return (val);
-    }
-
-    private void getWidths(int val, int n, int elements, int maxWidth, int noNarrow) {
-        int bar;
-        int elmWidth;
-        int mxwElement;
-        int subVal, lessVal;
-        int narrowMask = 0;
-        for (bar = 0; bar < elements - 1; bar++) {
-            for (elmWidth = 1, narrowMask |= (1 << bar); ;
-                 elmWidth++, narrowMask &= ~(1 << bar)) {
-                /* get all combinations */
-                subVal = getCombinations(n - elmWidth - 1, elements - bar - 2);
-                /* less combinations with no single-module element */
-                if ((noNarrow == 0) && (narrowMask == 0)
-                        && (n - elmWidth - (elements - bar - 1) >= elements - bar - 1)) {
-                    subVal -= getCombinations(n - elmWidth - (elements - bar), elements - bar - 2);
-                }
-                /* less combinations with elements > maxVal */
-                if (elements - bar - 1 > 1) {
-                    lessVal = 0;
-                    for (mxwElement = n - elmWidth - (elements - bar - 2);
-                         mxwElement > maxWidth;
-                         mxwElement--) {
-                        lessVal += getCombinations(n - elmWidth - mxwElement - 1, elements - bar - 3);
-                    }
-                    subVal -= lessVal * (elements - 1 - bar);
-                } else if (n - elmWidth > maxWidth) {
-                    subVal--;
-                }
-                val -= subVal;
-                if (val < 0) break;
-            }
-            val += subVal;
-            n -= elmWidth;
-            widths[bar] = elmWidth;
-        }
-        widths[bar] = n;
-    }
-
     private void setGridModule(int row, int column) {
         grid[row][column] = true;
     }
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.DataBarWidths;
+
 /**
  * Implements GS1 DataBar Expanded Omnidirectional and GS1 Expanded Stacked
  * Omnidirectional according to ISO/IEC 24724:2011.
@@ -69,7 +71,7 @@ public class DataBarExpanded extends Symbol {
     private StringBuilder binaryString = new StringBuilder();
     private String generalField;
     private EncodeMode[] generalFieldType;
-    private int[] widths = new int[8];
+    private int[] widths;
     private boolean linkageFlag;
 
     private int preferredNoOfColumns = 0;
@@ -163,7 +165,10 @@ public class DataBarExpanded extends Symbol {
         int l;
         int symbolRow;
         String seperatorBinary;
-        String seperatorPattern;
+        int[] seperatorPattern;
+        int[] rowPattern;
+        int rowOffset;
+        StringBuilder middlePattern;
         boolean black;
         boolean leftToRight;
         int compositeOffset;
@@ -183,7 +188,9 @@ public class DataBarExpanded extends Symbol {
 
         dataChars = binaryString.length() / 12;
 
-        encodeInfo.append("Data characters: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Data characters: ");
+        }
         for (i = 0; i < dataChars; i++) {
             vs[i] = 0;
             for (j = 0; j < 12; j++) {
@@ -191,9 +198,13 @@ public class DataBarExpanded extends Symbol {
                     vs[i] += 2048 >> j;
                 }
             }
-            encodeInfo.append(Integer.toString(vs[i])).append(" ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append(Integer.toString(vs[i])).append(" ");
+            }
+        }
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         for (i = 0; i < dataChars; i++) {
             if (vs[i] <= 347) {
@@ -214,12 +225,12 @@ public class DataBarExpanded extends Symbol {
             vOdd[i] = (vs[i] - G_SUM_EXP[group[i] - 1]) / T_EVEN_EXP[group[i] - 1];
             vEven[i] = (vs[i] - G_SUM_EXP[group[i] - 1]) % T_EVEN_EXP[group[i] - 1];
 
-            getWidths(vOdd[i], MODULES_ODD_EXP[group[i] - 1], 4, WIDEST_ODD_EXP[group[i] - 1], 0);
+            widths = DataBarWidths.getWidths(vOdd[i], MODULES_ODD_EXP[group[i] - 1], 4, WIDEST_ODD_EXP[group[i] - 1], 0);
             charWidths[i][0] = widths[0];
             charWidths[i][2] = widths[1];
             charWidths[i][4] = widths[2];
             charWidths[i][6] = widths[3];
-            getWidths(vEven[i], MODULES_EVEN_EXP[group[i] - 1], 4, WIDEST_EVEN_EXP[group[i] - 1], 1);
+            widths = DataBarWidths.getWidths(vEven[i], MODULES_EVEN_EXP[group[i] - 1], 4, WIDEST_EVEN_EXP[group[i] - 1], 1);
             charWidths[i][1] = widths[0];
             charWidths[i][3] = widths[1];
             charWidths[i][5] = widths[2];
@@ -240,7 +251,9 @@ public class DataBarExpanded extends Symbol {
 
         checkChar = (211 * ((dataChars + 1) - 4)) + (checksum % 211);
 
-        encodeInfo.append("Check Character: ").append(Integer.toString(checkChar)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Character: ").append(Integer.toString(checkChar)).append("\n");
+        }
 
         cGroup = 1;
         if ((checkChar >= 348) && (checkChar <= 1387)) {
@@ -259,12 +272,12 @@ public class DataBarExpanded extends Symbol {
         cOdd = (checkChar - G_SUM_EXP[cGroup - 1]) / T_EVEN_EXP[cGroup - 1];
         cEven = (checkChar - G_SUM_EXP[cGroup - 1]) % T_EVEN_EXP[cGroup - 1];
 
-        getWidths(cOdd, MODULES_ODD_EXP[cGroup - 1], 4, WIDEST_ODD_EXP[cGroup - 1], 0);
+        widths = DataBarWidths.getWidths(cOdd, MODULES_ODD_EXP[cGroup - 1], 4, WIDEST_ODD_EXP[cGroup - 1], 0);
         checkWidths[0] = widths[0];
         checkWidths[2] = widths[1];
         checkWidths[4] = widths[2];
         checkWidths[6] = widths[3];
-        getWidths(cEven, MODULES_EVEN_EXP[cGroup - 1], 4, WIDEST_EVEN_EXP[cGroup - 1], 1);
+        widths = DataBarWidths.getWidths(cEven, MODULES_EVEN_EXP[cGroup - 1], 4, WIDEST_EVEN_EXP[cGroup - 1], 1);
         checkWidths[1] = widths[0];
         checkWidths[3] = widths[1];
         checkWidths[5] = widths[2];
@@ -314,14 +327,14 @@ public class DataBarExpanded extends Symbol {
             rowCount = 1 + compositeOffset;
             rowHeight = new int[1 + compositeOffset];
             rowHeight[0 + compositeOffset] = -1;
-            pattern = new String[1 + compositeOffset];
+            runLengths = new int[1 + compositeOffset][];
 
-            pattern[0 + compositeOffset] = "0";
+            rowPattern = new int[patternWidth + 1];
             writer = 0;
             black = false;
             seperatorBinary = "";
             for (i = 0; i < patternWidth; i++) {
-                pattern[0 + compositeOffset] += (char) (elements[i] + '0');
+                rowPattern[i + 1] = elements[i];
                 for (j = 0; j < elements[i]; j++) {
                     if (black) {
                         seperatorBinary += "0";
@@ -333,6 +346,7 @@ public class DataBarExpanded extends Symbol {
                 black = !(black);
                 writer += elements[i];
             }
+            runLengths[0 + compositeOffset] = rowPattern;
             seperatorBinary = "0000" + seperatorBinary.substring(4, writer - 4);
             for (j = 0; j < (writer / 49); j++) {
                 k = (49 * j) + 18;
@@ -346,7 +360,7 @@ public class DataBarExpanded extends Symbol {
             }
             if (linkageFlag) {
                 // Add composite code seperator
-                pattern[0] = bin2pat(seperatorBinary);
+                runLengths[0] = bin2pat(seperatorBinary);
                 rowHeight[0] = 1;
             }
 
@@ -373,7 +387,7 @@ public class DataBarExpanded extends Symbol {
 
             rowCount = (stackRows * 4) - 3;
             rowHeight = new int[rowCount + compositeOffset];
-            pattern = new String[rowCount + compositeOffset];
+            runLengths = new int[rowCount + compositeOffset][];
             symbolRow = 0;
 
             currentBlock = 0;
@@ -438,12 +452,12 @@ public class DataBarExpanded extends Symbol {
                 subElements[elementsInSub + 1] = 1;
                 elementsInSub += 2;
 
-                pattern[symbolRow + compositeOffset] = "";
+                rowOffset = 0;
                 black = true;
                 rowHeight[symbolRow + compositeOffset] = -1;
 
                 if ((currentRow & 1) != 0) {
-                    pattern[symbolRow + compositeOffset] = "0";
+                    rowOffset = 1;
                     black = false;
                 } else {
                     if ((currentRow == stackRows)
@@ -452,16 +466,19 @@ public class DataBarExpanded extends Symbol {
                         /* Special case bottom row */
                         specialCaseRow = true;
                         subElements[0] = 2;
-                        pattern[symbolRow + compositeOffset] = "0";
+                        rowOffset = 1;
                         black = false;
                     }
                 }
 
                 writer = 0;
 
+                rowPattern = new int[elementsInSub + rowOffset];
+                System.arraycopy(subElements, 0, rowPattern, rowOffset, elementsInSub);
+                runLengths[symbolRow + compositeOffset] = rowPattern;
+
                 seperatorBinary = "";
                 for (i = 0; i < elementsInSub; i++) {
-                    pattern[symbolRow + compositeOffset] += (char) (subElements[i] + '0');
                     for (j = 0; j < subElements[i]; j++) {
                         if (black) {
                             seperatorBinary += "0";
@@ -499,24 +516,25 @@ public class DataBarExpanded extends Symbol {
                 if ((currentRow == 1) && linkageFlag) {
                     // Add composite code seperator
                     rowHeight[0] = 1;
-                    pattern[0] = seperatorPattern;
+                    runLengths[0] = seperatorPattern;
                 }
 
                 if (currentRow != 1) {
                     /* middle separator pattern (above current row) */
-                    pattern[symbolRow - 2 + compositeOffset] = "05";
+                    middlePattern = new StringBuilder("05");
                     for (j = 5; j < (49 * blocksPerRow); j += 2) {
-                        pattern[symbolRow - 2 + compositeOffset] += "11";
+                        middlePattern.append("11");
                     }
+                    runLengths[symbolRow - 2 + compositeOffset] = pat2runs(middlePattern);
                     rowHeight[symbolRow - 2 + compositeOffset] = 1;
                     /* bottom separator pattern (above current row) */
                     rowHeight[symbolRow - 1 + compositeOffset] = 1;
-                    pattern[symbolRow - 1 + compositeOffset] = seperatorPattern;
+                    runLengths[symbolRow - 1 + compositeOffset] = seperatorPattern;
                 }
 
                 if (currentRow != stackRows) {
                     rowHeight[symbolRow + 1 + compositeOffset] = 1;
-                    pattern[symbolRow + 1 + compositeOffset] = seperatorPattern;
+                    runLengths[symbolRow + 1 + compositeOffset] = seperatorPattern;
                 }
 
                 symbolRow += 4;
@@ -525,7 +543,7 @@ public class DataBarExpanded extends Symbol {
             rowCount += compositeOffset;
         }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -681,7 +699,9 @@ public class DataBarExpanded extends Symbol {
             }
         }
 
-        encodeInfo.append("Encoding Method: ").append(Integer.toString(encodingMethod)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding Method: ").append(Integer.toString(encodingMethod)).append("\n");
+        }
         switch (encodingMethod) { /* Encoding method - Table 10 */
             case 1:
                 binaryString.append("1XX");
@@ -751,7 +771,7 @@ public class DataBarExpanded extends Symbol {
             if ((source.charAt(i) < '0') || (source.charAt(i) > '9')) {
                 if ((source.charAt(i) != '[') && (source.charAt(i) != ']')) {
                     /* Something is wrong */
-                    errorMsg.append("Invalid characters in input data");
+                    error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data");
                     return false;
                 }
             }
@@ -1065,7 +1085,7 @@ public class DataBarExpanded extends Symbol {
             }
 
             if (latch) {
-                errorMsg.append("Invalid characters in input data");
+                error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data");
                 return false;
             }
 
@@ -1368,7 +1388,7 @@ public class DataBarExpanded extends Symbol {
         }
 
         if (binaryString.length() > 252) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
@@ -1417,8 +1437,12 @@ public class DataBarExpanded extends Symbol {
                     .append(binaryString.substring(8));
         }
 
-        encodeInfo.append("Binary length: ").append(Integer.toString(binaryString.length())).append("\n");
-        displayBinaryString();
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Binary length: ").append(Integer.toString(binaryString.length())).append("\n");
+        }
+        if (isVerboseEnabled()) {
+            displayBinaryString();
+        }
         return true;
     }
 
@@ -1575,73 +1599,6 @@ public class DataBarExpanded extends Symbol {
                 && ((blockLength[blockCount - 1] & 1) != 0);
     }
 
-    private int getCombinations(int n, int r) {
-        int i, j;
-        int maxDenom, minDenom;
-        int val;
-
-        if (n - r > r) {
-            minDenom = r;
-            maxDenom = n - r;
-        } else {
-            minDenom = n - r;
-            maxDenom = r;
-        }
-        val = 1;
-        j = 1;
-        for (i = n; i > maxDenom; i--) {
-            val *= i;
-            if (j <= minDenom) {
-                val /= j;
-                j++;
-            }
-        }
-        for (; j <= minDenom; j++) {
-            val /= j;
-        }
-        return (val);
-    }
-
-    private void getWidths(int val, int n, int elements, int maxWidth, int noNarrow) {
-        int bar;
-        int elmWidth;
-        int mxwElement;
-        int subVal, lessVal;
-        int narrowMask = 0;
-        for (bar = 0; bar < elements - 1; bar++) {
-            for (elmWidth = 1, narrowMask |= (1 << bar); ;
-                 elmWidth++, narrowMask &= ~(1 << bar)) {
-                /* get all combinations */
-                subVal = getCombinations(n - elmWidth - 1, elements - bar - 2);
-                /* less combinations with no single-module element */
-                if ((noNarrow == 0) && (narrowMask == 0)
-                        && (n - elmWidth - (elements - bar - 1) >= elements - bar - 1)) {
-                    subVal -= getCombinations(n - elmWidth - (elements - bar),
-                            elements - bar - 2);
-                }
-                /* less combinations with elements > maxVal */
-                if (elements - bar - 1 > 1) {
-                    lessVal = 0;
-                    for (mxwElement = n - elmWidth - (elements - bar - 2);
-                         mxwElement > maxWidth;
-                         mxwElement--) {
-                        lessVal += getCombinations(n - elmWidth - mxwElement - 1,
-                                elements - bar - 3);
-                    }
-                    subVal -= lessVal * (elements - 1 - bar);
-                } else if (n - elmWidth > maxWidth) {
-                    subVal--;
-                }
-                val -= subVal;
-                if (val < 0) break;
-            }
-            val += subVal;
-            n -= elmWidth;
-            widths[bar] = elmWidth;
-        }
-        widths[bar] = n;
-    }
-
     private enum dbeMode {
         UNSTACKED, STACKED
     }
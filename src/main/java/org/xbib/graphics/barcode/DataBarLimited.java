@@ -1,6 +1,10 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.DataBarWidths;
+
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * Implements GS1 DataBar Limited according to ISO/IEC 24724:2011.
@@ -121,7 +125,7 @@ public class DataBarLimited extends Symbol {
     };
 
     private boolean linkageFlag;
-    private int[] widths = new int[8];
+    private int[] widths;
 
     public DataBarLimited() {
         linkageFlag = false;
@@ -165,18 +169,19 @@ public class DataBarLimited extends Symbol {
         int compositeOffset = 0;
 
         if (content.length() > 13) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+?"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() == 13) {
             if ((content.charAt(0) != '0') && (content.charAt(0) != '1')) {
-                errorMsg.append("Input out of range");
+                error(EncodeError.OUT_OF_RANGE, "Input out of range");
                 return false;
             }
         }
@@ -232,7 +237,9 @@ public class DataBarLimited extends Symbol {
             right_group = 6;
         }
 
-        encodeInfo.append("Data Characters: ").append(Integer.toString(left_group + 1)).append(" ").append(Integer.toString(right_group + 1)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Data Characters: ").append(Integer.toString(left_group + 1)).append(" ").append(Integer.toString(right_group + 1)).append("\n");
+        }
 
         switch (left_group) {
             case 1:
@@ -284,7 +291,7 @@ public class DataBarLimited extends Symbol {
         right_odd = right_character / t_even_ltd[right_group];
         right_even = right_character % t_even_ltd[right_group];
 
-        getWidths(left_odd, modules_odd_ltd[left_group], 7, widest_odd_ltd[left_group], 1);
+        widths = DataBarWidths.getWidths(left_odd, modules_odd_ltd[left_group], 7, widest_odd_ltd[left_group], 1);
         left_widths[0] = widths[0];
         left_widths[2] = widths[1];
         left_widths[4] = widths[2];
@@ -292,7 +299,7 @@ public class DataBarLimited extends Symbol {
         left_widths[8] = widths[4];
         left_widths[10] = widths[5];
         left_widths[12] = widths[6];
-        getWidths(left_even, modules_even_ltd[left_group], 7, widest_even_ltd[left_group], 0);
+        widths = DataBarWidths.getWidths(left_even, modules_even_ltd[left_group], 7, widest_even_ltd[left_group], 0);
         left_widths[1] = widths[0];
         left_widths[3] = widths[1];
         left_widths[5] = widths[2];
@@ -300,7 +307,7 @@ public class DataBarLimited extends Symbol {
         left_widths[9] = widths[4];
         left_widths[11] = widths[5];
         left_widths[13] = widths[6];
-        getWidths(right_odd, modules_odd_ltd[right_group], 7, widest_odd_ltd[right_group], 1);
+        widths = DataBarWidths.getWidths(right_odd, modules_odd_ltd[right_group], 7, widest_odd_ltd[right_group], 1);
         right_widths[0] = widths[0];
         right_widths[2] = widths[1];
         right_widths[4] = widths[2];
@@ -308,7 +315,7 @@ public class DataBarLimited extends Symbol {
         right_widths[8] = widths[4];
         right_widths[10] = widths[5];
         right_widths[12] = widths[6];
-        getWidths(right_even, modules_even_ltd[right_group], 7, widest_even_ltd[right_group], 0);
+        widths = DataBarWidths.getWidths(right_even, modules_even_ltd[right_group], 7, widest_even_ltd[right_group], 0);
         right_widths[1] = widths[0];
         right_widths[3] = widths[1];
         right_widths[5] = widths[2];
@@ -325,7 +332,9 @@ public class DataBarLimited extends Symbol {
         }
         checksum %= 89;
 
-        encodeInfo.append("Checksum: ").append(Integer.toString(checksum)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Checksum: ").append(Integer.toString(checksum)).append("\n");
+        }
 
         for (i = 0; i < 14; i++) {
             check_elements[i] = finder_pattern_ltd[i + (checksum * 14)];
@@ -395,82 +404,23 @@ public class DataBarLimited extends Symbol {
         rowCount = 1 + compositeOffset;
         rowHeight = new int[1 + compositeOffset];
         rowHeight[compositeOffset] = -1;
-        pattern = new String[1 + compositeOffset];
-        pattern[compositeOffset] = "0:" + bin2pat(bin.toString());
+        runLengths = new int[1 + compositeOffset][];
+        runLengths[compositeOffset] = prefixRuns(new int[]{0, 10}, bin2pat(bin));
 
         if (linkageFlag) {
             // Add composite symbol seperator
             notbin = new StringBuilder(notbin.substring(4, 70));
             rowHeight[0] = 1;
-            pattern[0] = "0:04" + bin2pat(notbin.toString());
+            runLengths[0] = prefixRuns(new int[]{0, 10, 0, 4}, bin2pat(notbin));
         }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
-    private int getCombinations(int n, int r) {
-        int i, j;
-        int maxDenom, minDenom;
-        int val;
-
-        if (n - r > r) {
-            minDenom = r;
-            maxDenom = n - r;
-        } else {
-            minDenom = n - r;
-            maxDenom = r;
-        }
-        val = 1;
-        j = 1;
-        for (i = n; i > maxDenom; i--) {
-            val *= i;
-            if (j <= minDenom) {
-                val /= j;
-                j++;
-            }
-        }
-        for (; j <= minDenom; j++) {
-            val /= j;
-        }
-        return (val);
-    }
-
-    private void getWidths(int val, int n, int elements, int maxWidth, int noNarrow) {
-        int bar;
-        int elmWidth;
-        int mxwElement;
-        int subVal, lessVal;
-        int narrowMask = 0;
-        for (bar = 0; bar < elements - 1; bar++) {
-            for (elmWidth = 1, narrowMask |= (1 << bar); ;
-                 elmWidth++, narrowMask &= ~(1 << bar)) {
-                /* get all combinations */
-                subVal = getCombinations(n - elmWidth - 1, elements - bar - 2);
-                /* less combinations with no single-module element */
-                if ((noNarrow == 0) && (narrowMask == 0)
-                        && (n - elmWidth - (elements - bar - 1) >= elements - bar - 1)) {
-                    subVal -= getCombinations(n - elmWidth - (elements - bar), elements - bar - 2);
-                }
-                /* less combinations with elements > maxVal */
-                if (elements - bar - 1 > 1) {
-                    lessVal = 0;
-                    for (mxwElement = n - elmWidth - (elements - bar - 2);
-                         mxwElement > maxWidth;
-                         mxwElement--) {
-                        lessVal += getCombinations(n - elmWidth - mxwElement - 1, elements - bar - 3);
-                    }
-                    subVal -= lessVal * (elements - 1 - bar);
-                } else if (n - elmWidth > maxWidth) {
-                    subVal--;
-                }
-                val -= subVal;
-                if (val < 0) break;
-            }
-            val += subVal;
-            n -= elmWidth;
-            widths[bar] = elmWidth;
-        }
-        widths[bar] = n;
+    private static int[] prefixRuns(int[] prefix, int[] runs) {
+        int[] row = Arrays.copyOf(prefix, prefix.length + runs.length);
+        System.arraycopy(runs, 0, row, prefix.length, runs.length);
+        return row;
     }
 }
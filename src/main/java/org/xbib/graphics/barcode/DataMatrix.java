@@ -309,7 +309,7 @@ public class DataMatrix extends Symbol {
         binlen = generateCodewords();
 
         if (binlen == 0) {
-            errorMsg.append("Data too long to fit in symbol");
+            error(EncodeError.INPUT_TOO_LONG, "Data too long to fit in symbol");
             return false;
         }
 
@@ -347,7 +347,7 @@ public class DataMatrix extends Symbol {
             symbolsize = calcsize;
             if (optionsize != -1) {
                 /* flag an error */
-                errorMsg.append("Data does not fit in selected symbol size");
+                error(EncodeError.INPUT_TOO_LONG, "Data does not fit in selected symbol size");
                 return false;
             }
         }
@@ -370,12 +370,16 @@ public class DataMatrix extends Symbol {
         if (taillength != 0) {
             addPadBits(binlen, taillength);
         }
+        endPhase(EncodePhase.DATA_ENCODING);
 
         // ecc code
         if (symbolsize == 29) {
             skew = 1;
         }
         calculateErrorCorrection(bytes, datablock, rsblock, skew);
+        endPhase(EncodePhase.ERROR_CORRECTION);
+        diagnostics.dataCodewords = bytes;
+        diagnostics.eccCodewords = ((bytes + 2) / datablock) * rsblock;
         NC = W - 2 * (W / FW);
         NR = H - 2 * (H / FH);
         places = new int[NC * NR];
@@ -408,9 +412,10 @@ public class DataMatrix extends Symbol {
                 }
             }
         }
+        endPhase(EncodePhase.MODULE_PLACEMENT);
 
         readable = new StringBuilder();
-        pattern = new String[H];
+        runLengths = new int[H][];
         rowCount = H;
         rowHeight = new int[H];
         for (y = H - 1; y >= 0; y--) {
@@ -422,15 +427,17 @@ public class DataMatrix extends Symbol {
                     bin.append("0");
                 }
             }
-            pattern[(H - y) - 1] = bin2pat(bin.toString());
+            runLengths[(H - y) - 1] = bin2pat(bin);
             rowHeight[(H - y) - 1] = 1;
         }
 
-        encodeInfo.append("Grid Size: ").append(W).append(" X ").append(H).append("\n");
-        encodeInfo.append("Data Codewords: ").append(datablock).append("\n");
-        encodeInfo.append("ECC Codewords: ").append(rsblock).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Grid Size: ").append(W).append(" X ").append(H).append("\n");
+            encodeInfo.append("Data Codewords: ").append(datablock).append("\n");
+            encodeInfo.append("ECC Codewords: ").append(rsblock).append("\n");
+        }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -439,7 +446,9 @@ public class DataMatrix extends Symbol {
         /* Supports encoding FNC1 in supporting systems */
         /* Supports ECI encoding for whole message only, not inline switching */
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
         int sp, tp, i;
         dm_mode current_mode, next_mode;
         int inputlen = content.length();
@@ -462,7 +471,9 @@ public class DataMatrix extends Symbol {
             tp++;
             binary[binary_length] = ' ';
             binary_length++;
-            encodeInfo.append("FNC1 ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("FNC1 ");
+            }
         } /* FNC1 */
 
         if (eciMode != 3) {
@@ -490,12 +501,14 @@ public class DataMatrix extends Symbol {
                 tp++;
             }
 
-            encodeInfo.append("ECI ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("ECI ");
+            }
         }
 
         if (readerInit) {
             if (inputDataType == DataType.GS1) {
-                errorMsg.append("Cannot encode in GS1 mode and Reader Initialisation at the same time");
+                error(EncodeError.INVALID_SETTINGS, "Cannot encode in GS1 mode and Reader Initialisation at the same time");
                 return 0;
             } else {
                 target[tp] = 234;
@@ -503,7 +516,9 @@ public class DataMatrix extends Symbol {
 
                 binary[binary_length] = ' ';
                 binary_length++;
-                encodeInfo.append("RP ");
+                if (isVerboseEnabled()) {
+                    encodeInfo.append("RP ");
+                }
             }
         }
 
@@ -520,10 +535,14 @@ public class DataMatrix extends Symbol {
                 /* Output macro Codeword */
                 if (inputData[5] == '5') {
                     target[tp] = 236;
-                    encodeInfo.append("Micro05 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("Micro05 ");
+                    }
                 } else {
                     target[tp] = 237;
-                    encodeInfo.append("Macro06 ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("Macro06 ");
+                    }
                 }
                 tp++;
                 binary[binary_length] = ' ';
@@ -549,7 +568,9 @@ public class DataMatrix extends Symbol {
                 if (isTwoDigits(sp)) {
                     target[tp] = (10 * Character.getNumericValue(inputData[sp]))
                             + Character.getNumericValue(inputData[sp + 1]) + 130;
-                    encodeInfo.append(Integer.toString(target[tp] - 130)).append(" ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(target[tp] - 130)).append(" ");
+                    }
                     tp++;
                     binary[binary_length] = ' ';
                     binary_length++;
@@ -564,45 +585,59 @@ public class DataMatrix extends Symbol {
                                 tp++;
                                 binary[binary_length] = ' ';
                                 binary_length++;
-                                encodeInfo.append("C40 ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("C40 ");
+                                }
                                 break;
                             case DM_TEXT:
                                 target[tp] = 239;
                                 tp++;
                                 binary[binary_length] = ' ';
                                 binary_length++;
-                                encodeInfo.append("TEX ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("TEX ");
+                                }
                                 break;
                             case DM_X12:
                                 target[tp] = 238;
                                 tp++;
                                 binary[binary_length] = ' ';
                                 binary_length++;
-                                encodeInfo.append("X12 ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("X12 ");
+                                }
                                 break;
                             case DM_EDIFACT:
                                 target[tp] = 240;
                                 tp++;
                                 binary[binary_length] = ' ';
                                 binary_length++;
-                                encodeInfo.append("EDI ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("EDI ");
+                                }
                                 break;
                             case DM_BASE256:
                                 target[tp] = 231;
                                 tp++;
                                 binary[binary_length] = ' ';
                                 binary_length++;
-                                encodeInfo.append("BAS ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("BAS ");
+                                }
                                 break;
                         }
                     } else {
                         if (inputData[sp] > 127) {
                             target[tp] = 235; /* FNC4 */
 
-                            encodeInfo.append("FNC4 ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("FNC4 ");
+                            }
                             tp++;
                             target[tp] = (inputData[sp] - 128) + 1;
-                            encodeInfo.append(Integer.toString(target[tp] - 1)).append(" ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append(Integer.toString(target[tp] - 1)).append(" ");
+                            }
                             tp++;
                             binary[binary_length] = ' ';
                             binary_length++;
@@ -611,10 +646,14 @@ public class DataMatrix extends Symbol {
                         } else {
                             if ((inputDataType == DataType.GS1) && (inputData[sp] == '[')) {
                                 target[tp] = 232; /* FNC1 */
-                                encodeInfo.append("FNC1 ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append("FNC1 ");
+                                }
                             } else {
                                 target[tp] = inputData[sp] + 1;
-                                encodeInfo.append(Integer.toString(target[tp] - 1)).append(" ");
+                                if (isVerboseEnabled()) {
+                                    encodeInfo.append(Integer.toString(target[tp] - 1)).append(" ");
+                                }
                             }
                             tp++;
                             binary[binary_length] = ' ';
@@ -642,7 +681,9 @@ public class DataMatrix extends Symbol {
                     binary_length++; /* Unlatch */
 
                     next_mode = dm_mode.DM_ASCII;
-                    encodeInfo.append("ASC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ASC ");
+                    }
                 } else {
                     if (inputData[sp] > 127) {
                         process_buffer[process_p] = 1;
@@ -683,10 +724,12 @@ public class DataMatrix extends Symbol {
                         binary_length++;
                         binary[binary_length] = ' ';
                         binary_length++;
-                        encodeInfo.append("(").append(Integer.toString(process_buffer[0]))
-                                .append(" ").append(Integer.toString(process_buffer[1]))
-                                .append(" ").append(Integer.toString(process_buffer[2]))
-                                .append(") ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("(").append(Integer.toString(process_buffer[0]))
+                                    .append(" ").append(Integer.toString(process_buffer[1]))
+                                    .append(" ").append(Integer.toString(process_buffer[2]))
+                                    .append(") ");
+                        }
 
                         process_buffer[0] = process_buffer[3];
                         process_buffer[1] = process_buffer[4];
@@ -716,7 +759,9 @@ public class DataMatrix extends Symbol {
                     binary_length++; /* Unlatch */
 
                     next_mode = dm_mode.DM_ASCII;
-                    encodeInfo.append("ASC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ASC ");
+                    }
                 } else {
                     if (inputData[sp] > 127) {
                         process_buffer[process_p] = 1;
@@ -757,9 +802,11 @@ public class DataMatrix extends Symbol {
                         binary_length++;
                         binary[binary_length] = ' ';
                         binary_length++;
-                        encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
-                                .append(Integer.toString(process_buffer[1])).append(" ")
-                                .append(Integer.toString(process_buffer[2])).append(") ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
+                                    .append(Integer.toString(process_buffer[1])).append(" ")
+                                    .append(Integer.toString(process_buffer[2])).append(") ");
+                        }
 
                         process_buffer[0] = process_buffer[3];
                         process_buffer[1] = process_buffer[4];
@@ -789,7 +836,9 @@ public class DataMatrix extends Symbol {
                     binary_length++; /* Unlatch */
 
                     next_mode = dm_mode.DM_ASCII;
-                    encodeInfo.append("ASC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ASC ");
+                    }
                 } else {
                     if (inputData[sp] == 13) {
                         value = 0;
@@ -826,9 +875,11 @@ public class DataMatrix extends Symbol {
                         binary_length++;
                         binary[binary_length] = ' ';
                         binary_length++;
-                        encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
-                                .append(Integer.toString(process_buffer[1])).append(" ")
-                                .append(Integer.toString(process_buffer[2])).append(") ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
+                                    .append(Integer.toString(process_buffer[1])).append(" ")
+                                    .append(Integer.toString(process_buffer[2])).append(") ");
+                        }
 
                         process_buffer[0] = process_buffer[3];
                         process_buffer[1] = process_buffer[4];
@@ -884,9 +935,11 @@ public class DataMatrix extends Symbol {
                     binary_length++;
                     binary[binary_length] = ' ';
                     binary_length++;
-                    encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
-                            .append(Integer.toString(process_buffer[1])).append(" ")
-                            .append(Integer.toString(process_buffer[2])).append(") ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("(").append(Integer.toString(process_buffer[0])).append(" ")
+                                .append(Integer.toString(process_buffer[1])).append(" ")
+                                .append(Integer.toString(process_buffer[2])).append(") ");
+                    }
 
                     process_buffer[0] = process_buffer[4];
                     process_buffer[1] = process_buffer[5];
@@ -906,14 +959,18 @@ public class DataMatrix extends Symbol {
 
                 if (next_mode == dm_mode.DM_BASE256) {
                     target[tp] = inputData[sp];
-                    encodeInfo.append(Integer.toString(target[tp])).append(" ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(target[tp])).append(" ");
+                    }
                     tp++;
                     sp++;
                     binary[binary_length] = 'b';
                     binary_length++;
                 } else {
                     next_mode = dm_mode.DM_ASCII;
-                    encodeInfo.append("ASC ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ASC ");
+                    }
                 }
             }
 
@@ -966,13 +1023,17 @@ public class DataMatrix extends Symbol {
             }
         }
 
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < tp; i++) {
-            encodeInfo.append(Integer.toString(target[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < tp; i++) {
+                encodeInfo.append(Integer.toString(target[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
         last_mode = current_mode;
         return tp;
     }
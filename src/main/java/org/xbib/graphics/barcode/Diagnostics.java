@@ -0,0 +1,103 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * Structured facts about the last encoding of a symbol, recorded whatever the {@link DiagnosticsLevel}
+ * and without allocating anything. Values which don't apply to a symbology are <code>-1</code>. The
+ * values change when the symbol is encoded again.
+ */
+public final class Diagnostics {
+
+    int version = -1;
+
+    int eccLevel = -1;
+
+    int mask = -1;
+
+    int dataCodewords = -1;
+
+    int eccCodewords = -1;
+
+    int eci = -1;
+
+    /**
+     * Returns the version or size of the symbol: the version of QR Code (1-40) and Code One symbols
+     * (1-8 for versions A-H, versions S and T are not recorded), the number of the Micro QR Code symbol (1-4 for M1-M4),
+     * or the number of layers of Aztec Code and Grid Matrix symbols.
+     *
+     * @return the version or size of the symbol
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the error correction level: 0-3 for the levels L, M, Q and H of QR Code and Micro QR Code,
+     * 0-8 for PDF417, and 1-5 for Grid Matrix.
+     *
+     * @return the error correction level
+     */
+    public int getEccLevel() {
+        return eccLevel;
+    }
+
+    /**
+     * Returns the data mask of QR Code and Micro QR Code symbols.
+     *
+     * @return the data mask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Returns the number of data codewords, including padding.
+     *
+     * @return the number of data codewords
+     */
+    public int getDataCodewords() {
+        return dataCodewords;
+    }
+
+    /**
+     * Returns the number of error correction codewords.
+     *
+     * @return the number of error correction codewords
+     */
+    public int getEccCodewords() {
+        return eccCodewords;
+    }
+
+    /**
+     * Returns the extended channel interpretation used for the data, such as <code>3</code> for
+     * ISO 8859-1 or <code>26</code> for UTF-8.
+     *
+     * @return the extended channel interpretation
+     */
+    public int getEci() {
+        return eci;
+    }
+
+    void clear() {
+        version = -1;
+        eccLevel = -1;
+        mask = -1;
+        dataCodewords = -1;
+        eccCodewords = -1;
+        eci = -1;
+    }
+
+    void copy(Diagnostics other) {
+        version = other.version;
+        eccLevel = other.eccLevel;
+        mask = other.mask;
+        dataCodewords = other.dataCodewords;
+        eccCodewords = other.eccCodewords;
+        eci = other.eci;
+    }
+
+    @Override
+    public String toString() {
+        return "version=" + version + ", eccLevel=" + eccLevel + ", mask=" + mask + ", dataCodewords="
+                + dataCodewords + ", eccCodewords=" + eccCodewords + ", eci=" + eci;
+    }
+}
@@ -0,0 +1,23 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * How much a symbol describes the decisions made while encoding it, see {@link Symbol#getEncodeInfo()}.
+ */
+public enum DiagnosticsLevel {
+
+    /**
+     * Do not describe the encoding. The {@link Diagnostics} are recorded nonetheless.
+     */
+    OFF,
+
+    /**
+     * Describe the main decisions, such as the character set, the size of the symbol and the error
+     * correction level.
+     */
+    SUMMARY,
+
+    /**
+     * Describe the main decisions and the encoded data, such as the codewords and the encodation modes.
+     */
+    VERBOSE
+}
@@ -1,9 +1,11 @@
 package org.xbib.graphics.barcode;
 
 import org.xbib.graphics.barcode.util.AddOn;
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 
 import static org.xbib.graphics.barcode.HumanReadableLocation.NONE;
 import static org.xbib.graphics.barcode.HumanReadableLocation.TOP;
@@ -73,7 +75,7 @@ public class Ean extends Symbol {
         separateContent();
 
         if (content.length() == 0) {
-            errorMsg.append("Missing EAN data");
+            error(EncodeError.NO_DATA, "Missing EAN data");
             retval = false;
         } else {
             switch (mode) {
@@ -89,10 +91,13 @@ public class Ean extends Symbol {
         if ((retval) && (useAddOn)) {
             addOnData = addOn.calcAddOn(addOnContent);
             if (addOnData.length() == 0) {
-                errorMsg.append("Invalid Add-On data");
+                error(EncodeError.INVALID_DATA, "Invalid Add-On data");
                 retval = false;
             } else {
-                pattern[0] = pattern[0] + "9" + addOnData;
+                int[] addOnRuns = pat2runs("9" + addOnData);
+                int[] row = Arrays.copyOf(runLengths[0], runLengths[0].length + addOnRuns.length);
+                System.arraycopy(addOnRuns, 0, row, runLengths[0].length, addOnRuns.length);
+                runLengths[0] = row;
 
                 //add leading zeroes to add-on text
                 if (addOnContent.length() == 1) {
@@ -108,7 +113,7 @@ public class Ean extends Symbol {
         }
 
         if (retval) {
-            plotSymbol();
+            plot();
         }
 
         return retval;
@@ -132,13 +137,14 @@ public class Ean extends Symbol {
         String parity;
         int i;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() > 12) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -151,7 +157,9 @@ public class Ean extends Symbol {
 
         parity = EAN13Parity[accumulator.charAt(0) - '0'];
 
-        encodeInfo.append("Parity Digit: ").append(accumulator.charAt(0)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Parity Digit: ").append(accumulator.charAt(0)).append("\n");
+        }
 
         /* Start character */
         dest = new StringBuilder("111");
@@ -175,8 +183,7 @@ public class Ean extends Symbol {
         dest.append("111");
 
         readable = new StringBuilder(accumulator.toString());
-        pattern = new String[1];
-        pattern[0] = dest.toString();
+        runLengths = new int[][]{pat2runs(dest)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
@@ -188,13 +195,14 @@ public class Ean extends Symbol {
         int i;
         StringBuilder dest;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() > 7) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -215,8 +223,7 @@ public class Ean extends Symbol {
         dest.append("111");
 
         readable = new StringBuilder(accumulator.toString());
-        pattern = new String[1];
-        pattern[0] = dest.toString();
+        runLengths = new int[][]{pat2runs(dest)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
@@ -240,7 +247,9 @@ public class Ean extends Symbol {
             cdigit = 0;
         }
 
-        encodeInfo.append("Check Digit: ").append(cdigit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(cdigit).append("\n");
+        }
 
         return (char) (cdigit + '0');
     }
@@ -260,11 +269,11 @@ public class Ean extends Symbol {
         if (linkageFlag) {
             compositeOffset = 6;
         }
-        for (xBlock = 0; xBlock < pattern[0].length(); xBlock++) {
+        for (xBlock = 0; xBlock < runLengths[0].length; xBlock++) {
             if (black) {
                 y = 0;
                 black = false;
-                w = pattern[0].charAt(xBlock) - '0';
+                w = runLengths[0][xBlock];
                 h = defaultHeight;
                 /* Add extension to guide bars */
                 if (mode == Mode.EAN13) {
@@ -313,7 +322,7 @@ public class Ean extends Symbol {
             } else {
                 black = true;
             }
-            x += (double) (pattern[0].charAt(xBlock) - '0');
+            x += (double) runLengths[0][xBlock];
 
         }
 
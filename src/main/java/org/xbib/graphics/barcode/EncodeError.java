@@ -0,0 +1,79 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * The reason why content could not be encoded. Each constant has a numeric code which is kept
+ * when constants are added, so that codes can be stored.
+ */
+public enum EncodeError {
+
+    /**
+     * The content was encoded.
+     */
+    NONE(0),
+
+    /**
+     * There is no content, or no data for a required part of the symbol.
+     */
+    NO_DATA(1),
+
+    /**
+     * The content contains a character which can't be encoded; the position of the character is
+     * usually known.
+     */
+    INVALID_CHARACTER(2),
+
+    /**
+     * The content doesn't have a valid length for the symbology.
+     */
+    INVALID_LENGTH(3),
+
+    /**
+     * The content doesn't fit into the symbol, or into the selected symbol size.
+     */
+    INPUT_TOO_LONG(4),
+
+    /**
+     * The content is a value which is out of the range of the symbology.
+     */
+    OUT_OF_RANGE(5),
+
+    /**
+     * The content contains a wrong check digit.
+     */
+    INVALID_CHECK_DIGIT(6),
+
+    /**
+     * The content isn't a valid GS1 element string.
+     */
+    INVALID_GS1_DATA(7),
+
+    /**
+     * The content doesn't follow the rules of the symbology.
+     */
+    INVALID_DATA(8),
+
+    /**
+     * The settings of the symbol can't be used together, or not with this content.
+     */
+    INVALID_SETTINGS(9),
+
+    /**
+     * The content can't be converted to the character set used by the symbol.
+     */
+    CHARACTER_ENCODING(10);
+
+    private final int code;
+
+    EncodeError(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the numeric code of this error.
+     *
+     * @return the numeric code of this error
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,42 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * Receives the time taken by the phases of encoding and rendering symbols. A listener is called
+ * on the thread which encodes or renders the symbol, so it should return quickly, and it must be
+ * thread safe if it is shared by symbols which are encoded concurrently.
+ *
+ * <p>Symbols only read the clock if their listener is not {@link #NONE}, which is the default.
+ *
+ * @see Symbol#setEncodeListener(EncodeListener)
+ * @see Symbol#setDefaultEncodeListener(EncodeListener)
+ */
+public interface EncodeListener {
+
+    /**
+     * A listener which ignores all events.
+     */
+    EncodeListener NONE = new EncodeListener() {
+    };
+
+    /**
+     * Called when a phase of encoding or rendering the specified symbol has completed. A phase may be
+     * reported more than once for the same symbol.
+     *
+     * @param symbol the symbol
+     * @param phase the phase which has completed
+     * @param nanos the time taken by the phase, in nanoseconds
+     */
+    default void phaseCompleted(Symbol symbol, EncodePhase phase, long nanos) {
+    }
+
+    /**
+     * Called when the specified symbol has been encoded. The size of the symbol is available from
+     * {@link Symbol#getWidth()} and {@link Symbol#getHeight()}.
+     *
+     * @param symbol the symbol
+     * @param inputLength the length of the content, in characters or bytes
+     * @param nanos the time taken to encode the symbol, in nanoseconds
+     */
+    default void encodeCompleted(Symbol symbol, int inputLength, long nanos) {
+    }
+}
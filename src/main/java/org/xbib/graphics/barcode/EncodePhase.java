@@ -0,0 +1,43 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * A phase of encoding or rendering a symbol, as reported to an {@link EncodeListener}. Not every
+ * symbology goes through every phase; linear symbologies usually report only the plotting.
+ */
+public enum EncodePhase {
+
+    /**
+     * Selecting the character set of the content and converting it to bytes.
+     */
+    CHARACTER_SET,
+
+    /**
+     * Choosing the encodation modes and generating the data codewords.
+     */
+    DATA_ENCODING,
+
+    /**
+     * Calculating the error correction codewords.
+     */
+    ERROR_CORRECTION,
+
+    /**
+     * Placing the codewords and function patterns into the grid of modules.
+     */
+    MODULE_PLACEMENT,
+
+    /**
+     * Evaluating and applying the data masks.
+     */
+    MASKING,
+
+    /**
+     * Turning the modules into the rectangles, hexagons and texts of the symbol.
+     */
+    PLOTTING,
+
+    /**
+     * Rendering the symbol to an output format with a {@link org.xbib.graphics.barcode.output.SymbolRenderer}.
+     */
+    RENDERING
+}
@@ -0,0 +1,89 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * The outcome of encoding content with {@link Symbol#trySetContent(String)}. Results of failed
+ * attempts carry the error, the position of the offending character if known, and a message which
+ * is only formatted when it is requested.
+ */
+public final class EncodeResult {
+
+    /**
+     * The result of content which was encoded.
+     */
+    public static final EncodeResult SUCCESS = new EncodeResult(EncodeError.NONE, "", null, -1);
+
+    final EncodeError error;
+
+    final String text;
+
+    final Object argument;
+
+    final int position;
+
+    EncodeResult(EncodeError error, String text, Object argument, int position) {
+        this.error = error;
+        this.text = text;
+        this.argument = argument;
+        this.position = position;
+    }
+
+    /**
+     * Returns whether the content was encoded.
+     *
+     * @return <code>true</code> if the content was encoded
+     */
+    public boolean isSuccess() {
+        return error == EncodeError.NONE;
+    }
+
+    /**
+     * Returns the reason why the content was not encoded.
+     *
+     * @return the error, {@link EncodeError#NONE} if the content was encoded
+     */
+    public EncodeError getError() {
+        return error;
+    }
+
+    /**
+     * Returns the index of the offending character in the data which was encoded.
+     *
+     * @return the position of the offending character, <code>-1</code> if there is none
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the error message, which is the same as the message of the exception thrown by
+     * {@link Symbol#setContent(String)}.
+     *
+     * @return the error message, an empty string if the content was encoded
+     */
+    public String getMessage() {
+        return format(text, argument, position);
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? error.name() : error.name() + ": " + getMessage();
+    }
+
+    /* the text is followed by the argument and the position, if there are any */
+    static String format(String text, Object argument, int position) {
+        if (argument == null && position < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text);
+        if (argument != null) {
+            sb.append(argument);
+            if (position >= 0) {
+                sb.append(" at position ");
+            }
+        }
+        if (position >= 0) {
+            sb.append(position);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package org.xbib.graphics.barcode;
+
+import org.xbib.graphics.barcode.util.TextBox;
+
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of an encoded symbol, as returned by {@link SymbolCache}. It can be rendered like
+ * the symbol it was copied from, and shared between threads, but it can't be configured or encoded again.
+ * Only its {@link #setEncodeListener(EncodeListener) listener} can be changed, to time its rendering; it
+ * starts with the listener of the symbol it was copied from, and is shared by all users of the copy.
+ */
+public final class EncodedSymbol extends Symbol {
+
+    private final Class<? extends Symbol> symbology;
+
+    private volatile EncodeListener listener;
+
+    /**
+     * Creates a copy of the specified encoded symbol.
+     *
+     * @param symbol the encoded symbol
+     */
+    EncodedSymbol(Symbol symbol) {
+        symbology = symbol.getClass();
+        super.setDataType(symbol.inputDataType);
+        super.setBarHeight(symbol.getBarHeight());
+        super.setModuleWidth(symbol.getModuleWidth());
+        super.setQuietZoneHorizontal(symbol.getQuietZoneHorizontal());
+        super.setQuietZoneVertical(symbol.getQuietZoneVertical());
+        super.setFontName(symbol.getFontName());
+        super.setFontSize(symbol.getFontSize());
+        super.setHumanReadableLocation(symbol.getHumanReadableLocation());
+        super.setDiagnosticsLevel(symbol.getDiagnosticsLevel());
+        listener = symbol.getEncodeListener();
+        content = symbol.content;
+        readable = symbol.readable == null ? null : new StringBuilder(symbol.readable);
+        encodeInfo = new StringBuilder(symbol.encodeInfo);
+        diagnostics.copy(symbol.diagnostics);
+        symbolWidth = symbol.symbolWidth;
+        symbolHeight = symbol.symbolHeight;
+        rowCount = symbol.rowCount;
+        rowHeight = symbol.rowHeight == null ? null : symbol.rowHeight.clone();
+        pattern = symbol.pattern == null ? null : symbol.pattern.clone();
+        if (symbol.runLengths != null) {
+            runLengths = new int[symbol.runLengths.length][];
+            for (int i = 0; i < runLengths.length; i++) {
+                runLengths[i] = symbol.runLengths[i] == null ? null : symbol.runLengths[i].clone();
+            }
+        }
+        /* the geometry of the original may be changed when it is encoded again */
+        List<Rectangle2D.Double> rects = new ArrayList<>(symbol.rectangles.size());
+        for (Rectangle2D.Double rect : symbol.rectangles) {
+            rects.add(new Rectangle2D.Double(rect.x, rect.y, rect.width, rect.height));
+        }
+        List<Ellipse2D.Double> rings = new ArrayList<>(symbol.target.size());
+        for (Ellipse2D.Double ring : symbol.target) {
+            rings.add(new Ellipse2D.Double(ring.x, ring.y, ring.width, ring.height));
+        }
+        rectangles = Collections.unmodifiableList(rects);
+        texts = Collections.unmodifiableList(new ArrayList<TextBox>(symbol.texts));
+        hexagons = Collections.unmodifiableList(new ArrayList<>(symbol.hexagons));
+        target = Collections.unmodifiableList(rings);
+    }
+
+    /**
+     * Returns the class of the symbol this symbol was copied from.
+     *
+     * @return the symbology of this symbol
+     */
+    public Class<? extends Symbol> getSymbology() {
+        return symbology;
+    }
+
+    @Override
+    public EncodeListener getEncodeListener() {
+        return listener;
+    }
+
+    @Override
+    public void setEncodeListener(EncodeListener encodeListener) {
+        listener = encodeListener;
+    }
+
+    @Override
+    boolean encode() {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setContent(String inputData) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public EncodeResult trySetContent(String inputData) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setContent(byte[] inputData, int offset, int length) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setContent(ByteBuffer inputData) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setDataType(DataType dataType) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setBarHeight(int barHeight) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setModuleWidth(int moduleWidth) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setQuietZoneHorizontal(int quietZoneHorizontal) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setQuietZoneVertical(int quietZoneVertical) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setFontName(String fontName) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setFontSize(double fontSize) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setHumanReadableLocation(HumanReadableLocation humanReadableLocation) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+
+    @Override
+    public void setDiagnosticsLevel(DiagnosticsLevel diagnosticsLevel) {
+        throw new UnsupportedOperationException("Encoded symbols can't be changed");
+    }
+}
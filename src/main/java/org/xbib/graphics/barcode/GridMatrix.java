@@ -166,6 +166,7 @@ public class GridMatrix extends Symbol {
     private boolean[] grid;
     private gmMode appxDnextSection = gmMode.NULL;
     private gmMode appxDlastSection = gmMode.NULL;
+    private int[][] chunkBits;
     private int preferredVersion = 0;
     private int preferredEccLevel = -1;
 
@@ -341,11 +342,15 @@ public class GridMatrix extends Symbol {
                     qmarksBefore++;
                 }
             }
-            inputBytes = content.getBytes("EUC_CN");
-            qmarksAfter = 0;
-            for (i = 0; i < inputBytes.length; i++) {
-                if (inputBytes[i] == '?') {
-                    qmarksAfter++;
+            qmarksAfter = -1;
+            if (!binaryContent) {
+                /* binary data is never converted */
+                inputBytes = content.getBytes("EUC_CN");
+                qmarksAfter = 0;
+                for (i = 0; i < inputBytes.length; i++) {
+                    if (inputBytes[i] == '?') {
+                        qmarksAfter++;
+                    }
                 }
             }
             if (qmarksBefore == qmarksAfter) {
@@ -364,8 +369,11 @@ public class GridMatrix extends Symbol {
                         length++;
                     }
                 }
-                encodeInfo.append("Using GB2312 character encoding\n");
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Using GB2312 character encoding\n");
+                }
                 eciMode = 29;
+                diagnostics.eci = eciMode;
             } else {
                 /* GB2312 encoding didn't work, use other ECI mode */
                 eciProcess(); // Get ECI mode
@@ -376,13 +384,13 @@ public class GridMatrix extends Symbol {
                 }
             }
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Byte conversion encoding error");
+            error(EncodeError.CHARACTER_ENCODING, "Byte conversion encoding error");
             return false;
         }
 
         error_number = encodeGridMatrixBinary(length, readerInit);
         if (error_number != 0) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -453,7 +461,7 @@ public class GridMatrix extends Symbol {
             if (data_cw > gm_data_codewords[(5 * (layers - 1)) + (ecc_level - 1)]) {
                 do {
                     layers++;
-                } while ((data_cw > gm_data_codewords[(5 * (layers - 1)) + (ecc_level - 1)]) && (layers <= 13));
+                } while ((layers < 13) && (data_cw > gm_data_codewords[(5 * (layers - 1)) + (ecc_level - 1)]));
             }
         }
 
@@ -474,7 +482,7 @@ public class GridMatrix extends Symbol {
         }
 
         if (data_cw > data_max) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -482,12 +490,19 @@ public class GridMatrix extends Symbol {
         size = 6 + (layers * 12);
         modules = 1 + (layers * 2);
 
-        encodeInfo.append("Layers: ").append(layers).append("\n");
-        encodeInfo.append("ECC Level: ").append(ecc_level).append("\n");
-        encodeInfo.append("Data Codewords: ").append(data_cw).append("\n");
-        encodeInfo.append("ECC Codewords: ").append(gm_data_codewords[((layers - 1) * 5)
-                + (ecc_level - 1)]).append("\n");
-        encodeInfo.append("Grid Size: ").append(modules).append(" X ").append(modules).append("\n");
+        diagnostics.version = layers;
+        diagnostics.eccLevel = ecc_level;
+        diagnostics.dataCodewords = gm_data_codewords[((layers - 1) * 5) + (ecc_level - 1)];
+        diagnostics.eccCodewords = (gm_b1[layers - 1] * gm_n1[layers - 1]) + (gm_b2[layers - 1] * (gm_n1[layers - 1] - 1))
+                - diagnostics.dataCodewords;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Layers: ").append(layers).append("\n");
+            encodeInfo.append("ECC Level: ").append(ecc_level).append("\n");
+            encodeInfo.append("Data Codewords: ").append(data_cw).append("\n");
+            encodeInfo.append("ECC Codewords: ").append(gm_data_codewords[((layers - 1) * 5)
+                    + (ecc_level - 1)]).append("\n");
+            encodeInfo.append("Grid Size: ").append(modules).append(" X ").append(modules).append("\n");
+        }
 
         grid = new boolean[size * size];
 
@@ -523,7 +538,7 @@ public class GridMatrix extends Symbol {
         symbolWidth = size;
         rowCount = size;
         rowHeight = new int[rowCount];
-        pattern = new String[rowCount];
+        runLengths = new int[rowCount][];
 
         for (x = 0; x < size; x++) {
             bin = new StringBuilder();
@@ -535,10 +550,11 @@ public class GridMatrix extends Symbol {
                 }
             }
             rowHeight[x] = 1;
-            pattern[x] = bin2pat(bin.toString());
+            runLengths[x] = bin2pat(bin);
         }
 
-        plotSymbol();
+        readable = new StringBuilder();
+        plot();
         return true;
     }
 
@@ -565,11 +581,15 @@ public class GridMatrix extends Symbol {
         current_mode = gmMode.NULL;
         number_pad_posn = 0;
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
 
         if (reader) {
             binary.append("1010"); /* FNC3 - Reader Initialisation */
-            encodeInfo.append("INIT ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("INIT ");
+            }
         }
 
         if ((eciMode != 3) && (eciMode != 29)) {
@@ -608,7 +628,9 @@ public class GridMatrix extends Symbol {
                 }
             }
 
-            encodeInfo.append("ECI ").append(Integer.toString(eciMode)).append(" ");
+            if (isVerboseEnabled()) {
+                encodeInfo.append("ECI ").append(Integer.toString(eciMode)).append(" ");
+            }
         }
 
         do {
@@ -758,22 +780,34 @@ public class GridMatrix extends Symbol {
 
                 switch (next_mode) {
                     case GM_CHINESE:
-                        encodeInfo.append("CHIN ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("CHIN ");
+                        }
                         break;
                     case GM_NUMBER:
-                        encodeInfo.append("NUMB ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("NUMB ");
+                        }
                         break;
                     case GM_LOWER:
-                        encodeInfo.append("LOWR ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("LOWR ");
+                        }
                         break;
                     case GM_UPPER:
-                        encodeInfo.append("UPPR ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("UPPR ");
+                        }
                         break;
                     case GM_MIXED:
-                        encodeInfo.append("MIXD ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("MIXD ");
+                        }
                         break;
                     case GM_BYTE:
-                        encodeInfo.append("BYTE ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append("BYTE ");
+                        }
                         break;
                 }
 
@@ -821,7 +855,9 @@ public class GridMatrix extends Symbol {
                         glyph = 7777 + inputIntArray[sp];
                     }
 
-                    encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    }
 
                     for (i = 0x1000; i > 0; i = i >> 1) {
                         if ((glyph & i) != 0) {
@@ -896,7 +932,9 @@ public class GridMatrix extends Symbol {
                         glyph += ppos;
                         glyph += 1000;
 
-                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        }
 
                         for (i = 0x200; i > 0; i = i >> 1) {
                             if ((glyph & i) != 0) {
@@ -908,7 +946,9 @@ public class GridMatrix extends Symbol {
                     }
 
                     glyph = (100 * (numbuf[0] - '0')) + (10 * (numbuf[1] - '0')) + (numbuf[2] - '0');
-                    encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    }
 
                     for (i = 0x200; i > 0; i = i >> 1) {
                         if ((glyph & i) != 0) {
@@ -933,7 +973,9 @@ public class GridMatrix extends Symbol {
                     }
 
                     glyph = inputIntArray[sp];
-                    encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                    }
                     for (i = 0x80; i > 0; i = i >> 1) {
                         if ((glyph & i) != 0) {
                             binary.append("1");
@@ -963,7 +1005,9 @@ public class GridMatrix extends Symbol {
                     if (shift == 0) {
                         /* Mixed Mode character */
                         glyph = positionOf((char) inputIntArray[sp], MIXED_ALPHANUM_SET);
-                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        }
 
                         for (i = 0x20; i > 0; i = i >> 1) {
                             if ((glyph & i) != 0) {
@@ -998,7 +1042,9 @@ public class GridMatrix extends Symbol {
                             // Space character
                             glyph = 26;
                         }
-                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        }
 
                         for (i = 0x10; i > 0; i = i >> 1) {
                             if ((glyph & i) != 0) {
@@ -1030,7 +1076,9 @@ public class GridMatrix extends Symbol {
                     if (shift == 0) {
                         /* Lower Case character */
                         glyph = positionOf((char) inputIntArray[sp], MIXED_ALPHANUM_SET) - 36;
-                        encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(glyph)).append(" ");
+                        }
 
                         for (i = 0x10; i > 0; i = i >> 1) {
                             if ((glyph & i) != 0) {
@@ -1056,7 +1104,9 @@ public class GridMatrix extends Symbol {
 
         } while (sp < length);
 
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
         if (current_mode == gmMode.GM_NUMBER) {
             /* add numeric block padding value */
@@ -1336,8 +1386,18 @@ public class GridMatrix extends Symbol {
             }
         }
 
+        // Without stages 7 to 9 a control segment is encoded with shifts in the previous mode
+        if (segmentCount < 3) {
+            for (i = 1; i < segmentCount; i++) {
+                if (segmentType[i] == gmMode.GM_CONTROL) {
+                    segmentType[i] = segmentType[i - 1];
+                }
+            }
+        }
+
         // Stages 7 to 9
         if (segmentCount >= 3) {
+            chunkBits = new int[length][gmMode.values().length];
             for (i = 0; i < segmentCount - 1; i++) {
                 gmMode pm, tm, nm, lm;
                 int tl, nl, ll, position;
@@ -1498,16 +1558,23 @@ public class GridMatrix extends Symbol {
     private gmMode getBestMode(gmMode pm, gmMode tm, gmMode nm, gmMode lm, int tl, int nl, int ll, int position, boolean lastSegment) {
         int tmi, nmi, lmi;
         gmMode bestMode = tm;
-        int binaryLength;
+        int thisLength, nextLength, binaryLength;
         int bestBinaryLength = Integer.MAX_VALUE;
 
+        /* The length of each chunk only depends on its own mode and the mode before it,
+           so each one is added in the loop where both are known */
         for (tmi = 1; tmi < 8; tmi++) {
             if (isTransitionValid(tm, intToMode(tmi))) {
+                thisLength = getChunkLength(pm, intToMode(tmi), tl, position);
                 for (nmi = 1; nmi < 8; nmi++) {
                     if (isTransitionValid(nm, intToMode(nmi))) {
+                        nextLength = thisLength + getChunkLength(intToMode(tmi), intToMode(nmi), nl, (position + tl));
                         for (lmi = 1; lmi < 8; lmi++) {
                             if (isTransitionValid(lm, intToMode(lmi))) {
-                                binaryLength = getBinaryLength(pm, intToMode(tmi), intToMode(nmi), intToMode(lmi), tl, nl, ll, position, lastSegment);
+                                binaryLength = nextLength + getChunkLength(intToMode(nmi), intToMode(lmi), ll, (position + tl + nl));
+                                if (lastSegment) {
+                                    binaryLength += getTerminatorLength(intToMode(lmi));
+                                }
 
                                 if (binaryLength <= bestBinaryLength) {
                                     bestMode = intToMode(tmi);
@@ -1525,64 +1592,26 @@ public class GridMatrix extends Symbol {
         return bestMode;
     }
 
-    private int getBinaryLength(gmMode pm, gmMode tm, gmMode nm, gmMode lm, int tl, int nl, int ll, int position, boolean lastSegment) {
-        int binaryLength;
-
-        binaryLength = getChunkLength(pm, tm, tl, position);
-        binaryLength += getChunkLength(tm, nm, nl, (position + tl));
-        binaryLength += getChunkLength(nm, lm, ll, (position + tl + nl));
-
-        if (lastSegment) {
-            switch (lm) {
-                case GM_CHINESE:
-                    binaryLength += 13;
-                    break;
-                case GM_NUMBER:
-                    binaryLength += 10;
-                    break;
-                case GM_LOWER:
-                case GM_UPPER:
-                    binaryLength += 5;
-                    break;
-                case GM_MIXED:
-                    binaryLength += 10;
-                    break;
-                case GM_BYTE:
-                    binaryLength += 4;
-                    break;
-            }
-        }
-
-        return binaryLength;
-    }
-
-    private int getChunkLength(gmMode lastMode, gmMode thisMode, int thisLength, int position) {
-        int byteLength;
-
-        switch (thisMode) {
+    private int getTerminatorLength(gmMode lm) {
+        switch (lm) {
             case GM_CHINESE:
-                byteLength = calcChineseLength(position, thisLength);
-                break;
+                return 13;
             case GM_NUMBER:
-                byteLength = calcNumberLength(position, thisLength);
-                break;
+                return 10;
             case GM_LOWER:
-                byteLength = 5 * thisLength;
-                break;
             case GM_UPPER:
-                byteLength = 5 * thisLength;
-                break;
+                return 5;
             case GM_MIXED:
-                byteLength = calcMixedLength(position, thisLength);
-                break;
-            case GM_CONTROL:
-                byteLength = 6 * thisLength;
-                break;
+                return 10;
+            case GM_BYTE:
+                return 4;
             default:
-                //case GM_BYTE:
-                byteLength = calcByteLength(position, thisLength);
-                break;
+                return 0;
         }
+    }
+
+    private int getChunkLength(gmMode lastMode, gmMode thisMode, int thisLength, int position) {
+        int byteLength = getChunkBits(thisMode, thisLength, position);
 
         switch (lastMode) {
             case NULL:
@@ -1649,6 +1678,40 @@ public class GridMatrix extends Symbol {
         return byteLength;
     }
 
+    private int getChunkBits(gmMode mode, int length, int position) {
+        /* Stages 7 to 9 cost every segment in each mode for every combination of the modes
+         around it, so the bits for each (segment, mode) pair are only calculated once */
+        int bits = chunkBits[position][mode.ordinal()];
+
+        if (bits == 0) {
+            switch (mode) {
+                case GM_CHINESE:
+                    bits = calcChineseLength(position, length);
+                    break;
+                case GM_NUMBER:
+                    bits = calcNumberLength(position, length);
+                    break;
+                case GM_LOWER:
+                case GM_UPPER:
+                    bits = 5 * length;
+                    break;
+                case GM_MIXED:
+                    bits = calcMixedLength(position, length);
+                    break;
+                case GM_CONTROL:
+                    bits = 6 * length;
+                    break;
+                default:
+                    //case GM_BYTE:
+                    bits = calcByteLength(position, length);
+                    break;
+            }
+            chunkBits[position][mode.ordinal()] = bits;
+        }
+
+        return bits;
+    }
+
     private int calcChineseLength(int position, int length) {
         int i = 0;
         int bits = 0;
@@ -1656,13 +1719,14 @@ public class GridMatrix extends Symbol {
         do {
             bits += 13;
 
-            if (i < length) {
+            if (i < length && position + i + 1 < inputIntArray.length) {
                 if ((inputIntArray[position + i] == 13) && (inputIntArray[position + i + 1] == 10)) {
                     // <end of line>
                     i++;
                 }
 
-                if (((inputIntArray[position + i] >= 48) && (inputIntArray[position + i] <= 57)) &&
+                if ((position + i + 1 < inputIntArray.length) &&
+                        ((inputIntArray[position + i] >= 48) && (inputIntArray[position + i] <= 57)) &&
                         ((inputIntArray[position + i + 1] >= 48) && (inputIntArray[position + i + 1] <= 57))) {
                     // two digits
                     i++;
@@ -1790,7 +1854,9 @@ public class GridMatrix extends Symbol {
             }
         }
 
-        encodeInfo.append("SHT/").append(Integer.toString(glyph)).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("SHT/").append(Integer.toString(glyph)).append(" ");
+        }
 
         for (i = 0x20; i > 0; i = i >> 1) {
             if ((glyph & i) != 0) {
@@ -1826,11 +1892,13 @@ public class GridMatrix extends Symbol {
             }
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < data_posn; i++) {
-            encodeInfo.append(Integer.toString(data[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < data_posn; i++) {
+                encodeInfo.append(Integer.toString(data[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Add padding codewords */
         data[data_posn] = 0x00;
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 import java.util.Locale;
 
@@ -11,6 +13,8 @@ import java.util.Locale;
  */
 public class JapanPost extends Symbol {
 
+    private static final CharacterClass UPPER_ALPHANUMERIC_DASH = CharacterClass.UPPER_ALPHANUMERIC.or(CharacterClass.of("-"));
+
     private static final String[] JAPAN_TABLE = {
             "FFT", "FDA", "DFA", "FAD", "FTF", "DAF", "AFD", "ADF", "TFF", "FTT",
             "TFT", "DAT", "DTA", "ADT", "TDA", "ATD", "TAD", "TTF", "FFF"
@@ -34,8 +38,9 @@ public class JapanPost extends Symbol {
         char c;
 
         content = content.toUpperCase(Locale.ENGLISH);
-        if (!(content.matches("[0-9A-Z\\-]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = UPPER_ALPHANUMERIC_DASH.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -87,15 +92,17 @@ public class JapanPost extends Symbol {
         dest.append(JAPAN_TABLE[positionOf(CH_KASUT_SET[check], KASUT_SET)]);
         dest.append("DF");
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
-        encodeInfo.append("Check Digit: ").append(check).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
+            encodeInfo.append("Check Digit: ").append(check).append("\n");
+        }
 
         readable = new StringBuilder();
         pattern = new String[]{dest.toString()};
         rowCount = 1;
         rowHeight = new int[]{-1};
 
-        plotSymbol();
+        plot();
 
         return true;
     }
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 import java.util.Locale;
 
@@ -34,8 +36,9 @@ public class KixCode extends Symbol {
 
         content = content.toUpperCase(Locale.ENGLISH);
 
-        if (!(content.matches("[0-9A-Z]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.UPPER_ALPHANUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -45,7 +48,9 @@ public class KixCode extends Symbol {
             dest.append(RoyalTable[positionOf(content.charAt(i), krSet)]);
         }
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
+        }
 
         readable = new StringBuilder();
         pattern = new String[1];
@@ -53,7 +58,7 @@ public class KixCode extends Symbol {
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Implements Korea Post Barcode. Input should consist of of a six-digit
  * number. A Modulo-10 check digit is calculated and added, and should not form
@@ -16,13 +18,14 @@ public class KoreaPost extends Symbol {
     public boolean encode() {
         StringBuilder accumulator = new StringBuilder();
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() > 6) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -45,17 +48,18 @@ public class KoreaPost extends Symbol {
         if (checkd == 10) {
             checkd = 0;
         }
-        encodeInfo.append("Check Digit: ").append(checkd).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(checkd).append("\n");
+        }
 
         accumulator.append(koreaTable[checkd]);
 
-        readable.append(add_zero).append(checkd);
-        pattern = new String[1];
-        pattern[0] = accumulator.toString();
+        readable = new StringBuilder(add_zero).append(checkd);
+        runLengths = new int[][]{pat2runs(accumulator)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 }
@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements the LOGMARS (Logistics Applications of Automated Marking
  * and Reading Symbols) standard used by the US Department of Defense.
@@ -29,6 +33,16 @@ public class Logmars extends Symbol {
             '%'
     };
 
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(CODE39LM, LOOKUP);
+
+    private static final int[] VALUES = LinearPatterns.toValues(LOOKUP);
+
+    private static final byte[] START = LinearPatterns.toWidths("1311313111");
+
+    private static final byte[] STOP = LinearPatterns.toWidths("131131311");
+
+    private final BarBuffer bars = new BarBuffer();
+
     /**
      * Ratio of wide bar width to narrow bar width.
      */
@@ -65,33 +79,37 @@ public class Logmars extends Symbol {
     @Override
     public boolean encode() {
 
-        if (!(content.matches("[0-9A-Z\\. \\-$/+%]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.CODE39.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        StringBuilder p = new StringBuilder();
+        bars.clear();
+        bars.append(START);
         int l = content.length();
-        int charval, counter = 0;
+        int counter = 0;
         char thischar;
         char checkDigit;
         for (int i = 0; i < l; i++) {
             thischar = content.charAt(i);
-            charval = positionOf(thischar, LOOKUP);
-            counter += charval;
-            p.append(CODE39LM[charval]);
+            counter += VALUES[thischar];
+            bars.append(WIDTHS[thischar]);
         }
 
         counter = counter % 43;
         checkDigit = LOOKUP[counter];
-        encodeInfo.append("Check Digit: ").append(checkDigit).append("\n");
-        p.append(CODE39LM[counter]);
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(checkDigit).append("\n");
+        }
+        bars.append(WIDTHS[checkDigit]);
+        bars.append(STOP);
 
         readable = new StringBuilder(content).append(checkDigit);
-        pattern = new String[]{"1311313111" + p + "131131311"};
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[]{-1};
-        plotSymbol();
+        plot();
         return true;
     }
 }
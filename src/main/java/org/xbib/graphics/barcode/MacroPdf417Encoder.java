@@ -0,0 +1,295 @@
+package org.xbib.graphics.barcode;
+
+import org.xbib.graphics.barcode.output.SymbolRenderer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Splits a stream of bytes into a series of Macro PDF417 symbols of a fixed size, and passes them in
+ * order to a renderer. Each symbol holds as many bytes as fit into its data codewords using byte
+ * compaction, and carries its segment index and the file ID of the series; the last symbol also
+ * carries the terminator. Symbols are encoded in parallel, but only a bounded number of symbols is
+ * held in memory at any time, so that payloads of any size can be written.
+ */
+public class MacroPdf417Encoder {
+
+    /* the largest segment index of a Macro PDF417 series is 99,998 */
+    private static final int MAX_SYMBOLS = 99_999;
+
+    /* Macro PDF417 control block: marker, two codewords of segment index, file ID and terminator */
+    private static final int MACRO_CODEWORDS = 5;
+
+    private final int columns;
+
+    private final int rows;
+
+    private final int eccLevel;
+
+    private final int segmentCapacity;
+
+    private Pdf417.Mode mode = Pdf417.Mode.NORMAL;
+
+    private int fileId;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new encoder for symbols of the specified size.
+     *
+     * @param columns the number of data columns of each symbol (1-30)
+     * @param rows the number of rows of each symbol (3-90), at most 929 codewords in total
+     * @param eccLevel the error correction level of each symbol (0-8)
+     */
+    public MacroPdf417Encoder(int columns, int rows, int eccLevel) {
+        if (columns < 1 || columns > 30) {
+            throw new IllegalArgumentException("Invalid number of data columns: " + columns);
+        }
+        if (rows < 3 || rows > 90) {
+            throw new IllegalArgumentException("Invalid number of rows: " + rows);
+        }
+        if (eccLevel < 0 || eccLevel > 8) {
+            throw new IllegalArgumentException("ECC level must be between 0 and 8.");
+        }
+        if (columns * rows > 929) {
+            throw new IllegalArgumentException("Symbols with " + columns + " columns and " + rows
+                    + " rows exceed the maximum of 929 codewords");
+        }
+        /* the length descriptor, the macro control block and the byte compaction latch */
+        int available = columns * rows - (1 << (eccLevel + 1)) - 1 - MACRO_CODEWORDS - 1;
+        if (available < 1) {
+            throw new IllegalArgumentException("Symbols with " + columns + " columns, " + rows
+                    + " rows and ECC level " + eccLevel + " can't hold any data");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.eccLevel = eccLevel;
+        /* byte compaction packs 6 bytes into 5 codewords, and the remaining bytes one per codeword */
+        this.segmentCapacity = (available / 5) * 6 + available % 5;
+    }
+
+    /**
+     * Returns the number of bytes held by each symbol. Only the last symbol of a series may hold fewer bytes.
+     *
+     * @return the number of bytes per symbol
+     */
+    public int getSegmentCapacity() {
+        return segmentCapacity;
+    }
+
+    /**
+     * Returns the PDF417 mode of the symbols (defaults to {@link Pdf417.Mode#NORMAL}).
+     *
+     * @return the PDF417 mode of the symbols
+     */
+    public Pdf417.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the PDF417 mode of the symbols, either {@link Pdf417.Mode#NORMAL} or {@link Pdf417.Mode#TRUNCATED}.
+     *
+     * @param mode the PDF417 mode of the symbols
+     */
+    public void setMode(Pdf417.Mode mode) {
+        if (mode == Pdf417.Mode.MICRO) {
+            throw new IllegalArgumentException("MicroPDF417 symbols have a variable size");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the file ID of the series (defaults to <code>0</code>).
+     *
+     * @return the file ID of the series
+     */
+    public int getFileId() {
+        return fileId;
+    }
+
+    /**
+     * Sets the file ID of the series. Valid values are 0 through 899 inclusive.
+     *
+     * @param fileId the file ID of the series
+     */
+    public void setFileId(int fileId) {
+        if (fileId < 0 || fileId > 899) {
+            throw new IllegalArgumentException("Invalid PDF417 structured append file ID: " + fileId);
+        }
+        this.fileId = fileId;
+    }
+
+    /**
+     * Returns the number of symbols encoded at the same time (defaults to the number of available processors).
+     *
+     * @return the number of symbols encoded at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of symbols encoded at the same time. At most twice as many symbols are held in
+     * memory while they wait to be rendered. With a parallelism of <code>1</code>, symbols are encoded
+     * by the calling thread.
+     *
+     * @param parallelism the number of symbols encoded at the same time
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Encodes all bytes of the specified stream, and renders the symbols in order. The stream is not closed.
+     *
+     * @param in the data to encode
+     * @param renderer the renderer which receives the symbols
+     * @return the number of symbols, <code>0</code> if the stream is empty
+     * @throws IOException if the stream can't be read, or the renderer fails
+     * @throws IllegalStateException if the data needs more than 99,999 symbols
+     */
+    public int encode(InputStream in, SymbolRenderer renderer) throws IOException {
+        return encode(Channels.newChannel(in), renderer);
+    }
+
+    /**
+     * Encodes all bytes of the specified channel, and renders the symbols in order. The channel is not closed.
+     *
+     * @param in the data to encode
+     * @param renderer the renderer which receives the symbols
+     * @return the number of symbols, <code>0</code> if the channel is empty
+     * @throws IOException if the channel can't be read, or the renderer fails
+     * @throws IllegalStateException if the data needs more than 99,999 symbols
+     */
+    public int encode(ReadableByteChannel in, SymbolRenderer renderer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(segmentCapacity);
+        byte[] segment = read(in, buffer);
+        if (segment == null) {
+            return 0;
+        }
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "macro-pdf417-encoder");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        ArrayDeque<Future<Pdf417>> pending = new ArrayDeque<>();
+        try {
+            int position = 1;
+            while (true) {
+                /* read ahead, so that the last symbol can be marked as such */
+                byte[] next = read(in, buffer);
+                if (next != null && position == MAX_SYMBOLS) {
+                    throw new IllegalStateException("Too much data for a Macro PDF417 series (more than "
+                            + MAX_SYMBOLS + " symbols)");
+                }
+                if (pending.size() == 2 * parallelism) {
+                    renderer.render(get(pending.removeFirst()));
+                }
+                Callable<Pdf417> task = newTask(segment, position, next == null);
+                if (executor != null) {
+                    pending.addLast(executor.submit(task));
+                } else {
+                    FutureTask<Pdf417> future = new FutureTask<>(task);
+                    future.run();
+                    pending.addLast(future);
+                }
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                position++;
+            }
+            while (!pending.isEmpty()) {
+                renderer.render(get(pending.removeFirst()));
+            }
+            return position;
+        } finally {
+            for (Future<Pdf417> future : pending) {
+                future.cancel(true);
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Creates a symbol for one segment of the series. Subclasses can override this method to configure
+     * the appearance of the symbols; their size, mode and structured append settings are set afterwards.
+     *
+     * @return a new symbol
+     */
+    protected Pdf417 createSymbol() {
+        return new Pdf417();
+    }
+
+    private Callable<Pdf417> newTask(final byte[] segment, final int position, final boolean last) {
+        return () -> {
+            Pdf417 symbol = createSymbol();
+            symbol.setDataType(Symbol.DataType.ECI);
+            symbol.setMode(mode);
+            symbol.setDataColumns(columns);
+            symbol.setRows(rows);
+            symbol.setPreferredEccLevel(eccLevel);
+            /* the default compaction may need more codewords than byte compaction, the planner never does */
+            symbol.setOptimalCompaction(true);
+            symbol.setStructuredAppendFileId(fileId);
+            symbol.setStructuredAppendPosition(position);
+            if (last) {
+                symbol.setStructuredAppendTotal(position);
+            } else {
+                symbol.setStructuredAppendOpen(true);
+            }
+            symbol.setContent(segment);
+            return symbol;
+        };
+    }
+
+    /**
+     * Reads the next segment, or returns <code>null</code> at the end of the channel.
+     */
+    private static byte[] read(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                break;
+            }
+        }
+        if (buffer.position() == 0) {
+            return null;
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static Pdf417 get(Future<Pdf417> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding symbols", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -4,7 +4,11 @@ import org.xbib.graphics.barcode.util.Hexagon;
 import org.xbib.graphics.barcode.util.ReedSolomon;
 
 import java.awt.geom.Ellipse2D;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Implements MaxiCode according to ISO 16023:2000.
@@ -95,6 +99,38 @@ public class MaxiCode extends Symbol {
             16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 32, 33, 34, 35, 36
     };
 
+    /**
+     * The hexagon of every module in the 33 x 30 grid, in row order. MaxiCode has a fixed size, so all
+     * symbols share these and only record which modules are dark.
+     */
+    private static final Hexagon[] HEXAGONS = new Hexagon[33 * 30];
+
+    /**
+     * The rings of the bullseye, alternating between dark and light from the outside in. Each symbol
+     * gets its own copies, since ellipses are mutable.
+     */
+    private static final Ellipse2D.Double[] TARGET;
+
+    static {
+        for (int row = 0; row < 33; row++) {
+            for (int col = 0; col < 30; col++) {
+                double x = (2.46 * col) + 1.23;
+                if ((row & 1) != 0) {
+                    x += 1.23;
+                }
+                double y = (2.135 * row) + 1.43;
+                HEXAGONS[(row * 30) + col] = new Hexagon(x, y);
+            }
+        }
+        double[] radii = {10.85, 8.97, 7.10, 5.22, 3.31, 1.43};
+        TARGET = new Ellipse2D.Double[radii.length];
+        for (int i = 0; i < radii.length; i++) {
+            Ellipse2D.Double circle = new Ellipse2D.Double();
+            circle.setFrameFromCenter(35.76, 35.60, 35.76 + radii[i], 35.60 + radii[i]);
+            TARGET[i] = circle;
+        }
+    }
+
     private int mode;
     private int structuredAppendPosition = 1;
     private int structuredAppendTotal = 1;
@@ -322,7 +358,7 @@ public class MaxiCode extends Symbol {
 
         // initialize the set and character arrays
         if (!processText()) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -401,13 +437,17 @@ public class MaxiCode extends Symbol {
             codewords[20 + secondaryMax + (2 * i)] = secondaryECEven[i];
         }
 
-        encodeInfo.append("Mode: ").append(mode).append("\n");
-        encodeInfo.append("ECC Codewords: ").append(secondaryECMax).append("\n");
-        encodeInfo.append("Codewords: ");
-        for (int codeword : codewords) {
-            encodeInfo.append(Integer.toString(codeword)).append(" ");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Mode: ").append(mode).append("\n");
+            encodeInfo.append("ECC Codewords: ").append(secondaryECMax).append("\n");
+        }
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (int codeword : codewords) {
+                encodeInfo.append(Integer.toString(codeword)).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         // copy data into symbol grid
         int[] bit_pattern = new int[7];
@@ -449,7 +489,7 @@ public class MaxiCode extends Symbol {
         // the following is provided for compatibility, but the results are not useful
         rowCount = 33;
         readable = new StringBuilder();
-        pattern = new String[33];
+        runLengths = new int[33][];
         rowHeight = new int[33];
         for (int i = 0; i < 33; i++) {
             StringBuilder bin = new StringBuilder(30);
@@ -460,13 +500,13 @@ public class MaxiCode extends Symbol {
                     bin.append("0");
                 }
             }
-            pattern[i] = bin2pat(bin.toString());
+            runLengths[i] = bin2pat(bin);
             rowHeight[i] = 1;
         }
         symbolHeight = 72;
         symbolWidth = 74;
 
-        plotSymbol();
+        plot();
 
         return true;
     }
@@ -482,13 +522,13 @@ public class MaxiCode extends Symbol {
         assert mode == 2 || mode == 3;
 
         if (primaryData.length() != 15) {
-            errorMsg.append("Invalid Primary String");
+            error(EncodeError.INVALID_DATA, "Invalid Primary String");
             return null;
         }
 
         for (int i = 9; i < 15; i++) { /* check that country code and service are numeric */
             if ((primaryData.charAt(i) < '0') || (primaryData.charAt(i) > '9')) {
-                errorMsg.append("Invalid Primary String");
+                error(EncodeError.INVALID_DATA, "Invalid Primary String");
                 return null;
             }
         }
@@ -863,27 +903,19 @@ public class MaxiCode extends Symbol {
 
     @Override
     protected void plotSymbol() {
-
-        // hexagons
+        long[] modules = new long[(HEXAGONS.length + 63) >> 6];
         for (int row = 0; row < 33; row++) {
             for (int col = 0; col < 30; col++) {
                 if (grid[row][col]) {
-                    double x = (2.46 * col) + 1.23;
-                    if ((row & 1) != 0) {
-                        x += 1.23;
-                    }
-                    double y = (2.135 * row) + 1.43;
-                    hexagons.add(new Hexagon(x, y));
+                    int module = (row * 30) + col;
+                    modules[module >> 6] |= 1L << module;
                 }
             }
         }
-
-        // circles
-        double[] radii = {10.85, 8.97, 7.10, 5.22, 3.31, 1.43};
-        for (double aRadii : radii) {
-            Ellipse2D.Double circle = new Ellipse2D.Double();
-            circle.setFrameFromCenter(35.76, 35.60, 35.76 + aRadii, 35.60 + aRadii);
-            target.add(circle);
+        hexagons = new Modules(modules);
+        target = new ArrayList<>(TARGET.length);
+        for (Ellipse2D.Double circle : TARGET) {
+            target.add((Ellipse2D.Double) circle.clone());
         }
     }
 
@@ -891,4 +923,44 @@ public class MaxiCode extends Symbol {
     protected int[] getCodewords() {
         return codewords;
     }
+
+    /**
+     * The dark modules of a symbol, held as a bitset over the shared module hexagons.
+     */
+    private static final class Modules extends AbstractList<Hexagon> implements RandomAccess {
+
+        private final long[] bits;
+
+        /* number of dark modules before each word of the bitset */
+        private final int[] rank;
+
+        private Modules(long[] bits) {
+            this.bits = bits;
+            this.rank = new int[bits.length + 1];
+            for (int i = 0; i < bits.length; i++) {
+                rank[i + 1] = rank[i] + Long.bitCount(bits[i]);
+            }
+        }
+
+        @Override
+        public Hexagon get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int word = 0;
+            while (rank[word + 1] <= index) {
+                word++;
+            }
+            long w = bits[word];
+            for (int i = index - rank[word]; i > 0; i--) {
+                w &= w - 1;
+            }
+            return HEXAGONS[(word << 6) + Long.numberOfTrailingZeros(w)];
+        }
+
+        @Override
+        public int size() {
+            return rank[bits.length];
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.ReedSolomon;
 
 import java.io.UnsupportedEncodingException;
@@ -131,12 +132,12 @@ public class MicroQrCode extends Symbol {
         boolean kanjiModeUsed;
 
         if (content.length() > 35) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
         if (!inputCharCheck()) {
-            errorMsg.append("Invalid characters in input data");
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data");
             return false;
         }
 
@@ -218,7 +219,7 @@ public class MicroQrCode extends Symbol {
             version_valid[2] = false;
         }
         if (binaryCount[3] > 128) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -226,7 +227,7 @@ public class MicroQrCode extends Symbol {
         ecc_level = preferredEccLevel;
 
         if (ecc_level == EccMode.H) {
-            errorMsg.append("Error correction level H not available");
+            error(EncodeError.INVALID_SETTINGS, "Error correction level H not available");
             return false;
         }
 
@@ -235,7 +236,7 @@ public class MicroQrCode extends Symbol {
             version_valid[1] = false;
             version_valid[2] = false;
             if (binaryCount[3] > 80) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
         }
@@ -249,7 +250,7 @@ public class MicroQrCode extends Symbol {
                 version_valid[2] = false;
             }
             if (binaryCount[3] > 112) {
-                errorMsg.append("Input data too long");
+                error(EncodeError.INPUT_TOO_LONG, "Input data too long");
                 return false;
             }
         }
@@ -294,32 +295,47 @@ public class MicroQrCode extends Symbol {
         binary = new StringBuilder();
         generateBinary(version);
         if (binary.length() > 128) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
+        endPhase(EncodePhase.DATA_ENCODING);
 
         switch (version) {
             case 0:
                 generateM1Symbol();
-                encodeInfo.append("Version: M1\n");
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Version: M1\n");
+                }
                 break;
             case 1:
                 generateM2Symbol(ecc_level);
-                encodeInfo.append("Version: M2\n");
-                encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Version: M2\n");
+                    encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                }
                 break;
             case 2:
                 generateM3Symbol(ecc_level);
-                encodeInfo.append("Version: M3\n");
-                encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Version: M3\n");
+                    encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                }
                 break;
             case 3:
                 generateM4Symbol(ecc_level);
-                encodeInfo.append("Version: M4\n");
-                encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                if (isSummaryEnabled()) {
+                    encodeInfo.append("Version: M4\n");
+                    encodeInfo.append("ECC Level: ").append(levelToLetter(ecc_level)).append("\n");
+                }
                 break;
         }
 
+        endPhase(EncodePhase.ERROR_CORRECTION);
+
+        /* M1 only detects errors, and has no error correction level */
+        diagnostics.version = version + 1;
+        diagnostics.eccLevel = version == 0 ? -1 : ecc_level.ordinal();
+
         size = MICRO_QR_SIZES[version];
 
         grid = new int[size * size];
@@ -332,9 +348,14 @@ public class MicroQrCode extends Symbol {
 
         setupBitGrid(size);
         populateBitGrid(size);
+        endPhase(EncodePhase.MODULE_PLACEMENT);
         bitmask = applyBitmask(size);
+        endPhase(EncodePhase.MASKING);
+        diagnostics.mask = bitmask;
 
-        encodeInfo.append("Mask Pattern: ").append(Integer.toBinaryString(bitmask)).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Mask Pattern: ").append(Integer.toBinaryString(bitmask)).append("\n");
+        }
 
         /* Add format data */
         format = 0;
@@ -423,7 +444,7 @@ public class MicroQrCode extends Symbol {
         }
 
         readable = new StringBuilder();
-        pattern = new String[size];
+        runLengths = new int[size][];
         rowCount = size;
         rowHeight = new int[size];
         for (i = 0; i < size; i++) {
@@ -435,11 +456,11 @@ public class MicroQrCode extends Symbol {
                     bin.append("0");
                 }
             }
-            pattern[i] = bin2pat(bin.toString());
+            runLengths[i] = bin2pat(bin);
             rowHeight[i] = 1;
         }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -450,7 +471,7 @@ public class MicroQrCode extends Symbol {
 
         /* Check that input includes valid characters */
 
-        if (content.matches("[\u0000-\u00FF]+")) {
+        if (CharacterClass.LATIN_1.matches(content)) {
             /* All characters in ISO 8859-1 */
             return true;
         }
@@ -466,7 +487,7 @@ public class MicroQrCode extends Symbol {
         try {
             temp = content.getBytes("SJIS");
         } catch (UnsupportedEncodingException e) {
-            errorMsg.append("Character encoding error");
+            error(EncodeError.CHARACTER_ENCODING, "Character encoding error");
             return false;
         }
 
@@ -692,7 +713,9 @@ public class MicroQrCode extends Symbol {
         byte[] jisBytes;
         int count, first, second, third;
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
 
         do {
             data_block = inputMode[position];
@@ -718,7 +741,9 @@ public class MicroQrCode extends Symbol {
                     /* Character count indicator */
                     binary.append(toBinary(blockLength, 1 << version)); /* version = 2..3 */
 
-                    encodeInfo.append("KANJ (").append(Integer.toString(blockLength)).append(") ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("KANJ (").append(Integer.toString(blockLength)).append(") ");
+                    }
 
                     /* Character representation */
                     for (i = 0; i < blockLength; i++) {
@@ -729,7 +754,7 @@ public class MicroQrCode extends Symbol {
                         try {
                             jisBytes = oneChar.getBytes("SJIS");
                         } catch (UnsupportedEncodingException e) {
-                            errorMsg.append("Character encoding error");
+                            error(EncodeError.CHARACTER_ENCODING, "Character encoding error");
                             return;
                         }
 
@@ -746,7 +771,9 @@ public class MicroQrCode extends Symbol {
 
                         binary.append(toBinary(prod, 0x1000));
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
                     }
 
                     break;
@@ -765,7 +792,9 @@ public class MicroQrCode extends Symbol {
                     /* Character count indicator */
                     binary.append(toBinary(blockLength, 2 << version)); /* version = 2..3 */
 
-                    encodeInfo.append("BYTE (").append(Integer.toString(blockLength)).append(") ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("BYTE (").append(Integer.toString(blockLength)).append(") ");
+                    }
 
                     /* Character representation */
                     for (i = 0; i < blockLength; i++) {
@@ -773,7 +802,9 @@ public class MicroQrCode extends Symbol {
 
                         binary.append(toBinary(lbyte, 0x80));
 
-                        encodeInfo.append(Integer.toString(lbyte)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(lbyte)).append(" ");
+                        }
                     }
 
                     break;
@@ -795,7 +826,9 @@ public class MicroQrCode extends Symbol {
                     /* Character count indicator */
                     binary.append(toBinary(blockLength, 2 << version)); /* version = 1..3 */
 
-                    encodeInfo.append("ALPH (").append(Integer.toString(blockLength)).append(") ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ALPH (").append(Integer.toString(blockLength)).append(") ");
+                    }
 
                     /* Character representation */
                     i = 0;
@@ -814,7 +847,9 @@ public class MicroQrCode extends Symbol {
 
                         binary.append(toBinary(prod, 1 << (5 * count))); /* count = 1..2 */
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
 
                         i += 2;
                     }
@@ -838,7 +873,9 @@ public class MicroQrCode extends Symbol {
                     /* Character count indicator */
                     binary.append(toBinary(blockLength, 4 << version)); /* version = 0..3 */
 
-                    encodeInfo.append("NUMB (").append(Integer.toString(blockLength)).append(") ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("NUMB (").append(Integer.toString(blockLength)).append(") ");
+                    }
 
                     /* Character representation */
                     i = 0;
@@ -865,7 +902,9 @@ public class MicroQrCode extends Symbol {
 
                         binary.append(toBinary(prod, 1 << (3 * count))); /* count = 1..3 */
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
 
                         i += 3;
                     }
@@ -897,7 +936,9 @@ public class MicroQrCode extends Symbol {
                 break;
         }
 
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
     }
 
     private void generateM1Symbol() {
@@ -990,12 +1031,16 @@ public class MicroQrCode extends Symbol {
             data_blocks[2] += 0x01;
         }
 
-        encodeInfo.append("Codewords: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+        }
 
-        for (i = 0; i < data_codewords; i++) {
-            encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+        if (isVerboseEnabled()) {
+            for (i = 0; i < data_codewords; i++) {
+                encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Calculate Reed-Solomon error codewords */
         rs.init_gf(0x11d);
@@ -1080,11 +1125,13 @@ public class MicroQrCode extends Symbol {
             }
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < data_codewords; i++) {
-            encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < data_codewords; i++) {
+                encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Calculate Reed-Solomon error codewords */
         rs.init_gf(0x11d);
@@ -1217,11 +1264,13 @@ public class MicroQrCode extends Symbol {
             }
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < data_codewords; i++) {
-            encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < data_codewords; i++) {
+                encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Calculate Reed-Solomon error codewords */
         rs.init_gf(0x11d);
@@ -1313,11 +1362,13 @@ public class MicroQrCode extends Symbol {
             }
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < data_codewords; i++) {
-            encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < data_codewords; i++) {
+                encodeInfo.append(Integer.toString(data_blocks[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* Calculate Reed-Solomon error codewords */
         rs.init_gf(0x11d);
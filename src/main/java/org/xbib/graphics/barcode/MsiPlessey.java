@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Implements the MSI (Modified Plessey) bar code symbology.
  * MSI Plessey can encode a string of numeric digits and has a range
@@ -7,10 +11,14 @@ package org.xbib.graphics.barcode;
  */
 public class MsiPlessey extends Symbol {
 
-    private final String[] MSI_PlessTable = {
+    private static final String[] MSI_PlessTable = {
             "12121212", "12121221", "12122112", "12122121", "12211212", "12211221",
             "12212112", "12212121", "21121212", "21121221"
     };
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(MSI_PlessTable);
+    private static final byte[] START = LinearPatterns.toWidths("21");
+    private static final byte[] STOP = LinearPatterns.toWidths("121");
+    private final BarBuffer bars = new BarBuffer();
     private CheckDigit checkOption;
 
     public MsiPlessey() {
@@ -29,156 +37,57 @@ public class MsiPlessey extends Symbol {
 
     @Override
     public boolean encode() {
-        StringBuilder intermediate;
         int length = content.length();
-        int i;
-        StringBuilder evenString;
-        StringBuilder oddString;
-        String addupString;
-        int spacer;
-        int addup;
-        int weight;
         int checkDigit1;
         int checkDigit2;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
-        intermediate = new StringBuilder("21"); // Start
-        for (i = 0; i < length; i++) {
-            intermediate.append(MSI_PlessTable[Character.getNumericValue(content.charAt(i))]);
+        bars.clear();
+        bars.append(START);
+        for (int i = 0; i < length; i++) {
+            bars.append(WIDTHS[content.charAt(i) - '0']);
         }
 
         readable = new StringBuilder(content);
 
         if ((checkOption == CheckDigit.MOD10) || (checkOption == CheckDigit.MOD10_MOD10)) {
             /* Add Modulo-10 check digit */
-            evenString = new StringBuilder();
-            oddString = new StringBuilder();
-
-            spacer = content.length() & 1;
-
-            for (i = content.length() - 1; i >= 0; i--) {
-                if (spacer == 1) {
-                    if ((i & 1) != 0) {
-                        evenString.insert(0, content.charAt(i));
-                    } else {
-                        oddString.insert(0, content.charAt(i));
-                    }
-                } else {
-                    if ((i & 1) != 0) {
-                        oddString.insert(0, content.charAt(i));
-                    } else {
-                        evenString.insert(0, content.charAt(i));
-                    }
-                }
-            }
-
-            if (oddString.length() == 0) {
-                addupString = "0";
-            } else {
-                addupString = Integer.toString(Integer.parseInt(oddString.toString()) * 2);
-            }
-
-            addupString += evenString;
-
-            addup = 0;
-            for (i = 0; i < addupString.length(); i++) {
-                addup += addupString.charAt(i) - '0';
-            }
-
-            checkDigit1 = 10 - (addup % 10);
-            if (checkDigit1 == 10) {
-                checkDigit1 = 0;
-            }
-
-            intermediate.append(MSI_PlessTable[checkDigit1]);
+            checkDigit1 = LinearPatterns.getMod10CheckDigit(content);
+            bars.append(WIDTHS[checkDigit1]);
             readable.append(checkDigit1);
         }
 
         if ((checkOption == CheckDigit.MOD11) || (checkOption == CheckDigit.MOD11_MOD10)) {
             /* Add a Modulo-11 check digit */
-            weight = 2;
-            addup = 0;
-            for (i = content.length() - 1; i >= 0; i--) {
-                addup += (content.charAt(i) - '0') * weight;
-                weight++;
-
-                if (weight == 8) {
-                    weight = 2;
-                }
-            }
-
-            checkDigit1 = 11 - (addup % 11);
-
-            if (checkDigit1 == 11) {
-                checkDigit1 = 0;
-            }
-
+            checkDigit1 = LinearPatterns.getMod11CheckDigit(content);
             readable.append(checkDigit1);
             if (checkDigit1 == 10) {
-                intermediate.append(MSI_PlessTable[1]);
-                intermediate.append(MSI_PlessTable[0]);
+                bars.append(WIDTHS[1]);
+                bars.append(WIDTHS[0]);
             } else {
-                intermediate.append(MSI_PlessTable[checkDigit1]);
+                bars.append(WIDTHS[checkDigit1]);
             }
         }
 
         if ((checkOption == CheckDigit.MOD10_MOD10) || (checkOption == CheckDigit.MOD11_MOD10)) {
             /* Add a second Modulo-10 check digit */
-            evenString = new StringBuilder();
-            oddString = new StringBuilder();
-
-            spacer = readable.length() & 1;
-
-            for (i = readable.length() - 1; i >= 0; i--) {
-                if (spacer == 1) {
-                    if ((i & 1) != 0) {
-                        evenString.insert(0, readable.charAt(i));
-                    } else {
-                        oddString.insert(0, readable.charAt(i));
-                    }
-                } else {
-                    if ((i & 1) != 0) {
-                        oddString.insert(0, readable.charAt(i));
-                    } else {
-                        evenString.insert(0, readable.charAt(i));
-                    }
-                }
-            }
-
-            if (oddString.length() == 0) {
-                addupString = "0";
-            } else {
-                addupString = Integer.toString(Integer.parseInt(oddString.toString()) * 2);
-            }
-
-            addupString += evenString;
-
-            addup = 0;
-            for (i = 0; i < addupString.length(); i++) {
-                addup += addupString.charAt(i) - '0';
-            }
-
-            checkDigit2 = 10 - (addup % 10);
-            if (checkDigit2 == 10) {
-                checkDigit2 = 0;
-            }
-
-            intermediate.append(MSI_PlessTable[checkDigit2]);
+            checkDigit2 = LinearPatterns.getMod10CheckDigit(readable);
+            bars.append(WIDTHS[checkDigit2]);
             readable.append(checkDigit2);
         }
 
-        intermediate.append("121"); // Stop
+        bars.append(STOP);
 
-        pattern = new String[1];
-        pattern[0] = intermediate.toString();
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Calculate NVE-18 (Nummer der Versandeinheit)
  * Also SSCC-18 (Serial Shipping Container Code)
@@ -17,12 +19,13 @@ public class Nve18 extends Symbol {
         Code128 code128 = new Code128();
 
         if (content.length() > 17) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
@@ -48,7 +51,9 @@ public class Nve18 extends Symbol {
             cdigit = 0;
         }
 
-        encodeInfo.append("NVE Check Digit: ").append(cdigit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("NVE Check Digit: ").append(cdigit).append("\n");
+        }
 
         content = "[00]" + gs1Equivalent + cdigit;
 
@@ -56,10 +61,11 @@ public class Nve18 extends Symbol {
         code128.setDataType(DataType.GS1);
         code128.setHumanReadableLocation(getHumanReadableLocation());
 
-        try {
-            code128.setContent(content);
-        } catch (Exception e) {
-            errorMsg.append(e.getMessage());
+        code128.setDiagnosticsLevel(getDiagnosticsLevel());
+        code128.setEncodeListener(EncodeListener.NONE);
+        EncodeResult result = code128.trySetContent(content);
+        if (!result.isSuccess()) {
+            error(result);
             return false;
         }
 
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * Implements the <a href="http://en.wikipedia.org/wiki/Pharmacode">Pharmacode</a>
  * bar code symbology.
@@ -12,17 +14,17 @@ public class Pharmacode extends Symbol {
     public boolean encode() {
         int tester = 0;
         int i;
-
-        StringBuilder inter = new StringBuilder();
-        StringBuilder dest = new StringBuilder();
+        int bars, wide;
+        int[] runs;
 
         if (content.length() > 6) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -32,35 +34,27 @@ public class Pharmacode extends Symbol {
         }
 
         if ((tester < 3) || (tester > 131070)) {
-            errorMsg.append("Data out of range");
+            error(EncodeError.OUT_OF_RANGE, "Data out of range");
             return false;
         }
 
-        do {
-            if ((tester & 1) == 0) {
-                inter.append("W");
-                tester = (tester - 2) / 2;
-            } else {
-                inter.append("N");
-                tester = (tester - 1) / 2;
-            }
-        } while (tester != 0);
+        /* A value is the sum of 2^i for each narrow bar and 2 * 2^i for each wide bar i, counted
+         from the right. With n bars, value + 1 = 2^n + w, where the bits of w mark the wide bars. */
+        bars = 31 - Integer.numberOfLeadingZeros(tester + 1);
+        wide = (tester + 1) - (1 << bars);
 
-        for (i = inter.length() - 1; i >= 0; i--) {
-            if (inter.charAt(i) == 'W') {
-                dest.append("32");
-            } else {
-                dest.append("12");
-            }
+        runs = new int[bars * 2];
+        for (i = 0; i < bars; i++) {
+            runs[i * 2] = ((wide >> (bars - 1 - i)) & 1) != 0 ? 3 : 1;
+            runs[(i * 2) + 1] = 2;
         }
 
         readable = new StringBuilder();
-        pattern = new String[1];
-        pattern[0] = dest.toString();
+        runLengths = new int[][]{runs};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 }
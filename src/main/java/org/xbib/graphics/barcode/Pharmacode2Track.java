@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 
 /**
@@ -13,16 +15,17 @@ public class Pharmacode2Track extends Symbol {
     @Override
     public boolean encode() {
         int i, tester = 0;
-        StringBuilder inter;
-        StringBuilder dest;
+        char[] bars = new char[16];
+        String dest;
 
         if (content.length() > 8) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -32,43 +35,43 @@ public class Pharmacode2Track extends Symbol {
         }
 
         if ((tester < 4) || (tester > 64570080)) {
-            errorMsg.append("Data out of range");
+            error(EncodeError.OUT_OF_RANGE, "Data out of range");
             return false;
         }
 
-        inter = new StringBuilder();
+        /* A value is the sum of 3^i for each descender, 2 * 3^i for each ascender and 3 * 3^i for
+         each full height bar i, counted from the right, so the bars are found from the right */
+        i = bars.length;
         do {
+            i--;
             switch (tester % 3) {
                 case 0:
-                    inter.append("F");
+                    bars[i] = 'F';
                     tester = (tester - 3) / 3;
                     break;
                 case 1:
-                    inter.append("D");
+                    bars[i] = 'D';
                     tester = (tester - 1) / 3;
                     break;
                 case 2:
-                    inter.append("A");
+                    bars[i] = 'A';
                     tester = (tester - 2) / 3;
                     break;
             }
-        }
-        while (tester != 0);
+        } while (tester != 0);
+        dest = new String(bars, i, bars.length - i);
 
-        dest = new StringBuilder();
-        for (i = (inter.length() - 1); i >= 0; i--) {
-            dest.append(inter.charAt(i));
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
         }
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
-
         readable = new StringBuilder();
         pattern = new String[1];
-        pattern[0] = dest.toString();
+        pattern[0] = dest;
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
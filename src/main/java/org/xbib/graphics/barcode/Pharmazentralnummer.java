@@ -1,11 +1,16 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 /**
  * PZN8 is a Code 39 based symbology used by the pharmaceutical industry in
  * Germany. PZN8 encodes a 7 digit number and includes a modulo-10 check digit.
  */
 public class Pharmazentralnummer extends Symbol {
 
+    private final BarBuffer bars = new BarBuffer();
+
     /* Pharmazentral Nummer is a Code 3 of 9 symbol with an extra
      * check digit. Now generates PZN-8.
      */
@@ -14,15 +19,15 @@ public class Pharmazentralnummer extends Symbol {
         int l = content.length();
         StringBuilder localstr;
         int zeroes, count = 0, check_digit;
-        Code3Of9 c = new Code3Of9();
 
         if (l > 7) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
@@ -42,28 +47,25 @@ public class Pharmazentralnummer extends Symbol {
             check_digit = 0;
         }
         if (check_digit == 10) {
-            errorMsg.append("Not a valid PZN identifier");
+            error(EncodeError.INVALID_DATA, "Not a valid PZN identifier");
             return false;
         }
 
-        encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        }
 
         localstr.append((char) (check_digit + '0'));
 
-        try {
-            c.setContent(localstr.toString());
-        } catch (Exception e) {
-            errorMsg.append(e.getMessage());
-            return false;
-        }
+        bars.clear();
+        Code3Of9.appendSymbol(bars, localstr);
 
         readable = new StringBuilder("PZN").append(localstr);
-        pattern = new String[1];
-        pattern[0] = c.pattern[0];
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 }
@@ -1,5 +1,6 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
@@ -61,7 +62,7 @@ public class Postnet extends Symbol {
         }
 
         if (retval) {
-            plotSymbol();
+            plot();
         }
 
         return retval;
@@ -72,12 +73,13 @@ public class Postnet extends Symbol {
         StringBuilder dest;
 
         if (content.length() > 38) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -90,12 +92,16 @@ public class Postnet extends Symbol {
         }
 
         check_digit = (10 - (sum % 10)) % 10;
-        encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        }
 
         dest.append(PN_TABLE[check_digit]);
         dest.append("L");
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
+        }
         readable = new StringBuilder(content);
         pattern = new String[]{dest.toString()};
         rowCount = 1;
@@ -109,12 +115,13 @@ public class Postnet extends Symbol {
         StringBuilder dest;
 
         if (content.length() > 38) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
 
@@ -127,12 +134,16 @@ public class Postnet extends Symbol {
         }
 
         check_digit = (10 - (sum % 10)) % 10;
-        encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        }
 
         dest.append(PL_TABLE[check_digit]);
         dest.append("L");
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
+        }
         readable = new StringBuilder(content);
         pattern = new String[]{dest.toString()};
         rowCount = 1;
@@ -132,6 +132,9 @@ public class QrCode extends Symbol {
     private int preferredVersion = 0;
     private int inputLength;
     private EccMode preferredEccLevel = EccMode.L;
+    private int structuredAppendPosition = 1;
+    private int structuredAppendTotal = 1;
+    private int structuredAppendParity;
 
     /**
      * Sets the preferred symbol size. This value may be ignored if the data
@@ -397,130 +400,111 @@ public class QrCode extends Symbol {
         preferredEccLevel = eccMode;
     }
 
+    /**
+     * Returns the position of this QR Code symbol in a series of symbols using structured append. If this symbol is not part of
+     * such a series, this method will return <code>1</code>.
+     *
+     * @return the position of this QR Code symbol in a series of symbols using structured append
+     */
+    public int getStructuredAppendPosition() {
+        return structuredAppendPosition;
+    }
+
+    /**
+     * If this QR Code symbol is part of a series of QR Code symbols appended in a structured format, this method sets the
+     * position of this symbol in the series. Valid values are 1 through 16 inclusive.
+     *
+     * @param position the position of this QR Code symbol in the structured append series
+     */
+    public void setStructuredAppendPosition(int position) {
+        if (position < 1 || position > 16) {
+            throw new IllegalArgumentException("Invalid QR Code structured append position: " + position);
+        }
+        this.structuredAppendPosition = position;
+    }
+
+    /**
+     * Returns the size of the series of QR Code symbols using structured append that this symbol is part of. If this symbol is
+     * not part of a structured append series, this method will return <code>1</code>.
+     *
+     * @return size of the series that this symbol is part of
+     */
+    public int getStructuredAppendTotal() {
+        return structuredAppendTotal;
+    }
+
+    /**
+     * If this QR Code symbol is part of a series of QR Code symbols appended in a structured format, this method sets the total
+     * number of symbols in the series. Valid values are 1 through 16 inclusive. A value of 1 indicates that this symbol is not
+     * part of a structured append series.
+     *
+     * @param total the total number of QR Code symbols in the structured append series
+     */
+    public void setStructuredAppendTotal(int total) {
+        if (total < 1 || total > 16) {
+            throw new IllegalArgumentException("Invalid QR Code structured append total: " + total);
+        }
+        this.structuredAppendTotal = total;
+    }
+
+    /**
+     * Returns the parity of the data of the series of QR Code symbols using structured append that this symbol is part of
+     * (defaults to <code>0</code>).
+     *
+     * @return the parity of the data of the series
+     */
+    public int getStructuredAppendParity() {
+        return structuredAppendParity;
+    }
+
+    /**
+     * If this QR Code symbol is part of a series of QR Code symbols appended in a structured format, this method sets the
+     * parity of the data of the whole series: the exclusive or of all its data bytes. Valid values are 0 through 255
+     * inclusive. {@link QrCodeSplitter} calculates the parity for the series it creates.
+     *
+     * @param parity the parity of the data of the series
+     */
+    public void setStructuredAppendParity(int parity) {
+        if (parity < 0 || parity > 255) {
+            throw new IllegalArgumentException("Invalid QR Code structured append parity: " + parity);
+        }
+        this.structuredAppendParity = parity;
+    }
+
     @Override
     public boolean encode() {
         int i, j;
         int est_binlen;
         EccMode ecc_level;
-        int max_cw;
-        int autosize;
+        int versionClass;
         int targetCwCount, version, blocks;
         int size;
         int bitmask;
         StringBuilder bin;
-        boolean canShrink;
 
-        /* This code uses modeFirstFix to make an estimate of the symbol size
-         needed to contain the data. It then optimises the encoding and
-         checks to see if the the data will fit in a smaller
-         symbol, recalculating the binary length if necessary.
+        /* The optimal segmentation only depends on the length of the character
+         count indicators, so it is calculated at most once for each of the three
+         version classes (1-9, 10-26 and 27-40). The smallest version whose data
+         capacity holds the optimised binary is then picked directly.
          */
-        inputMode = new qrMode[content.length()];
-        modeFirstFix();
-        est_binlen = estimate_binary_length();
+        qrMode[][] classModes = new qrMode[3][];
+        int[] classBinlen = new int[3];
 
-        ecc_level = preferredEccLevel;
-        switch (preferredEccLevel) {
-            case L:
-                max_cw = 2956;
-                break;
-            case M:
-                max_cw = 2334;
-                break;
-            case Q:
-                max_cw = 1666;
-                break;
-            case H:
-                max_cw = 1276;
-                break;
-            default:
-                max_cw = 2956;
-                break;
+        if (structuredAppendPosition > structuredAppendTotal) {
+            error(EncodeError.INVALID_SETTINGS, "Structured append position exceeds the number of symbols");
+            return false;
         }
 
-        autosize = 40;
-        for (i = 39; i >= 0; i--) {
-            switch (ecc_level) {
-                case L:
-                    if ((8 * qr_data_codewords_L[i]) >= est_binlen) {
-                        autosize = i + 1;
-                    }
-                    break;
-                case M:
-                    if ((8 * qr_data_codewords_M[i]) >= est_binlen) {
-                        autosize = i + 1;
-                    }
-                    break;
-                case Q:
-                    if ((8 * qr_data_codewords_Q[i]) >= est_binlen) {
-                        autosize = i + 1;
-                    }
-                    break;
-                case H:
-                    if ((8 * qr_data_codewords_H[i]) >= est_binlen) {
-                        autosize = i + 1;
-                    }
-                    break;
-            }
-        }
+        prepareInputData();
 
-        // The first guess of symbol size is in autosize. Use this to optimise.
-        est_binlen = getBinaryLength(autosize);
+        ecc_level = preferredEccLevel;
+        version = findVersion(classModes, classBinlen);
 
-        if (est_binlen > (8 * max_cw)) {
-            errorMsg.append("Input too long for selected error correction level");
+        if (version == 0) {
+            error(EncodeError.INPUT_TOO_LONG, "Input too long for selected error correction level");
             return false;
         }
 
-        // Now see if the optimised binary will fit in a smaller symbol.
-        canShrink = true;
-
-        do {
-            if (autosize == 1) {
-                canShrink = false;
-            } else {
-                if (tribus(autosize - 1, 1, 2, 3) != tribus(autosize, 1, 2, 3)) {
-                    // Length of binary needed to encode the data in the smaller symbol is different, recalculate
-                    est_binlen = getBinaryLength(autosize - 1);
-                }
-
-                switch (ecc_level) {
-                    case L:
-                        if ((8 * qr_data_codewords_L[autosize - 2]) < est_binlen) {
-                            canShrink = false;
-                        }
-                        break;
-                    case M:
-                        if ((8 * qr_data_codewords_M[autosize - 2]) < est_binlen) {
-                            canShrink = false;
-                        }
-                        break;
-                    case Q:
-                        if ((8 * qr_data_codewords_Q[autosize - 2]) < est_binlen) {
-                            canShrink = false;
-                        }
-                        break;
-                    case H:
-                        if ((8 * qr_data_codewords_H[autosize - 2]) < est_binlen) {
-                            canShrink = false;
-                        }
-                        break;
-                }
-
-                if (canShrink) {
-                    // Optimisation worked - data will fit in a smaller symbol
-                    autosize--;
-                } else {
-                    // Data did not fit in the smaller symbol, revert to original size
-                    if (tribus(autosize - 1, 1, 2, 3) != tribus(autosize, 1, 2, 3)) {
-                        est_binlen = getBinaryLength(autosize);
-                    }
-                }
-            }
-        } while (canShrink);
-
-        version = autosize;
-
         if ((preferredVersion >= 1) && (preferredVersion <= 40)) {
             /* If the user has selected a larger symbol than the smallest available,
              then use the size the user has selected, and re-optimise for this
@@ -528,10 +512,17 @@ public class QrCode extends Symbol {
              */
             if (preferredVersion > version) {
                 version = preferredVersion;
-                est_binlen = getBinaryLength(preferredVersion);
             }
         }
 
+        versionClass = tribus(version, 0, 1, 2);
+        if (classModes[versionClass] == null) {
+            classModes[versionClass] = new qrMode[inputLength];
+            classBinlen[versionClass] = optimiseModes(version, classModes[versionClass]);
+        }
+        inputMode = classModes[versionClass];
+        est_binlen = classBinlen[versionClass];
+
         /* Ensure maxium error correction capacity */
         if (est_binlen <= (qr_data_codewords_M[version - 1] * 8)) {
             ecc_level = EccMode.M;
@@ -567,29 +558,22 @@ public class QrCode extends Symbol {
             /* Invalid characters used - stop encoding */
             return false;
         }
+        endPhase(EncodePhase.DATA_ENCODING);
 
         add_ecc(version, targetCwCount, blocks);
+        endPhase(EncodePhase.ERROR_CORRECTION);
 
         size = qr_sizes[version - 1];
 
         grid = new byte[size * size];
 
-        encodeInfo.append("Version: ").append(version).append("\n");
-        encodeInfo.append("ECC Level: ");
-        switch (ecc_level) {
-            case L:
-                encodeInfo.append("L\n");
-                break;
-            case M:
-                encodeInfo.append("M\n");
-                break;
-            case Q:
-                encodeInfo.append("Q\n");
-                break;
-            case H:
-            default:
-                encodeInfo.append("H\n");
-                break;
+        diagnostics.version = version;
+        diagnostics.eccLevel = ecc_level.ordinal();
+        diagnostics.dataCodewords = targetCwCount;
+        diagnostics.eccCodewords = qr_total_codewords[version - 1] - targetCwCount;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Version: ").append(version).append("\n");
+            encodeInfo.append("ECC Level: ").append(ecc_level.name()).append("\n");
         }
 
         for (i = 0; i < size; i++) {
@@ -600,15 +584,20 @@ public class QrCode extends Symbol {
 
         setup_grid(size, version);
         populate_grid(size, qr_total_codewords[version - 1]);
+        endPhase(EncodePhase.MODULE_PLACEMENT);
         bitmask = apply_bitmask(size, ecc_level);
-        encodeInfo.append("Mask Pattern: ").append(Integer.toBinaryString(bitmask)).append("\n");
+        endPhase(EncodePhase.MASKING);
+        diagnostics.mask = bitmask;
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Mask Pattern: ").append(Integer.toBinaryString(bitmask)).append("\n");
+        }
         add_format_info(size, ecc_level, bitmask);
         if (version >= 7) {
             add_version_info(size, version);
         }
 
         readable = new StringBuilder();
-        pattern = new String[size];
+        runLengths = new int[size][];
         rowCount = size;
         rowHeight = new int[size];
         for (i = 0; i < size; i++) {
@@ -620,15 +609,72 @@ public class QrCode extends Symbol {
                     bin.append("0");
                 }
             }
-            pattern[i] = bin2pat(bin.toString());
+            runLengths[i] = bin2pat(bin);
             rowHeight[i] = 1;
         }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
-    private void modeFirstFix() {
+    /**
+     * Returns the smallest version which holds the content at the preferred error correction level,
+     * or <code>0</code> if the content doesn't fit into any version. The symbol is not encoded.
+     */
+    int getMinimumVersion() {
+        prepareInputData();
+        return findVersion(new qrMode[3][], new int[3]);
+    }
+
+    /**
+     * Returns the parity of the data bytes of the content, the exclusive or of all bytes in the
+     * character set of the content, after the character set was selected.
+     */
+    int getDataParity() {
+        int parity = 0;
+        for (byte b : inputBytes) {
+            parity ^= b & 0xff;
+        }
+        return parity;
+    }
+
+    private int findVersion(qrMode[][] classModes, int[] classBinlen) {
+        /* Finds the smallest version for the preferred error correction level, keeping the
+         optimal segmentation of each version class which had to be calculated on the way
+         */
+        int[] dataCodewords;
+        int i, versionClass;
+
+        switch (preferredEccLevel) {
+            case M:
+                dataCodewords = qr_data_codewords_M;
+                break;
+            case Q:
+                dataCodewords = qr_data_codewords_Q;
+                break;
+            case H:
+                dataCodewords = qr_data_codewords_H;
+                break;
+            case L:
+            default:
+                dataCodewords = qr_data_codewords_L;
+                break;
+        }
+
+        for (i = 1; i <= 40; i++) {
+            versionClass = tribus(i, 0, 1, 2);
+            if (classModes[versionClass] == null) {
+                classModes[versionClass] = new qrMode[inputLength];
+                classBinlen[versionClass] = optimiseModes(i, classModes[versionClass]);
+            }
+            if ((8 * dataCodewords[i - 1]) >= classBinlen[versionClass]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void prepareInputData() {
         int i;
 
         eciProcess(); // Get ECI mode
@@ -648,214 +694,110 @@ public class QrCode extends Symbol {
                 inputData[i] = inputBytes[i] & 0xFF;
             }
         }
-
-        inputMode = new qrMode[inputLength];
-
-        for (i = 0; i < inputLength; i++) {
-            if (inputData[i] > 0xff) {
-                inputMode[i] = qrMode.KANJI;
-            } else {
-                inputMode[i] = qrMode.BINARY;
-                if (isXAlpha((char) (inputData[i] & 0xFF))) {
-                    inputMode[i] = qrMode.ALPHANUM;
-                }
-                if ((inputDataType == DataType.GS1) && (inputData[i] == '[')) {
-                    inputMode[i] = qrMode.ALPHANUM;
-                }
-                if (isXNumeric((char) (inputData[i] & 0xff))) {
-                    inputMode[i] = qrMode.NUMERIC;
-                }
-            }
-        }
-    }
-
-    private int getBinaryLength(int version) {
-        /* Calculate the actial bitlength of the proposed binary string */
-        qrMode currentMode;
-        int i, j;
-        int count = 0;
-
-        applyOptimisation(version);
-
-        currentMode = qrMode.NULL;
-
-        if (eciMode != 3) {
-            count += 12;
-        }
-
-        if (inputDataType == DataType.GS1) {
-            count += 4;
-        }
-
-        for (i = 0; i < inputLength; i++) {
-            if (inputMode[i] != currentMode) {
-                count += 4;
-                switch (inputMode[i]) {
-                    case KANJI:
-                        count += tribus(version, 8, 10, 12);
-                        count += (blockLength(i) * 13);
-                        break;
-                    case BINARY:
-                        count += tribus(version, 8, 16, 16);
-                        for (j = i; j < (i + blockLength(i)); j++) {
-                            if (inputData[j] > 0xff) {
-                                count += 16;
-                            } else {
-                                count += 8;
-                            }
-                        }
-                        break;
-                    case ALPHANUM:
-                        count += tribus(version, 9, 11, 13);
-                        switch (blockLength(i) % 2) {
-                            case 0:
-                                count += (blockLength(i) / 2) * 11;
-                                break;
-                            case 1:
-                                count += ((blockLength(i) - 1) / 2) * 11;
-                                count += 6;
-                                break;
-                        }
-                        break;
-                    case NUMERIC:
-                        count += tribus(version, 10, 12, 14);
-                        switch (blockLength(i) % 3) {
-                            case 0:
-                                count += (blockLength(i) / 3) * 10;
-                                break;
-                            case 1:
-                                count += ((blockLength(i) - 1) / 3) * 10;
-                                count += 4;
-                                break;
-                            case 2:
-                                count += ((blockLength(i) - 2) / 3) * 10;
-                                count += 7;
-                                break;
-                        }
-                        break;
-                }
-                currentMode = inputMode[i];
-            }
-        }
-
-        return count;
     }
 
-    private void applyOptimisation(int version) {
-        /* Implements a custom optimisation algorithm, because implementation
-         of the algorithm shown in Annex J.2 created LONGER binary sequences.
+    private int optimiseModes(int version, qrMode[] modes) {
+        /* Finds the segmentation with the shortest binary for the character count
+         indicator lengths of the given version, using a shortest path search over
+         (position, mode). Costs are kept in sixths of a bit so that the 10 bits per
+         3 digits of Numeric mode and the 11 bits per 2 characters of Alphanumeric
+         mode are exact; a segment is rounded up to whole bits when it ends.
+         Returns the length of the binary, not including terminator and padding.
          */
-
-        int blockCount = 0;
-        int i, j;
-        qrMode currentMode = qrMode.NULL;
+        final qrMode[] modeTypes = {qrMode.KANJI, qrMode.BINARY, qrMode.ALPHANUM, qrMode.NUMERIC};
+        final int modeCount = modeTypes.length;
+        final int infinity = Integer.MAX_VALUE / 2;
+        int[] headCosts = new int[modeCount];
+        int[] prevCosts = new int[modeCount];
+        int[] curCosts = new int[modeCount];
+        int[] swap;
+        byte[] charModes = new byte[inputLength * modeCount];
+        int i, j, k, c;
+        int newCost, minCost, curMode;
+        int count;
+
+        headCosts[0] = (4 + tribus(version, 8, 10, 12)) * 6;
+        headCosts[1] = (4 + tribus(version, 8, 16, 16)) * 6;
+        headCosts[2] = (4 + tribus(version, 9, 11, 13)) * 6;
+        headCosts[3] = (4 + tribus(version, 10, 12, 14)) * 6;
+        System.arraycopy(headCosts, 0, prevCosts, 0, modeCount);
 
         for (i = 0; i < inputLength; i++) {
-            if (inputMode[i] != currentMode) {
-                currentMode = inputMode[i];
-                blockCount++;
-            }
-        }
-
-        int[] blockLength = new int[blockCount];
-        qrMode[] blockMode = new qrMode[blockCount];
+            c = inputData[i];
 
-        j = -1;
-        currentMode = qrMode.NULL;
-        for (i = 0; i < inputLength; i++) {
-            if (inputMode[i] != currentMode) {
-                j++;
-                blockLength[j] = 1;
-                blockMode[j] = inputMode[i];
-                currentMode = inputMode[i];
-            } else {
-                blockLength[j]++;
+            /* Extend the current segment in each mode which can hold this character */
+            for (j = 0; j < modeCount; j++) {
+                curCosts[j] = infinity;
+                charModes[(i * modeCount) + j] = -1;
             }
-        }
-
-        if (blockCount > 1) {
-            // Search forward
-            for (i = 0; i <= (blockCount - 2); i++) {
-                if (blockMode[i] == qrMode.BINARY) {
-                    switch (blockMode[i + 1]) {
-                        case KANJI:
-                            if (blockLength[i + 1] < tribus(version, 4, 5, 6)) {
-                                blockMode[i + 1] = qrMode.BINARY;
-                            }
-                            break;
-                        case ALPHANUM:
-                            if (blockLength[i + 1] < tribus(version, 7, 8, 9)) {
-                                blockMode[i + 1] = qrMode.BINARY;
-                            }
-                            break;
-                        case NUMERIC:
-                            if (blockLength[i + 1] < tribus(version, 3, 4, 5)) {
-                                blockMode[i + 1] = qrMode.BINARY;
-                            }
-                            break;
+            if (c > 0xff) {
+                curCosts[0] = prevCosts[0] + 78; // 13 bits
+                curCosts[1] = prevCosts[1] + 96; // 2 bytes
+            } else {
+                curCosts[1] = prevCosts[1] + 48; // 8 bits
+                if (isXAlpha((char) c) || ((inputDataType == DataType.GS1) && (c == '['))) {
+                    if ((inputDataType == DataType.GS1) && (c == '%')) {
+                        curCosts[2] = prevCosts[2] + 66; // escaped as "%%"
+                    } else {
+                        curCosts[2] = prevCosts[2] + 33; // 5.5 bits
                     }
                 }
-
-                if ((blockMode[i] == qrMode.ALPHANUM)
-                        && (blockMode[i + 1] == qrMode.NUMERIC)) {
-                    if (blockLength[i + 1] < tribus(version, 6, 8, 10)) {
-                        blockMode[i + 1] = qrMode.ALPHANUM;
-                    }
+                if (isXNumeric((char) c)) {
+                    curCosts[2] = prevCosts[2] + 33;
+                    curCosts[3] = prevCosts[3] + 20; // 3.33 bits
                 }
             }
-
-            // Search backward
-            for (i = blockCount - 1; i > 0; i--) {
-                if (blockMode[i] == qrMode.BINARY) {
-                    switch (blockMode[i - 1]) {
-                        case KANJI:
-                            if (blockLength[i - 1] < tribus(version, 4, 5, 6)) {
-                                blockMode[i - 1] = qrMode.BINARY;
-                            }
-                            break;
-                        case ALPHANUM:
-                            if (blockLength[i - 1] < tribus(version, 7, 8, 9)) {
-                                blockMode[i - 1] = qrMode.BINARY;
-                            }
-                            break;
-                        case NUMERIC:
-                            if (blockLength[i - 1] < tribus(version, 3, 4, 5)) {
-                                blockMode[i - 1] = qrMode.BINARY;
-                            }
-                            break;
-                    }
+            for (j = 0; j < modeCount; j++) {
+                if (curCosts[j] < infinity) {
+                    charModes[(i * modeCount) + j] = (byte) j;
                 }
+            }
 
-                if ((blockMode[i] == qrMode.ALPHANUM)
-                        && (blockMode[i - 1] == qrMode.NUMERIC)) {
-                    if (blockLength[i - 1] < tribus(version, 6, 8, 10)) {
-                        blockMode[i - 1] = qrMode.ALPHANUM;
+            /* Consider ending the segment here and starting a new one in another mode */
+            for (j = 0; j < modeCount; j++) {
+                for (k = 0; k < modeCount; k++) {
+                    if (k != j && charModes[(i * modeCount) + k] != -1) {
+                        newCost = (((curCosts[k] + 5) / 6) * 6) + headCosts[j];
+                        if (newCost < curCosts[j]) {
+                            curCosts[j] = newCost;
+                            charModes[(i * modeCount) + j] = (byte) k;
+                        }
                     }
                 }
             }
+
+            swap = prevCosts;
+            prevCosts = curCosts;
+            curCosts = swap;
         }
 
-        j = 0;
-        for (int block = 0; block < blockCount; block++) {
-            currentMode = blockMode[block];
-            for (i = 0; i < blockLength[block]; i++) {
-                inputMode[j] = currentMode;
-                j++;
+        /* Trace back from the cheapest final mode */
+        curMode = 0;
+        minCost = infinity;
+        for (j = 0; j < modeCount; j++) {
+            if (prevCosts[j] < minCost) {
+                minCost = prevCosts[j];
+                curMode = j;
             }
         }
-    }
+        for (i = inputLength - 1; i >= 0; i--) {
+            curMode = charModes[(i * modeCount) + curMode];
+            modes[i] = modeTypes[curMode];
+        }
 
-    private int blockLength(int start) {
-        /* Find the length of the block starting from 'start' */
-        int i, count;
-        qrMode mode = inputMode[start];
+        count = (minCost + 5) / 6;
 
-        count = 0;
-        i = start;
+        if (eciMode != 3) {
+            count += 12;
+        }
 
-        do {
-            count++;
-        } while (((i + count) < inputLength) && (inputMode[i + count] == mode));
+        if (inputDataType == DataType.GS1) {
+            count += 4;
+        }
+
+        if (structuredAppendTotal > 1) {
+            count += 20;
+        }
 
         return count;
     }
@@ -914,78 +856,6 @@ public class QrCode extends Symbol {
         return retval;
     }
 
-    private int estimate_binary_length() {
-        /* Make an estimate (worst case scenario) of how long the binary string will be */
-        int i, count = 0;
-        qrMode current = qrMode.NULL;
-        int a_count = 0;
-        int n_count = 0;
-
-        if (eciMode != 3) {
-            count += 12;
-        }
-
-        if (inputDataType == DataType.GS1) {
-            count += 4;
-        }
-
-        for (i = 0; i < inputLength; i++) {
-            if (inputMode[i] != current) {
-                switch (inputMode[i]) {
-                    case KANJI:
-                        count += 12 + 4;
-                        current = qrMode.KANJI;
-                        break;
-                    case BINARY:
-                        count += 16 + 4;
-                        current = qrMode.BINARY;
-                        break;
-                    case ALPHANUM:
-                        count += 13 + 4;
-                        current = qrMode.ALPHANUM;
-                        a_count = 0;
-                        break;
-                    case NUMERIC:
-                        count += 14 + 4;
-                        current = qrMode.NUMERIC;
-                        n_count = 0;
-                        break;
-                }
-            }
-
-            switch (inputMode[i]) {
-                case KANJI:
-                    count += 13;
-                    break;
-                case BINARY:
-                    count += 8;
-                    break;
-                case ALPHANUM:
-                    a_count++;
-                    if ((a_count & 1) == 0) {
-                        count += 5; // 11 in total
-                        a_count = 0;
-                    } else {
-                        count += 6;
-                    }
-                    break;
-                case NUMERIC:
-                    n_count++;
-                    if ((n_count % 3) == 0) {
-                        count += 3; // 10 in total
-                        n_count = 0;
-                    } else if ((n_count & 1) == 0) {
-                        count += 3; // 7 in total
-                    } else {
-                        count += 4;
-                    }
-                    break;
-            }
-        }
-
-        return count;
-    }
-
     private boolean qr_binary(int version, int target_binlen) {
         /* Convert input data to a binary stream and add padding */
         int position = 0;
@@ -1004,6 +874,17 @@ public class QrCode extends Symbol {
 
         binary = new StringBuilder();
 
+        if (structuredAppendTotal > 1) {
+            binary.append("0011"); /* Structured Append */
+            qr_bscan(structuredAppendPosition - 1, 0x08);
+            qr_bscan(structuredAppendTotal - 1, 0x08);
+            qr_bscan(structuredAppendParity, 0x80);
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Structured Append: ").append(structuredAppendPosition).append(" of ")
+                        .append(structuredAppendTotal).append(", parity ").append(structuredAppendParity).append("\n");
+            }
+        }
+
         /* Note: Shift-JIS characters can be encoded in either Kanji
          mode or Byte mode. If no ECI code is given, a sequence in Byte
          mode could be interpreted in two ways - for example 0xE4 0x6E
@@ -1045,7 +926,9 @@ public class QrCode extends Symbol {
             scheme = 3;
         }
 
-        encodeInfo.append("Encoding: ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Encoding: ");
+        }
 
         alphanumPercent = false;
 
@@ -1066,7 +949,9 @@ public class QrCode extends Symbol {
                     /* Character count indicator */
                     qr_bscan(short_data_block_length, 0x20 << (scheme * 2)); /* scheme = 1..3 */
 
-                    encodeInfo.append("KNJI ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("KNJI ");
+                    }
 
                     /* Character representation */
                     for (i = 0; i < short_data_block_length; i++) {
@@ -1077,7 +962,7 @@ public class QrCode extends Symbol {
                         try {
                             jisBytes = oneChar.getBytes("SJIS");
                         } catch (UnsupportedEncodingException e) {
-                            errorMsg.append("Shift-JIS character conversion error");
+                            error(EncodeError.CHARACTER_ENCODING, "Shift-JIS character conversion error");
                             return false;
                         }
 
@@ -1094,7 +979,9 @@ public class QrCode extends Symbol {
 
                         qr_bscan(prod, 0x1000);
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
                     }
                     break;
                 case BINARY:
@@ -1112,7 +999,9 @@ public class QrCode extends Symbol {
                     /* Character count indicator */
                     qr_bscan(kanjiModifiedLength, scheme > 1 ? 0x8000 : 0x80); /* scheme = 1..3 */
 
-                    encodeInfo.append("BYTE ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("BYTE ");
+                    }
 
                     /* Character representation */
                     for (i = 0; i < short_data_block_length; i++) {
@@ -1125,15 +1014,17 @@ public class QrCode extends Symbol {
                             try {
                                 jisBytes = oneChar.getBytes("SJIS");
                             } catch (UnsupportedEncodingException e) {
-                                errorMsg.append("Shift-JIS character conversion error");
+                                error(EncodeError.CHARACTER_ENCODING, "Shift-JIS character conversion error");
                                 return false;
                             }
 
                             qr_bscan((int) jisBytes[0] & 0xff, 0x80);
                             qr_bscan((int) jisBytes[1] & 0xff, 0x80);
 
-                            encodeInfo.append("(").append(Integer.toString((int) jisBytes[0] & 0xff)).append(" ");
-                            encodeInfo.append(Integer.toString((int) jisBytes[1] & 0xff)).append(") ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append("(").append(Integer.toString((int) jisBytes[0] & 0xff)).append(" ");
+                                encodeInfo.append(Integer.toString((int) jisBytes[1] & 0xff)).append(") ");
+                            }
                         } else {
                             // Process 8-bit byte
                             int lbyte = (inputData[position + i] & 0xFF);
@@ -1145,7 +1036,9 @@ public class QrCode extends Symbol {
 
                             qr_bscan(lbyte, 0x80);
 
-                            encodeInfo.append(Integer.toString(lbyte)).append(" ");
+                            if (isVerboseEnabled()) {
+                                encodeInfo.append(Integer.toString(lbyte)).append(" ");
+                            }
                         }
                     }
 
@@ -1158,7 +1051,9 @@ public class QrCode extends Symbol {
                     /* Character count indicator */
                     qr_bscan(short_data_block_length, 0x40 << (2 * scheme)); /* scheme = 1..3 */
 
-                    encodeInfo.append("ALPH ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("ALPH ");
+                    }
 
                     /* Character representation */
                     i = 0;
@@ -1234,7 +1129,9 @@ public class QrCode extends Symbol {
 
                         qr_bscan(prod, count == 2 ? 0x400 : 0x20); /* count = 1..2 */
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
                     }
                     ;
                     break;
@@ -1246,7 +1143,9 @@ public class QrCode extends Symbol {
                     /* Character count indicator */
                     qr_bscan(short_data_block_length, 0x80 << (2 * scheme)); /* scheme = 1..3 */
 
-                    encodeInfo.append("NUMB ");
+                    if (isVerboseEnabled()) {
+                        encodeInfo.append("NUMB ");
+                    }
 
                     /* Character representation */
                     i = 0;
@@ -1270,7 +1169,9 @@ public class QrCode extends Symbol {
 
                         qr_bscan(prod, 1 << (3 * count)); /* count = 1..3 */
 
-                        encodeInfo.append(Integer.toString(prod)).append(" ");
+                        if (isVerboseEnabled()) {
+                            encodeInfo.append(Integer.toString(prod)).append(" ");
+                        }
 
                         i += count;
                     }
@@ -1280,7 +1181,9 @@ public class QrCode extends Symbol {
             position += short_data_block_length;
         } while (position < inputLength);
 
-        encodeInfo.append("\n");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("\n");
+        }
 
         /* Terminator */
         binary.append("0000");
@@ -1319,11 +1222,13 @@ public class QrCode extends Symbol {
             }
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < target_binlen; i++) {
-            encodeInfo.append(Integer.toString(datastream[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < target_binlen; i++) {
+                encodeInfo.append(Integer.toString(datastream[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         return true;
     }
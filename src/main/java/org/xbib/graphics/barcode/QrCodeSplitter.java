@@ -0,0 +1,216 @@
+package org.xbib.graphics.barcode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Splits content which is too long for a single QR Code symbol into a series of up to 16 QR Code
+ * symbols using structured append. The fewest symbols which hold the content are used, the parts
+ * are of about equal length, and all symbols of a series have the same version. Parts end where
+ * the kind of character changes if possible, so that runs of digits or alphanumeric characters
+ * remain in one symbol. All symbols use the character set of the whole content, whose bytes give
+ * the parity of the series as ISO/IEC 18004 requires. The symbols of a series are encoded concurrently.
+ */
+public class QrCodeSplitter {
+
+    private static final int MAX_SYMBOLS = 16;
+
+    private QrCode.EccMode eccMode = QrCode.EccMode.L;
+
+    private int maximumVersion = 40;
+
+    /**
+     * Returns the error correction level of the symbols (defaults to {@link QrCode.EccMode#L}).
+     *
+     * @return the error correction level of the symbols
+     */
+    public QrCode.EccMode getEccMode() {
+        return eccMode;
+    }
+
+    /**
+     * Sets the error correction level of the symbols. As with a single symbol, a higher level is
+     * used if it fits into the same version.
+     *
+     * @param eccMode the error correction level of the symbols
+     */
+    public void setEccMode(QrCode.EccMode eccMode) {
+        this.eccMode = eccMode;
+    }
+
+    /**
+     * Returns the largest version of the symbols (defaults to <code>40</code>).
+     *
+     * @return the largest version of the symbols
+     */
+    public int getMaximumVersion() {
+        return maximumVersion;
+    }
+
+    /**
+     * Sets the largest version of the symbols. Content which doesn't fit into one symbol of this
+     * version is split. Smaller versions give more symbols, which are faster to scan.
+     *
+     * @param maximumVersion the largest version of the symbols (1-40)
+     */
+    public void setMaximumVersion(int maximumVersion) {
+        if (maximumVersion < 1 || maximumVersion > 40) {
+            throw new IllegalArgumentException("Invalid QR Code version: " + maximumVersion);
+        }
+        this.maximumVersion = maximumVersion;
+    }
+
+    /**
+     * Encodes the specified content into as few symbols as possible.
+     *
+     * @param content the data to encode
+     * @return the symbols in order, a single symbol without structured append if the content fits into one
+     * @throws IllegalStateException if the content doesn't fit into 16 symbols
+     */
+    public List<QrCode> split(String content) {
+        if (content.isEmpty()) {
+            throw new IllegalStateException("No input data");
+        }
+        /* all parts use the character set of the whole content, whose bytes give the parity of the series */
+        QrCode whole = newSymbol(1, 1, 0, 0);
+        whole.content = content;
+        whole.eciProcess();
+        int eci = whole.eciMode;
+        int parity = whole.getDataParity();
+        for (int count = 1; count <= MAX_SYMBOLS && count <= content.length(); count++) {
+            String[] parts = divide(content, count);
+            if (parts == null) {
+                break;
+            }
+            int version = 0;
+            for (String part : parts) {
+                QrCode probe = newSymbol(count, 1, 0, eci);
+                probe.content = part;
+                int partVersion = probe.getMinimumVersion();
+                if (partVersion == 0 || partVersion > maximumVersion) {
+                    version = 0;
+                    break;
+                }
+                version = Math.max(version, partVersion);
+            }
+            if (version != 0) {
+                return encode(parts, version, parity, eci);
+            }
+        }
+        throw new IllegalStateException("Input too long for " + MAX_SYMBOLS + " symbols of version "
+                + maximumVersion + " at the selected error correction level");
+    }
+
+    /**
+     * Creates a symbol for one part of the content. Subclasses can override this method to configure
+     * the appearance of the symbols; their version, error correction level and structured append
+     * settings are set afterwards.
+     *
+     * @return a new symbol
+     */
+    protected QrCode createSymbol() {
+        return new QrCode();
+    }
+
+    private QrCode newSymbol(int total, int position, int parity, int eci) {
+        QrCode symbol = createSymbol();
+        symbol.setDataType(Symbol.DataType.ECI);
+        symbol.setCharacterSetEci(eci);
+        symbol.setEccMode(eccMode);
+        symbol.setStructuredAppendTotal(total);
+        symbol.setStructuredAppendPosition(position);
+        symbol.setStructuredAppendParity(parity);
+        return symbol;
+    }
+
+    private List<QrCode> encode(String[] parts, int version, int parity, int eci) {
+        List<CompletableFuture<QrCode>> futures = new ArrayList<>(parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            final QrCode symbol = newSymbol(parts.length, i + 1, parity, eci);
+            symbol.setPreferredVersion(version);
+            final String part = parts[i];
+            if (i == parts.length - 1) {
+                /* the calling thread encodes the last part itself */
+                symbol.setContent(part);
+                futures.add(CompletableFuture.completedFuture(symbol));
+            } else {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    symbol.setContent(part);
+                    return symbol;
+                }));
+            }
+        }
+        List<QrCode> symbols = new ArrayList<>(parts.length);
+        for (CompletableFuture<QrCode> future : futures) {
+            try {
+                symbols.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * Divides the content into the specified number of parts of about equal length. Each cut is moved
+     * to the nearest change of character class, if there is one close by. Returns <code>null</code>
+     * if the content is too short for that many parts.
+     */
+    private static String[] divide(String content, int count) {
+        String[] parts = new String[count];
+        int length = content.length();
+        int window = Math.min(32, length / (4 * count));
+        int start = 0;
+        for (int i = 1; i < count; i++) {
+            int ideal = (int) ((long) length * i / count);
+            int cut = ideal;
+            for (int d = 0; d <= window; d++) {
+                if (isBoundary(content, ideal - d, start)) {
+                    cut = ideal - d;
+                    break;
+                }
+                if (isBoundary(content, ideal + d, start)) {
+                    cut = ideal + d;
+                    break;
+                }
+            }
+            if (cut <= start || cut >= length || Character.isLowSurrogate(content.charAt(cut))) {
+                /* no class boundary nearby: cut anywhere, but not inside a surrogate pair */
+                cut = Math.max(ideal, start + 1);
+                if (cut < length && Character.isLowSurrogate(content.charAt(cut))) {
+                    cut++;
+                }
+                if (cut >= length) {
+                    return null;
+                }
+            }
+            parts[i - 1] = content.substring(start, cut);
+            start = cut;
+        }
+        parts[count - 1] = content.substring(start);
+        return parts;
+    }
+
+    private static boolean isBoundary(String content, int index, int start) {
+        if (index <= start || index >= content.length()) {
+            return false;
+        }
+        return charClass(content.charAt(index - 1)) != charClass(content.charAt(index));
+    }
+
+    /* digits, the other characters of the alphanumeric mode, and everything else */
+    private static int charClass(char c) {
+        if (c >= '0' && c <= '9') {
+            return 0;
+        }
+        if ((c >= 'A' && c <= 'Z') || " $%*+-./:".indexOf(c) >= 0) {
+            return 1;
+        }
+        return Character.isSurrogate(c) ? 3 : 2;
+    }
+}
@@ -1,5 +1,7 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+
 import java.awt.geom.Rectangle2D;
 import java.util.Locale;
 
@@ -33,8 +35,9 @@ public class RoyalMail4State extends Symbol {
         int index;
 
         content = content.toUpperCase(Locale.ENGLISH);
-        if (!(content.matches("[0-9A-Z]+"))) {
-            errorMsg.append("Invalid characters in data");
+        int invalid = CharacterClass.UPPER_ALPHANUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in data at position ", invalid);
             return false;
         }
         dest = new StringBuilder("A");
@@ -58,19 +61,23 @@ public class RoyalMail4State extends Symbol {
 
         dest.append(RoyalTable[(6 * row) + column]);
 
-        encodeInfo.append("Check Digit: ").append((6 * row) + column).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append((6 * row) + column).append("\n");
+        }
 
         /* Stop character */
         dest.append("F");
 
-        encodeInfo.append("Encoding: ").append(dest).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(dest).append("\n");
+        }
         readable = new StringBuilder();
         pattern = new String[1];
         pattern[0] = dest.toString();
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
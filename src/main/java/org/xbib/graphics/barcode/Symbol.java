@@ -1,12 +1,17 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.Gs1ApplicationIdentifier;
 import org.xbib.graphics.barcode.util.Hexagon;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.xbib.graphics.barcode.HumanReadableLocation.BOTTOM;
@@ -20,10 +25,33 @@ import static org.xbib.graphics.barcode.HumanReadableLocation.TOP;
  */
 public abstract class Symbol {
 
+    private static volatile EncodeListener defaultEncodeListener = EncodeListener.NONE;
+
+    /* the character sets tried for ECI data, in order */
+    private static final String[] CHARACTER_SETS = {
+            "ISO8859_1", "ISO8859_2", "ISO8859_3", "ISO8859_4", "ISO8859_5", "ISO8859_6", "ISO8859_7",
+            "ISO8859_8", "ISO8859_9", "ISO8859_10", "ISO8859_11", "ISO8859_13", "ISO8859_14", "ISO8859_15",
+            "ISO8859_16", "Windows_1250", "Windows_1251", "Windows_1252", "Windows_1256", "SJIS", "UTF8"
+    };
+
+    private static final int[] CHARACTER_SET_ECIS = {
+            3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 15, 16, 17, 18, 21, 22, 23, 24, 20, 26
+    };
+
+    private static final String[] CHARACTER_SET_NAMES = {
+            "ISO 8859-1", "ISO 8859-2", "ISO 8859-3", "ISO 8859-4", "ISO 8859-5", "ISO 8859-6", "ISO 8859-7",
+            "ISO 8859-8", "ISO 8859-9", "ISO 8859-10", "ISO 8859-11", "ISO 8859-13", "ISO 8859-14", "ISO 8859-15",
+            "ISO 8859-16", "Windows-1250", "Windows-1251", "Windows-1252", "Windows-1256", "Shift-JIS", "UTF-8"
+    };
+
     public List<Rectangle2D.Double> rectangles = new ArrayList<>();
 
     public List<TextBox> texts = new ArrayList<>();
 
+    /**
+     * The dark modules of a MaxiCode symbol. MaxiCode replaces this with a read-only view of
+     * hexagons shared by all symbols, so the list can't be modified after encoding.
+     */
     public List<Hexagon> hexagons = new ArrayList<>();
 
     public List<Ellipse2D.Double> target = new ArrayList<>();
@@ -32,6 +60,14 @@ public abstract class Symbol {
 
     protected StringBuilder readable;
 
+    /**
+     * Run lengths of the modules in each row, alternating between bars and spaces and starting with a bar.
+     */
+    protected int[][] runLengths;
+
+    /**
+     * Bar states of symbols which are not described by run lengths, such as 4-state postal codes.
+     */
     protected String[] pattern;
 
     protected int rowCount = 0;
@@ -40,6 +76,15 @@ public abstract class Symbol {
 
     protected StringBuilder errorMsg = new StringBuilder();
 
+    /* why the content can't be encoded; the message is only formatted when it is needed */
+    private EncodeError errorCode = EncodeError.NONE;
+
+    private String errorText = "";
+
+    private Object errorArgument;
+
+    private int errorPosition = -1;
+
     protected int symbolHeight = 0;
 
     protected int symbolWidth = 0;
@@ -50,6 +95,14 @@ public abstract class Symbol {
 
     protected StringBuilder encodeInfo = new StringBuilder();
 
+    private DiagnosticsLevel diagnosticsLevel = DiagnosticsLevel.OFF;
+
+    final Diagnostics diagnostics = new Diagnostics();
+
+    private EncodeListener encodeListener = defaultEncodeListener;
+
+    private long phaseStart;
+
     protected byte[] inputBytes;
 
     protected DataType inputDataType = DataType.ECI;
@@ -62,6 +115,12 @@ public abstract class Symbol {
 
     int eciMode = 3;
 
+    /* the ECI of the character set the content must use, 0 to choose it from the content */
+    private int characterSetEci;
+
+    /* whether the content was given as bytes, which are encoded as they are */
+    boolean binaryContent;
+
     private int quietZoneHorizontal = 0;
 
     private int quietZoneVertical = 0;
@@ -301,6 +360,7 @@ public abstract class Symbol {
 
     /**
      * Returns a human readable summary of the decisions made by the encoder when creating a symbol.
+     * The summary is only written if the diagnostics level is not {@link DiagnosticsLevel#OFF}.
      *
      * @return a human readable summary of the decisions made by the encoder when creating a symbol
      */
@@ -308,6 +368,92 @@ public abstract class Symbol {
         return encodeInfo.toString();
     }
 
+    /**
+     * Returns how much the encoder describes its decisions (defaults to {@link DiagnosticsLevel#OFF}).
+     *
+     * @return how much the encoder describes its decisions
+     */
+    public DiagnosticsLevel getDiagnosticsLevel() {
+        return diagnosticsLevel;
+    }
+
+    /**
+     * Sets how much the encoder describes its decisions in the {@link #getEncodeInfo() encode info}.
+     * Writing the description takes time, so it is off unless it is needed.
+     *
+     * @param diagnosticsLevel how much the encoder describes its decisions
+     */
+    public void setDiagnosticsLevel(DiagnosticsLevel diagnosticsLevel) {
+        this.diagnosticsLevel = diagnosticsLevel;
+    }
+
+    /**
+     * Returns the version, error correction and codeword counts of the last encoding. They are
+     * recorded whatever the diagnostics level.
+     *
+     * @return the diagnostics of the last encoding
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Returns the listener which receives the time taken by the phases of encoding this symbol
+     * (defaults to the {@link #getDefaultEncodeListener() default listener} at the time the symbol was created).
+     *
+     * @return the listener which receives the time taken to encode this symbol
+     */
+    public EncodeListener getEncodeListener() {
+        return encodeListener;
+    }
+
+    /**
+     * Sets the listener which receives the time taken by the phases of encoding this symbol. Use
+     * {@link EncodeListener#NONE} to stop measuring.
+     *
+     * @param encodeListener the listener which receives the time taken to encode this symbol
+     */
+    public void setEncodeListener(EncodeListener encodeListener) {
+        this.encodeListener = encodeListener;
+    }
+
+    /**
+     * Returns the listener of symbols created from now on (defaults to {@link EncodeListener#NONE}).
+     *
+     * @return the listener of new symbols
+     */
+    public static EncodeListener getDefaultEncodeListener() {
+        return defaultEncodeListener;
+    }
+
+    /**
+     * Sets the listener of symbols created from now on, for example to measure all symbols of an
+     * application. Symbols which already exist keep their listener.
+     *
+     * @param encodeListener the listener of new symbols
+     */
+    public static void setDefaultEncodeListener(EncodeListener encodeListener) {
+        defaultEncodeListener = encodeListener;
+    }
+
+    /**
+     * Returns whether the encoder describes its main decisions in the encode info.
+     *
+     * @return whether the diagnostics level is at least {@link DiagnosticsLevel#SUMMARY}
+     */
+    boolean isSummaryEnabled() {
+        return diagnosticsLevel != DiagnosticsLevel.OFF;
+    }
+
+    /**
+     * Returns whether the encoder describes the encoded data in the encode info.
+     *
+     * @return whether the diagnostics level is {@link DiagnosticsLevel#VERBOSE}
+     */
+    boolean isVerboseEnabled() {
+        return diagnosticsLevel == DiagnosticsLevel.VERBOSE;
+    }
+
     /**
      * Returns the location of the human-readable text.
      *
@@ -337,35 +483,52 @@ public abstract class Symbol {
         return outval;
     }
 
-    protected String bin2pat(String bin) {
-        boolean black;
-        int i, l;
-        StringBuilder pat = new StringBuilder();
+    protected int[] bin2pat(CharSequence bin) {
+        int i, l, count;
+        int[] runs;
+
+        count = 1;
+        for (i = 1; i < bin.length(); i++) {
+            if (bin.charAt(i) != bin.charAt(i - 1)) {
+                count++;
+            }
+        }
+        if (bin.length() > 0 && bin.charAt(0) != '1') {
+            /* rows start with a bar, which may have a width of zero */
+            count++;
+        }
 
-        black = true;
+        runs = new int[count];
+        count = 0;
         l = 0;
+        char last = '1';
         for (i = 0; i < bin.length(); i++) {
-            if (black) {
-                if (bin.charAt(i) == '1') {
-                    l++;
-                } else {
-                    black = false;
-                    pat.append((char) (l + '0'));
-                    l = 1;
-                }
+            if (bin.charAt(i) == last) {
+                l++;
             } else {
-                if (bin.charAt(i) == '0') {
-                    l++;
-                } else {
-                    black = true;
-                    pat.append((char) (l + '0'));
-                    l = 1;
-                }
+                runs[count] = l;
+                count++;
+                last = bin.charAt(i);
+                l = 1;
             }
         }
-        pat.append((char) (l + '0'));
+        runs[count] = l;
 
-        return pat.toString();
+        return runs;
+    }
+
+    /**
+     * Converts a pattern of single digit widths, as used in the symbology tables, into run lengths.
+     *
+     * @param widths the widths, as characters starting from <code>'0'</code>
+     * @return the run lengths
+     */
+    protected int[] pat2runs(CharSequence widths) {
+        int[] runs = new int[widths.length()];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = widths.charAt(i) - '0';
+        }
+        return runs;
     }
 
     public String getContent() {
@@ -379,194 +542,270 @@ public abstract class Symbol {
      * @param inputData A <code>String</code> containing the data to encode
      */
     public void setContent(String inputData) {
-        int i;
+        prepareContent(inputData);
+        encodeContent();
+    }
+
+    /**
+     * Set the data to be encoded, like {@link #setContent(String)}, but report invalid data in the
+     * returned result instead of throwing an exception. No exception is created and no message is
+     * formatted for invalid data, which makes this method suitable to validate large amounts of data.
+     * Runtime exceptions thrown by an encoder are not turned into results, they indicate a defect.
+     *
+     * @param inputData A <code>String</code> containing the data to encode
+     * @return the result, {@link EncodeResult#SUCCESS} if the data was encoded
+     */
+    public EncodeResult trySetContent(String inputData) {
+        prepareContent(inputData);
+        if (content.isEmpty()) {
+            return getFailure();
+        }
+        return encodeAndMeasure() ? EncodeResult.SUCCESS : getFailure();
+    }
+
+    private void prepareContent(String inputData) {
+        clearResults();
+        binaryContent = false;
         content = inputData;
         if (inputDataType == DataType.GS1) {
             content = gs1SanityCheck(inputData);
         }
-        if (inputDataType == DataType.GS1) {
-            readable = new StringBuilder();
-            for (i = 0; i < inputData.length(); i++) {
-                switch (inputData.charAt(i)) {
-                    case '[':
-                        readable.append('(');
-                        break;
-                    case ']':
-                        readable.append(')');
-                        break;
-                    default:
-                        readable.append(inputData.charAt(i));
-                        break;
-                }
-            }
-        }
         if (inputDataType == DataType.HIBC) {
             content = hibcProcess(inputData);
         }
-        if (!content.isEmpty()) {
-            if (!encode()) {
-                throw new IllegalStateException(errorMsg.toString());
-            }
-        } else {
-            throw new IllegalStateException("No input data");
-        }
     }
 
-    void eciProcess() {
-        int qmarksBefore, qmarksAfter;
-        int i;
+    /**
+     * Set binary data to be encoded. Symbologies which support extended channel interpretations
+     * (QR Code, Data Matrix, Aztec Code, PDF417, Code One, Grid Matrix and MaxiCode) encode the bytes
+     * as they are, without looking for a character set which represents them; other symbologies treat
+     * each byte as an ISO 8859-1 character. The array is not copied, and must not be changed while the
+     * symbol is encoded.
+     *
+     * @param inputData the data to encode
+     */
+    public void setContent(byte[] inputData) {
+        setContent(inputData, 0, inputData.length);
+    }
 
-        qmarksBefore = 0;
-        for (i = 0; i < content.length(); i++) {
-            if (content.charAt(i) == '?') {
-                qmarksBefore++;
-            }
+    /**
+     * Set binary data to be encoded, see {@link #setContent(byte[])}.
+     *
+     * @param inputData the array holding the data to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     */
+    public void setContent(byte[] inputData, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > inputData.length - length) {
+            throw new IllegalArgumentException("Invalid offset " + offset + " and length " + length
+                    + " for " + inputData.length + " bytes");
         }
-
-        qmarksAfter = eciEncode("ISO8859_1");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 3;
-            encodeInfo.append("Encoding in ISO 8859-1 character set\n");
-            return;
+        if (offset == 0 && length == inputData.length) {
+            setBinaryContent(inputData);
+        } else {
+            setBinaryContent(Arrays.copyOfRange(inputData, offset, offset + length));
         }
+    }
 
-        qmarksAfter = eciEncode("ISO8859_2");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 4;
-            encodeInfo.append("Encoding in ISO 8859-2 character set\n");
-            return;
+    /**
+     * Set binary data to be encoded, see {@link #setContent(byte[])}. The remaining bytes of the buffer
+     * are encoded; the position of the buffer is not changed.
+     *
+     * @param inputData the buffer holding the data to encode
+     */
+    public void setContent(ByteBuffer inputData) {
+        byte[] bytes;
+        if (inputData.hasArray()) {
+            int start = inputData.arrayOffset() + inputData.position();
+            bytes = Arrays.copyOfRange(inputData.array(), start, start + inputData.remaining());
+        } else {
+            bytes = new byte[inputData.remaining()];
+            inputData.duplicate().get(bytes);
         }
+        setBinaryContent(bytes);
+    }
 
-        qmarksAfter = eciEncode("ISO8859_3");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 5;
-            encodeInfo.append("Encoding in ISO 8859-3 character set\n");
-            return;
+    private void setBinaryContent(byte[] bytes) {
+        if (inputDataType == DataType.GS1 || inputDataType == DataType.HIBC) {
+            throw new IllegalArgumentException("Binary data can't be used with data type " + inputDataType);
         }
+        clearResults();
+        binaryContent = true;
+        inputBytes = bytes;
+        /* symbologies without character set support work on the content */
+        content = new String(bytes, StandardCharsets.ISO_8859_1);
+        encodeContent();
+    }
 
-        qmarksAfter = eciEncode("ISO8859_4");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 6;
-            encodeInfo.append("Encoding in ISO 8859-4 character set\n");
-            return;
+    private void encodeContent() {
+        if (content.isEmpty() || !encodeAndMeasure()) {
+            throw new IllegalStateException(getFailure().getMessage());
         }
+    }
 
-        qmarksAfter = eciEncode("ISO8859_5");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 7;
-            encodeInfo.append("Encoding in ISO 8859-5 character set\n");
-            return;
+    private boolean encodeAndMeasure() {
+        if (encodeListener == EncodeListener.NONE) {
+            return encode();
         }
-
-        qmarksAfter = eciEncode("ISO8859_6");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 8;
-            encodeInfo.append("Encoding in ISO 8859-6 character set\n");
-            return;
+        long start = System.nanoTime();
+        phaseStart = start;
+        if (!encode()) {
+            return false;
         }
+        int inputLength = binaryContent ? inputBytes.length : content.length();
+        encodeListener.encodeCompleted(this, inputLength, System.nanoTime() - start);
+        return true;
+    }
 
-        qmarksAfter = eciEncode("ISO8859_7");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 9;
-            encodeInfo.append("Encoding in ISO 8859-7 character set\n");
-            return;
+    /**
+     * Starts measuring the next phase of encoding. Encoders only need to call this method if the time
+     * since the end of the previous phase should not be counted.
+     */
+    void startPhase() {
+        if (encodeListener != EncodeListener.NONE) {
+            phaseStart = System.nanoTime();
         }
+    }
 
-        qmarksAfter = eciEncode("ISO8859_8");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 10;
-            encodeInfo.append("Encoding in ISO 8859-8 character set\n");
-            return;
+    /**
+     * Reports the time since the end of the previous phase, or since encoding or {@link #startPhase()}
+     * started, as the time taken by the specified phase.
+     *
+     * @param phase the phase which has completed
+     */
+    void endPhase(EncodePhase phase) {
+        if (encodeListener != EncodeListener.NONE) {
+            long now = System.nanoTime();
+            encodeListener.phaseCompleted(this, phase, now - phaseStart);
+            phaseStart = now;
         }
+    }
 
-        qmarksAfter = eciEncode("ISO8859_9");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 11;
-            encodeInfo.append("Encoding in ISO 8859-9 character set\n");
-            return;
-        }
+    private void clearResults() {
+        symbolWidth = 0;
+        symbolHeight = 0;
+        encodeInfo.setLength(0);
+        diagnostics.clear();
+        errorMsg.setLength(0);
+        errorCode = EncodeError.NONE;
+        errorText = "";
+        errorArgument = null;
+        errorPosition = -1;
+    }
 
-        qmarksAfter = eciEncode("ISO8859_10");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 12;
-            encodeInfo.append("Encoding in ISO 8859-10 character set\n");
-            return;
-        }
+    /**
+     * Records why the content can't be encoded.
+     *
+     * @param code the error
+     * @param text the error message
+     */
+    void error(EncodeError code, String text) {
+        error(code, text, null, -1);
+    }
 
-        qmarksAfter = eciEncode("ISO8859_11");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 13;
-            encodeInfo.append("Encoding in ISO 8859-11 character set\n");
-            return;
-        }
+    /**
+     * Records why the content can't be encoded, at the specified position, which is appended to the message.
+     *
+     * @param code the error
+     * @param text the start of the error message
+     * @param position the index of the offending character
+     */
+    void error(EncodeError code, String text, int position) {
+        error(code, text, null, position);
+    }
 
-        qmarksAfter = eciEncode("ISO8859_13");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 15;
-            encodeInfo.append("Encoding in ISO 8859-13 character set\n");
-            return;
-        }
+    /**
+     * Records why the content can't be encoded, with a value which is appended to the message.
+     *
+     * @param code the error
+     * @param text the start of the error message
+     * @param argument the value to append to the message
+     */
+    void error(EncodeError code, String text, Object argument) {
+        error(code, text, argument, -1);
+    }
 
-        qmarksAfter = eciEncode("ISO8859_14");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 16;
-            encodeInfo.append("Encoding in ISO 8859-14 character set\n");
-            return;
-        }
+    void error(EncodeError code, String text, Object argument, int position) {
+        errorCode = code;
+        errorText = text;
+        errorArgument = argument;
+        errorPosition = position;
+    }
 
-        qmarksAfter = eciEncode("ISO8859_15");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 17;
-            encodeInfo.append("Encoding in ISO 8859-15 character set\n");
-            return;
-        }
+    /**
+     * Records the error of a symbol which was used to encode this symbol.
+     *
+     * @param result the failed result of the other symbol
+     */
+    void error(EncodeResult result) {
+        error(result.error, result.text, result.argument, result.position);
+    }
 
-        qmarksAfter = eciEncode("ISO8859_16");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 18;
-            encodeInfo.append("Encoding in ISO 8859-16 character set\n");
-            return;
+    private EncodeResult getFailure() {
+        if (errorCode != EncodeError.NONE) {
+            return new EncodeResult(errorCode, errorText, errorArgument, errorPosition);
         }
-
-        qmarksAfter = eciEncode("Windows_1250");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 21;
-            encodeInfo.append("Encoding in Windows-1250 character set\n");
-            return;
+        if (errorMsg.length() > 0) {
+            /* subclasses may still describe errors in the message only */
+            return new EncodeResult(EncodeError.INVALID_DATA, errorMsg.toString(), null, -1);
         }
-
-        qmarksAfter = eciEncode("Windows_1251");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 22;
-            encodeInfo.append("Encoding in Windows-1251 character set\n");
-            return;
+        if (content.isEmpty()) {
+            return new EncodeResult(EncodeError.NO_DATA, "No input data", null, -1);
         }
+        return new EncodeResult(EncodeError.INVALID_DATA, "", null, -1);
+    }
 
-        qmarksAfter = eciEncode("Windows_1252");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 23;
-            encodeInfo.append("Encoding in Windows-1252 character set\n");
+    void eciProcess() {
+        startPhase();
+        selectCharacterSet();
+        diagnostics.eci = eciMode;
+        endPhase(EncodePhase.CHARACTER_SET);
+    }
+
+    private void selectCharacterSet() {
+        if (binaryContent) {
+            /* the bytes were given, and are kept as they are */
+            eciMode = 3;
+            if (isSummaryEnabled()) {
+                encodeInfo.append("Encoding binary data\n");
+            }
             return;
         }
 
-        qmarksAfter = eciEncode("Windows_1256");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 24;
-            encodeInfo.append("Encoding in Windows-1256 character set\n");
-            return;
+        int qmarksBefore = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '?') {
+                qmarksBefore++;
+            }
         }
 
-        qmarksAfter = eciEncode("SJIS");
-        if (qmarksAfter == qmarksBefore) {
-            eciMode = 20;
-            encodeInfo.append("Encoding in Shift-JIS character set\n");
-            return;
+        int set = 0;
+        if (characterSetEci != 0) {
+            while (CHARACTER_SET_ECIS[set] != characterSetEci) {
+                set++;
+            }
+            eciEncode(CHARACTER_SETS[set]);
+        } else {
+            /* the first character set which encodes every character, UTF-8 if there is none */
+            while (eciEncode(CHARACTER_SETS[set]) != qmarksBefore && set < CHARACTER_SETS.length - 1) {
+                set++;
+            }
+        }
+        eciMode = CHARACTER_SET_ECIS[set];
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding in ").append(CHARACTER_SET_NAMES[set]).append(" character set\n");
         }
+    }
 
-        /* default */
-        qmarksAfter = eciEncode("UTF8");
-        eciMode = 26;
-        encodeInfo.append("Encoding in UTF-8 character set\n");
+    /**
+     * Makes the content be encoded in the character set of the specified ECI, instead of the first
+     * character set which encodes every character. The character set must encode every character of
+     * the content.
+     *
+     * @param eci the ECI of the character set, or <code>0</code> to choose the character set from the content
+     */
+    void setCharacterSetEci(int eci) {
+        this.characterSetEci = eci;
     }
 
     private int eciEncode(String charset) {
@@ -593,6 +832,15 @@ public abstract class Symbol {
 
     abstract boolean encode();
 
+    /**
+     * Plots the symbol, see {@link #plotSymbol()}, and reports the time taken.
+     */
+    final void plot() {
+        startPhase();
+        plotSymbol();
+        endPhase(EncodePhase.PLOTTING);
+    }
+
     protected void plotSymbol() {
         int xBlock, yBlock;
         double x, y, w, h;
@@ -610,9 +858,9 @@ public abstract class Symbol {
         for (yBlock = 0; yBlock < rowCount; yBlock++) {
             black = true;
             x = 0;
-            for (xBlock = 0; xBlock < pattern[yBlock].length(); xBlock++) {
-                char c = pattern[yBlock].charAt(xBlock);
-                w = getModuleWidth(c - '0') * moduleWidth;
+            int[] runs = runLengths[yBlock];
+            for (xBlock = 0; xBlock < runs.length; xBlock++) {
+                w = getModuleWidth(runs[xBlock]) * moduleWidth;
                 if (black) {
                     if (rowHeight[yBlock] == -1) {
                         h = defaultHeight;
@@ -684,256 +932,101 @@ public abstract class Symbol {
         // Enforce compliance with GS1 General Specification
         // http://www.gs1.org/docs/gsmp/barcodes/GS1_General_Specifications.pdf
 
-        StringBuilder reduced = new StringBuilder();
-
-        int i, j, lastAi;
-        boolean aiLatch;
-        int bracketLevel, maxBracketLevel, aiLength, maxAiLength, minAiLength;
-        int[] aiValue = new int[100];
-        int[] aiLocation = new int[100];
-        int aiCount;
-        int[] dataLocation = new int[100];
-        int[] dataLength = new int[100];
+        /* Single pass over the element strings, building the reduced data and the readable text together */
         int srcLen = source.length();
-        int errorLatch;
+        StringBuilder reduced = new StringBuilder(srcLen);
+        StringBuilder text = new StringBuilder(srcLen);
+        boolean fnc1 = false;
+        int i = 0;
 
-        /* Detect extended ASCII characters */
-        for (i = 0; i < srcLen; i++) {
-            if (source.charAt(i) >= 128) {
-                errorMsg.append("Extended ASCII characters are not supported by GS1");
-                return "";
-            }
-            if (source.charAt(i) < 32) {
-                errorMsg.append("Control characters are not supported by GS1");
-                return "";
-            }
-        }
-
-        if (source.charAt(0) != '[') {
-            errorMsg.append("Data does not start with an AI");
+        if (srcLen == 0 || source.charAt(0) != '[') {
+            error(EncodeError.INVALID_GS1_DATA, "Data does not start with an AI");
             return "";
         }
 
-        /* Check the position of the brackets */
-        bracketLevel = 0;
-        maxBracketLevel = 0;
-        aiLength = 0;
-        maxAiLength = 0;
-        minAiLength = 5;
-        j = 0;
-        aiLatch = false;
-        for (i = 0; i < srcLen; i++) {
-            aiLength += j;
-            if (((j == 1) && (source.charAt(i) != ']'))
-                    && ((source.charAt(i) < '0') || (source.charAt(i) > '9'))) {
-                aiLatch = true;
-            }
-            if (source.charAt(i) == '[') {
-                bracketLevel++;
-                j = 1;
-            }
-            if (source.charAt(i) == ']') {
-                bracketLevel--;
-                if (aiLength < minAiLength) {
-                    minAiLength = aiLength;
+        while (i < srcLen) {
+            /* AI between square brackets */
+            int aiStart = i + 1;
+            int aiEnd = aiStart;
+            while (aiEnd < srcLen && source.charAt(aiEnd) != ']') {
+                char c = source.charAt(aiEnd);
+                if (c == '[') {
+                    error(EncodeError.INVALID_GS1_DATA, "Found nested brackets in input data");
+                    return "";
                 }
-                j = 0;
-                aiLength = 0;
-            }
-            if (bracketLevel > maxBracketLevel) {
-                maxBracketLevel = bracketLevel;
-            }
-            if (aiLength > maxAiLength) {
-                maxAiLength = aiLength;
-            }
-        }
-        minAiLength--;
-
-        if (bracketLevel != 0) {
-            /* Not all brackets are closed */
-            errorMsg.append("Malformed AI in input data (brackets don't match)");
-            return "";
-        }
-
-        if (maxBracketLevel > 1) {
-            /* Nested brackets */
-            errorMsg.append("Found nested brackets in input data");
-            return "";
-        }
-
-        if (maxAiLength > 4) {
-            /* AI is too long */
-            errorMsg.append("Invalid AI in input data (AI too long)");
-            return "";
-        }
-
-        if (minAiLength <= 1) {
-            /* AI is too short */
-            errorMsg.append("Invalid AI in input data (AI too short)");
-            return "";
-        }
-
-        if (aiLatch) {
-            /* Non-numeric data in AI */
-            errorMsg.append("Invalid AI in input data (non-numeric characters in AI)");
-            return "";
-        }
-
-        aiCount = 0;
-        for (i = 1; i < srcLen; i++) {
-            if (source.charAt(i - 1) == '[') {
-                aiLocation[aiCount] = i;
-                aiValue[aiCount] = 0;
-                for (j = 0; source.charAt(i + j) != ']'; j++) {
-                    aiValue[aiCount] *= 10;
-                    aiValue[aiCount] += Character.getNumericValue(source.charAt(i + j));
+                if (c < '0' || c > '9') {
+                    error(EncodeError.INVALID_GS1_DATA, "Invalid AI in input data (non-numeric characters in AI)");
+                    return "";
                 }
-                aiCount++;
+                aiEnd++;
             }
-        }
-
-        for (i = 0; i < aiCount; i++) {
-            dataLocation[i] = aiLocation[i] + 3;
-            if (aiValue[i] >= 100) {
-                dataLocation[i]++;
+            if (aiEnd == srcLen) {
+                error(EncodeError.INVALID_GS1_DATA, "Malformed AI in input data (brackets don't match)");
+                return "";
             }
-            if (aiValue[i] >= 1000) {
-                dataLocation[i]++;
+            if (aiEnd - aiStart > 4) {
+                error(EncodeError.INVALID_GS1_DATA, "Invalid AI in input data (AI too long)");
+                return "";
             }
-            dataLength[i] = source.length() - dataLocation[i];
-            for (j = source.length() - 1; j >= dataLocation[i]; j--) {
-                if (source.charAt(j) == '[') {
-                    dataLength[i] = j - dataLocation[i];
-                }
+            if (aiEnd - aiStart < 2) {
+                error(EncodeError.INVALID_GS1_DATA, "Invalid AI in input data (AI too short)");
+                return "";
             }
-        }
-
-        for (i = 0; i < aiCount; i++) {
-            if (dataLength[i] == 0) {
-                /* No data for given AI */
-                errorMsg.append("Empty data field in input data");
+            Gs1ApplicationIdentifier ai = Gs1ApplicationIdentifier.lookup(source, aiStart, aiEnd);
+            if (ai == null) {
+                error(EncodeError.INVALID_GS1_DATA, "Invalid AI value (" + source.substring(aiStart, aiEnd) + ')');
                 return "";
             }
-        }
 
-        errorLatch = 0;
-        for (i = 0; i < aiCount; i++) {
-            switch (aiValue[i]) {
-                case 0:
-                    if (dataLength[i] != 18) {
-                        errorLatch = 1;
-                    }
-                    break;
-                case 1:
-                case 2:
-                case 3:
-                    if (dataLength[i] != 14) {
-                        errorLatch = 1;
-                    }
-                    break;
-                case 4:
-                    if (dataLength[i] != 16) {
-                        errorLatch = 1;
-                    }
-                    break;
-                case 11:
-                case 12:
-                case 13:
-                case 14:
-                case 15:
-                case 16:
-                case 17:
-                case 18:
-                case 19:
-                    if (dataLength[i] != 6) {
-                        errorLatch = 1;
-                    }
-                    break;
-                case 20:
-                    if (dataLength[i] != 2) {
-                        errorLatch = 1;
-                    }
-                    break;
-                case 23:
-                case 24:
-                case 25:
-                case 39:
-                case 40:
-                case 41:
-                case 42:
-                case 70:
-                case 80:
-                case 81:
-                    errorLatch = 2;
-                    break;
-            }
-            if (
-                    ((aiValue[i] >= 100) && (aiValue[i] <= 179))
-                            || ((aiValue[i] >= 1000) && (aiValue[i] <= 1799))
-                            || ((aiValue[i] >= 200) && (aiValue[i] <= 229))
-                            || ((aiValue[i] >= 2000) && (aiValue[i] <= 2299))
-                            || ((aiValue[i] >= 300) && (aiValue[i] <= 309))
-                            || ((aiValue[i] >= 3000) && (aiValue[i] <= 3099))
-                            || ((aiValue[i] >= 31) && (aiValue[i] <= 36))
-                            || ((aiValue[i] >= 310) && (aiValue[i] <= 369))) {
-                errorLatch = 2;
-            }
-            if ((aiValue[i] >= 3100) && (aiValue[i] <= 3699) && dataLength[i] != 6) {
-                errorLatch = 1;
-            }
-            if (
-                    ((aiValue[i] >= 370) && (aiValue[i] <= 379))
-                            || ((aiValue[i] >= 3700) && (aiValue[i] <= 3799))) {
-                errorLatch = 2;
-            }
-            if ((aiValue[i] >= 410) && (aiValue[i] <= 415)) {
-                if (dataLength[i] != 13) {
-                    errorLatch = 1;
+            /* data up to the next AI */
+            int dataStart = aiEnd + 1;
+            int dataEnd = dataStart;
+            while (dataEnd < srcLen && source.charAt(dataEnd) != '[') {
+                char c = source.charAt(dataEnd);
+                if (c >= 128) {
+                    error(EncodeError.INVALID_CHARACTER, "Extended ASCII characters are not supported by GS1");
+                    return "";
                 }
+                if (c < 32) {
+                    error(EncodeError.INVALID_CHARACTER, "Control characters are not supported by GS1");
+                    return "";
+                }
+                if (c == ']') {
+                    error(EncodeError.INVALID_GS1_DATA, "Malformed AI in input data (brackets don't match)");
+                    return "";
+                }
+                dataEnd++;
             }
-            if (
-                    ((aiValue[i] >= 4100) && (aiValue[i] <= 4199))
-                            || ((aiValue[i] >= 700) && (aiValue[i] <= 703))
-                            || ((aiValue[i] >= 800) && (aiValue[i] <= 810))
-                            || ((aiValue[i] >= 900) && (aiValue[i] <= 999))
-                            || ((aiValue[i] >= 9000) && (aiValue[i] <= 9999))) {
-                errorLatch = 2;
+            int dataLength = dataEnd - dataStart;
+            if (dataLength == 0) {
+                error(EncodeError.INVALID_GS1_DATA, "Empty data field in input data");
+                return "";
             }
-
-            if (errorLatch == 1) {
-                errorMsg = new StringBuilder("Invalid data length for AI");
+            if (dataLength < ai.getMinLength() || dataLength > ai.getMaxLength()) {
+                error(EncodeError.INVALID_LENGTH, "Invalid data length for AI ", ai);
                 return "";
             }
-
-            if (errorLatch == 2) {
-                errorMsg = new StringBuilder("Invalid AI value");
+            int invalid = ai.indexOfInvalid(source, dataStart, dataEnd);
+            if (invalid >= 0) {
+                error(EncodeError.INVALID_CHARACTER, "Invalid characters in data for AI ", ai, invalid);
                 return "";
             }
-        }
-
-        /* Resolve AI data - put resulting string in 'reduced' */
-        aiLatch = false;
-        for (i = 0; i < srcLen; i++) {
-            if ((source.charAt(i) != '[') && (source.charAt(i) != ']')) {
-                reduced.append(source.charAt(i));
+            if (!ai.hasValidCheckDigit(source, dataStart)) {
+                error(EncodeError.INVALID_CHECK_DIGIT, "Invalid check digit for AI ", ai);
+                return "";
             }
-            if (source.charAt(i) == '[') {
-                /* Start of an AI string */
-                if (aiLatch) {
-                    reduced.append('[');
-                }
-                lastAi = (10 * Character.getNumericValue(source.charAt(i + 1)))
-                        + Character.getNumericValue(source.charAt(i + 2));
-                aiLatch = ((lastAi < 0) || (lastAi > 4))
-                        && ((lastAi < 11) || (lastAi > 20))
-                        && (lastAi != 23) /* legacy support - see 5.3.8.2.2 */
-                        && ((lastAi < 31) || (lastAi > 36))
-                        && (lastAi != 41);
+
+            /* the character '[' in the reduced string refers to the FNC1 character */
+            if (fnc1) {
+                reduced.append('[');
             }
-            /* The ']' character is simply dropped from the input */
+            reduced.append(source, aiStart, aiEnd).append(source, dataStart, dataEnd);
+            text.append('(').append(source, aiStart, aiEnd).append(')').append(source, dataStart, dataEnd);
+            fnc1 = ai.isFnc1Required();
+            i = dataEnd;
         }
 
-        /* the character '[' in the reduced string refers to the FNC1 character */
+        readable = text;
         return reduced.toString();
     }
 
@@ -950,12 +1043,13 @@ public abstract class Symbol {
         char checkDigit;
 
         if (source.length() > 36) {
-            errorMsg = new StringBuilder("Data too long for HIBC LIC");
+            error(EncodeError.INPUT_TOO_LONG, "Data too long for HIBC LIC");
             return "";
         }
         source = source.toUpperCase();
-        if (!(source.matches("[A-Z0-9-\\. \\$/+\\%]+?"))) {
-            errorMsg = new StringBuilder("Invalid characters in input");
+        int invalid = CharacterClass.CODE39.indexOfInvalid(source);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return "";
         }
 
@@ -1000,7 +1094,9 @@ public abstract class Symbol {
             }
         }
 
-        encodeInfo.append("HIBC Check Digit: ").append(counter).append(" (").append(checkDigit).append(")\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("HIBC Check Digit: ").append(counter).append(" (").append(checkDigit).append(")\n");
+        }
 
         toProcess = "+" + source + checkDigit;
         return toProcess;
@@ -1016,6 +1112,27 @@ public abstract class Symbol {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns this bar code's pattern, with the run lengths of each row written as digits starting
+     * from <code>'0'</code>. Intended for tests, the symbols themselves work on the run lengths.
+     *
+     * @return this bar code's pattern
+     */
+    String[] getPattern() {
+        if (runLengths == null) {
+            return pattern;
+        }
+        String[] rows = new String[runLengths.length];
+        for (int i = 0; i < rows.length; i++) {
+            char[] row = new char[runLengths[i].length];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = (char) (runLengths[i][j] + '0');
+            }
+            rows[i] = new String(row);
+        }
+        return rows;
+    }
+
     /**
      * Returns this bar code's pattern, converted into a set of corresponding codewords.
      * Useful for bar codes that encode their content as a pattern.
@@ -1024,17 +1141,19 @@ public abstract class Symbol {
      * @return this bar code's pattern, converted into a set of corresponding codewords
      */
     int[] getPatternAsCodewords(int size) {
-        if (pattern == null || pattern.length == 0) {
+        if (runLengths == null || runLengths.length == 0) {
             return new int[0];
         } else {
-            int count = (int) Math.ceil(pattern[0].length() / (double) size);
-            int[] codewords = new int[pattern.length * count];
-            for (int i = 0; i < pattern.length; i++) {
-                String row = pattern[i];
+            int count = (int) Math.ceil(runLengths[0].length / (double) size);
+            int[] codewords = new int[runLengths.length * count];
+            for (int i = 0; i < runLengths.length; i++) {
+                int[] row = runLengths[i];
                 for (int j = 0; j < count; j++) {
-                    int substringStart = j * size;
-                    int substringEnd = Math.min((j + 1) * size, row.length());
-                    codewords[(i * count) + j] = Integer.parseInt(row.substring(substringStart, substringEnd));
+                    int codeword = 0;
+                    for (int k = j * size; k < Math.min((j + 1) * size, row.length); k++) {
+                        codeword = (codeword * 10) + row[k];
+                    }
+                    codewords[(i * count) + j] = codeword;
                 }
             }
             return codewords;
@@ -0,0 +1,246 @@
+package org.xbib.graphics.barcode;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A bounded cache of encoded symbols, keyed by symbology, configuration and content. Symbols are
+ * configured as usual and then passed to {@link #encode(Symbol, String)} instead of being given their
+ * content directly. The least recently used symbols are evicted first, and concurrent requests for
+ * the same symbol are encoded only once.
+ */
+public class SymbolCache {
+
+    /**
+     * The configuration fields of each symbology, in a stable order.
+     */
+    private static final ConcurrentMap<Class<?>, Field[]> CONFIGURATION = new ConcurrentHashMap<>();
+
+    private final int maximumSize;
+
+    private final Map<Key, FutureTask<EncodedSymbol>> entries;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize the maximum number of symbols to keep
+     */
+    public SymbolCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<Key, FutureTask<EncodedSymbol>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<EncodedSymbol>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the encoded symbol for the specified configured symbol and content. If the cache
+     * doesn't hold it yet, the specified symbol is encoded and an immutable copy is cached, otherwise
+     * the specified symbol is left as it is.
+     *
+     * @param symbol a configured symbol which hasn't been encoded yet
+     * @param content the data to encode
+     * @return the encoded symbol
+     * @throws IllegalStateException if the content can't be encoded
+     */
+    public EncodedSymbol encode(final Symbol symbol, final String content) {
+        if (symbol.content != null) {
+            throw new IllegalArgumentException("Symbol has already been encoded");
+        }
+        Key key = new Key(symbol, content);
+        FutureTask<EncodedSymbol> task;
+        boolean owner = false;
+        synchronized (entries) {
+            task = entries.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> {
+                    symbol.setContent(content);
+                    return new EncodedSymbol(symbol);
+                });
+                entries.put(key, task);
+                missCount++;
+                owner = true;
+            } else {
+                hitCount++;
+            }
+        }
+        if (owner) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for symbol", e);
+        } catch (ExecutionException e) {
+            /* failures are not cached, but reported to everyone waiting for them */
+            if (owner) {
+                synchronized (entries) {
+                    if (entries.get(key) == task) {
+                        entries.remove(key);
+                    }
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Returns the maximum number of symbols kept by this cache.
+     *
+     * @return the maximum number of symbols
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of symbols currently kept by this cache.
+     *
+     * @return the number of symbols
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of requests answered from this cache, including requests which waited for
+     * another thread to encode the same symbol.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        synchronized (entries) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Returns the number of requests which had to encode a symbol.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        synchronized (entries) {
+            return missCount;
+        }
+    }
+
+    /**
+     * Removes all symbols from this cache. The hit and miss counts are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the configuration fields of the specified symbology: all fields holding primitives,
+     * strings or enumerations, which covers every setter. Working storage held in arrays and other
+     * objects is left out.
+     *
+     * @param symbology the symbology
+     * @return the configuration fields
+     */
+    private static Field[] getConfiguration(Class<?> symbology) {
+        Field[] fields = CONFIGURATION.get(symbology);
+        if (fields == null) {
+            List<Field> list = new ArrayList<>();
+            for (Class<?> c = symbology; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    Class<?> type = field.getType();
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (type.isPrimitive() || type.isEnum() || type == String.class || type == Character.class
+                            || type == Boolean.class || Number.class.isAssignableFrom(type)) {
+                        field.setAccessible(true);
+                        list.add(field);
+                    }
+                }
+            }
+            fields = list.toArray(new Field[0]);
+            CONFIGURATION.putIfAbsent(symbology, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * Cache key: the symbology, the values of its configuration fields and the content.
+     */
+    private static final class Key {
+
+        private final Class<?> symbology;
+
+        private final Object[] configuration;
+
+        private final String content;
+
+        private final int hashCode;
+
+        Key(Symbol symbol, String content) {
+            this.symbology = symbol.getClass();
+            Field[] fields = getConfiguration(symbology);
+            this.configuration = new Object[fields.length];
+            try {
+                for (int i = 0; i < fields.length; i++) {
+                    configuration[i] = fields[i].get(symbol);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            this.content = content;
+            this.hashCode = (31 * (31 * symbology.hashCode() + Arrays.hashCode(configuration)))
+                    + (content == null ? 0 : content.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hashCode == other.hashCode && symbology == other.symbology
+                    && (content == null ? other.content == null : content.equals(other.content))
+                    && Arrays.equals(configuration, other.configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
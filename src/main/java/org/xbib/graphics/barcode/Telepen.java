@@ -1,5 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.BarBuffer;
+import org.xbib.graphics.barcode.util.CharacterClass;
+import org.xbib.graphics.barcode.util.LinearPatterns;
+
 /**
  * Telepen (also known as Telepen Alpha) can encode ASCII text input and
  * includes a modulo-127 check digit. Telepen Numeric allows compression of
@@ -9,9 +13,11 @@ package org.xbib.graphics.barcode;
  */
 public class Telepen extends Symbol {
 
+    private static final CharacterClass NUMERIC_X = CharacterClass.NUMERIC.or(CharacterClass.of("X"));
+
     public tp_mode mode;
-    private String[] TeleTable = {
-            "1111111111111111", "1131313111", "33313111", "1111313131",
+    private static final String[] TeleTable = {
+            "31313131", "1131313111", "33313111", "1111313131",
             "3111313111", "11333131", "13133131", "111111313111", "31333111",
             "1131113131", "33113131", "1111333111", "3111113131", "1113133111",
             "1311133111", "111111113131", "3131113111", "11313331", "333331",
@@ -38,9 +44,13 @@ public class Telepen extends Symbol {
             "33131113", "11113111111111", "3111131113", "113311111111",
             "131311111111", "111111131113", "3113111113", "11311111111111",
             "331111111111", "111113111113", "31111111111111", "111311111113",
-            "131111111113"
+            "131111111113", "1111111111111111"
     };
 
+    private static final byte[][] WIDTHS = LinearPatterns.toWidths(TeleTable);
+
+    private final BarBuffer bars = new BarBuffer();
+
     public Telepen() {
         mode = tp_mode.NORMAL;
     }
@@ -64,20 +74,20 @@ public class Telepen extends Symbol {
 
     private boolean normal_mode() {
         int count = 0, asciicode, check_digit;
-        StringBuilder p = new StringBuilder();
-        String dest;
 
         int l = content.length();
 
-        if (!content.matches("[\u0000-\u007F]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = CharacterClass.ASCII.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
-        dest = TeleTable['_']; // Start
+        bars.clear();
+        bars.append(WIDTHS['_']); // Start
         for (int i = 0; i < l; i++) {
             asciicode = content.charAt(i);
-            p.append(TeleTable[asciicode]);
+            bars.append(WIDTHS[asciicode]);
             count += asciicode;
         }
 
@@ -86,35 +96,34 @@ public class Telepen extends Symbol {
             check_digit = 0;
         }
 
-        p.append(TeleTable[check_digit]);
+        bars.append(WIDTHS[check_digit]);
 
-        encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        }
 
-        dest += p;
-        dest += TeleTable['z']; // Stop
+        bars.append(WIDTHS['z']); // Stop
 
         readable = new StringBuilder(content);
-        pattern = new String[1];
-        pattern[0] = dest;
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
     public boolean numeric_mode() {
         int count = 0, check_digit;
-        StringBuilder p = new StringBuilder();
         String t;
-        String dest;
         int l = content.length();
         int tl, glyph;
         char c1, c2;
 
         //FIXME: Ensure no extended ASCII or Unicode charcters are entered
-        if (!(content.matches("[0-9X]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = NUMERIC_X.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
@@ -127,7 +136,8 @@ public class Telepen extends Symbol {
             tl = l;
         }
 
-        dest = TeleTable['_']; // Start
+        bars.clear();
+        bars.append(WIDTHS['_']); // Start
         for (int i = 0; i < tl; i += 2) {
 
             c1 = t.charAt(i);
@@ -135,7 +145,7 @@ public class Telepen extends Symbol {
 
             /* Input nX is allowed, but Xn is not */
             if (c1 == 'X') {
-                errorMsg.append("Invalid position of X in data");
+                error(EncodeError.INVALID_CHARACTER, "Invalid position of X in data");
                 return false;
             }
 
@@ -147,7 +157,7 @@ public class Telepen extends Symbol {
                 count += glyph;
             }
 
-            p.append(TeleTable[glyph]);
+            bars.append(WIDTHS[glyph]);
         }
 
         check_digit = 127 - (count % 127);
@@ -155,19 +165,19 @@ public class Telepen extends Symbol {
             check_digit = 0;
         }
 
-        p.append(TeleTable[check_digit]);
+        bars.append(WIDTHS[check_digit]);
 
-        encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check_digit).append("\n");
+        }
 
-        dest += p;
-        dest += TeleTable['z']; // Stop
+        bars.append(WIDTHS['z']); // Stop
         readable = new StringBuilder(content);
-        pattern = new String[1];
-        pattern[0] = dest;
+        runLengths = new int[][]{bars.toRunLengths()};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
         return true;
     }
 
@@ -1,9 +1,11 @@
 package org.xbib.graphics.barcode;
 
 import org.xbib.graphics.barcode.util.AddOn;
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 
 import static org.xbib.graphics.barcode.HumanReadableLocation.NONE;
 import static org.xbib.graphics.barcode.HumanReadableLocation.TOP;
@@ -83,7 +85,7 @@ public class Upc extends Symbol {
 
         separateContent();
         if (content.length() == 0) {
-            errorMsg.append("Missing UPC data");
+            error(EncodeError.NO_DATA, "Missing UPC data");
             retval = false;
         } else {
             if (mode == Mode.UPCA) {
@@ -96,10 +98,13 @@ public class Upc extends Symbol {
         if (useAddOn) {
             addOnData = addOn.calcAddOn(addOnContent);
             if (addOnData.length() == 0) {
-                errorMsg.append("Invalid Add-On data");
+                error(EncodeError.INVALID_DATA, "Invalid Add-On data");
                 retval = false;
             } else {
-                pattern[0] = pattern[0] + "9" + addOnData;
+                int[] addOnRuns = pat2runs("9" + addOnData);
+                int[] row = Arrays.copyOf(runLengths[0], runLengths[0].length + addOnRuns.length);
+                System.arraycopy(addOnRuns, 0, row, runLengths[0].length, addOnRuns.length);
+                runLengths[0] = row;
 
                 //add leading zeroes to add-on text
                 if (addOnContent.length() == 1) {
@@ -115,7 +120,7 @@ public class Upc extends Symbol {
         }
 
         if (retval) {
-            plotSymbol();
+            plot();
         }
         return retval;
     }
@@ -138,13 +143,14 @@ public class Upc extends Symbol {
         int i;
         char check;
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() > 11) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -164,11 +170,12 @@ public class Upc extends Symbol {
         }
         dest.append("111");
 
-        encodeInfo.append("Check Digit: ").append(check).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check).append("\n");
+        }
 
         readable = accumulator;
-        pattern = new String[1];
-        pattern[0] = dest.toString();
+        runLengths = new int[][]{pat2runs(dest)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
@@ -184,13 +191,14 @@ public class Upc extends Symbol {
         char[] equivalent = new char[12];
         StringBuilder equiv = new StringBuilder();
 
-        if (!(content.matches("[0-9]+"))) {
-            errorMsg.append("Invalid characters in input");
+        int invalid = CharacterClass.NUMERIC.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input at position ", invalid);
             return false;
         }
 
         if (content.length() > 7) {
-            errorMsg.append("Input data too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input data too long");
             return false;
         }
 
@@ -209,7 +217,7 @@ public class Upc extends Symbol {
                 num_system = 1;
                 break;
             default:
-                errorMsg.append("Invalid input data");
+                error(EncodeError.INVALID_DATA, "Invalid input data");
                 return false;
         }
 
@@ -238,7 +246,7 @@ public class Upc extends Symbol {
                 if (((source.charAt(3) == '0') || (source.charAt(3) == '1'))
                         || (source.charAt(3) == '2')) {
                     /* Note 1 - "X3 shall not be equal to 0, 1 or 2" */
-                    errorMsg.append("Invalid UPC-E data");
+                    error(EncodeError.INVALID_DATA, "Invalid UPC-E data");
                     return false;
                 }
                 break;
@@ -248,7 +256,7 @@ public class Upc extends Symbol {
                 equivalent[10] = source.charAt(5);
                 if (source.charAt(4) == '0') {
                     /* Note 2 - "X4 shall not be equal to 0" */
-                    errorMsg.append("Invalid UPC-E data");
+                    error(EncodeError.INVALID_DATA, "Invalid UPC-E data");
                     return false;
                 }
                 break;
@@ -263,7 +271,7 @@ public class Upc extends Symbol {
                 equivalent[10] = emode;
                 if (source.charAt(5) == '0') {
                     /* Note 3 - "X5 shall not be equal to 0" */
-                    errorMsg.append("Invalid UPC-E data");
+                    error(EncodeError.INVALID_DATA, "Invalid UPC-E data");
                     return false;
                 }
                 break;
@@ -276,7 +284,9 @@ public class Upc extends Symbol {
         /* Get the check digit from the expanded UPCA code */
         check = calcDigit(equiv.toString());
 
-        encodeInfo.append("Check Digit: ").append(check).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Check Digit: ").append(check).append("\n");
+        }
 
         /* Use the number system and check digit information to choose a parity scheme */
         if (num_system == 1) {
@@ -305,8 +315,7 @@ public class Upc extends Symbol {
         dest.append("111111");
 
         readable = new StringBuilder(source.toString()).append(check);
-        pattern = new String[1];
-        pattern[0] = dest.toString();
+        runLengths = new int[][]{pat2runs(dest)};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
@@ -346,11 +355,11 @@ public class Upc extends Symbol {
         if (linkageFlag) {
             compositeOffset = 6;
         }
-        for (xBlock = 0; xBlock < pattern[0].length(); xBlock++) {
+        for (xBlock = 0; xBlock < runLengths[0].length; xBlock++) {
             if (black) {
                 y = 0;
                 black = false;
-                w = pattern[0].charAt(xBlock) - '0';
+                w = runLengths[0][xBlock];
                 h = defaultHeight;
                 /* Add extension to guide bars */
                 if (mode == Mode.UPCA) {
@@ -391,7 +400,7 @@ public class Upc extends Symbol {
             } else {
                 black = true;
             }
-            x += pattern[0].charAt(xBlock) - '0';
+            x += runLengths[0][xBlock];
         }
 
         if (linkageFlag) {
@@ -1,9 +1,9 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
-import java.math.BigInteger;
 
 import static org.xbib.graphics.barcode.HumanReadableLocation.NONE;
 import static org.xbib.graphics.barcode.HumanReadableLocation.TOP;
@@ -19,6 +19,25 @@ import static org.xbib.graphics.barcode.HumanReadableLocation.TOP;
  */
 public class UspsOneCode extends Symbol {
 
+    private static final CharacterClass NUMERIC_DASH = CharacterClass.NUMERIC.or(CharacterClass.of("-"));
+
+    /* CRC-11 of each byte value, most significant bit first, for the generator polynomial 0x0F35 */
+    private static final int[] CRC11_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 3;
+            for (int bit = 0; bit < 8; bit++) {
+                if ((crc & 0x400) != 0) {
+                    crc = (crc << 1) ^ 0x0F35;
+                } else {
+                    crc = crc << 1;
+                }
+            }
+            CRC11_TABLE[i] = crc & 0x7FF;
+        }
+    }
+
     /* The following lookup tables were generated using the code in Appendix C */
 
     private int[] byte_array = new int[13];
@@ -181,26 +200,26 @@ public class UspsOneCode extends Symbol {
     @Override
     public boolean encode() {
         StringBuilder zip = new StringBuilder();
-        String zip_adder;
         StringBuilder tracker = new StringBuilder();
         int i, j;
         int length = content.length();
-        BigInteger accum;
-        BigInteger x_reg;
-        BigInteger mask;
+        long[] accum = new long[4];
+        long zip_adder;
         int usps_crc;
         int[] codeword = new int[10];
         int[] characters = new int[10];
         boolean[] bar_map = new boolean[130];
+        char[] bars = new char[65];
         char c;
 
-        if (!content.matches("[0-9\u002D]+")) {
-            errorMsg.append("Invalid characters in input data");
+        int invalid = NUMERIC_DASH.indexOfInvalid(content);
+        if (invalid >= 0) {
+            error(EncodeError.INVALID_CHARACTER, "Invalid characters in input data at position ", invalid);
             return false;
         }
 
         if (length > 32) {
-            errorMsg.append("Input too long");
+            error(EncodeError.INPUT_TOO_LONG, "Input too long");
             return false;
         }
 
@@ -221,55 +240,52 @@ public class UspsOneCode extends Symbol {
         }
 
         if (tracker.length() != 20) {
-            errorMsg.append("Invalid length tracking code");
+            error(EncodeError.INVALID_LENGTH, "Invalid length tracking code");
             return false;
         }
 
         if (zip.length() > 11) {
-            errorMsg.append("Invalid ZIP code");
+            error(EncodeError.INVALID_DATA, "Invalid ZIP code");
             return false;
         }
 
         /* *** Step 1 - Conversion of Data Fields into Binary Data *** */
-        /* Routing code first */
-        if (zip.length() > 0) {
-            x_reg = new BigInteger(zip.toString());
-        } else {
-            x_reg = new BigInteger("0");
-        }
+        /* The binary data is at most 102 bits long, so it is held in four 32 bit limbs,
+           most significant first */
 
         /* add weight to routing code */
         if (zip.length() > 9) {
-            zip_adder = "1000100001";
+            zip_adder = 1000100001L;
         } else {
             if (zip.length() > 5) {
-                zip_adder = "100001";
+                zip_adder = 100001L;
             } else {
                 if (zip.length() > 0) {
-                    zip_adder = "1";
+                    zip_adder = 1L;
                 } else {
-                    zip_adder = "0";
+                    zip_adder = 0L;
                 }
             }
         }
 
-        accum = new BigInteger(zip_adder);
-        accum = accum.add(x_reg);
-        accum = accum.multiply(BigInteger.valueOf(10));
-        accum = accum.add(BigInteger.valueOf(Character.getNumericValue(tracker.charAt(0))));
-        accum = accum.multiply(BigInteger.valueOf(5));
-        accum = accum.add(BigInteger.valueOf(Character.getNumericValue(tracker.charAt(1))));
+        /* Routing code first */
+        if (zip.length() > 0) {
+            zip_adder += Long.parseLong(zip.toString());
+        }
+        accum[2] = zip_adder >>> 32;
+        accum[3] = zip_adder & 0xFFFFFFFFL;
+
+        multiplyAdd(accum, 10, tracker.charAt(0) - '0');
+        multiplyAdd(accum, 5, tracker.charAt(1) - '0');
         for (i = 2; i < tracker.length(); i++) {
-            accum = accum.multiply(BigInteger.valueOf(10));
-            accum = accum.add(BigInteger.valueOf(Character.getNumericValue(tracker.charAt(i))));
+            multiplyAdd(accum, 10, tracker.charAt(i) - '0');
         }
 
         /* *** Step 2 - Generation of 11-bit CRC on Binary Data *** */
 
         for (i = 0; i < 13; i++) {
-            mask = accum.shiftRight(96 - (8 * i));
-            mask = mask.and(new BigInteger("255"));
-            byte_array[i] = mask.intValue();
+            int shift = 96 - (8 * i);
+            byte_array[i] = (int) (accum[3 - (shift / 32)] >>> (shift % 32)) & 0xFF;
         }
 
         usps_crc = USPS_MSB_Math_CRC11GenerateFrameCheckSequence();
@@ -277,16 +293,10 @@ public class UspsOneCode extends Symbol {
         /* *** Step 3 - Conversion from Binary Data to Codewords *** */
         /* start with codeword J which is base 636 */
 
-        x_reg = accum.mod(BigInteger.valueOf(636));
-        codeword[9] = x_reg.intValue();
-        accum = accum.subtract(x_reg);
-        accum = accum.divide(BigInteger.valueOf(636));
+        codeword[9] = divide(accum, 636);
 
         for (i = 8; i >= 0; i--) {
-            x_reg = accum.mod(BigInteger.valueOf(1365));
-            codeword[i] = x_reg.intValue();
-            accum = accum.subtract(x_reg);
-            accum = accum.divide(BigInteger.valueOf(1365));
+            codeword[i] = divide(accum, 1365);
         }
 
         for (i = 0; i < 9; i++) {
@@ -302,11 +312,13 @@ public class UspsOneCode extends Symbol {
             codeword[0] += 659;
         }
 
-        encodeInfo.append("Codewords: ");
-        for (i = 0; i < 10; i++) {
-            encodeInfo.append(Integer.toString(codeword[i])).append(" ");
+        if (isVerboseEnabled()) {
+            encodeInfo.append("Codewords: ");
+            for (i = 0; i < 10; i++) {
+                encodeInfo.append(Integer.toString(codeword[i])).append(" ");
+            }
+            encodeInfo.append("\n");
         }
-        encodeInfo.append("\n");
 
         /* *** Step 5 - Conversion from Codewords to Characters *** */
 
@@ -333,12 +345,10 @@ public class UspsOneCode extends Symbol {
         }
 
         readable = new StringBuilder(content);
-        pattern = new String[1];
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
 
-        pattern[0] = "";
         for (i = 0; i < 65; i++) {
             c = 'T';
             if (bar_map[i]) {
@@ -350,25 +360,51 @@ public class UspsOneCode extends Symbol {
             if (bar_map[i] && bar_map[i + 65]) {
                 c = 'F';
             }
-            pattern[0] += c;
+            bars[i] = c;
         }
+        pattern = new String[]{new String(bars)};
 
-        encodeInfo.append("Encoding: ").append(pattern[0]).append("\n");
+        if (isSummaryEnabled()) {
+            encodeInfo.append("Encoding: ").append(pattern[0]).append("\n");
+        }
 
-        plotSymbol();
+        plot();
         return true;
     }
 
+    /**
+     * Multiplies the binary data by a small multiplier and adds a small addend, in place.
+     */
+    private static void multiplyAdd(long[] value, int multiplier, int addend) {
+        long carry = addend;
+        for (int i = 3; i >= 0; i--) {
+            long product = (value[i] * multiplier) + carry;
+            value[i] = product & 0xFFFFFFFFL;
+            carry = product >>> 32;
+        }
+    }
+
+    /**
+     * Divides the binary data by a small divisor in place, and returns the remainder.
+     */
+    private static int divide(long[] value, int divisor) {
+        long remainder = 0;
+        for (int i = 0; i < 4; i++) {
+            long dividend = (remainder << 32) | value[i];
+            value[i] = dividend / divisor;
+            remainder = dividend % divisor;
+        }
+        return (int) remainder;
+    }
+
     private int USPS_MSB_Math_CRC11GenerateFrameCheckSequence() {
         int GeneratorPolynomial = 0x0F35;
         int FrameCheckSequence = 0x07FF;
         int Data;
         int ByteIndex, Bit;
-        int ByteArrayPtr = 0;
 
         /* Do most significant byte skipping the 2 most significant bits */
-        Data = byte_array[ByteArrayPtr] << 5;
-        ByteArrayPtr++;
+        Data = byte_array[0] << 5;
         for (Bit = 2; Bit < 8; Bit++) {
             if (((FrameCheckSequence ^ Data) & 0x400) != 0)
                 FrameCheckSequence = (FrameCheckSequence << 1) ^ GeneratorPolynomial;
@@ -377,19 +413,10 @@ public class UspsOneCode extends Symbol {
             FrameCheckSequence &= 0x7FF;
             Data <<= 1;
         }
-        /* Do rest of the bytes */
+        /* Do rest of the bytes a whole byte at a time */
         for (ByteIndex = 1; ByteIndex < 13; ByteIndex++) {
-            Data = byte_array[ByteArrayPtr] << 3;
-            ByteArrayPtr++;
-            for (Bit = 0; Bit < 8; Bit++) {
-                if (((FrameCheckSequence ^ Data) & 0x0400) != 0) {
-                    FrameCheckSequence = (FrameCheckSequence << 1) ^ GeneratorPolynomial;
-                } else {
-                    FrameCheckSequence = (FrameCheckSequence << 1);
-                }
-                FrameCheckSequence &= 0x7FF;
-                Data <<= 1;
-            }
+            FrameCheckSequence = ((FrameCheckSequence << 8)
+                    ^ CRC11_TABLE[((FrameCheckSequence >> 3) ^ byte_array[ByteIndex]) & 0xFF]) & 0x7FF;
         }
         return FrameCheckSequence;
     }
@@ -1,5 +1,6 @@
 package org.xbib.graphics.barcode;
 
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.geom.Rectangle2D;
@@ -11,6 +12,8 @@ import java.awt.geom.Rectangle2D;
  */
 public class UspsPackage extends Symbol {
 
+    private static final CharacterClass NUMERIC_BRACKETS = CharacterClass.NUMERIC.or(CharacterClass.of("[]"));
+
     @Override
     public boolean encode() {
         StringBuilder hrt;
@@ -18,22 +21,28 @@ public class UspsPackage extends Symbol {
         boolean fourTwenty = false;
         int bracketCount = 0;
 
-        if (!(content.matches("[0-9\\[\\]]+"))) {
+        int invalid = NUMERIC_BRACKETS.indexOfInvalid(content);
+        if (invalid >= 0) {
             /* Input must be numeric only */
-            errorMsg.append("Invalid IMpd data");
+            error(EncodeError.INVALID_CHARACTER, "Invalid IMpd data at position ", invalid);
             return false;
         }
 
         if ((content.length() % 2) != 0) {
             /* Input must be even length */
-            errorMsg.append("Invalid IMpd data");
+            error(EncodeError.INVALID_LENGTH, "Invalid IMpd data");
             return false;
         }
 
         Code128 code128 = new Code128();
         code128.unsetCc();
         code128.setDataType(DataType.GS1);
-        code128.setContent(content);
+        code128.setEncodeListener(EncodeListener.NONE);
+        EncodeResult result = code128.trySetContent(content);
+        if (!result.isSuccess()) {
+            error(result);
+            return false;
+        }
 
         if (content.length() > 4) {
             fourTwenty = ((content.charAt(1) == '4') && (content.charAt(2) == '2') &&
@@ -61,12 +70,11 @@ public class UspsPackage extends Symbol {
         }
 
         readable = new StringBuilder(spacedHrt.toString());
-        pattern = new String[1];
-        pattern[0] = code128.pattern[0];
+        runLengths = new int[][]{code128.runLengths[0]};
         rowCount = 1;
         rowHeight = new int[1];
         rowHeight[0] = -1;
-        plotSymbol();
+        plot();
 
         return true;
     }
@@ -86,8 +94,8 @@ public class UspsPackage extends Symbol {
         h = 0;
         black = true;
         x = 0;
-        for (xBlock = 0; xBlock < pattern[0].length(); xBlock++) {
-            w = pattern[0].charAt(xBlock) - '0';
+        for (xBlock = 0; xBlock < runLengths[0].length; xBlock++) {
+            w = runLengths[0][xBlock];
             if (black) {
                 if (rowHeight[0] == -1) {
                     h = defaultHeight;
@@ -1,21 +1,31 @@
 package org.xbib.graphics.barcode.output;
 
 import org.xbib.graphics.barcode.HumanReadableLocation;
+import org.xbib.graphics.barcode.util.CharacterClass;
 import org.xbib.graphics.barcode.util.Hexagon;
 import org.xbib.graphics.barcode.Symbol;
 import org.xbib.graphics.barcode.util.TextBox;
 
 import java.awt.Color;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
 import java.awt.font.TextAttribute;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,10 +34,31 @@ import java.util.Map;
 public class Java2DRenderer implements SymbolRenderer {
 
     /**
-     * The graphics to render to.
+     * Fonts derived for human readable text, by family and pixel size.
+     */
+    private static final Map<String, Font> FONTS = lruCache(32);
+
+    /**
+     * Advances of the digits <code>0</code> to <code>9</code>, by font and font render context.
+     */
+    private static final Map<List<Object>, float[]> DIGIT_ADVANCES = lruCache(32);
+
+    /**
+     * The graphics to render to, or <code>null</code> if rendering to an image.
      */
     private final Graphics2D g2d;
 
+    /**
+     * The image to render to, or <code>null</code> if rendering to a graphics context.
+     */
+    private final BufferedImage image;
+
+    /**
+     * The sample value of the ink color in the image raster, or <code>-1</code> if bars have to be
+     * drawn using Java 2D.
+     */
+    private final int foregroundSample;
+
     /**
      * The scaling factor.
      */
@@ -45,6 +76,16 @@ public class Java2DRenderer implements SymbolRenderer {
 
     private final boolean antialias;
 
+    /**
+     * Whether to scale by a whole number of pixels per module.
+     */
+    private boolean pixelSnapping;
+
+    /**
+     * The number of pixels to remove from the width of each bar.
+     */
+    private int barWidthReduction;
+
     /**
      * Creates a new Java 2D renderer.
      *
@@ -57,42 +98,335 @@ public class Java2DRenderer implements SymbolRenderer {
     public Java2DRenderer(Graphics2D g2d, double scalingFactor,
                           Color background, Color foreground, boolean antialias) {
         this.g2d = g2d;
+        this.image = null;
         this.scalingFactor = scalingFactor;
         this.background = background;
         this.foreground = foreground;
         this.antialias = antialias;
+        this.foregroundSample = -1;
+    }
+
+    /**
+     * Creates a new Java 2D renderer which renders to an image. If the image is of type
+     * <code>TYPE_BYTE_GRAY</code> or <code>TYPE_BYTE_BINARY</code> and the ink color is opaque,
+     * bars are written directly into the image raster instead of being drawn using Java 2D,
+     * with the same result.
+     *
+     * @param image         the image to render to
+     * @param scalingFactor the scaling factor to apply
+     * @param background         the paper (background) color
+     * @param foreground           the ink (foreground) color
+     * @param antialias if true give anti alias hint
+     */
+    public Java2DRenderer(BufferedImage image, double scalingFactor,
+                          Color background, Color foreground, boolean antialias) {
+        this.g2d = null;
+        this.image = image;
+        this.scalingFactor = scalingFactor;
+        this.background = background;
+        this.foreground = foreground;
+        this.antialias = antialias;
+        this.foregroundSample = getRasterSample(image, foreground);
+    }
+
+    /**
+     * Returns the sample value Java 2D writes when filling the specified image with the specified color,
+     * or <code>-1</code> if bars can't be written directly into the raster of the image.
+     *
+     * @param image the image
+     * @param color the color
+     * @return the sample value, or <code>-1</code>
+     */
+    private static int getRasterSample(BufferedImage image, Color color) {
+        if (color.getAlpha() != 255) {
+            return -1;
+        }
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY && image.getType() != BufferedImage.TYPE_BYTE_BINARY) {
+            return -1;
+        }
+        /* let Java 2D pick the sample, so that the color conversion is exactly the same */
+        ColorModel cm = image.getColorModel();
+        BufferedImage probe = new BufferedImage(cm, cm.createCompatibleWritableRaster(1, 1), false, null);
+        Graphics2D g = probe.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 1, 1);
+        g.dispose();
+        return probe.getRaster().getSample(0, 0, 0);
+    }
+
+    /**
+     * Returns the number of printer dots that best matches the specified module size.
+     *
+     * @param dpi the printer resolution, in dots per inch
+     * @param moduleSize the module size (the X dimension), in millimetres
+     * @return the number of dots per module, at least <code>1</code>
+     */
+    public static int getDotsPerModule(double dpi, double moduleSize) {
+        return (int) Math.max(1, Math.round(moduleSize * dpi / 25.4));
+    }
+
+    /**
+     * Returns whether module edges are snapped to a grid of whole pixels.
+     *
+     * @return whether module edges are snapped to a grid of whole pixels
+     */
+    public boolean getPixelSnapping() {
+        return pixelSnapping;
+    }
+
+    /**
+     * Sets whether module edges are snapped to a grid of whole pixels (defaults to <code>false</code>).
+     * If enabled, the scaling factor is rounded to a whole number of pixels per module, so that all
+     * modules of the same width are rendered with exactly the same number of pixels.
+     *
+     * @param pixelSnapping whether module edges are snapped to a grid of whole pixels
+     * @see #getDotsPerModule(double, double)
+     */
+    public void setPixelSnapping(boolean pixelSnapping) {
+        this.pixelSnapping = pixelSnapping;
+    }
+
+    /**
+     * Returns the number of pixels removed from the width of each bar.
+     *
+     * @return the number of pixels removed from the width of each bar
+     */
+    public int getBarWidthReduction() {
+        return barWidthReduction;
+    }
+
+    /**
+     * Sets the number of pixels removed from the width of each bar, to compensate for ink spread or
+     * print gain on thermal printers (defaults to <code>0</code>). Half of the reduction is taken from
+     * each edge, and bars are never reduced to less than one pixel.
+     *
+     * @param barWidthReduction the number of pixels removed from the width of each bar
+     */
+    public void setBarWidthReduction(int barWidthReduction) {
+        if (barWidthReduction < 0) {
+            throw new IllegalArgumentException("Invalid bar width reduction: " + barWidthReduction);
+        }
+        this.barWidthReduction = barWidthReduction;
+    }
+
+    /**
+     * Returns the scaling factor actually applied, which is rounded to whole pixels per module if pixel
+     * snapping is enabled. Images to render to should be sized using this scaling factor.
+     *
+     * @return the scaling factor actually applied
+     */
+    public double getScalingFactor() {
+        return pixelSnapping ? Math.max(1, Math.round(scalingFactor)) : scalingFactor;
+    }
+
+    /**
+     * Returns the font for human readable text in the specified family and pixel size. Derived fonts are
+     * shared by all renderers.
+     *
+     * @param name the font family
+     * @param size the font size, in pixels
+     * @return the font
+     */
+    private static Font getFont(String name, int size) {
+        String key = name + '/' + size;
+        synchronized (FONTS) {
+            Font font = FONTS.get(key);
+            if (font == null) {
+                Map<TextAttribute, Object> attributes = new HashMap<>();
+                attributes.put(TextAttribute.TRACKING, 0);
+                font = new Font(name, Font.PLAIN, size).deriveFont(attributes);
+                FONTS.put(key, font);
+            }
+            return font;
+        }
+    }
+
+    /**
+     * Returns the width of the specified text. Text consisting of digits only, as printed under retail
+     * symbols, is measured from cached digit advances, adding them up in the same way as the font does.
+     *
+     * @param font the font
+     * @param frc the font render context
+     * @param text the text to measure
+     * @return the width of the text
+     */
+    private static double getStringWidth(Font font, FontRenderContext frc, String text) {
+        if (text.isEmpty() || !CharacterClass.NUMERIC.matches(text)) {
+            return font.getStringBounds(text, frc).getWidth();
+        }
+        List<Object> key = Arrays.asList(font, frc);
+        float[] advances;
+        synchronized (DIGIT_ADVANCES) {
+            advances = DIGIT_ADVANCES.get(key);
+            if (advances == null) {
+                advances = new float[10];
+                for (int i = 0; i < 10; i++) {
+                    advances[i] = (float) font.getStringBounds(String.valueOf((char) ('0' + i)), frc).getWidth();
+                }
+                DIGIT_ADVANCES.put(key, advances);
+            }
+        }
+        float width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += advances[text.charAt(i) - '0'];
+        }
+        return width;
+    }
+
+    /**
+     * Returns the pixel bounds of a bar, after bar width reduction.
+     *
+     * @param rect the bar
+     * @param scale the scaling factor
+     * @param marginX the horizontal quiet zone, in pixels
+     * @param marginY the vertical quiet zone, in pixels
+     * @return the pixel bounds
+     */
+    private Rectangle getBounds(Rectangle2D.Double rect, double scale, int marginX, int marginY) {
+        Rectangle bar;
+        if (pixelSnapping) {
+            /* round both edges, so that adjacent modules share them */
+            int x = (int) Math.round(rect.x * scale);
+            int y = (int) Math.round(rect.y * scale);
+            int w = (int) Math.round((rect.x + rect.width) * scale) - x;
+            int h = (int) Math.round((rect.y + rect.height) * scale) - y;
+            bar = new Rectangle(x + marginX, y + marginY, w, h);
+        } else {
+            double x = (rect.x * scale) + marginX;
+            double y = (rect.y * scale) + marginY;
+            double w = rect.width * scale;
+            double h = rect.height * scale;
+            bar = new Rectangle((int) x, (int) y, (int) w, (int) h);
+        }
+        if (barWidthReduction > 0 && bar.width > 1) {
+            int reduction = Math.min(barWidthReduction, bar.width - 1);
+            bar.x += reduction / 2;
+            bar.width -= reduction;
+        }
+        return bar;
+    }
+
+    /**
+     * Writes the bars directly into the raster of the image, one run of pixels per bar and row.
+     *
+     * @param rectangles the bars
+     * @param scale the scaling factor
+     * @param marginX the horizontal quiet zone, in pixels
+     * @param marginY the vertical quiet zone, in pixels
+     */
+    private void fillRaster(List<Rectangle2D.Double> rectangles, double scale, int marginX, int marginY) {
+        WritableRaster raster = image.getRaster();
+        Rectangle clip = raster.getBounds();
+        int translateX = raster.getSampleModelTranslateX();
+        int translateY = raster.getSampleModelTranslateY();
+        byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+        if (raster.getSampleModel() instanceof MultiPixelPackedSampleModel) {
+            MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) raster.getSampleModel();
+            int bits = sm.getPixelBitStride();
+            int stride = sm.getScanlineStride();
+            int pattern = 0;
+            for (int i = 0; i < 8; i += bits) {
+                pattern = (pattern << bits) | foregroundSample;
+            }
+            for (Rectangle2D.Double rect : rectangles) {
+                Rectangle bar = getBounds(rect, scale, marginX, marginY).intersection(clip);
+                if (bar.isEmpty()) {
+                    continue;
+                }
+                for (int y = bar.y; y < bar.y + bar.height; y++) {
+                    int row = (y - translateY) * stride;
+                    int bit = (bar.x - translateX) * bits + sm.getDataBitOffset();
+                    int end = bit + bar.width * bits;
+                    /* leading pixels up to a byte boundary, whole bytes, then trailing pixels */
+                    for (; bit < end && (bit & 7) != 0; bit += bits) {
+                        setPackedSample(data, row, bit, bits);
+                    }
+                    for (; end - bit >= 8; bit += 8) {
+                        data[row + (bit >> 3)] = (byte) pattern;
+                    }
+                    for (; bit < end; bit += bits) {
+                        setPackedSample(data, row, bit, bits);
+                    }
+                }
+            }
+        } else {
+            ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+            byte sample = (byte) foregroundSample;
+            for (Rectangle2D.Double rect : rectangles) {
+                Rectangle bar = getBounds(rect, scale, marginX, marginY).intersection(clip);
+                if (bar.isEmpty()) {
+                    continue;
+                }
+                for (int y = bar.y; y < bar.y + bar.height; y++) {
+                    int offset = sm.getOffset(bar.x - translateX, y - translateY);
+                    Arrays.fill(data, offset, offset + bar.width, sample);
+                }
+            }
+        }
+    }
+
+    private void setPackedSample(byte[] data, int row, int bit, int bits) {
+        int index = row + (bit >> 3);
+        int shift = 8 - bits - (bit & 7);
+        int mask = ((1 << bits) - 1) << shift;
+        data[index] = (byte) ((data[index] & ~mask) | ((foregroundSample << shift) & mask));
+    }
+
+    private static <K, V> Map<K, V> lruCache(final int capacity) {
+        return new LinkedHashMap<K, V>(capacity, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
     }
 
     @Override
     public void render(Symbol symbol) {
+        RenderTiming timing = RenderTiming.start(symbol);
+        if (g2d != null) {
+            render(g2d, symbol);
+        } else {
+            Graphics2D g = image.createGraphics();
+            try {
+                render(g, symbol);
+            } finally {
+                g.dispose();
+            }
+        }
+        timing.end(symbol);
+    }
+
+    private void render(Graphics2D g2d, Symbol symbol) {
         RenderingHints renderingHints = g2d.getRenderingHints();
         if (antialias) {
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         } else {
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         }
-        int marginX = (int) (symbol.getQuietZoneHorizontal() * scalingFactor);
-        int marginY = (int) (symbol.getQuietZoneVertical() * scalingFactor);
+        double scale = getScalingFactor();
+        int marginX = (int) (symbol.getQuietZoneHorizontal() * scale);
+        int marginY = (int) (symbol.getQuietZoneVertical() * scale);
         Color oldColor = g2d.getColor();
         g2d.setColor(foreground);
-        for (Rectangle2D.Double rect : symbol.rectangles) {
-            double x = (rect.x * scalingFactor) + marginX;
-            double y = (rect.y * scalingFactor) + marginY;
-            double w = rect.width * scalingFactor;
-            double h = rect.height * scalingFactor;
-            g2d.fill(new Rectangle((int) x, (int) y, (int) w, (int) h));
+        if (foregroundSample >= 0) {
+            fillRaster(symbol.rectangles, scale, marginX, marginY);
+        } else {
+            for (Rectangle2D.Double rect : symbol.rectangles) {
+                g2d.fill(getBounds(rect, scale, marginX, marginY));
+            }
         }
         if (symbol.getHumanReadableLocation() != HumanReadableLocation.NONE) {
-            Map<TextAttribute, Object> attributes = new HashMap<>();
-            attributes.put(TextAttribute.TRACKING, 0);
-            Font f = new Font(symbol.getFontName(), Font.PLAIN, (int) (symbol.getFontSize() * scalingFactor)).deriveFont(attributes);
+            Font f = getFont(symbol.getFontName(), (int) (symbol.getFontSize() * scale));
             Font oldFont = g2d.getFont();
             g2d.setFont(f);
-            FontMetrics fm = g2d.getFontMetrics();
+            FontRenderContext frc = g2d.getFontRenderContext();
             for (TextBox text : symbol.texts) {
-                Rectangle2D bounds = fm.getStringBounds(text.text, g2d);
-                float x = (float) ((text.x * scalingFactor) - (bounds.getWidth() / 2)) + marginX;
-                float y = (float) (text.y * scalingFactor) + marginY;
+                double width = getStringWidth(f, frc, text.text);
+                float x = (float) ((text.x * scale) - (width / 2)) + marginX;
+                float y = (float) (text.y * scale) + marginY;
                 g2d.drawString(text.text, x, y);
             }
             g2d.setFont(oldFont);
@@ -100,17 +434,17 @@ public class Java2DRenderer implements SymbolRenderer {
         for (Hexagon hexagon : symbol.hexagons) {
             Polygon polygon = new Polygon();
             for (int j = 0; j < 6; j++) {
-                polygon.addPoint((int) ((hexagon.pointX[j] * scalingFactor) + marginX),
-                        (int) ((hexagon.pointY[j] * scalingFactor) + marginY));
+                polygon.addPoint((int) ((hexagon.getPointX(j) * scale) + marginX),
+                        (int) ((hexagon.getPointY(j) * scale) + marginY));
             }
             g2d.fill(polygon);
         }
         for (int i = 0; i < symbol.target.size(); i++) {
             Ellipse2D.Double ellipse = symbol.target.get(i);
-            double x = (ellipse.x * scalingFactor) + marginX;
-            double y = (ellipse.y * scalingFactor) + marginY;
-            double w = (ellipse.width * scalingFactor) + marginX;
-            double h = (ellipse.height * scalingFactor) + marginY;
+            double x = (ellipse.x * scale) + marginX;
+            double y = (ellipse.y * scale) + marginY;
+            double w = (ellipse.width * scale) + marginX;
+            double h = (ellipse.height * scale) + marginY;
             if ((i & 1) == 0) {
                 g2d.setColor(foreground);
             } else {
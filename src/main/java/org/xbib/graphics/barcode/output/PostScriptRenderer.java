@@ -9,6 +9,7 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Locale;
 
 /**
  * Renders symbologies to EPS (Encapsulated PostScript).
@@ -52,6 +53,7 @@ public class PostScriptRenderer implements SymbolRenderer {
 
     @Override
     public void render(Symbol symbol) throws IOException {
+        RenderTiming timing = RenderTiming.start(symbol);
 
         // All y dimensions are reversed because EPS origin (0,0) is at the bottom left, not top left
 
@@ -82,6 +84,17 @@ public class PostScriptRenderer implements SymbolRenderer {
             writer.append("/TL { setlinewidth moveto lineto stroke } bind def\n");
             writer.append("/TC { moveto 0 360 arc 360 0 arcn fill } bind def\n");
             writer.append("/TH { 0 setlinewidth moveto lineto lineto lineto lineto lineto closepath fill } bind def\n");
+            if (!symbol.hexagons.isEmpty()) {
+                // Hexagon around the centre given on the stack, all hexagons have the same shape
+                writer.append("/TX { 0 setlinewidth moveto");
+                Hexagon origin = Hexagon.ORIGIN;
+                for (int j = 0; j < 6; j++) {
+                    double dx = origin.getPointX(j) - (j == 0 ? 0 : origin.getPointX(j - 1));
+                    double dy = (j == 0 ? 0 : origin.getPointY(j - 1)) - origin.getPointY(j);
+                    writer.append(String.format(Locale.ROOT, " %.3f %.3f ", dx, dy)).append(j == 0 ? "rmoveto" : "rlineto");
+                }
+                writer.append(" closepath fill } bind def\n");
+            }
             writer.append("/TB { 2 copy } bind def\n");
             writer.append("/TR { newpath 4 1 roll exch moveto 1 index 0 rlineto 0 exch rlineto neg 0 rlineto closepath fill } bind def\n");
             writer.append("/TE { pop pop } bind def\n");
@@ -179,15 +192,14 @@ public class PostScriptRenderer implements SymbolRenderer {
             // Because MaxiCode size is fixed, this ignores magnification
             for (int i = 0; i < symbol.hexagons.size(); i++) {
                 Hexagon hexagon = symbol.hexagons.get(i);
-                for (int j = 0; j < 6; j++) {
-                    writer.append(hexagon.pointX[j] + marginX).append(" ").append((height - hexagon.pointY[j]) - marginY).append(" ");
-                }
-                writer.append(" TH\n");
+                writer.append(hexagon.centreX + marginX).append(" ")
+                        .append((height - hexagon.centreY) - marginY).append(" TX\n");
             }
 
             // Footer
             writer.append("\nshowpage\n");
         }
+        timing.end(symbol);
     }
 
     private static boolean notRoughlyEqual(double d1, double d2) {
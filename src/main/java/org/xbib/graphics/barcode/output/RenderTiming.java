@@ -0,0 +1,40 @@
+package org.xbib.graphics.barcode.output;
+
+import org.xbib.graphics.barcode.EncodeListener;
+import org.xbib.graphics.barcode.EncodePhase;
+import org.xbib.graphics.barcode.Symbol;
+
+/**
+ * Reports the time taken to render a symbol to the {@link EncodeListener} the symbol had when rendering
+ * started, so the time is neither lost nor wrong if the listener is changed while the symbol is rendered.
+ */
+final class RenderTiming {
+
+    private static final RenderTiming NONE = new RenderTiming(EncodeListener.NONE, 0L);
+
+    private final EncodeListener listener;
+
+    private final long start;
+
+    private RenderTiming(EncodeListener listener, long start) {
+        this.listener = listener;
+        this.start = start;
+    }
+
+    /**
+     * Starts measuring the time taken to render the specified symbol, if the symbol has a listener.
+     */
+    static RenderTiming start(Symbol symbol) {
+        EncodeListener listener = symbol.getEncodeListener();
+        return listener == EncodeListener.NONE ? NONE : new RenderTiming(listener, System.nanoTime());
+    }
+
+    /**
+     * Reports the time since the start as the time taken to render the specified symbol.
+     */
+    void end(Symbol symbol) {
+        if (listener != EncodeListener.NONE) {
+            listener.phaseCompleted(symbol, EncodePhase.RENDERING, System.nanoTime() - start);
+        }
+    }
+}
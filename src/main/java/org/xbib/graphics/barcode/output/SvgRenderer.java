@@ -52,6 +52,7 @@ public class SvgRenderer implements SymbolRenderer {
 
     @Override
     public void render(Symbol symbol) throws IOException {
+        RenderTiming timing = RenderTiming.start(symbol);
         String content = symbol.getContent();
         int width = (int) (symbol.getWidth() * scale);
         int height = (int) (symbol.getHeight() * scale);
@@ -82,7 +83,11 @@ public class SvgRenderer implements SymbolRenderer {
             writer.append("<svg width=\"").appendInt(width)
                     .append("\" height=\"").appendInt(height)
                     .append("\" version=\"1.1")
-                    .append("\" xmlns=\"http://www.w3.org/2000/svg\">\n");
+                    .append("\" xmlns=\"http://www.w3.org/2000/svg\"");
+            if (!symbol.hexagons.isEmpty()) {
+                writer.append(" xmlns:xlink=\"http://www.w3.org/1999/xlink\"");
+            }
+            writer.append(">\n");
             writer.append("   <desc>").append(title).append("</desc>\n");
             writer.append("   <g id=\"barcode\" fill=\"#").append(fgColour).append("\">\n");
             writer.append("      <rect x=\"0\" y=\"0\" width=\"").appendInt(width)
@@ -128,24 +133,34 @@ public class SvgRenderer implements SymbolRenderer {
             }
 
             // Hexagons
-            for (int i = 0; i < symbol.hexagons.size(); i++) {
-                Hexagon hexagon = symbol.hexagons.get(i);
-                writer.append("      <path d=\"");
+            // All hexagons have the same shape, so it is defined once and placed at the centre of each module
+            if (!symbol.hexagons.isEmpty()) {
+                Hexagon origin = Hexagon.ORIGIN;
+                writer.append("      <defs>\n");
+                writer.append("         <path id=\"hexagon\" d=\"");
                 for (int j = 0; j < 6; j++) {
                     if (j == 0) {
                         writer.append("M ");
                     } else {
                         writer.append("L ");
                     }
-                    writer.append((hexagon.pointX[j] * scale) + marginX).append(" ")
-                            .append((hexagon.pointY[j] * scale) + marginY).append(" ");
+                    writer.append(origin.getPointX(j) * scale).append(" ")
+                            .append(origin.getPointY(j) * scale).append(" ");
                 }
                 writer.append("Z\" />\n");
+                writer.append("      </defs>\n");
+            }
+            for (int i = 0; i < symbol.hexagons.size(); i++) {
+                Hexagon hexagon = symbol.hexagons.get(i);
+                writer.append("      <use xlink:href=\"#hexagon\" x=\"").append((hexagon.centreX * scale) + marginX)
+                        .append("\" y=\"").append((hexagon.centreY * scale) + marginY)
+                        .append("\" />\n");
             }
 
             // Footer
             writer.append("   </g>\n");
             writer.append("</svg>\n");
         }
+        timing.end(symbol);
     }
 }
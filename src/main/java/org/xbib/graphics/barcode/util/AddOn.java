@@ -28,7 +28,7 @@ public class AddOn {
         dest = "";
         content = input;
 
-        if (!(content.matches("[0-9]{1,5}"))) {
+        if (content.length() > 5 || !CharacterClass.NUMERIC.matches(content)) {
             return "";
         }
 
@@ -46,7 +46,7 @@ public class AddOn {
         String accumulator = "";
         int i, code_value;
 
-        if (!(content.matches("[0-9]+?"))) {
+        if (!CharacterClass.NUMERIC.matches(content)) {
             return;
         }
 
@@ -77,7 +77,7 @@ public class AddOn {
         String accumulator = "";
         int i, parity_sum;
 
-        if (!(content.matches("[0-9]+?"))) {
+        if (!CharacterClass.NUMERIC.matches(content)) {
             return;
         }
 
@@ -0,0 +1,82 @@
+package org.xbib.graphics.barcode.util;
+
+import java.util.Arrays;
+
+/**
+ * The element widths of a linear symbol, alternating between bars and spaces and starting with a bar.
+ * A buffer can be cleared and reused for the next symbol.
+ */
+public final class BarBuffer {
+
+    private int[] widths = new int[128];
+
+    private int length;
+
+    /**
+     * Removes all elements from this buffer.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Returns the number of elements in this buffer.
+     *
+     * @return the number of elements
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Appends one element to this buffer.
+     *
+     * @param width the width of the element in modules
+     */
+    public void append(int width) {
+        ensureCapacity(1);
+        widths[length++] = width;
+    }
+
+    /**
+     * Appends elements to this buffer.
+     *
+     * @param pattern the widths of the elements in modules
+     */
+    public void append(byte[] pattern) {
+        ensureCapacity(pattern.length);
+        for (byte width : pattern) {
+            widths[length++] = width;
+        }
+    }
+
+    /**
+     * Appends two patterns of the same length to this buffer, interleaving the elements of the
+     * first pattern as bars with the elements of the second pattern as spaces.
+     *
+     * @param bars the widths of the bars in modules
+     * @param spaces the widths of the spaces in modules
+     */
+    public void appendInterleaved(byte[] bars, byte[] spaces) {
+        ensureCapacity(bars.length * 2);
+        for (int i = 0; i < bars.length; i++) {
+            widths[length++] = bars[i];
+            widths[length++] = spaces[i];
+        }
+    }
+
+    /**
+     * Returns the run lengths of the elements in this buffer, starting with a bar.
+     *
+     * @return the run lengths
+     */
+    public int[] toRunLengths() {
+        return Arrays.copyOf(widths, length);
+    }
+
+    private void ensureCapacity(int count) {
+        if (length + count > widths.length) {
+            widths = Arrays.copyOf(widths, Math.max(widths.length * 2, length + count));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.xbib.graphics.barcode.util;
+
+/**
+ * A set of characters in the range <code>U+0000</code> to <code>U+00FF</code>, held as a bitmap,
+ * used to validate symbol input without compiling regular expressions.
+ */
+public final class CharacterClass {
+
+    /**
+     * The digits <code>0</code> to <code>9</code>.
+     */
+    public static final CharacterClass NUMERIC = range('0', '9');
+
+    /**
+     * The digits and the upper case letters <code>A</code> to <code>Z</code>.
+     */
+    public static final CharacterClass UPPER_ALPHANUMERIC = NUMERIC.or(range('A', 'Z'));
+
+    /**
+     * The character set of Code 39 and HIBC.
+     */
+    public static final CharacterClass CODE39 = UPPER_ALPHANUMERIC.or(of("-. $/+%"));
+
+    /**
+     * All 7-bit ASCII characters.
+     */
+    public static final CharacterClass ASCII = range('\u0000', '\u007F');
+
+    /**
+     * All ISO 8859-1 characters.
+     */
+    public static final CharacterClass LATIN_1 = range('\u0000', '\u00FF');
+
+    private final long[] bits;
+
+    private CharacterClass(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Creates a character class containing the specified characters.
+     *
+     * @param chars the characters to include
+     * @return the character class
+     */
+    public static CharacterClass of(String chars) {
+        long[] bits = new long[4];
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c > 0xFF) {
+                throw new IllegalArgumentException("Character out of range: " + c);
+            }
+            bits[c >> 6] |= 1L << c;
+        }
+        return new CharacterClass(bits);
+    }
+
+    /**
+     * Creates a character class containing all characters from <code>first</code> to <code>last</code>.
+     *
+     * @param first the first character to include
+     * @param last the last character to include
+     * @return the character class
+     */
+    public static CharacterClass range(char first, char last) {
+        if (last > 0xFF || first > last) {
+            throw new IllegalArgumentException("Invalid range: " + (int) first + "-" + (int) last);
+        }
+        long[] bits = new long[4];
+        for (int c = first; c <= last; c++) {
+            bits[c >> 6] |= 1L << c;
+        }
+        return new CharacterClass(bits);
+    }
+
+    /**
+     * Returns a character class containing the characters of this class and of the specified class.
+     *
+     * @param other the class to add
+     * @return the union of both classes
+     */
+    public CharacterClass or(CharacterClass other) {
+        long[] union = new long[4];
+        for (int i = 0; i < 4; i++) {
+            union[i] = bits[i] | other.bits[i];
+        }
+        return new CharacterClass(union);
+    }
+
+    /**
+     * Returns whether the specified character belongs to this class.
+     *
+     * @param c the character to check
+     * @return whether the character belongs to this class
+     */
+    public boolean contains(char c) {
+        return c <= 0xFF && (bits[c >> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * Returns the position of the first character in the input which does not belong to this class.
+     * Empty input is treated as invalid at position <code>0</code>, in the same way as a regular
+     * expression of the form <code>[...]+</code>.
+     *
+     * @param input the input to check
+     * @return the position of the first invalid character, or <code>-1</code> if the input is valid
+     */
+    public int indexOfInvalid(CharSequence input) {
+        return indexOfInvalid(input, 0, input.length());
+    }
+
+    /**
+     * Returns the position of the first character from <code>start</code> (inclusive) to <code>end</code>
+     * (exclusive) which does not belong to this class. An empty range is treated as invalid at
+     * position <code>start</code>.
+     *
+     * @param input the input to check
+     * @param start the position of the first character to check
+     * @param end the position after the last character to check
+     * @return the position of the first invalid character, or <code>-1</code> if the range is valid
+     */
+    public int indexOfInvalid(CharSequence input, int start, int end) {
+        if (start >= end) {
+            return start;
+        }
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c > 0xFF || (bits[c >> 6] & (1L << c)) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the input is not empty and consists only of characters of this class.
+     *
+     * @param input the input to check
+     * @return whether the input is valid
+     */
+    public boolean matches(CharSequence input) {
+        return indexOfInvalid(input) < 0;
+    }
+}
@@ -0,0 +1,151 @@
+package org.xbib.graphics.barcode.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Element width lookups shared by the GS1 DataBar symbologies (ISO/IEC 24724 Annex B).
+ * Binomial coefficients come from a precomputed Pascal triangle, and the widths for each
+ * value are computed once per parameter set and then served from a table.
+ */
+public final class DataBarWidths {
+
+    private static final int MAX_N = 32;
+
+    private static final int[][] PASCAL = new int[MAX_N + 1][];
+
+    private static final ConcurrentMap<Integer, AtomicReferenceArray<int[]>> TABLES = new ConcurrentHashMap<>();
+
+    static {
+        for (int n = 0; n <= MAX_N; n++) {
+            PASCAL[n] = new int[n + 1];
+            PASCAL[n][0] = 1;
+            PASCAL[n][n] = 1;
+            for (int r = 1; r < n; r++) {
+                PASCAL[n][r] = PASCAL[n - 1][r - 1] + PASCAL[n - 1][r];
+            }
+        }
+    }
+
+    private DataBarWidths() {
+    }
+
+    /**
+     * Returns the number of combinations of <code>r</code> out of <code>n</code>. Arguments outside
+     * of the Pascal triangle give the same results as the reference implementation.
+     *
+     * @param n number of items
+     * @param r number of items chosen
+     * @return the binomial coefficient
+     */
+    public static int getCombinations(int n, int r) {
+        if (r >= 0 && r <= n && n <= MAX_N) {
+            return PASCAL[n][r];
+        }
+        return calculateCombinations(n, r);
+    }
+
+    /**
+     * Returns the element widths for a character value. The returned array is shared between
+     * callers and must not be modified.
+     *
+     * @param val the character value
+     * @param n number of modules
+     * @param elements number of elements
+     * @param maxWidth widest element width
+     * @param noNarrow <code>1</code> if a single-module element is not required
+     * @return the element widths
+     */
+    public static int[] getWidths(int val, int n, int elements, int maxWidth, int noNarrow) {
+        if (n < elements || n > MAX_N || val < 0) {
+            return calculateWidths(val, n, elements, maxWidth, noNarrow);
+        }
+        Integer key = (n << 10) | (elements << 5) | (maxWidth << 1) | noNarrow;
+        AtomicReferenceArray<int[]> table = TABLES.get(key);
+        if (table == null) {
+            /* upper bound: all compositions of n modules into the given number of elements */
+            table = new AtomicReferenceArray<>(PASCAL[n - 1][elements - 1]);
+            AtomicReferenceArray<int[]> existing = TABLES.putIfAbsent(key, table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+        if (val >= table.length()) {
+            return calculateWidths(val, n, elements, maxWidth, noNarrow);
+        }
+        int[] widths = table.get(val);
+        if (widths == null) {
+            widths = calculateWidths(val, n, elements, maxWidth, noNarrow);
+            table.lazySet(val, widths);
+        }
+        return widths;
+    }
+
+    private static int calculateCombinations(int n, int r) {
+        int i, j;
+        int maxDenom, minDenom;
+        int val;
+
+        if (n - r > r) {
+            minDenom = r;
+            maxDenom = n - r;
+        } else {
+            minDenom = n - r;
+            maxDenom = r;
+        }
+        val = 1;
+        j = 1;
+        for (i = n; i > maxDenom; i--) {
+            val *= i;
+            if (j <= minDenom) {
+                val /= j;
+                j++;
+            }
+        }
+        for (; j <= minDenom; j++) {
+            val /= j;
+        }
+        return (val);
+    }
+
+    private static int[] calculateWidths(int val, int n, int elements, int maxWidth, int noNarrow) {
+        int[] widths = new int[elements];
+        int bar;
+        int elmWidth;
+        int mxwElement;
+        int subVal, lessVal;
+        int narrowMask = 0;
+        for (bar = 0; bar < elements - 1; bar++) {
+            for (elmWidth = 1, narrowMask |= (1 << bar); ;
+                 elmWidth++, narrowMask &= ~(1 << bar)) {
+                /* get all combinations */
+                subVal = getCombinations(n - elmWidth - 1, elements - bar - 2);
+                /* less combinations with no single-module element */
+                if ((noNarrow == 0) && (narrowMask == 0)
+                        && (n - elmWidth - (elements - bar - 1) >= elements - bar - 1)) {
+                    subVal -= getCombinations(n - elmWidth - (elements - bar), elements - bar - 2);
+                }
+                /* less combinations with elements > maxVal */
+                if (elements - bar - 1 > 1) {
+                    lessVal = 0;
+                    for (mxwElement = n - elmWidth - (elements - bar - 2);
+                         mxwElement > maxWidth;
+                         mxwElement--) {
+                        lessVal += getCombinations(n - elmWidth - mxwElement - 1, elements - bar - 3);
+                    }
+                    subVal -= lessVal * (elements - 1 - bar);
+                } else if (n - elmWidth > maxWidth) {
+                    subVal--;
+                }
+                val -= subVal;
+                if (val < 0) break;
+            }
+            val += subVal;
+            n -= elmWidth;
+            widths[bar] = elmWidth;
+        }
+        widths[bar] = n;
+        return widths;
+    }
+}
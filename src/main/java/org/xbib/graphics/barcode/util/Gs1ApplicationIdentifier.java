@@ -0,0 +1,430 @@
+package org.xbib.graphics.barcode.util;
+
+/**
+ * A GS1 Application Identifier with the format of its data field, according to the
+ * GS1 General Specifications (section 3, "GS1 Application Identifier definitions").
+ * The format of each component is written as in the GS1 Barcode Syntax Dictionary: <code>N</code>
+ * for digits, <code>X</code>, <code>Y</code> and <code>Z</code> for the character sets 82, 39 and 64,
+ * and square brackets around optional components.
+ */
+public final class Gs1ApplicationIdentifier {
+
+    /**
+     * GS1 AI encodable character set 82 (figure 7.11-1).
+     */
+    private static final CharacterClass CSET_82 = CharacterClass.UPPER_ALPHANUMERIC
+            .or(CharacterClass.range('a', 'z'))
+            .or(CharacterClass.of("!\"%&'()*+,-./:;<=>?_"));
+
+    /**
+     * GS1 AI encodable character set 39 (figure 7.11-2).
+     */
+    private static final CharacterClass CSET_39 = CharacterClass.UPPER_ALPHANUMERIC.or(CharacterClass.of("#-/"));
+
+    /**
+     * GS1 AI encodable character set 64 (figure 7.11-3), the URI safe base64 alphabet.
+     */
+    private static final CharacterClass CSET_64 = CharacterClass.UPPER_ALPHANUMERIC
+            .or(CharacterClass.range('a', 'z'))
+            .or(CharacterClass.of("-_="));
+
+    /* AIs indexed by length (2 to 4 digits) and numeric value */
+    private static final Gs1ApplicationIdentifier[][] TABLE = {
+            null, null, new Gs1ApplicationIdentifier[100], new Gs1ApplicationIdentifier[1000],
+            new Gs1ApplicationIdentifier[10000]
+    };
+
+    /*
+     * Two digit prefixes of the AIs with a predefined length, which are not followed by FNC1 (figure 7.8.5-2).
+     * Prefix 23 is left out, as the only AI still using it (235) has a variable length.
+     */
+    private static final boolean[] PREDEFINED_LENGTH_PREFIXES = new boolean[100];
+
+    static {
+        for (int prefix : new int[] {0, 1, 2, 3, 4, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 31, 32, 33, 34, 35, 36, 41}) {
+            PREDEFINED_LENGTH_PREFIXES[prefix] = true;
+        }
+        define("00", "N18", true); // SSCC
+        define("01", "N14", true); // GTIN
+        define("02", "N14", true); // CONTENT
+        define("03", "N14", true); // MTO GTIN
+        define("10", "X..20", false); // BATCH/LOT
+        define("11", "N6", false); // PROD DATE
+        define("12", "N6", false); // DUE DATE
+        define("13", "N6", false); // PACK DATE
+        define("15", "N6", false); // BEST BEFORE
+        define("16", "N6", false); // SELL BY
+        define("17", "N6", false); // USE BY
+        define("20", "N2", false); // VARIANT
+        define("21", "X..20", false); // SERIAL
+        define("22", "X..20", false); // CPV
+        define("235", "X..28", false); // TPX
+        define("240", "X..30", false); // ADDITIONAL ID
+        define("241", "X..30", false); // CUST. PART NO.
+        define("242", "N..6", false); // MTO VARIANT
+        define("243", "X..20", false); // PCN
+        define("250", "X..30", false); // SECONDARY SERIAL
+        define("251", "X..30", false); // REF. TO SOURCE
+        define("253", "N13+[X..17]", true); // GDTI
+        define("254", "X..20", false); // GLN EXTENSION COMPONENT
+        define("255", "N13+[N..12]", true); // GCN
+        define("30", "N..8", false); // VAR. COUNT
+        for (int measure = 310; measure <= 369; measure++) {
+            /* trade and logistic measures, the fourth digit gives the decimal point position */
+            if (measure == 317 || measure == 318 || measure == 319 || measure == 338 || measure == 339
+                    || measure == 358 || measure == 359) {
+                continue;
+            }
+            defineRange(Integer.toString(measure), 0, 5, "N6", false);
+        }
+        define("37", "N..8", false); // COUNT
+        defineRange("390", 0, 9, "N..15", false); // AMOUNT
+        defineRange("391", 0, 9, "N3+N..15", false); // AMOUNT
+        defineRange("392", 0, 9, "N..15", false); // PRICE
+        defineRange("393", 0, 9, "N3+N..15", false); // PRICE
+        defineRange("394", 0, 3, "N4", false); // PRCNT OFF
+        defineRange("395", 0, 5, "N6", false); // PRICE/UoM
+        define("400", "X..30", false); // ORDER NUMBER
+        define("401", "X..30", false); // GINC
+        define("402", "N17", true); // GSIN
+        define("403", "X..30", false); // ROUTE
+        for (int gln = 410; gln <= 417; gln++) {
+            define(Integer.toString(gln), "N13", true); // SHIP TO LOC ... PROD/SERV LOC
+        }
+        define("420", "X..20", false); // SHIP TO POST
+        define("421", "N3+X..9", false); // SHIP TO POST
+        define("422", "N3", false); // ORIGIN
+        define("423", "N3+[N..12]", false); // COUNTRY - INITIAL PROCESS.
+        define("424", "N3", false); // COUNTRY - PROCESS.
+        define("425", "N3+[N..12]", false); // COUNTRY - DISASSEMBLY
+        define("426", "N3", false); // COUNTRY - FULL PROCESS
+        define("427", "X..3", false); // ORIGIN SUBDIVISION
+        define("4300", "X..35", false); // SHIP TO COMP
+        define("4301", "X..35", false); // SHIP TO NAME
+        define("4302", "X..70", false); // SHIP TO ADD1
+        define("4303", "X..70", false); // SHIP TO ADD2
+        define("4304", "X..70", false); // SHIP TO SUB
+        define("4305", "X..70", false); // SHIP TO LOC
+        define("4306", "X..70", false); // SHIP TO REG
+        define("4307", "X2", false); // SHIP TO COUNTRY
+        define("4308", "X..30", false); // SHIP TO PHONE
+        define("4309", "N20", false); // SHIP TO GEO
+        define("4310", "X..35", false); // RTN TO COMP
+        define("4311", "X..35", false); // RTN TO NAME
+        define("4312", "X..70", false); // RTN TO ADD1
+        define("4313", "X..70", false); // RTN TO ADD2
+        define("4314", "X..70", false); // RTN TO SUB
+        define("4315", "X..70", false); // RTN TO LOC
+        define("4316", "X..70", false); // RTN TO REG
+        define("4317", "X2", false); // RTN TO COUNTRY
+        define("4318", "X..20", false); // RTN TO POST
+        define("4319", "X..30", false); // RTN TO PHONE
+        define("4320", "X..35", false); // SRV DESCRIPTION
+        define("4321", "N1", false); // DANGEROUS GOODS
+        define("4322", "N1", false); // AUTH LEAVE
+        define("4323", "N1", false); // SIG REQUIRED
+        define("4324", "N10", false); // NBEF DEL DT.
+        define("4325", "N10", false); // NAFT DEL DT.
+        define("4326", "N6", false); // REL DATE
+        define("4330", "N6+[X1]", false); // MAX TEMP F.
+        define("4331", "N6+[X1]", false); // MAX TEMP C.
+        define("4332", "N6+[X1]", false); // MIN TEMP F.
+        define("4333", "N6+[X1]", false); // MIN TEMP C.
+        define("7001", "N13", false); // NSN
+        define("7002", "X..30", false); // MEAT CUT
+        define("7003", "N10", false); // EXPIRY TIME
+        define("7004", "N..4", false); // ACTIVE POTENCY
+        define("7005", "X..12", false); // CATCH AREA
+        define("7006", "N6", false); // FIRST FREEZE DATE
+        define("7007", "N6..12", false); // HARVEST DATE
+        define("7008", "X..3", false); // AQUATIC SPECIES
+        define("7009", "X..10", false); // FISHING GEAR TYPE
+        define("7010", "X..2", false); // PROD METHOD
+        define("7011", "N6+[N4]", false); // TEST BY DATE
+        define("7020", "X..20", false); // REFURB LOT
+        define("7021", "X..20", false); // FUNC STAT
+        define("7022", "X..20", false); // REV STAT
+        define("7023", "X..30", false); // GIAI - ASSEMBLY
+        defineRange("703", 0, 9, "N3+X..27", false); // PROCESSOR # s
+        define("7040", "N1+X3", false); // UIC+EXT
+        define("7041", "X..4", false); // UFRGT UNIT TYPE
+        define("710", "X..20", false); // NHRN PZN
+        define("711", "X..20", false); // NHRN CIP
+        define("712", "X..20", false); // NHRN CN
+        define("713", "X..20", false); // NHRN DRN
+        define("714", "X..20", false); // NHRN AIM
+        define("715", "X..20", false); // NHRN NDC
+        define("716", "X..20", false); // NHRN AIC
+        defineRange("723", 0, 9, "X2+X..28", false); // CERT # s
+        define("7240", "X..20", false); // PROTOCOL
+        define("7241", "N2", false); // AIDC MEDIA TYPE
+        define("7242", "X..25", false); // VCN
+        define("7250", "N8", false); // DOB
+        define("7251", "N12", false); // DOB TIME
+        define("7252", "N1", false); // BIO SEX
+        define("7253", "X..40", false); // FAMILY NAME
+        define("7254", "X..40", false); // GIVEN NAME
+        define("7255", "X..10", false); // SUFFIX
+        define("7256", "X..90", false); // FULL NAME
+        define("7257", "X..70", false); // PERSON ADDR
+        define("7258", "N1+X1+N1", false); // BIRTH SEQUENCE
+        define("7259", "X..40", false); // BABY
+        define("8001", "N14", false); // DIMENSIONS
+        define("8002", "X..20", false); // CMT NO.
+        define("8003", "N14+[X..16]", true); // GRAI
+        define("8004", "X..30", false); // GIAI
+        define("8005", "N6", false); // PRICE PER UNIT
+        define("8006", "N14+N2+N2", true); // ITIP
+        define("8007", "X..34", false); // IBAN
+        define("8008", "N8+[N..4]", false); // PROD TIME
+        define("8009", "X..50", false); // OPTSEN
+        define("8010", "Y..30", false); // CPID
+        define("8011", "N..12", false); // CPID SERIAL
+        define("8012", "X..20", false); // VERSION
+        define("8013", "X..25", false); // GMN
+        define("8014", "X..25", false); // MUDI
+        define("8017", "N18", true); // GSRN - PROVIDER
+        define("8018", "N18", true); // GSRN - RECIPIENT
+        define("8019", "N..10", false); // SRIN
+        define("8020", "X..25", false); // REF NO.
+        define("8026", "N14+N2+N2", true); // ITIP CONTENT
+        define("8030", "Z..90", false); // DIGSIG
+        define("8110", "X..70", false); // coupon code
+        define("8111", "N4", false); // POINTS
+        define("8112", "X..70", false); // paperless coupon code
+        define("8200", "X..70", false); // PRODUCT URL
+        define("90", "X..30", false); // INTERNAL
+        for (int internal = 91; internal <= 99; internal++) {
+            define(Integer.toString(internal), "X..90", false); // INTERNAL
+        }
+    }
+
+    private final String code;
+
+    private final CharacterClass[] characterSets;
+
+    private final int[] minLengths;
+
+    private final int[] maxLengths;
+
+    private final int minLength;
+
+    private final int maxLength;
+
+    private final boolean checkDigit;
+
+    private final boolean fnc1Required;
+
+    private Gs1ApplicationIdentifier(String code, String format, boolean checkDigit) {
+        String[] components = format.split("\\+");
+        this.code = code;
+        this.characterSets = new CharacterClass[components.length];
+        this.minLengths = new int[components.length];
+        this.maxLengths = new int[components.length];
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < components.length; i++) {
+            String component = components[i];
+            boolean optional = component.charAt(0) == '[';
+            if (optional) {
+                component = component.substring(1, component.length() - 1);
+            }
+            characterSets[i] = getCharacterSet(component.charAt(0));
+            int range = component.indexOf("..");
+            if (range < 0) {
+                minLengths[i] = Integer.parseInt(component.substring(1));
+                maxLengths[i] = minLengths[i];
+            } else {
+                minLengths[i] = range == 1 ? 1 : Integer.parseInt(component.substring(1, range));
+                maxLengths[i] = Integer.parseInt(component.substring(range + 2));
+            }
+            if (optional) {
+                minLengths[i] = 0;
+            }
+            min += minLengths[i];
+            max += maxLengths[i];
+        }
+        this.minLength = min;
+        this.maxLength = max;
+        this.checkDigit = checkDigit;
+        this.fnc1Required = !PREDEFINED_LENGTH_PREFIXES[(code.charAt(0) - '0') * 10 + (code.charAt(1) - '0')];
+    }
+
+    private static CharacterClass getCharacterSet(char type) {
+        switch (type) {
+            case 'N':
+                return CharacterClass.NUMERIC;
+            case 'X':
+                return CSET_82;
+            case 'Y':
+                return CSET_39;
+            case 'Z':
+                return CSET_64;
+            default:
+                /* AIs which are not in the table, only their length is checked */
+                return CharacterClass.ASCII;
+        }
+    }
+
+    private static void define(String code, String format, boolean checkDigit) {
+        TABLE[code.length()][Integer.parseInt(code)] = new Gs1ApplicationIdentifier(code, format, checkDigit);
+    }
+
+    private static void defineRange(String prefix, int first, int last, String format, boolean checkDigit) {
+        for (int digit = first; digit <= last; digit++) {
+            define(prefix + digit, format, checkDigit);
+        }
+    }
+
+    /**
+     * Looks up the AI given by the digits from <code>start</code> (inclusive) to <code>end</code> (exclusive).
+     *
+     * @param source the input containing the AI
+     * @param start the position of the first digit
+     * @param end the position after the last digit
+     * @return the AI, or <code>null</code> if the digits do not form a valid AI
+     */
+    public static Gs1ApplicationIdentifier lookup(CharSequence source, int start, int end) {
+        int length = end - start;
+        if (length < 2 || length > 4) {
+            return null;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = (value * 10) + (c - '0');
+        }
+        Gs1ApplicationIdentifier ai = TABLE[length][value];
+        if (ai == null && !isReserved(value)) {
+            ai = new Gs1ApplicationIdentifier(source.subSequence(start, end).toString(), getUnlistedFormat(value), false);
+        }
+        return ai;
+    }
+
+    /*
+     * AIs which are missing from the table, such as AIs added to the GS1 General Specifications later,
+     * get the length-only checks used before the table existed, and the values rejected back then stay invalid.
+     * Their data is limited to 90 characters, the longest data field of any AI.
+     */
+    private static boolean isReserved(int value) {
+        return value == 23 || value == 24 || value == 25 || value == 39 || value == 40 || value == 41
+                || value == 42 || value == 70 || value == 80 || value == 81
+                || (value >= 31 && value <= 36)
+                || (value >= 100 && value <= 179) || (value >= 1000 && value <= 1799)
+                || (value >= 200 && value <= 229) || (value >= 2000 && value <= 2299)
+                || (value >= 300 && value <= 379) || (value >= 3000 && value <= 3099)
+                || (value >= 3700 && value <= 3799) || (value >= 4100 && value <= 4199)
+                || (value >= 700 && value <= 703) || (value >= 800 && value <= 810)
+                || (value >= 900 && value <= 999) || (value >= 9000 && value <= 9999);
+    }
+
+    private static String getUnlistedFormat(int value) {
+        if (value == 0) {
+            return "A18";
+        } else if (value <= 3) {
+            return "A14";
+        } else if (value == 4) {
+            return "A16";
+        } else if (value >= 11 && value <= 19) {
+            return "A6";
+        } else if (value == 20) {
+            return "A2";
+        } else if (value >= 3100 && value <= 3699) {
+            return "A6";
+        } else if (value >= 410 && value <= 415) {
+            return "A13";
+        }
+        return "A..90";
+    }
+
+    /**
+     * Returns the AI digits.
+     *
+     * @return the AI digits
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the minimum data length.
+     *
+     * @return the minimum data length
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Returns the maximum data length.
+     *
+     * @return the maximum data length
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns whether the data field must be terminated by FNC1 if another element string follows.
+     *
+     * @return whether the data field has no predefined length
+     */
+    public boolean isFnc1Required() {
+        return fnc1Required;
+    }
+
+    /**
+     * Checks the data field from <code>start</code> (inclusive) to <code>end</code> (exclusive), which
+     * must already be within the length limits, against the data type of each component.
+     *
+     * @param source the input containing the data field
+     * @param start the position of the first data character
+     * @param end the position after the last data character
+     * @return the position of the first invalid character, or <code>-1</code> if the data is valid
+     */
+    public int indexOfInvalid(CharSequence source, int start, int end) {
+        int position = start;
+        for (int i = 0; i < characterSets.length && position < end; i++) {
+            int componentEnd = Math.min(end, position + maxLengths[i]);
+            if (i + 1 < characterSets.length && componentEnd - position < minLengths[i]) {
+                return componentEnd;
+            }
+            int invalid = characterSets[i].indexOfInvalid(source, position, componentEnd);
+            if (invalid >= 0) {
+                return invalid;
+            }
+            position = componentEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Verifies the GS1 mod 10 check digit which ends the first component of the data field, if this AI
+     * has one.
+     *
+     * @param source the input containing the data field
+     * @param start the position of the first data character
+     * @return whether the check digit is correct, or <code>true</code> if this AI has no check digit
+     */
+    public boolean hasValidCheckDigit(CharSequence source, int start) {
+        if (!checkDigit) {
+            return true;
+        }
+        int last = start + maxLengths[0] - 1;
+        int sum = 0;
+        int weight = 3;
+        for (int i = last - 1; i >= start; i--) {
+            sum += (source.charAt(i) - '0') * weight;
+            weight = 4 - weight;
+        }
+        return (10 - (sum % 10)) % 10 == source.charAt(last) - '0';
+    }
+
+    @Override
+    public String toString() {
+        return "(" + code + ")";
+    }
+}
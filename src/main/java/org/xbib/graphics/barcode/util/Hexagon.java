@@ -1,7 +1,8 @@
 package org.xbib.graphics.barcode.util;
 
 /**
- * Calculate a set of points to make a hexagon.
+ * Calculate a set of points to make a hexagon. Hexagons are immutable, so that the hexagons of
+ * every MaxiCode symbol can be shared.
  */
 public class Hexagon {
 
@@ -11,13 +12,62 @@ public class Hexagon {
 
     private static final double[] OFFSET_Y = {1.0, 0.5, -0.5, -1.0, -0.5, 0.5};
 
-    public final double[] pointX = new double[6];
-    public final double[] pointY = new double[6];
+    /**
+     * A hexagon centred on the origin, whose points are the offsets of the points of every other hexagon
+     * from its centre.
+     */
+    public static final Hexagon ORIGIN = new Hexagon(0, 0);
+
+    public final double centreX;
+    public final double centreY;
+
+    /**
+     * The x coordinates of the points of this hexagon.
+     *
+     * @deprecated use {@link #getPointX(int)}; this is a copy, changing it does not change the hexagon
+     */
+    @Deprecated
+    public final double[] pointX;
+
+    /**
+     * The y coordinates of the points of this hexagon.
+     *
+     * @deprecated use {@link #getPointY(int)}; this is a copy, changing it does not change the hexagon
+     */
+    @Deprecated
+    public final double[] pointY;
+
+    private final double[] pointsX = new double[6];
+    private final double[] pointsY = new double[6];
 
     public Hexagon(double centreX, double centreY) {
+        this.centreX = centreX;
+        this.centreY = centreY;
         for (int i = 0; i < 6; i++) {
-            pointX[i] = centreX + (OFFSET_X[i] * INK_SPREAD);
-            pointY[i] = centreY + (OFFSET_Y[i] * INK_SPREAD);
+            pointsX[i] = centreX + (OFFSET_X[i] * INK_SPREAD);
+            pointsY[i] = centreY + (OFFSET_Y[i] * INK_SPREAD);
         }
+        pointX = pointsX.clone();
+        pointY = pointsY.clone();
+    }
+
+    /**
+     * Returns the x coordinate of a point of this hexagon.
+     *
+     * @param index the index of the point, from 0 to 5
+     * @return the x coordinate
+     */
+    public double getPointX(int index) {
+        return pointsX[index];
+    }
+
+    /**
+     * Returns the y coordinate of a point of this hexagon.
+     *
+     * @param index the index of the point, from 0 to 5
+     * @return the y coordinate
+     */
+    public double getPointY(int index) {
+        return pointsY[index];
     }
 }
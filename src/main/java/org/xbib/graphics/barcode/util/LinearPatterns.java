@@ -0,0 +1,150 @@
+package org.xbib.graphics.barcode.util;
+
+import java.util.Arrays;
+
+/**
+ * Element width tables and check digit calculations shared by the linear symbologies. Patterns are
+ * written as strings of element widths, one digit per element, and converted once into
+ * <code>byte</code> arrays which can be appended to a {@link BarBuffer} without further lookups.
+ */
+public final class LinearPatterns {
+
+    private LinearPatterns() {
+    }
+
+    /**
+     * Converts a pattern into element widths.
+     *
+     * @param pattern the element widths, one digit per element
+     * @return the element widths
+     */
+    public static byte[] toWidths(String pattern) {
+        byte[] widths = new byte[pattern.length()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = (byte) (pattern.charAt(i) - '0');
+        }
+        return widths;
+    }
+
+    /**
+     * Converts patterns into element widths, indexed by the position of each pattern.
+     *
+     * @param patterns the patterns
+     * @return the element widths of each pattern
+     */
+    public static byte[][] toWidths(String[] patterns) {
+        byte[][] widths = new byte[patterns.length][];
+        for (int i = 0; i < patterns.length; i++) {
+            widths[i] = toWidths(patterns[i]);
+        }
+        return widths;
+    }
+
+    /**
+     * Converts patterns into element widths, indexed by the character code of the character which
+     * each pattern encodes. The entries of all other characters are <code>null</code>.
+     *
+     * @param patterns the patterns
+     * @param characters the character encoded by each pattern
+     * @return the element widths of each character
+     */
+    public static byte[][] toWidths(String[] patterns, char[] characters) {
+        byte[][] widths = new byte[max(characters) + 1][];
+        for (int i = 0; i < characters.length; i++) {
+            widths[characters[i]] = toWidths(patterns[i]);
+        }
+        return widths;
+    }
+
+    /**
+     * Returns the position of each character, indexed by its character code. The entries of all
+     * other characters are <code>-1</code>.
+     *
+     * @param characters the characters
+     * @return the position of each character
+     */
+    public static int[] toValues(char[] characters) {
+        int[] values = new int[max(characters) + 1];
+        Arrays.fill(values, -1);
+        for (int i = 0; i < characters.length; i++) {
+            values[characters[i]] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the sum of the values weighted from right to left with 1, 2, ... up to the maximum
+     * weight and then starting over with 1, modulo the specified number. This is the check digit of
+     * Code 11 and Code 93.
+     *
+     * @param values the character values
+     * @param length the number of values
+     * @param maxWeight the largest weight
+     * @param modulus the modulus
+     * @return the check value
+     */
+    public static int getModuloCheck(int[] values, int length, int maxWeight, int modulus) {
+        int sum = 0;
+        int weight = 1;
+        for (int i = length - 1; i >= 0; i--) {
+            sum += values[i] * weight;
+            weight++;
+            if (weight > maxWeight) {
+                weight = 1;
+            }
+        }
+        return sum % modulus;
+    }
+
+    /**
+     * Returns the modulo 10 (Luhn) check digit of a string of digits, which doubles every other
+     * digit starting with the rightmost digit.
+     *
+     * @param digits the digits
+     * @return the check digit
+     */
+    public static int getMod10CheckDigit(CharSequence digits) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Returns the modulo 11 check digit of a string of digits, weighted from right to left with
+     * 2 to 7. The result is <code>10</code> if the check digit can't be written as a single digit.
+     *
+     * @param digits the digits
+     * @return the check digit
+     */
+    public static int getMod11CheckDigit(CharSequence digits) {
+        int sum = 0;
+        int weight = 2;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            sum += (digits.charAt(i) - '0') * weight;
+            weight++;
+            if (weight == 8) {
+                weight = 2;
+            }
+        }
+        return (11 - sum % 11) % 11;
+    }
+
+    private static int max(char[] characters) {
+        int max = 0;
+        for (char c : characters) {
+            max = Math.max(max, c);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,87 @@
+package org.xbib.graphics.barcode.util;
+
+import java.util.Arrays;
+
+/**
+ * A row of modules assembled from bit patterns, with one bit per module and <code>1</code> for a bar.
+ * A row can be cleared and reused for the next row of a symbol.
+ */
+public final class ModuleRow {
+
+    private long[] words = new long[8];
+
+    private int length;
+
+    /**
+     * Removes all modules from this row.
+     */
+    public void clear() {
+        Arrays.fill(words, 0, (length + 63) >> 6, 0L);
+        length = 0;
+    }
+
+    /**
+     * Returns the number of modules in this row.
+     *
+     * @return the number of modules
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Appends modules to this row.
+     *
+     * @param pattern the modules, the first module in the highest of the <code>width</code> lowest bits
+     * @param width the number of modules, at most <code>32</code>
+     */
+    public void append(int pattern, int width) {
+        if (length + width > words.length << 6) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        long bits = pattern & (0xFFFFFFFFL >>> (32 - width));
+        int index = length >> 6;
+        int free = 64 - (length & 63);
+        if (width <= free) {
+            words[index] |= bits << (free - width);
+        } else {
+            words[index] |= bits >>> (width - free);
+            words[index + 1] |= bits << (64 - (width - free));
+        }
+        length += width;
+    }
+
+    /**
+     * Returns the run lengths of the modules in this row, starting with a bar. If the row starts with
+     * a space, the first run is a bar of width zero.
+     *
+     * @return the run lengths
+     */
+    public int[] toRunLengths() {
+        int count = 1;
+        boolean last = true;
+        for (int i = 0; i < length; i++) {
+            boolean bar = get(i);
+            if (bar != last) {
+                count++;
+                last = bar;
+            }
+        }
+        int[] runs = new int[count];
+        count = 0;
+        last = true;
+        for (int i = 0; i < length; i++) {
+            boolean bar = get(i);
+            if (bar != last) {
+                count++;
+                last = bar;
+            }
+            runs[count]++;
+        }
+        return runs;
+    }
+
+    private boolean get(int index) {
+        return (words[index >> 6] & (1L << (63 - (index & 63)))) != 0;
+    }
+}
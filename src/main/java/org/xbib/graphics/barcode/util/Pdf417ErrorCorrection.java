@@ -0,0 +1,106 @@
+package org.xbib.graphics.barcode.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reed-Solomon error correction over GF(929), as used by PDF417, MicroPDF417 and the 2D components of
+ * composite symbols. The generator polynomial for <code>k</code> error correction codewords is the
+ * product of <code>(x - 3^i)</code> for <code>i = 1..k</code>; it is calculated once and shared.
+ * Instances hold scratch space and are not thread safe.
+ */
+public final class Pdf417ErrorCorrection {
+
+    /**
+     * The number of codeword values, and the modulus of the field.
+     */
+    public static final int MODULUS = 929;
+
+    /**
+     * The largest supported number of error correction codewords.
+     */
+    public static final int MAX_ECC_CODEWORDS = 512;
+
+    /**
+     * Negated generator polynomial coefficients by number of error correction codewords,
+     * lowest order first.
+     */
+    private static final AtomicReferenceArray<int[]> GENERATORS = new AtomicReferenceArray<>(MAX_ECC_CODEWORDS + 1);
+
+    private int[] remainder = new int[64];
+
+    /**
+     * Calculates the error correction codewords for the specified data codewords, and stores them
+     * right after the data codewords.
+     *
+     * @param codewords the data codewords, with room for the error correction codewords
+     * @param dataCount the number of data codewords
+     * @param eccCount the number of error correction codewords, from <code>1</code> to
+     *        {@link #MAX_ECC_CODEWORDS}
+     */
+    public void encode(int[] codewords, int dataCount, int eccCount) {
+        int[] generator = getGenerator(eccCount);
+        if (remainder.length < eccCount) {
+            remainder = new int[Math.max(eccCount, remainder.length * 2)];
+        }
+        int[] r = remainder;
+        int last = eccCount - 1;
+        Arrays.fill(r, 0, eccCount, 0);
+        /* the remainder is only reduced where it feeds back: each term is below 929 * 929, and
+           a term contributes to at most MAX_ECC_CODEWORDS positions, so the sums fit into an int */
+        for (int i = 0; i < dataCount; i++) {
+            int t = (codewords[i] + r[last]) % MODULUS;
+            for (int j = last; j > 0; j--) {
+                r[j] = r[j - 1] + t * generator[j];
+            }
+            r[0] = t * generator[0];
+        }
+        for (int j = last; j >= 0; j--) {
+            int value = r[j] % MODULUS;
+            codewords[dataCount + last - j] = value != 0 ? MODULUS - value : 0;
+        }
+    }
+
+    /**
+     * Returns the coefficients of the generator polynomial for the specified number of error
+     * correction codewords, lowest order first and without the leading coefficient.
+     *
+     * @param eccCount the number of error correction codewords
+     * @return the coefficients
+     */
+    public static int[] getCoefficients(int eccCount) {
+        int[] generator = getGenerator(eccCount);
+        int[] coefficients = new int[eccCount];
+        for (int j = 0; j < eccCount; j++) {
+            coefficients[j] = (MODULUS - generator[j]) % MODULUS;
+        }
+        return coefficients;
+    }
+
+    private static int[] getGenerator(int eccCount) {
+        if (eccCount < 1 || eccCount > MAX_ECC_CODEWORDS) {
+            throw new IllegalArgumentException("Invalid number of error correction codewords: " + eccCount);
+        }
+        int[] generator = GENERATORS.get(eccCount);
+        if (generator == null) {
+            /* multiply out (x - 3)(x - 9)...(x - 3^k), highest order coefficient first */
+            int[] poly = new int[eccCount + 1];
+            poly[0] = 1;
+            int root = 1;
+            for (int i = 1; i <= eccCount; i++) {
+                root = (root * 3) % MODULUS;
+                for (int j = i; j > 0; j--) {
+                    poly[j] = (poly[j] + MODULUS - (poly[j - 1] * root) % MODULUS) % MODULUS;
+                }
+            }
+            /* store the negated coefficients lowest order first, so that encoding only adds */
+            generator = new int[eccCount];
+            for (int j = 0; j < eccCount; j++) {
+                generator[j] = (MODULUS - poly[eccCount - j]) % MODULUS;
+            }
+            GENERATORS.compareAndSet(eccCount, null, generator);
+            generator = GENERATORS.get(eccCount);
+        }
+        return generator;
+    }
+}
@@ -0,0 +1,34 @@
+package org.xbib.graphics.barcode;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A symbol has been encoded.
+ */
+@Name("org.xbib.graphics.barcode.Encode")
+@Label("Barcode Encode")
+@Category("Barcode")
+@Description("A symbol has been encoded")
+class EncodeEvent extends Event {
+
+    @Label("Symbology")
+    String symbology;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Encode Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+}
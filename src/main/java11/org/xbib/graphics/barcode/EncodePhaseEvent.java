@@ -0,0 +1,28 @@
+package org.xbib.graphics.barcode;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A phase of encoding or rendering a symbol has completed.
+ */
+@Name("org.xbib.graphics.barcode.EncodePhase")
+@Label("Barcode Encode Phase")
+@Category("Barcode")
+@Description("A phase of encoding or rendering a symbol has completed")
+class EncodePhaseEvent extends Event {
+
+    @Label("Symbology")
+    String symbology;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Phase Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+}
@@ -0,0 +1,46 @@
+package org.xbib.graphics.barcode;
+
+/**
+ * An {@link EncodeListener} which records the phases of encoding and rendering symbols as Java Flight
+ * Recorder events, <code>org.xbib.graphics.barcode.Encode</code> and
+ * <code>org.xbib.graphics.barcode.EncodePhase</code>, with the symbology, the input length and the
+ * size of the symbol. The events are only created while a recording has them enabled.
+ *
+ * <p>The events are recorded on Java 11 and later, where the multi-release jar of this library contains
+ * an implementation based on <code>jdk.jfr</code>. On Java 8 this listener does nothing.
+ */
+public class FlightRecorderListener implements EncodeListener {
+
+    /**
+     * Returns whether this listener records events on the running Java version.
+     *
+     * @return whether this listener records events
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public void phaseCompleted(Symbol symbol, EncodePhase phase, long nanos) {
+        EncodePhaseEvent event = new EncodePhaseEvent();
+        if (event.isEnabled()) {
+            event.symbology = symbol.getClass().getSimpleName();
+            event.phase = phase.name();
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void encodeCompleted(Symbol symbol, int inputLength, long nanos) {
+        EncodeEvent event = new EncodeEvent();
+        if (event.isEnabled()) {
+            event.symbology = symbol.getClass().getSimpleName();
+            event.inputLength = inputLength;
+            event.width = symbol.getWidth();
+            event.height = symbol.getHeight();
+            event.time = nanos;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * Tests for binary content given as byte arrays and byte buffers.
+ */
+public class BinaryContentTest {
+
+    private static final List<Supplier<Symbol>> SYMBOLS = Arrays.asList(
+            QrCode::new, DataMatrix::new, AztecCode::new, Pdf417::new, GridMatrix::new, MaxiCode::new);
+
+    @Test
+    public void testSameAsLatin1Content() {
+        byte[] data = new byte[80];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 37 + 11);
+        }
+        for (Supplier<Symbol> supplier : SYMBOLS) {
+            assertSameSymbols(supplier, data);
+        }
+    }
+
+    @Test
+    public void testSameAsAsciiContent() {
+        /* Code One can't encode most bytes above 127 */
+        byte[] data = new byte[80];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ((i * 37 + 11) & 0x7f);
+        }
+        assertSameSymbols(CodeOne::new, data);
+    }
+
+    private static void assertSameSymbols(Supplier<Symbol> supplier, byte[] data) {
+        String text = new String(data, StandardCharsets.ISO_8859_1);
+        byte[] padded = new byte[data.length + 7];
+        System.arraycopy(data, 0, padded, 3, data.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+        direct.put(padded);
+        direct.position(3).limit(3 + data.length);
+        ByteBuffer slice = ByteBuffer.wrap(padded, 3, data.length).slice();
+        Symbol expected = supplier.get();
+        expected.setContent(text);
+        Symbol fromArray = supplier.get();
+        fromArray.setContent(data);
+        Symbol fromRange = supplier.get();
+        fromRange.setContent(padded, 3, data.length);
+        Symbol fromDirect = supplier.get();
+        fromDirect.setContent(direct);
+        Symbol fromSlice = supplier.get();
+        fromSlice.setContent(slice);
+        String name = expected.getClass().getSimpleName();
+        assertEquals(name, text, fromArray.getContent());
+        assertEquals(name, expected.rectangles, fromArray.rectangles);
+        assertEquals(name, expected.rectangles, fromRange.rectangles);
+        assertEquals(name, expected.rectangles, fromDirect.rectangles);
+        assertEquals(name, expected.rectangles, fromSlice.rectangles);
+        assertEquals(name, expected.hexagons, fromArray.hexagons);
+        assertEquals(3, direct.position());
+    }
+
+    @Test
+    public void testNoCharacterSetConversion() {
+        /* valid GB2312, which Grid Matrix would otherwise encode with chinese compaction */
+        byte[] data = "\u4e2d\u6587".getBytes(Charset.forName("EUC_CN"));
+        GridMatrix symbol = new GridMatrix();
+        symbol.setDiagnosticsLevel(DiagnosticsLevel.SUMMARY);
+        symbol.setContent(data);
+        assertTrue(symbol.getEncodeInfo().contains("Encoding binary data"));
+        assertFalse(symbol.getEncodeInfo().contains("GB2312"));
+    }
+
+    @Test
+    public void testInvalidRange() {
+        try {
+            new QrCode().setContent(new byte[10], 8, 3);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid offset"));
+        }
+    }
+
+    @Test
+    public void testNoBinaryGs1() {
+        DataMatrix symbol = new DataMatrix();
+        symbol.setDataType(Symbol.DataType.GS1);
+        try {
+            symbol.setContent(new byte[] {'1', '2'});
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("GS1"));
+        }
+    }
+}
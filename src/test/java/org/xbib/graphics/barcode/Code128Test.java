@@ -0,0 +1,94 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.oned.Code128Reader;
+
+/**
+ * {@link Code128} tests that can't be run via the {@link SymbolTest}.
+ */
+public class Code128Test {
+
+    private static final String[] PAYLOADS = {
+            "Code 128 12345678 test",
+            "A1B2C3D4E5F6",
+            "12345a67890b12345",
+            "\u0001\u0002abc\u0003\u0004def\u0005",
+            "Größe 42 ÄÖÜÉÈ 2019-0815 façade",
+            "ÀÁÂÃÄÅÆÇÈÉÊËÌÍÎÏ0123456789ÐÑÒÓÔÕÖ",
+            "Lot 0815/4711 été §2 µm 12"
+    };
+
+    private static final String[] GS1_PAYLOADS = {
+            "[01]09501101530003[17]140704[10]AB-123",
+            "[00]123456789012345675",
+            "[01]19012345678903[10]1234567890ABC[21]A1B2C3",
+            "[02]12345678901231[37]24[400]A1234567"
+    };
+
+    private static final String CHARACTERS = "0123456789ABCXYZabcxyz !%\u0001\u001fÄéü";
+
+    /**
+     * The optimal subset planner never produces a wider symbol than the ISO 15417 Annex E rules, and its
+     * symbols decode to the original data.
+     */
+    @Test
+    public void testOptimalSubsets() throws ReaderException {
+        for (String payload : PAYLOADS) {
+            compare(payload, Symbol.DataType.ECI);
+        }
+        for (String payload : GS1_PAYLOADS) {
+            Code128 standard = encode(payload, Symbol.DataType.GS1, false);
+            Code128 optimal = encode(payload, Symbol.DataType.GS1, true);
+            assertTrue(payload, optimal.getWidth() <= standard.getWidth());
+        }
+        Random random = new Random(128);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+            }
+            compare(sb.toString(), Symbol.DataType.ECI);
+        }
+    }
+
+    /**
+     * An instance encoded again with different data produces the same symbol as a new instance, which
+     * requires the subset runs of the previous data to be discarded.
+     */
+    @Test
+    public void testReuse() {
+        Code128 reused = new Code128();
+        reused.setDataType(Symbol.DataType.ECI);
+        for (String payload : PAYLOADS) {
+            reused.setContent(payload);
+            Code128 fresh = encode(payload, Symbol.DataType.ECI, false);
+            assertEquals(payload, fresh.getWidth(), reused.getWidth());
+            assertArrayEquals(payload, fresh.getPattern(), reused.getPattern());
+            assertEquals(payload, fresh.rectangles, reused.rectangles);
+        }
+    }
+
+    private static void compare(String payload, Symbol.DataType dataType) throws ReaderException {
+        Code128 standard = encode(payload, dataType, false);
+        Code128 optimal = encode(payload, dataType, true);
+        assertTrue(payload, optimal.getWidth() <= standard.getWidth());
+        assertEquals(payload, ZxingDecoder.decode(optimal, new Code128Reader()).getText());
+    }
+
+    private static Code128 encode(String payload, Symbol.DataType dataType, boolean optimalSubsets) {
+        Code128 code128 = new Code128();
+        code128.setDataType(dataType);
+        code128.setOptimalSubsets(optimalSubsets);
+        code128.setContent(payload);
+        return code128;
+    }
+}
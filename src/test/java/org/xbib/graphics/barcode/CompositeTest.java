@@ -0,0 +1,57 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.xbib.graphics.barcode.Composite.CompositeMode;
+import org.xbib.graphics.barcode.Composite.LinearEncoding;
+
+/**
+ * {@link Composite} tests that can't be run via the {@link SymbolTest}.
+ */
+public class CompositeTest {
+
+    /**
+     * An instance encoded again with different data and a different linear symbology produces the same
+     * symbol as a new instance.
+     */
+    @Test
+    public void testReuse() {
+        Object[][] inputs = {
+                {LinearEncoding.CODE_128, "[01]03312345678903", CompositeMode.CC_C, "[10]ABC123[21]XYZ"},
+                {LinearEncoding.EAN, "331234567890", CompositeMode.CC_A, "[99]1234-abcd"},
+                {LinearEncoding.DATABAR_EXPANDED, "[01]98898765432106[3202]012345", CompositeMode.CC_B, "[10]ABC123"},
+                {LinearEncoding.CODE_128, "[01]03312345678903", CompositeMode.CC_A, "[21]A1B2C3"},
+                {LinearEncoding.UPCE, "0123456", CompositeMode.CC_A, "[15]021231"},
+                {LinearEncoding.DATABAR_LIMITED, "0351234567890", CompositeMode.CC_B, "[10]ABC123[21]XYZ"},
+                {LinearEncoding.CODE_128, "[00]123456789012345675", CompositeMode.CC_B, "[10]1234567890ABC"}
+        };
+        Composite reused = new Composite();
+        for (Object[] input : inputs) {
+            encode(reused, input);
+            Composite fresh = new Composite();
+            encode(fresh, input);
+            assertSameSymbol(input[0] + " " + input[3], fresh, reused);
+        }
+    }
+
+    private static void encode(Composite composite, Object[] input) {
+        composite.setSymbology((LinearEncoding) input[0]);
+        composite.setLinear((String) input[1]);
+        composite.setPreferredMode((CompositeMode) input[2]);
+        EncodeResult result = composite.trySetContent((String) input[3]);
+        assertTrue(input[0] + " " + input[3] + ": " + result.getMessage(), result.isSuccess());
+    }
+
+    private static void assertSameSymbol(String message, Symbol expected, Symbol actual) {
+        assertEquals(message, expected.getWidth(), actual.getWidth());
+        assertEquals(message, expected.getHeight(), actual.getHeight());
+        assertArrayEquals(message, expected.getPattern(), actual.getPattern());
+        assertEquals(message, expected.rectangles, actual.rectangles);
+        assertEquals(message, expected.texts.toString(), actual.texts.toString());
+        assertEquals(message, expected.getEncodeInfo(), actual.getEncodeInfo());
+    }
+}
@@ -0,0 +1,60 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DiagnosticsLevel} and {@link Diagnostics}.
+ */
+public class DiagnosticsTest {
+
+    @Test
+    public void testOff() {
+        QrCode symbol = new QrCode();
+        symbol.setEccMode(QrCode.EccMode.M);
+        symbol.setContent("Hello World");
+        assertEquals(DiagnosticsLevel.OFF, symbol.getDiagnosticsLevel());
+        assertEquals("", symbol.getEncodeInfo());
+        Diagnostics diagnostics = symbol.getDiagnostics();
+        assertEquals(1, diagnostics.getVersion());
+        /* raised to Q, which fits into the same version */
+        assertEquals(QrCode.EccMode.Q.ordinal(), diagnostics.getEccLevel());
+        assertEquals(13, diagnostics.getDataCodewords());
+        assertEquals(13, diagnostics.getEccCodewords());
+        assertTrue(diagnostics.getMask() >= 0 && diagnostics.getMask() < 8);
+        assertEquals(3, diagnostics.getEci());
+    }
+
+    @Test
+    public void testSummaryAndVerbose() {
+        Pdf417 summary = new Pdf417();
+        summary.setDiagnosticsLevel(DiagnosticsLevel.SUMMARY);
+        summary.setContent("ABC123");
+        assertFalse(summary.getEncodeInfo().isEmpty());
+        assertFalse(summary.getEncodeInfo().contains("\nCodewords: "));
+
+        Pdf417 verbose = new Pdf417();
+        verbose.setDiagnosticsLevel(DiagnosticsLevel.VERBOSE);
+        verbose.setContent("ABC123");
+        assertTrue(verbose.getEncodeInfo().contains("\nCodewords: "));
+        assertEquals(summary.getDiagnostics().toString(), verbose.getDiagnostics().toString());
+
+        /* the info describes the last encoding only */
+        String info = verbose.getEncodeInfo();
+        verbose.setContent("ABC123");
+        assertEquals(info, verbose.getEncodeInfo());
+    }
+
+    @Test
+    public void testClearedOnEncode() {
+        QrCode symbol = new QrCode();
+        symbol.setContent("Hello World");
+        assertEquals(1, symbol.getDiagnostics().getVersion());
+        assertFalse(symbol.trySetContent("").isSuccess());
+        assertEquals(-1, symbol.getDiagnostics().getVersion());
+        assertEquals(-1, symbol.getDiagnostics().getMask());
+    }
+}
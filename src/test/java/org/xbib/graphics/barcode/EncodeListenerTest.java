@@ -0,0 +1,104 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.xbib.graphics.barcode.output.SvgRenderer;
+
+/**
+ * Tests for {@link EncodeListener}.
+ */
+public class EncodeListenerTest {
+
+    @Test
+    public void testPhases() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        QrCode symbol = new QrCode();
+        symbol.setEncodeListener(listener);
+        symbol.setContent("Hello World");
+        new SvgRenderer(new ByteArrayOutputStream(), 1, Color.WHITE, Color.BLACK).render(symbol);
+        assertEquals("[CHARACTER_SET, DATA_ENCODING, ERROR_CORRECTION, MODULE_PLACEMENT, MASKING, PLOTTING, RENDERING]",
+                listener.phases.toString());
+        assertEquals(1, listener.encoded);
+        assertEquals(11, listener.inputLength);
+        assertTrue(listener.nanos > 0);
+    }
+
+    @Test
+    public void testLinearSymbol() {
+        RecordingListener listener = new RecordingListener();
+        Code32 symbol = new Code32();
+        symbol.setEncodeListener(listener);
+        symbol.setContent("14325873");
+        /* the nested Code 39 symbol is not reported separately */
+        assertEquals("[PLOTTING]", listener.phases.toString());
+        assertEquals(1, listener.encoded);
+    }
+
+    @Test
+    public void testFailure() {
+        RecordingListener listener = new RecordingListener();
+        Ean symbol = new Ean();
+        symbol.setEncodeListener(listener);
+        assertFalse(symbol.trySetContent("12345A").isSuccess());
+        assertEquals(0, listener.encoded);
+    }
+
+    @Test
+    public void testDefaultListener() {
+        assertSame(EncodeListener.NONE, new Code128().getEncodeListener());
+        RecordingListener listener = new RecordingListener();
+        Symbol.setDefaultEncodeListener(listener);
+        try {
+            Code128 symbol = new Code128();
+            symbol.setContent("ABC123");
+            assertSame(listener, symbol.getEncodeListener());
+            assertEquals(1, listener.encoded);
+        } finally {
+            Symbol.setDefaultEncodeListener(EncodeListener.NONE);
+        }
+    }
+
+    @Test
+    public void testEncodedSymbol() throws IOException {
+        EncodedSymbol symbol = new SymbolCache(10).encode(new Code128(), "ABC123");
+        assertSame(EncodeListener.NONE, symbol.getEncodeListener());
+        RecordingListener listener = new RecordingListener();
+        symbol.setEncodeListener(listener);
+        new SvgRenderer(new ByteArrayOutputStream(), 1, Color.WHITE, Color.BLACK).render(symbol);
+        assertEquals("[RENDERING]", listener.phases.toString());
+        assertEquals(0, listener.encoded);
+    }
+
+    private static class RecordingListener implements EncodeListener {
+
+        final List<EncodePhase> phases = new ArrayList<>();
+
+        int encoded;
+
+        int inputLength;
+
+        long nanos;
+
+        @Override
+        public void phaseCompleted(Symbol symbol, EncodePhase phase, long nanos) {
+            phases.add(phase);
+        }
+
+        @Override
+        public void encodeCompleted(Symbol symbol, int inputLength, long nanos) {
+            this.encoded++;
+            this.inputLength = inputLength;
+            this.nanos = nanos;
+        }
+    }
+}
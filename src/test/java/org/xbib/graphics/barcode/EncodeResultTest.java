@@ -0,0 +1,146 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link Symbol#trySetContent(String)}.
+ */
+public class EncodeResultTest {
+
+    @Test
+    public void testSuccess() {
+        Code128 symbol = new Code128();
+        assertSame(EncodeResult.SUCCESS, symbol.trySetContent("ABC123"));
+        assertTrue(EncodeResult.SUCCESS.isSuccess());
+        assertEquals(EncodeError.NONE, EncodeResult.SUCCESS.getError());
+        assertEquals(-1, EncodeResult.SUCCESS.getPosition());
+        assertEquals("", EncodeResult.SUCCESS.getMessage());
+        assertFalse(symbol.rectangles.isEmpty());
+    }
+
+    @Test
+    public void testInvalidCharacter() {
+        EncodeResult result = assertFailure(Ean::new, "12345X7890128", EncodeError.INVALID_CHARACTER);
+        assertEquals(5, result.getPosition());
+        assertEquals("Invalid characters in input at position 5", result.getMessage());
+    }
+
+    @Test
+    public void testErrorCodes() {
+        assertFailure(Code128::new, "", EncodeError.NO_DATA);
+        assertFailure(Pharmacode::new, "200000", EncodeError.OUT_OF_RANGE);
+        assertFailure(AustraliaPost::new, "1234567890", EncodeError.INVALID_LENGTH);
+        assertFailure(() -> {
+            Code128 symbol = new Code128();
+            symbol.setDataType(Symbol.DataType.GS1);
+            return symbol;
+        }, "[01]09501101530004", EncodeError.INVALID_CHECK_DIGIT);
+        assertFailure(() -> {
+            DataMatrix symbol = new DataMatrix();
+            symbol.setDataType(Symbol.DataType.GS1);
+            return symbol;
+        }, "01]09501101530003", EncodeError.INVALID_GS1_DATA);
+        assertFailure(QrCode::new, new String(new char[5000]).replace('\0', 'A'), EncodeError.INPUT_TOO_LONG);
+    }
+
+    @Test
+    public void testGs1ApplicationIdentifier() {
+        EncodeResult result = assertFailure(() -> {
+            Code128 symbol = new Code128();
+            symbol.setDataType(Symbol.DataType.GS1);
+            return symbol;
+        }, "[01]09501101530003[10]ABé", EncodeError.INVALID_CHARACTER);
+        assertTrue(result.getMessage().startsWith("Extended ASCII characters"));
+        result = assertFailure(() -> {
+            Code128 symbol = new Code128();
+            symbol.setDataType(Symbol.DataType.GS1);
+            return symbol;
+        }, "[01]0950110153000", EncodeError.INVALID_LENGTH);
+        assertEquals("Invalid data length for AI (01)", result.getMessage());
+    }
+
+    @Test
+    public void testNestedSymbol() {
+        EncodeResult result = assertFailure(() -> {
+            Composite symbol = new Composite();
+            symbol.setSymbology(Composite.LinearEncoding.EAN);
+            symbol.setLinear("12345678X012");
+            return symbol;
+        }, "[01]09501101530003", EncodeError.INVALID_CHARACTER);
+        assertEquals(8, result.getPosition());
+    }
+
+    @Test
+    public void testErrorIsReset() {
+        Ean symbol = new Ean();
+        assertFalse(symbol.trySetContent("X").isSuccess());
+        assertSame(EncodeResult.SUCCESS, symbol.trySetContent("123456789012"));
+    }
+
+    /**
+     * Content which once made {@link Symbol#trySetContent(String)} throw an exception or never return, and
+     * random content, is either encoded or reported as invalid.
+     */
+    @Test(timeout = 60000)
+    public void testRandomContent() {
+        List<Supplier<Symbol>> symbols = Arrays.asList(Code16k::new, CodeOne::new, GridMatrix::new,
+                KoreaPost::new, Telepen::new, CodablockF::new);
+        String[] known = {"8,7787", "A   Z\u00019099", "9q5e\u2d22t\r", "\u10f24^}u0", "b[4", "E .\u1db8",
+                "123456", "\u00e9t\u00e9", "\u007f", "\u0000", "\u0001\u007f"};
+        for (Supplier<Symbol> supplier : symbols) {
+            for (String content : known) {
+                supplier.get().trySetContent(content);
+            }
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = 1 + random.nextInt(random.nextBoolean() ? 12 : 80);
+            for (int j = 0; j < length; j++) {
+                int type = random.nextInt(10);
+                if (type < 6) {
+                    content.append((char) (32 + random.nextInt(95)));
+                } else if (type < 7) {
+                    content.append((char) random.nextInt(32));
+                } else if (type < 8) {
+                    content.append((char) (127 + random.nextInt(129)));
+                } else if (type < 9) {
+                    content.append((char) ('0' + random.nextInt(10)));
+                } else {
+                    content.append((char) (0x100 + random.nextInt(0x3000)));
+                }
+            }
+            for (Supplier<Symbol> supplier : symbols) {
+                supplier.get().trySetContent(content.toString());
+            }
+        }
+    }
+
+    /**
+     * Checks the error of invalid content, and that {@link Symbol#setContent(String)} throws an
+     * exception with the same message.
+     */
+    private static EncodeResult assertFailure(Supplier<Symbol> supplier, String content, EncodeError error) {
+        EncodeResult result = supplier.get().trySetContent(content);
+        assertFalse(result.isSuccess());
+        assertEquals(result.getMessage(), error, result.getError());
+        try {
+            supplier.get().setContent(content);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), result.getMessage());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * {@link GridMatrix} tests that can't be run via the {@link SymbolTest}. The symbols produced by mode
+ * selection are checked against the fixtures in the <code>gridmatrix</code> test resources.
+ */
+public class GridMatrixTest {
+
+    /**
+     * Text that doesn't fit into the largest symbol is reported as too long, after running through
+     * mode selection.
+     */
+    @Test
+    public void testTooLong() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1500) {
+            sb.append("电池充电器 AAT2556 200mA ");
+        }
+        GridMatrix gridMatrix = new GridMatrix();
+        EncodeResult result = gridMatrix.trySetContent(sb.toString());
+        assertEquals(EncodeError.INPUT_TOO_LONG, result.getError());
+    }
+
+    /**
+     * Symbols without human readable text can be plotted.
+     */
+    @Test
+    public void testPlot() {
+        GridMatrix gridMatrix = new GridMatrix();
+        gridMatrix.setContent("电池充电器 AAT2556");
+        assertTrue(gridMatrix.getWidth() > 0);
+        assertTrue(gridMatrix.texts.isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.pdf417.PDF417ResultMetadata;
+
+/**
+ * Tests for {@link MacroPdf417Encoder}.
+ */
+public class MacroPdf417EncoderTest {
+
+    @Test
+    public void testBinaryData() throws IOException, ReaderException {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(10, 30, 5);
+        encoder.setFileId(17);
+        encoder.setParallelism(4);
+        byte[] data = new byte[encoder.getSegmentCapacity() * 10 + 17];
+        new Random(42).nextBytes(data);
+        List<Pdf417> symbols = new ArrayList<>();
+        assertEquals(11, encoder.encode(new ByteArrayInputStream(data), symbol -> symbols.add((Pdf417) symbol)));
+        assertEquals(11, symbols.size());
+        verifySeries(symbols, data, encoder.getSegmentCapacity(), "AR");
+    }
+
+    @Test
+    public void testTextData() throws IOException, ReaderException {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(4, 20, 2);
+        encoder.setFileId(345);
+        encoder.setParallelism(1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 2000; i++) {
+            sb.append("Item ").append(i).append(": 0815-").append(i * 7919).append(" x ").append(i % 13).append('\n');
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        List<Pdf417> symbols = new ArrayList<>();
+        int count = encoder.encode(Channels.newChannel(new ByteArrayInputStream(data)), symbol -> symbols.add((Pdf417) symbol));
+        assertEquals((data.length + encoder.getSegmentCapacity() - 1) / encoder.getSegmentCapacity(), count);
+        verifySeries(symbols, data, encoder.getSegmentCapacity(), "LP");
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(4, 20, 2);
+        encoder.setMode(Pdf417.Mode.TRUNCATED);
+        byte[] data = new byte[encoder.getSegmentCapacity() * 3];
+        new Random(7).nextBytes(data);
+        List<Pdf417> symbols = new ArrayList<>();
+        assertEquals(3, encoder.encode(new ByteArrayInputStream(data), symbol -> symbols.add((Pdf417) symbol)));
+        for (Pdf417 symbol : symbols) {
+            assertEquals(Pdf417.Mode.TRUNCATED, symbol.getMode());
+            assertEquals(20, symbol.getRows().intValue());
+            assertEquals(4, symbol.getDataColumns().intValue());
+        }
+    }
+
+    @Test
+    public void testSingleSymbol() throws IOException, ReaderException {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(5, 10, 2);
+        List<Pdf417> symbols = new ArrayList<>();
+        assertEquals(1, encoder.encode(new ByteArrayInputStream("ABC".getBytes(StandardCharsets.US_ASCII)),
+                symbol -> symbols.add((Pdf417) symbol)));
+        Result result = ZxingDecoder.decode(symbols.get(0), new PDF417Reader());
+        assertEquals("ABC", result.getText());
+        assertNull(getMetadata(result).getFileId());
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(5, 10, 2);
+        assertEquals(0, encoder.encode(new ByteArrayInputStream(new byte[0]), symbol -> fail()));
+    }
+
+    @Test
+    public void testRendererFailure() {
+        MacroPdf417Encoder encoder = new MacroPdf417Encoder(3, 4, 0);
+        encoder.setParallelism(2);
+        try {
+            encoder.encode(new ByteArrayInputStream(new byte[1000]), symbol -> {
+                throw new IOException("disk full");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTooSmallSymbols() {
+        try {
+            new MacroPdf417Encoder(1, 3, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().endsWith("can't hold any data"));
+        }
+    }
+
+    /**
+     * Decodes every symbol of a series, and checks its data and its Macro PDF417 control block. ZXing
+     * reads the file ID codeword with text compaction, so the file IDs are given as two upper case
+     * letters, the quotient and the remainder of the codeword divided by 30.
+     */
+    private static void verifySeries(List<Pdf417> symbols, byte[] data, int capacity, String fileId)
+            throws ReaderException {
+        for (int i = 0; i < symbols.size(); i++) {
+            Pdf417 symbol = symbols.get(i);
+            boolean last = i == symbols.size() - 1;
+            assertEquals(symbols.get(0).getWidth(), symbol.getWidth());
+            assertEquals(symbols.get(0).getHeight(), symbol.getHeight());
+            Result result = ZxingDecoder.decode(symbol, new PDF417Reader());
+            byte[] segment = Arrays.copyOfRange(data, i * capacity, Math.min(data.length, (i + 1) * capacity));
+            assertArrayEquals("segment " + i, segment, result.getText().getBytes(StandardCharsets.ISO_8859_1));
+            PDF417ResultMetadata metadata = getMetadata(result);
+            assertEquals(i, metadata.getSegmentIndex());
+            assertEquals(fileId, metadata.getFileId());
+            assertEquals("segment " + i, last, metadata.isLastSegment());
+        }
+    }
+
+    private static PDF417ResultMetadata getMetadata(Result result) {
+        return (PDF417ResultMetadata) result.getResultMetadata().get(ResultMetadataType.PDF417_EXTRA_METADATA);
+    }
+}
@@ -0,0 +1,99 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.pdf417.PDF417Reader;
+
+/**
+ * {@link Pdf417} tests that can't be run via the {@link SymbolTest}.
+ */
+public class Pdf417Test {
+
+    private static final Logger logger = Logger.getLogger(Pdf417Test.class.getName());
+
+    private static final String[] PAYLOADS = {
+            "This is just a test.",
+            "TESTING 12345678901234567890 testing@TESTING",
+            "12üƒœ˜Ë±‹3asdf23456789012asdf89012asdf89asdfaf2",
+            "[)>\u001e01\u001d02V1Z1G5124026901066870001875\u001dFDEB\u001d9010668195\u001d1/1\u001d15.0LB\u001dN\u001d77 "
+                    + "REDDY DRIVE\u001dMELIANA\u001dBC\u001e06\u001d10ZGI006\u001d11ZRTC TEST\u001d12Z9012633035\u001d"
+                    + "23ZN\u001d22ZN\u001d20Z0.0\u001d",
+            repeat("Invoice 2019-0815, Qty 12 x 4711-0815-42, EUR 1.234,56; ", 20),
+            repeat("0123456789", 150) + repeat("abc", 30) + repeat("9876543210", 60)
+    };
+
+    /**
+     * Compares the symbol size produced by the default block heuristics with the size produced by the
+     * optimal compaction planner, and logs a density report.
+     */
+    @Test
+    public void testOptimalCompactionDensity() {
+        StringBuilder report = new StringBuilder("PDF417 compaction density (default -> optimal)\n");
+        for (Pdf417.Mode mode : Pdf417.Mode.values()) {
+            for (String payload : PAYLOADS) {
+                Pdf417 standard = encode(mode, payload, false);
+                Pdf417 optimal = encode(mode, payload, true);
+                if (standard == null || optimal == null) {
+                    continue;
+                }
+                int standardArea = standard.getWidth() * standard.getHeight();
+                int optimalArea = optimal.getWidth() * optimal.getHeight();
+                assertTrue(mode + " " + payload, optimal.getRows() <= standard.getRows()
+                        || optimal.getDataColumns() < standard.getDataColumns());
+                report.append(String.format("%-9s %5d chars: %2d x %2d -> %2d x %2d, area %7d -> %7d (%+.1f%%)%n",
+                        mode, payload.length(), standard.getDataColumns(), standard.getRows(),
+                        optimal.getDataColumns(), optimal.getRows(), standardArea, optimalArea,
+                        100.0 * (optimalArea - standardArea) / standardArea));
+            }
+        }
+        logger.info(report.toString());
+    }
+
+    /**
+     * Byte shifts out of the punctuation submode must not leave the decoder in the alpha submode.
+     */
+    @Test
+    public void testOptimalCompactionDecodes() throws ReaderException {
+        String[] payloads = {
+                "!!!\u00e9!!",
+                "{(}\u0001\r'!?;\u00e9@[~",
+                ";:\u00e9|/.~\u00fc!!$%&",
+                "#$\u00e9\u00e9%&'()*"
+        };
+        for (String payload : payloads) {
+            Pdf417 pdf417 = encode(Pdf417.Mode.NORMAL, payload, true);
+            assertEquals(payload, ZxingDecoder.decode(pdf417, new PDF417Reader()).getText());
+        }
+        for (String payload : PAYLOADS) {
+            Pdf417 pdf417 = encode(Pdf417.Mode.NORMAL, payload, true);
+            assertEquals(payload, ZxingDecoder.decode(pdf417, new PDF417Reader()).getText());
+        }
+    }
+
+    private static Pdf417 encode(Pdf417.Mode mode, String payload, boolean optimalCompaction) {
+        Pdf417 pdf417 = new Pdf417();
+        pdf417.setMode(mode);
+        pdf417.setOptimalCompaction(optimalCompaction);
+        try {
+            pdf417.setContent(payload);
+        } catch (IllegalStateException e) {
+            // payload too large for this mode
+            return null;
+        }
+        return pdf417;
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.qrcode.QRCodeReader;
+
+/**
+ * Tests for {@link QrCodeSplitter} and QR Code structured append.
+ */
+public class QrCodeSplitterTest {
+
+    @Test
+    public void testSplit() throws ReaderException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 3000; i++) {
+            sb.append("Lot ").append(i).append(" received 2019-08-15 by warehouse 0815, checked OK; ");
+        }
+        String content = sb.toString();
+        QrCodeSplitter splitter = new QrCodeSplitter() {
+            @Override
+            protected QrCode createSymbol() {
+                QrCode symbol = new QrCode();
+                symbol.setDiagnosticsLevel(DiagnosticsLevel.SUMMARY);
+                return symbol;
+            }
+        };
+        splitter.setMaximumVersion(10);
+        splitter.setEccMode(QrCode.EccMode.M);
+        List<QrCode> symbols = splitter.split(content);
+        assertTrue(symbols.size() > 1 && symbols.size() <= 16);
+        int parity = getParity(content, "ISO-8859-1");
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < symbols.size(); i++) {
+            QrCode symbol = symbols.get(i);
+            assertEquals(i + 1, symbol.getStructuredAppendPosition());
+            assertEquals(symbols.size(), symbol.getStructuredAppendTotal());
+            assertEquals(parity, symbol.getStructuredAppendParity());
+            assertEquals(symbols.get(0).getWidth(), symbol.getWidth());
+            assertTrue(symbol.getWidth() <= 57);
+            assertTrue(symbol.getEncodeInfo().contains("Structured Append: " + (i + 1) + " of " + symbols.size()));
+            joined.append(decode(symbol, i, symbols.size(), parity));
+        }
+        assertEquals(content, joined.toString());
+
+        splitter.setMaximumVersion(40);
+        assertEquals(2, splitter.split(content).size());
+        assertEquals(1, splitter.split(content.substring(0, 1000)).size());
+    }
+
+    /**
+     * The parity covers the bytes of the whole content, so all parts use its character set, even parts
+     * which a smaller character set could encode.
+     */
+    @Test
+    public void testCharacterSet() throws ReaderException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            sb.append("Order ").append(i).append(" shipped to Athens; ");
+        }
+        sb.append("\u0391\u03b8\u03ae\u03bd\u03b1 \u03a9\u03bc\u03ad\u03b3\u03b1");
+        String content = sb.toString();
+        QrCodeSplitter splitter = new QrCodeSplitter();
+        splitter.setMaximumVersion(10);
+        List<QrCode> symbols = splitter.split(content);
+        assertTrue(symbols.size() > 1);
+        int parity = getParity(content, "ISO-8859-7");
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < symbols.size(); i++) {
+            QrCode symbol = symbols.get(i);
+            assertEquals(9, symbol.eciMode);
+            assertEquals(parity, symbol.getStructuredAppendParity());
+            joined.append(decode(symbol, i, symbols.size(), parity));
+        }
+        assertEquals(content, joined.toString());
+    }
+
+    @Test
+    public void testSingleSymbol() {
+        List<QrCode> symbols = new QrCodeSplitter().split("https://github.com/xbib/graphics");
+        assertEquals(1, symbols.size());
+        QrCode qrCode = new QrCode();
+        qrCode.setContent("https://github.com/xbib/graphics");
+        assertEquals(1, symbols.get(0).getStructuredAppendTotal());
+        assertEquals(qrCode.rectangles, symbols.get(0).rectangles);
+    }
+
+    @Test
+    public void testTooLong() {
+        QrCodeSplitter splitter = new QrCodeSplitter();
+        splitter.setMaximumVersion(1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("abc");
+        }
+        try {
+            splitter.split(sb.toString());
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Input too long for 16 symbols"));
+        }
+    }
+
+    @Test
+    public void testStructuredAppendHeader() {
+        QrCode plain = new QrCode();
+        plain.setContent("12345");
+        QrCode appended = new QrCode();
+        appended.setStructuredAppendTotal(3);
+        appended.setStructuredAppendPosition(2);
+        appended.setStructuredAppendParity(0x31);
+        appended.setContent("12345");
+        assertEquals(plain.getWidth(), appended.getWidth());
+        assertTrue(!plain.rectangles.equals(appended.rectangles));
+        try {
+            QrCode invalid = new QrCode();
+            invalid.setStructuredAppendPosition(3);
+            invalid.setStructuredAppendTotal(2);
+            invalid.setContent("12345");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Structured append position exceeds the number of symbols", e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes a symbol of a series, and checks its structured append header.
+     */
+    private static String decode(QrCode symbol, int index, int total, int parity) throws ReaderException {
+        Result result = ZxingDecoder.decode(symbol, new QRCodeReader());
+        assertEquals((index << 4) | (total - 1), result.getResultMetadata().get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE));
+        assertEquals(parity, result.getResultMetadata().get(ResultMetadataType.STRUCTURED_APPEND_PARITY));
+        return result.getText();
+    }
+
+    /* the exclusive or of all bytes of the content in its character set, see ISO/IEC 18004 */
+    private static int getParity(String content, String charset) {
+        int parity = 0;
+        for (byte b : content.getBytes(Charset.forName(charset))) {
+            parity ^= b & 0xff;
+        }
+        return parity;
+    }
+}
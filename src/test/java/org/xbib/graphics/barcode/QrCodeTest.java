@@ -0,0 +1,28 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.zxing.ReaderException;
+import com.google.zxing.qrcode.QRCodeReader;
+
+/**
+ * {@link QrCode} tests that can't be run via the {@link SymbolTest}.
+ */
+public class QrCodeTest {
+
+    /**
+     * Mixed Alphanumeric, Numeric and Byte data fits into a version 1 symbol only with the optimal
+     * segmentation; the former block heuristics needed version 2.
+     */
+    @Test
+    public void testMixedModeSegmentation() throws ReaderException {
+        QrCode qrCode = new QrCode();
+        qrCode.setEccMode(QrCode.EccMode.L);
+        qrCode.setContent("LOT 78844 SN 93277abc");
+        assertEquals(1, qrCode.getDiagnostics().getVersion());
+        assertEquals(21, qrCode.getWidth());
+        assertEquals("LOT 78844 SN 93277abc", ZxingDecoder.decode(qrCode, new QRCodeReader()).getText());
+    }
+}
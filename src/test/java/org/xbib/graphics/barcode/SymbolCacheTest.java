@@ -0,0 +1,148 @@
+package org.xbib.graphics.barcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SymbolCache}.
+ */
+public class SymbolCacheTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        SymbolCache cache = new SymbolCache(10);
+        EncodedSymbol first = cache.encode(new Ean(), "501234567890");
+        Ean ean = new Ean();
+        EncodedSymbol second = cache.encode(ean, "501234567890");
+        assertSame(first, second);
+        assertEquals(null, ean.getContent());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(Ean.class, first.getSymbology());
+
+        Ean direct = new Ean();
+        direct.setContent("501234567890");
+        assertEquals(direct.getWidth(), first.getWidth());
+        assertEquals(direct.getHeight(), first.getHeight());
+        assertEquals(direct.rectangles, first.rectangles);
+        assertEquals(direct.texts.size(), first.texts.size());
+        assertEquals(direct.getEncodeInfo(), first.getEncodeInfo());
+    }
+
+    @Test
+    public void testConfigurationIsPartOfKey() {
+        SymbolCache cache = new SymbolCache(10);
+        Code128 plain = new Code128();
+        Code128 tall = new Code128();
+        tall.setBarHeight(80);
+        Code128 noText = new Code128();
+        noText.setHumanReadableLocation(HumanReadableLocation.NONE);
+        EncodedSymbol tallSymbol = cache.encode(tall, "ABC123");
+        assertNotSame(cache.encode(plain, "ABC123"), tallSymbol);
+        assertEquals(80, tallSymbol.getBarHeight());
+        assertNotSame(cache.encode(new Code128(), "ABC123"), cache.encode(noText, "ABC123"));
+        assertNotSame(cache.encode(new Code128(), "ABC123"), cache.encode(new Code3Of9(), "ABC123"));
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testEviction() {
+        SymbolCache cache = new SymbolCache(2);
+        EncodedSymbol a = cache.encode(new Code128(), "A");
+        cache.encode(new Code128(), "B");
+        cache.encode(new Code128(), "A");
+        cache.encode(new Code128(), "C");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.encode(new Code128(), "A"));
+        cache.encode(new Code128(), "B");
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        SymbolCache cache = new SymbolCache(10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.encode(new Ean(), "50123456789A");
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("Invalid characters in input at position 11", e.getMessage());
+            }
+        }
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testEncodedSymbolIsImmutable() {
+        SymbolCache cache = new SymbolCache(10);
+        EncodedSymbol symbol = cache.encode(new Code128(), "ABC123");
+        try {
+            symbol.setContent("XYZ");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            symbol.trySetContent("XYZ");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals("ABC123", symbol.getContent());
+        try {
+            symbol.rectangles.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            cache.encode(symbol, "XYZ");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsEncodeOnce() throws Exception {
+        final SymbolCache cache = new SymbolCache(10);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<EncodedSymbol>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<EncodedSymbol>() {
+                    @Override
+                    public EncodedSymbol call() throws Exception {
+                        start.await();
+                        QrCode qrCode = new QrCode();
+                        return cache.encode(qrCode, "https://github.com/xbib/graphics");
+                    }
+                }));
+            }
+            start.countDown();
+            EncodedSymbol first = futures.get(0).get();
+            for (Future<EncodedSymbol> future : futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount());
+    }
+}
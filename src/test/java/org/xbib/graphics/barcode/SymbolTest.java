@@ -55,6 +55,7 @@ import com.google.zxing.Result;
 import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.common.HybridBinarizer;
 import com.google.zxing.oned.CodaBarReader;
+import com.google.zxing.oned.Code128Reader;
 import com.google.zxing.oned.Code39Reader;
 import com.google.zxing.oned.Code93Reader;
 import com.google.zxing.oned.EAN13Reader;
@@ -227,7 +228,7 @@ public class SymbolTest {
             }
         } catch (UnsupportedOperationException e) {
             // codewords aren't supported, try to verify patterns
-            String[] actualPatterns = symbol.pattern;
+            String[] actualPatterns = symbol.getPattern();
             if (actualPatterns != null) {
                 assertEquals(expectedList.size(), actualPatterns.length);
                 for (int i = 0; i < actualPatterns.length; i++) {
@@ -270,9 +271,12 @@ public class SymbolTest {
         if (symbol instanceof Code93) {
             return new Code93Reader();
         } else if (symbol instanceof Code3Of9) {
-            return new Code39Reader();
+            /* ZXing verifies and removes the check digit */
+            return new Code39Reader(((Code3Of9) symbol).getCheckDigit() == Code3Of9.CheckDigit.MOD43);
         } else if (symbol instanceof Codabar) {
             return new CodaBarReader();
+        } else if (symbol instanceof Code128) {
+            return new Code128Reader();
         } else if (symbol instanceof QrCode) {
             return new QRCodeReader();
         } else if (symbol instanceof Ean) {
@@ -386,7 +390,7 @@ public class SymbolTest {
                     writer.println(codeword);
                 }
             } catch (UnsupportedOperationException e) {
-                for (String pattern : symbol.pattern) {
+                for (String pattern : symbol.getPattern()) {
                     writer.println(pattern);
                 }
             }
@@ -464,18 +468,27 @@ public class SymbolTest {
 
     /**
      * Returns the method with the specified name in the specified class, or throws an exception if the specified method cannot be
-     * found.
+     * found. Of overloaded methods, the one which takes a string is preferred.
      *
      * @param clazz the class to search in
      * @param name the name of the method to search for
      * @return the method with the specified name in the specified class
      */
     private static Method getMethod(Class< ? > clazz, String name) {
+        Method found = null;
         for (Method method : clazz.getMethods()) {
             if (method.getName().equals(name)) {
-                return method;
+                if (method.getParameterCount() == 1 && String.class.equals(method.getParameterTypes()[0])) {
+                    return method;
+                }
+                if (found == null) {
+                    found = method;
+                }
             }
         }
+        if (found != null) {
+            return found;
+        }
         throw new RuntimeException("Unable to find method: " + name);
     }
 
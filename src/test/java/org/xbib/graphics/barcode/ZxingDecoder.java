@@ -0,0 +1,53 @@
+package org.xbib.graphics.barcode;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+
+import org.xbib.graphics.barcode.output.Java2DRenderer;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * Decodes symbols with ZXing, to check them against an independent implementation.
+ */
+final class ZxingDecoder {
+
+    private static final double SCALE = 4.0d;
+
+    private static final int QUIET_ZONE = 10;
+
+    private ZxingDecoder() {
+    }
+
+    /**
+     * Renders the specified symbol and decodes the image with the specified reader.
+     *
+     * @param symbol the symbol to decode
+     * @param reader the ZXing reader for the symbology
+     * @return the decoding result
+     * @throws ReaderException if the symbol can't be decoded
+     */
+    static Result decode(Symbol symbol, Reader reader) throws ReaderException {
+        int width = (int) (symbol.getWidth() * SCALE) + 2 * QUIET_ZONE;
+        int height = (int) (symbol.getHeight() * SCALE) + 2 * QUIET_ZONE;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setPaint(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.translate(QUIET_ZONE, QUIET_ZONE);
+        new Java2DRenderer(g2d, SCALE, Color.WHITE, Color.BLACK, false).render(symbol);
+        g2d.dispose();
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        Map<DecodeHintType, Boolean> hints = Collections.singletonMap(DecodeHintType.PURE_BARCODE, Boolean.TRUE);
+        return reader.decode(bitmap, hints);
+    }
+}
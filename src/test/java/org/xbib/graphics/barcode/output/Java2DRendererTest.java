@@ -0,0 +1,127 @@
+package org.xbib.graphics.barcode.output;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.xbib.graphics.barcode.Code128;
+import org.xbib.graphics.barcode.DataMatrix;
+import org.xbib.graphics.barcode.Ean;
+import org.xbib.graphics.barcode.MaxiCode;
+import org.xbib.graphics.barcode.Pdf417;
+import org.xbib.graphics.barcode.QrCode;
+import org.xbib.graphics.barcode.Symbol;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+
+/**
+ * Checks that rendering directly into an image raster gives the same pixels as rendering via a
+ * graphics context.
+ */
+public class Java2DRendererTest {
+
+    private static final double[] SCALING_FACTORS = {1, 2.5, 4};
+
+    @Test
+    public void testGrayImage() {
+        for (Symbol symbol : symbols()) {
+            for (double scalingFactor : SCALING_FACTORS) {
+                assertSamePixels(symbol, scalingFactor, BufferedImage.TYPE_BYTE_GRAY, null, Color.BLACK);
+                assertSamePixels(symbol, scalingFactor, BufferedImage.TYPE_BYTE_GRAY, null, Color.BLUE);
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryImage() {
+        byte[] gray = {0, (byte) 0x55, (byte) 0xAA, (byte) 0xFF};
+        IndexColorModel twoBits = new IndexColorModel(2, 4, gray, gray, gray);
+        for (Symbol symbol : symbols()) {
+            for (double scalingFactor : SCALING_FACTORS) {
+                assertSamePixels(symbol, scalingFactor, BufferedImage.TYPE_BYTE_BINARY, null, Color.BLACK);
+                assertSamePixels(symbol, scalingFactor, BufferedImage.TYPE_BYTE_BINARY, twoBits, Color.DARK_GRAY);
+            }
+        }
+    }
+
+    @Test
+    public void testPixelSnapping() {
+        Code128 code128 = new Code128();
+        code128.setContent("Hello World 12345");
+        assertEquals(3, Java2DRenderer.getDotsPerModule(203, 0.33));
+        for (int barWidthReduction = 0; barWidthReduction <= 1; barWidthReduction++) {
+            BufferedImage image = createImage(code128, 3, BufferedImage.TYPE_BYTE_GRAY, null);
+            Java2DRenderer renderer = new Java2DRenderer(image, 2.6, Color.WHITE, Color.BLACK, false);
+            renderer.setPixelSnapping(true);
+            renderer.setBarWidthReduction(barWidthReduction);
+            assertEquals(3, renderer.getScalingFactor(), 0);
+            renderer.render(code128);
+            /* every bar is a whole number of modules of three pixels, less the reduction */
+            int y = image.getHeight() / 2;
+            int bars = 0;
+            int x = 0;
+            while (x < image.getWidth()) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != 0) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < image.getWidth() && (image.getRGB(x, y) & 0xFFFFFF) == 0) {
+                    x++;
+                }
+                assertEquals("bar at " + start, 0, (x - start + barWidthReduction) % 3);
+                bars++;
+            }
+            assertEquals(code128.rectangles.size(), bars);
+        }
+    }
+
+    private static Symbol[] symbols() {
+        Code128 code128 = new Code128();
+        code128.setContent("Hello World 12345");
+        Ean ean = new Ean();
+        ean.setContent("501234567890");
+        Pdf417 pdf417 = new Pdf417();
+        pdf417.setContent("PDF417 is a stacked linear barcode symbol format used in a variety of applications");
+        DataMatrix dataMatrix = new DataMatrix();
+        dataMatrix.setContent("Data Matrix is a two-dimensional matrix barcode consisting of black and white cells");
+        QrCode qrCode = new QrCode();
+        qrCode.setContent("https://github.com/xbib/graphics");
+        MaxiCode maxiCode = new MaxiCode();
+        maxiCode.setContent("MaxiCode is used by United Parcel Service");
+        return new Symbol[] {code128, ean, pdf417, dataMatrix, qrCode, maxiCode};
+    }
+
+    private static void assertSamePixels(Symbol symbol, double scalingFactor, int type, IndexColorModel cm,
+                                         Color foreground) {
+        for (boolean antialias : new boolean[] {false, true}) {
+            BufferedImage expected = createImage(symbol, scalingFactor, type, cm);
+            Graphics2D g2d = expected.createGraphics();
+            new Java2DRenderer(g2d, scalingFactor, Color.WHITE, foreground, antialias).render(symbol);
+            g2d.dispose();
+            BufferedImage actual = createImage(symbol, scalingFactor, type, cm);
+            new Java2DRenderer(actual, scalingFactor, Color.WHITE, foreground, antialias).render(symbol);
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertEquals(symbol.getClass().getSimpleName() + " at " + scalingFactor + ", pixel " + x + "," + y,
+                            expected.getRGB(x, y), actual.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    private static BufferedImage createImage(Symbol symbol, double scalingFactor, int type, IndexColorModel cm) {
+        /* odd sizes, so that rows of packed pixels don't end on a byte boundary */
+        int width = (int) (symbol.getWidth() * scalingFactor) + 3;
+        int height = (int) (symbol.getHeight() * scalingFactor) + 1;
+        BufferedImage image = cm == null ? new BufferedImage(width, height, type)
+                : new BufferedImage(width, height, type, cm);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setPaint(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return image;
+    }
+}